@@ -0,0 +1,128 @@
+#!/bin/bash
+
+# Mide el tiempo desde que se lanza el proceso hasta la primera respuesta 2xx del backend.
+# Compara el jar normal con el perfil Maven "arranque" (AOT + CDS) y, si existe, el ejecutable
+# nativo (mvn -Pnative -DskipTests native:compile):
+#
+#   mvn -Parranque -DskipTests package
+#   set -a; source ../.env; set +a
+#   ./medir-arranque.sh                 # 5 arranques de cada variante
+#
+# Variables opcionales:
+#   REPETICIONES (5), PORT (8080), TIMEOUT_S (120)
+#   DEPORTUR_HISTORIAL_RESPALDO_DIR: respaldo del historial (target/arranque-historial si no se indica)
+#   URL: por defecto /actuator/health/readiness; con TOKEN se usa /api/catalogo
+#   TOKEN: JWT de Auth0 para medir una petición autenticada que llega a la base
+# Resultado en consola y en target/arranque-resultado.json
+
+set -u
+
+cd "$(dirname "$0")"
+
+REPETICIONES=${REPETICIONES:-5}
+PORT=${PORT:-8080}
+TIMEOUT_S=${TIMEOUT_S:-120}
+TOKEN=${TOKEN:-}
+if [ -n "$TOKEN" ]; then
+  URL=${URL:-http://localhost:$PORT/api/catalogo}
+else
+  URL=${URL:-http://localhost:$PORT/actuator/health/readiness}
+fi
+
+VERSION=0.0.1-SNAPSHOT
+JAR_NORMAL=target/deportur-backend-$VERSION.jar
+DIR_ARRANQUE=target/arranque
+JAR_ARRANQUE=deportur-backend-$VERSION-arranque.jar
+BINARIO_NATIVO=target/deportur-backend
+RESULTADO=target/arranque-resultado.json
+
+# Las variantes arrancan sin perfil dev, que es el único con un respaldo del historial por defecto
+export DEPORTUR_HISTORIAL_RESPALDO_DIR="${DEPORTUR_HISTORIAL_RESPALDO_DIR:-$PWD/target/arranque-historial}"
+mkdir -p "$DEPORTUR_HISTORIAL_RESPALDO_DIR"
+
+ahora_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Lanza la variante indicada en segundo plano y deja su PID en $PID
+lanzar() {
+  case "$1" in
+    normal)
+      java -jar "$JAR_NORMAL" > target/arranque-normal.log 2>&1 &
+      PID=$!
+      ;;
+    arranque)
+      local cds=""
+      [ -f "$DIR_ARRANQUE/deportur.jsa" ] && cds="-XX:SharedArchiveFile=deportur.jsa"
+      (cd "$DIR_ARRANQUE" && exec java $cds -Dspring.aot.enabled=true -Dspring.profiles.active=arranque \
+        -jar "$JAR_ARRANQUE") > target/arranque-arranque.log 2>&1 &
+      PID=$!
+      ;;
+    nativo)
+      "$BINARIO_NATIVO" > target/arranque-nativo.log 2>&1 &
+      PID=$!
+      ;;
+  esac
+}
+
+# Milisegundos hasta la primera respuesta 2xx, o vacío si no llega dentro de TIMEOUT_S
+medir() {
+  local inicio fin codigo
+  inicio=$(ahora_ms)
+  lanzar "$1"
+  while true; do
+    if [ -n "$TOKEN" ]; then
+      codigo=$(curl -s -o /dev/null -w '%{http_code}' -H "Authorization: Bearer $TOKEN" "$URL")
+    else
+      codigo=$(curl -s -o /dev/null -w '%{http_code}' "$URL")
+    fi
+    fin=$(ahora_ms)
+    if [[ "$codigo" == 2* ]]; then
+      echo $(( fin - inicio ))
+      break
+    fi
+    if (( fin - inicio > TIMEOUT_S * 1000 )) || ! kill -0 "$PID" 2>/dev/null; then
+      break
+    fi
+    sleep 0.05
+  done
+  kill "$PID" 2>/dev/null
+  wait "$PID" 2>/dev/null
+}
+
+mediana() {
+  printf '%s\n' "$@" | sort -n | awk '{v[NR]=$1} END {if (NR == 0) print ""; else if (NR % 2) print v[(NR+1)/2]; else print int((v[NR/2]+v[NR/2+1])/2)}'
+}
+
+variantes=()
+[ -f "$JAR_NORMAL" ] && variantes+=(normal)
+[ -f "$DIR_ARRANQUE/$JAR_ARRANQUE" ] && variantes+=(arranque)
+[ -x "$BINARIO_NATIVO" ] && variantes+=(nativo)
+if [ ${#variantes[@]} -eq 0 ]; then
+  echo "No hay jars en target/; ejecuta antes: mvn -Parranque -DskipTests package" >&2
+  exit 1
+fi
+
+echo "Primera respuesta 2xx de $URL ($REPETICIONES arranques por variante)"
+json="{\"url\": \"$URL\", \"variantes\": {"
+separador=""
+for variante in "${variantes[@]}"; do
+  tiempos=()
+  for ((i = 1; i <= REPETICIONES; i++)); do
+    t=$(medir "$variante")
+    if [ -z "$t" ]; then
+      echo "  $variante #$i: sin respuesta en ${TIMEOUT_S} s (ver target/arranque-$variante.log)" >&2
+      continue
+    fi
+    echo "  $variante #$i: $t ms"
+    tiempos+=("$t")
+  done
+  m=$(mediana "${tiempos[@]}")
+  echo "$variante: mediana ${m:-n/a} ms"
+  lista=$(IFS=,; echo "${tiempos[*]}")
+  json+="$separador\"$variante\": {\"mediana_ms\": ${m:-null}, \"tiempos_ms\": [$lista]}"
+  separador=", "
+done
+json+="}}"
+echo "$json" > "$RESULTADO"
+echo "Resultado en $RESULTADO"
@@ -0,0 +1,116 @@
+package com.deportur.benchmark;
+
+import com.deportur.model.*;
+import com.deportur.model.enums.EstadoEquipo;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.model.enums.NivelFidelizacion;
+import com.deportur.model.enums.TipoDocumento;
+import com.deportur.model.enums.TipoPolitica;
+import com.deportur.repository.PoliticaPrecioRepository;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Datos en memoria para los benchmarks: entidades armadas a mano y repositorios
+ * simulados sin base de datos ni Mockito, para medir solo el código de la aplicación.
+ */
+public final class DatosBenchmark {
+
+    public static final LocalDate FECHA_INICIO = LocalDate.of(2025, 7, 1);
+    public static final LocalDate FECHA_FIN = LocalDate.of(2025, 7, 10);
+
+    private static final TipoPolitica[] TIPOS = TipoPolitica.values();
+    private static final NivelFidelizacion[] NIVELES = NivelFidelizacion.values();
+
+    private DatosBenchmark() {
+    }
+
+    /**
+     * Políticas activas repartidas por igual entre los tipos de política
+     */
+    public static Map<TipoPolitica, List<PoliticaPrecio>> politicasPorTipo(int cantidad, long semilla) {
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+        Map<TipoPolitica, List<PoliticaPrecio>> politicas = new EnumMap<>(TipoPolitica.class);
+        for (TipoPolitica tipo : TIPOS) {
+            politicas.put(tipo, new ArrayList<>());
+        }
+
+        for (int i = 0; i < cantidad; i++) {
+            TipoPolitica tipo = TIPOS[i % TIPOS.length];
+            BigDecimal porcentaje = BigDecimal.valueOf(aleatorio.nextInt(1, 500), 2);
+            Integer minDias = tipo == TipoPolitica.DESCUENTO_DURACION ? aleatorio.nextInt(1, 15) : null;
+            Integer maxDias = minDias != null ? minDias + aleatorio.nextInt(0, 30) : null;
+            NivelFidelizacion nivel = tipo == TipoPolitica.DESCUENTO_CLIENTE ? NIVELES[aleatorio.nextInt(NIVELES.length)] : null;
+
+            PoliticaPrecio politica = new PoliticaPrecio("Política " + i, null, tipo, porcentaje,
+                FECHA_INICIO.minusMonths(1), FECHA_FIN.plusMonths(1), true, minDias, maxDias, nivel);
+            politica.setIdPolitica((long) i + 1);
+            politicas.get(tipo).add(politica);
+        }
+        return politicas;
+    }
+
+    /**
+     * PoliticaPrecioRepository que solo responde findPoliticasPorTipoYFecha desde memoria
+     */
+    public static PoliticaPrecioRepository repositorioPoliticas(Map<TipoPolitica, List<PoliticaPrecio>> politicas) {
+        return (PoliticaPrecioRepository) Proxy.newProxyInstance(
+            PoliticaPrecioRepository.class.getClassLoader(),
+            new Class<?>[] {PoliticaPrecioRepository.class},
+            (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+                case "findPoliticasPorTipoYFecha" -> politicas.getOrDefault((TipoPolitica) argumentos[0], Collections.emptyList());
+                case "toString" -> "PoliticaPrecioRepository en memoria";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == argumentos[0];
+                default -> throw new UnsupportedOperationException(metodo.getName());
+            });
+    }
+
+    /**
+     * Reserva completa (cliente, destino, equipos con tipo) con la cantidad de detalles indicada
+     */
+    public static Reserva reserva(int detalles, long semilla) {
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+
+        DestinoTuristico destino = new DestinoTuristico();
+        destino.setIdDestino(1L);
+        destino.setNombre("Parque Nacional Natural Los Nevados");
+        destino.setDepartamento("Tolima");
+        destino.setCiudad("Ibagué");
+
+        Cliente cliente = new Cliente(1L, "Laura", "Gómez", "111222333", TipoDocumento.CC,
+            "3000000000", "laura@example.com", "Calle 123");
+        cliente.setNivelFidelizacion(NivelFidelizacion.PLATA);
+        cliente.setDestinoPreferido(destino);
+
+        TipoEquipo tipo = new TipoEquipo(1L, "Bicicleta", "Bicicletas de montaña");
+
+        Reserva reserva = new Reserva();
+        reserva.setIdReserva(1L);
+        reserva.setCliente(cliente);
+        reserva.setDestino(destino);
+        reserva.setFechaCreacion(LocalDateTime.of(2025, 6, 1, 10, 0));
+        reserva.setFechaInicio(FECHA_INICIO);
+        reserva.setFechaFin(FECHA_FIN);
+        reserva.setEstado(EstadoReserva.CONFIRMADA);
+
+        for (int i = 0; i < detalles; i++) {
+            BigDecimal precio = BigDecimal.valueOf(aleatorio.nextLong(20_000, 200_000), 2);
+            EquipoDeportivo equipo = new EquipoDeportivo((long) i + 1, "Equipo " + i, tipo, "Marca",
+                EstadoEquipo.BUENO, precio, FECHA_INICIO.minusYears(1), destino, true);
+            DetalleReserva detalle = new DetalleReserva((long) i + 1, reserva, equipo, precio);
+            reserva.getDetalles().add(detalle);
+        }
+
+        reserva.actualizarCalculos(reserva.calcularSubtotal(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        return reserva;
+    }
+}
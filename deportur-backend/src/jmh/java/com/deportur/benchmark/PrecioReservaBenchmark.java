@@ -0,0 +1,43 @@
+package com.deportur.benchmark;
+
+import com.deportur.model.Reserva;
+import com.deportur.service.PoliticaPrecioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PoliticaPrecioService.aplicarPoliticasAReserva con distintas cantidades de políticas activas.
+ * El repositorio responde desde memoria, así que se mide solo el cálculo de precios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrecioReservaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int politicasActivas;
+
+    @Param({"5"})
+    private int equipos;
+
+    private PoliticaPrecioService politicaPrecioService;
+    private Reserva reserva;
+
+    @Setup
+    public void preparar() {
+        politicaPrecioService = new PoliticaPrecioService();
+        ReflectionTestUtils.setField(politicaPrecioService, "politicaPrecioRepository",
+            DatosBenchmark.repositorioPoliticas(DatosBenchmark.politicasPorTipo(politicasActivas, 42L)));
+        reserva = DatosBenchmark.reserva(equipos, 7L);
+    }
+
+    @Benchmark
+    public Object aplicarPoliticasAReserva() {
+        politicaPrecioService.aplicarPoliticasAReserva(reserva);
+        return reserva.getTotal();
+    }
+}
@@ -0,0 +1,52 @@
+package com.deportur.benchmark;
+
+import com.deportur.model.Reserva;
+import com.deportur.model.enums.NivelFidelizacion;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculos del modelo que se ejecutan en cada reserva y en cada listado de clientes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservaModeloBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int detalles;
+
+    private Reserva reserva;
+    private int[] numerosReservas;
+
+    @Setup
+    public void preparar() {
+        reserva = DatosBenchmark.reserva(detalles, 7L);
+
+        // Conteos variados para que el JIT no pueda fijar una sola rama
+        SplittableRandom aleatorio = new SplittableRandom(42L);
+        numerosReservas = new int[1024];
+        for (int i = 0; i < numerosReservas.length; i++) {
+            numerosReservas[i] = aleatorio.nextInt(0, 20);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calcularSubtotal() {
+        return reserva.calcularSubtotal();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void calcularNivel(Blackhole blackhole) {
+        for (int numero : numerosReservas) {
+            blackhole.consume(NivelFidelizacion.calcularNivel(numero));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.deportur.service;
+
+import com.deportur.benchmark.DatosBenchmark;
+import com.deportur.dto.response.ReservaListResponse;
+import com.deportur.model.Reserva;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReservaService.mapearAReservaListResponse, que se aplica a cada reserva de
+ * GET /api/reservas. Vive en el paquete del servicio porque el método no es público.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservaListadoBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int detalles;
+
+    private ReservaService reservaService;
+    private Reserva reserva;
+
+    @Setup
+    public void preparar() {
+        // El mapeo no usa repositorios; basta con la instancia sin dependencias
+        reservaService = new ReservaService();
+        reserva = DatosBenchmark.reserva(detalles, 7L);
+    }
+
+    @Benchmark
+    public ReservaListResponse mapearAReservaListResponse() {
+        return reservaService.mapearAReservaListResponse(reserva);
+    }
+}
@@ -1,11 +1,16 @@
 package com.deportur;
 
+import com.deportur.config.IndicacionesNativas;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@EnableAsync
+@ImportRuntimeHints(IndicacionesNativas.class)
 public class Application {
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
@@ -0,0 +1,66 @@
+package com.deportur.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Beans que no hacen falta para atender la primera petición (deportur.arranque.diferir) se crean
+ * la primera vez que se usan en lugar de al arrancar.
+ *
+ * No se usa spring.main.lazy-initialization: un bean perezoso no registra sus tareas @Scheduled
+ * hasta que alguien lo pide, y la bandeja de salida, los bloqueos o el JWKS dejarían de correr.
+ */
+@Configuration
+public class ArranqueConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArranqueConfig.class);
+
+    /**
+     * Marca como perezosos los beans cuya clase (o la de su configuración) empieza por alguno de
+     * los prefijos. Respeta un @Lazy(false) explícito. Estático como el de ConsultasLentasConfig.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor diferirBeansNoCriticos(Environment environment) {
+        List<String> prefijos = List.of(environment.getProperty("deportur.arranque.diferir", String[].class, new String[0]));
+
+        return beanFactory -> {
+            if (prefijos.isEmpty()) {
+                return;
+            }
+            int diferidos = 0;
+            for (String nombre : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definicion = beanFactory.getBeanDefinition(nombre);
+                if (definicion instanceof AbstractBeanDefinition abstracta && abstracta.getLazyInit() != null) {
+                    continue;
+                }
+                String clase = claseDe(beanFactory, definicion);
+                if (definicion.getRole() == BeanDefinition.ROLE_APPLICATION && clase != null
+                        && prefijos.stream().anyMatch(clase::startsWith)) {
+                    definicion.setLazyInit(true);
+                    diferidos++;
+                }
+            }
+            logger.info("{} beans diferidos hasta su primer uso ({})", diferidos, prefijos);
+        };
+    }
+
+    private static String claseDe(ConfigurableListableBeanFactory beanFactory, BeanDefinition definicion) {
+        if (definicion.getBeanClassName() != null) {
+            return definicion.getBeanClassName();
+        }
+        // Bean de un método @Bean: cuenta la clase de configuración que lo declara
+        String configuracion = definicion.getFactoryBeanName();
+        return configuracion != null && beanFactory.containsBeanDefinition(configuracion)
+            ? beanFactory.getBeanDefinition(configuracion).getBeanClassName()
+            : null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.deportur.config;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * Claves públicas de Auth0 (JWKS) para verificar la firma de los JWT, siempre en memoria.
+ *
+ * Al arrancar se leen del archivo local (deportur.seguridad.jwks.archivo), si existe, sin salir a la red.
+ * refrescar() las descarga de deportur.seguridad.jwks.uri en segundo plano y las vuelve a escribir en el
+ * archivo, así el siguiente arranque tiene las vigentes. Si llega un token firmado con una clave que no
+ * está (rotación en Auth0) se descarga una vez, como mucho cada refresco-minimo-ms.
+ */
+@Component
+public class ClavesJwks implements JWKSource<SecurityContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClavesJwks.class);
+
+    private static final int TIMEOUT_MS = 5_000;
+    private static final int TAMANO_MAX_BYTES = 64 * 1024;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${deportur.seguridad.jwks.uri:}")
+    private String uri = "";
+
+    @Value("${deportur.seguridad.jwks.archivo:}")
+    private String archivo = "";
+
+    @Value("${deportur.seguridad.jwks.refresco-minimo-ms:30000}")
+    private long refrescoMinimoMs = 30_000;
+
+    private volatile JWKSet claves = new JWKSet();
+    private long ultimaDescarga;
+
+    @PostConstruct
+    void iniciar() {
+        meterRegistry.gauge("deportur.jwks.claves", this, jwks -> jwks.claves.getKeys().size());
+        if (archivo.isBlank() || !Files.exists(Path.of(archivo))) {
+            return;
+        }
+        try {
+            claves = JWKSet.load(Path.of(archivo).toFile());
+            logger.info("Cargadas {} claves JWKS desde {}", claves.getKeys().size(), archivo);
+        } catch (IOException | ParseException e) {
+            logger.warn("No se pudo leer el JWKS local {}; se esperará a la descarga: {}", archivo, e.getMessage());
+        }
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext contexto) {
+        List<JWK> encontradas = selector.select(claves);
+        if (encontradas.isEmpty() && descargarPorClaveDesconocida()) {
+            encontradas = selector.select(claves);
+        }
+        return encontradas;
+    }
+
+    /**
+     * Descarga el JWKS de Auth0 y lo guarda en memoria y en el archivo local.
+     * Un fallo conserva las claves que ya había
+     */
+    @Scheduled(fixedDelayString = "${deportur.seguridad.jwks.refresco-ms:3600000}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "refrescar-jwks"})
+    public void refrescar() {
+        if (uri.isBlank()) {
+            return;
+        }
+        synchronized (this) {
+            ultimaDescarga = System.currentTimeMillis();
+        }
+        descargar();
+    }
+
+    private boolean descargarPorClaveDesconocida() {
+        synchronized (this) {
+            long ahora = System.currentTimeMillis();
+            if (uri.isBlank() || ahora - ultimaDescarga < refrescoMinimoMs) {
+                return false;
+            }
+            ultimaDescarga = ahora;
+        }
+        descargar();
+        return true;
+    }
+
+    private void descargar() {
+        try {
+            JWKSet descargado = JWKSet.load(URI.create(uri).toURL(), TIMEOUT_MS, TIMEOUT_MS, TAMANO_MAX_BYTES);
+            claves = descargado;
+            meterRegistry.counter("deportur.jwks.descargas", "resultado", "ok").increment();
+            guardar(descargado);
+        } catch (IOException | ParseException e) {
+            meterRegistry.counter("deportur.jwks.descargas", "resultado", "error").increment();
+            logger.warn("No se pudo descargar el JWKS de {}; se siguen usando {} claves: {}",
+                uri, claves.getKeys().size(), e.getMessage());
+        }
+    }
+
+    private void guardar(JWKSet descargado) {
+        if (archivo.isBlank()) {
+            return;
+        }
+        try {
+            // Se escribe aparte y se renombra: un arranque nunca lee un archivo a medias
+            Path destino = Path.of(archivo);
+            Files.createDirectories(destino.toAbsolutePath().getParent());
+            Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+            Files.writeString(temporal, descargado.toString(true), StandardCharsets.UTF_8);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar el JWKS en {}: {}", archivo, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.deportur.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Registro de consultas lentas (ver RegistroConsultasLentas). Reemplaza a spring.jpa.show-sql:
+ * solo escribe las sentencias que superan deportur.sql.lento.umbral-ms y una muestra del resto.
+ */
+@Configuration
+@ConditionalOnProperty(name = "deportur.sql.lento.habilitado", havingValue = "true", matchIfMissing = true)
+public class ConsultasLentasConfig {
+
+    /**
+     * Envuelve el DataSource una vez creado. Estático para no adelantar la creación de esta configuración.
+     */
+    @Bean
+    public static BeanPostProcessor registroConsultasLentasPostProcessor(Environment environment) {
+        RegistroConsultasLentas registro = new RegistroConsultasLentas(
+            environment.getProperty("deportur.sql.lento.umbral-ms", Long.class, 200L),
+            environment.getProperty("deportur.sql.lento.muestreo", Double.class, 0.01));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? registro.envolver(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer origenConsultaConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new OrigenConsultaInterceptor());
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.deportur.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JwtDecoder que recuerda los tokens ya validados hasta su exp.
+ *
+ * El frontend envía el mismo token en cada petición durante su vigencia; solo la primera pasa por
+ * la firma RS256 y los validadores del delegado. La clave es el SHA-256 del token, así que la caché
+ * no guarda el token en claro. LRU de capacidad fija; los tokens sin exp y los que fallan no se guardan.
+ */
+class DecodificadorJwtCache implements JwtDecoder {
+
+    private final JwtDecoder delegado;
+    private final Clock reloj;
+    private final Map<String, Jwt> validados;
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    DecodificadorJwtCache(JwtDecoder delegado, int capacidad, Clock reloj, MeterRegistry meterRegistry) {
+        this.delegado = delegado;
+        this.reloj = reloj;
+        this.validados = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Jwt> mayor) {
+                return size() > capacidad;
+            }
+        };
+        this.aciertos = meterRegistry.counter("deportur.jwt.cache", "resultado", "acierto");
+        this.fallos = meterRegistry.counter("deportur.jwt.cache", "resultado", "fallo");
+        meterRegistry.gaugeMapSize("deportur.jwt.cache.tokens", List.of(), validados);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String clave = huella(token);
+        Instant ahora = reloj.instant();
+        synchronized (validados) {
+            Jwt jwt = validados.get(clave);
+            if (jwt != null) {
+                if (jwt.getExpiresAt().isAfter(ahora)) {
+                    aciertos.increment();
+                    return jwt;
+                }
+                validados.remove(clave);
+            }
+        }
+
+        fallos.increment();
+        // Si el token no es válido la excepción sale tal cual y no se guarda nada
+        Jwt jwt = delegado.decode(token);
+        if (jwt.getExpiresAt() != null && jwt.getExpiresAt().isAfter(ahora)) {
+            synchronized (validados) {
+                validados.put(clave, jwt);
+            }
+        }
+        return jwt;
+    }
+
+    private static String huella(String token) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(resumen);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella del token", e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.deportur.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que envía las transacciones de solo lectura a las réplicas (por turnos) y el
+ * resto al primario.
+ *
+ * La conexión real se pide de forma perezosa (LazyConnectionDataSourceProxy): cuando llega la
+ * primera sentencia, Spring ya marcó la transacción como readOnly y se puede elegir el pool.
+ *
+ * Guarda de retraso: tras confirmar una escritura, las lecturas del mismo usuario autenticado
+ * van al primario durante deportur.replicas.retraso-max-ms, para que vea lo que acaba de escribir
+ * aunque la réplica aún no lo tenga. El registro es por instancia del backend.
+ *
+ * Las comprobaciones que deciden una escritura (solapes de reservas, bloqueos) van en la
+ * transacción de escritura del llamador, que siempre usa el primario. Las que se hacen fuera
+ * de ella y no pueden leer datos atrasados usan enPrimario() alrededor de toda la transacción
+ * de lectura, no solo de la consulta: una vez abierta, la conexión no cambia de pool.
+ */
+public class EnrutadorReplicasDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    static final String PRIMARIO = "primario";
+
+    /** Por encima de este número de usuarios se purgan las escrituras ya fuera de la ventana */
+    private static final int MAX_SESIONES_SIN_PURGAR = 10_000;
+
+    /** Marca de enPrimario() en el hilo actual */
+    private static final ThreadLocal<Boolean> FORZAR_PRIMARIO = new ThreadLocal<>();
+
+    private final HikariDataSource primario;
+    private final List<HikariDataSource> replicas;
+    private final long retrasoMaxNanos;
+    private final AtomicInteger siguienteReplica = new AtomicInteger();
+    private final Map<String, Long> ultimaEscritura = new ConcurrentHashMap<>();
+
+    public EnrutadorReplicasDataSource(HikariDataSource primario, List<HikariDataSource> replicas, long retrasoMaxMs) {
+        this.primario = primario;
+        this.replicas = List.copyOf(replicas);
+        this.retrasoMaxNanos = TimeUnit.MILLISECONDS.toNanos(retrasoMaxMs);
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            destinos.put(claveReplica(i), this.replicas.get(i));
+        }
+        AbstractRoutingDataSource enrutador = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return destino();
+            }
+        };
+        enrutador.setTargetDataSources(destinos);
+        enrutador.setDefaultTargetDataSource(primario);
+        enrutador.afterPropertiesSet();
+
+        setTargetDataSource(enrutador);
+        // Valores por defecto de Hikari; evita abrir una conexión solo para averiguarlos
+        setDefaultAutoCommit(primario.isAutoCommit());
+        setDefaultTransactionIsolationName(primario.getTransactionIsolation() != null
+            ? primario.getTransactionIsolation() : "TRANSACTION_READ_COMMITTED");
+        afterPropertiesSet();
+    }
+
+    public HikariDataSource getPrimario() {
+        return primario;
+    }
+
+    public List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Conexiones de todos los pools, para dimensionar LimitadorConexionesBd y LecturasParalelas
+     */
+    public int totalConexiones() {
+        return LimitadorConexionesBd.maximoConexiones(primario)
+            + replicas.stream().mapToInt(LimitadorConexionesBd::maximoConexiones).sum();
+    }
+
+    /**
+     * Ejecuta la lectura con las conexiones que se abran en el hilo actual contra el primario, aunque
+     * la transacción sea de solo lectura.
+     *
+     * Solo sirve en el límite de la transacción: dentro de una transacción de solo lectura que ya
+     * ejecutó alguna sentencia la conexión de la réplica ya está abierta y la lectura sigue en ella.
+     * Hay que envolver la llamada que abre la transacción (p. ej. la tarea de LecturasParalelas)
+     */
+    public static <T> T enPrimario(Callable<T> lectura) throws Exception {
+        Boolean anterior = FORZAR_PRIMARIO.get();
+        FORZAR_PRIMARIO.set(Boolean.TRUE);
+        try {
+            return lectura.call();
+        } finally {
+            if (anterior == null) {
+                FORZAR_PRIMARIO.remove();
+            }
+        }
+    }
+
+    /**
+     * Pool para la conexión que se está abriendo en el hilo actual
+     */
+    String destino() {
+        String sesion = sesionActual();
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscrituraAlConfirmar(sesion);
+            return PRIMARIO;
+        }
+        if (FORZAR_PRIMARIO.get() != null) {
+            return PRIMARIO;
+        }
+        if (sesion != null && escrituraReciente(sesion)) {
+            return PRIMARIO;
+        }
+        return claveReplica(Math.floorMod(siguienteReplica.getAndIncrement(), replicas.size()));
+    }
+
+    boolean escrituraReciente(String sesion) {
+        Long instante = ultimaEscritura.get(sesion);
+        return instante != null && System.nanoTime() - instante < retrasoMaxNanos;
+    }
+
+    void registrarEscritura(String sesion) {
+        long ahora = System.nanoTime();
+        ultimaEscritura.put(sesion, ahora);
+        if (ultimaEscritura.size() > MAX_SESIONES_SIN_PURGAR) {
+            ultimaEscritura.values().removeIf(instante -> ahora - instante >= retrasoMaxNanos);
+        }
+    }
+
+    private void registrarEscrituraAlConfirmar(String sesion) {
+        if (sesion == null || replicas.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // El instante cuenta desde la confirmación, que es cuando la réplica empieza a recibir el cambio
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registrarEscritura(sesion);
+            }
+        });
+    }
+
+    /**
+     * Usuario autenticado del hilo actual (sub del JWT); null en tareas programadas y anónimas
+     */
+    private static String sesionActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion == null || !autenticacion.isAuthenticated()
+                || autenticacion instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return autenticacion.getName();
+    }
+
+    private static String claveReplica(int indice) {
+        return "replica-" + indice;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primario.close();
+    }
+}
@@ -0,0 +1,96 @@
+package com.deportur.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo de hilos virtuales (Java 21): las peticiones de Tomcat, los métodos @Async y las
+ * tareas @Scheduled corren en hilos virtuales en lugar de pools de hilos de plataforma.
+ *
+ * Como un hilo virtual bloqueado en JDBC casi no cuesta, el límite real pasa a ser el pool de
+ * conexiones; LimitadorConexionesBd pone a esperar en orden a los hilos que no caben en él.
+ */
+@Configuration
+@ConditionalOnProperty(name = "deportur.hilos-virtuales.habilitado", havingValue = "true")
+public class HilosVirtualesConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(HilosVirtualesConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> hilosVirtualesTomcat() {
+        return protocolHandler -> protocolHandler.setExecutor(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("deportur-http-", 0).factory()));
+    }
+
+    /**
+     * Ejecutor de @Async y de las peticiones MVC asíncronas
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("deportur-async-", 0).factory()));
+    }
+
+    /**
+     * Programador de @Scheduled: el hilo que dispara las tareas también es virtual
+     */
+    @Bean
+    public TaskScheduler taskScheduler() {
+        return new ConcurrentTaskScheduler(
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("deportur-programada-", 0).factory()));
+    }
+
+    /**
+     * Limita las conexiones simultáneas al tamaño del pool de Hikari, salvo que
+     * deportur.bd.concurrencia-max indique otro valor. Estático como el de ConsultasLentasConfig.
+     */
+    @Bean
+    public static BeanPostProcessor limitadorConexionesPostProcessor(Environment environment) {
+        int maximoConfigurado = environment.getProperty("deportur.bd.concurrencia-max", Integer.class, 0);
+        long esperaMaxMs = environment.getProperty("deportur.bd.espera-max-ms", Long.class,
+            environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                int maximo = maximoConfigurado > 0 ? maximoConfigurado : LimitadorConexionesBd.tamanoPool(dataSource);
+                logger.info("Conexiones simultáneas a la base de datos limitadas a {} (espera máxima {} ms)",
+                    maximo, esperaMaxMs);
+                return new LimitadorConexionesBd(maximo, esperaMaxMs).envolver(dataSource);
+            }
+        };
+    }
+
+    /**
+     * Hilos esperando conexión en LimitadorConexionesBd; LimitadorPeticiones lo suma a
+     * hikaricp.connections.pending para decidir el descarte de carga
+     */
+    @Bean
+    public MeterBinder hilosEsperandoConexionBd(DataSource dataSource) {
+        return registry -> LimitadorConexionesBd.de(dataSource).ifPresent(limitador ->
+            Gauge.builder("deportur.bd.hilos-en-espera", limitador, LimitadorConexionesBd::hilosEnEspera)
+                .description("Hilos esperando un permiso de LimitadorConexionesBd")
+                .register(registry));
+    }
+}
@@ -0,0 +1,69 @@
+package com.deportur.config;
+
+import com.deportur.service.ArchivoHistorialReservas;
+import com.deportur.service.EscritorHistorialReservas;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Reflexión y recursos que la imagen nativa (perfil Maven "native") no descubre sola.
+ * Se ejecuta al procesar AOT, en la JVM, así que puede recorrer los paquetes.
+ *
+ * Los controladores devuelven ResponseEntity<?>, de modo que Spring no sabe qué tipos serializa
+ * Jackson: se registran todas las entidades y DTOs. Spring Security, Nimbus, Hibernate y Flyway
+ * traen sus propias indicaciones o las del repositorio de metadatos de GraalVM.
+ */
+public class IndicacionesNativas implements RuntimeHintsRegistrar {
+
+    static final String PAQUETE_MODELO = "com.deportur.model";
+    static final List<String> PAQUETES_DTO = List.of("com.deportur.dto.request", "com.deportur.dto.response");
+
+    private final BindingReflectionHintsRegistrar enlaces = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Entidades y enums: Hibernate instancia y rellena por campos, Jackson las lee por getters
+        for (Class<?> clase : clases(PAQUETE_MODELO, classLoader)) {
+            hints.reflection().registerType(clase, MemberCategory.DECLARED_FIELDS,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+            enlaces.registerReflectionHints(hints.reflection(), clase);
+        }
+        for (String paquete : PAQUETES_DTO) {
+            for (Class<?> clase : clases(paquete, classLoader)) {
+                enlaces.registerReflectionHints(hints.reflection(), clase);
+            }
+        }
+
+        // Registros del historial que se escriben y leen en JSON en disco
+        enlaces.registerReflectionHints(hints.reflection(),
+            EscritorHistorialReservas.Registro.class, ArchivoHistorialReservas.Registro.class);
+
+        // Swagger UI de springdoc: estáticos del webjar y la versión que lee para resolver sus rutas
+        hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/**");
+        hints.resources().registerPattern("META-INF/maven/org.webjars/swagger-ui/pom.properties");
+    }
+
+    static List<Class<?>> clases(String paquete, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider escaner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definicion) {
+                return definicion.getMetadata().isIndependent();
+            }
+        };
+        escaner.addIncludeFilter((lector, fabrica) -> true);
+        escaner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        return escaner.findCandidateComponents(paquete).stream()
+            .map(BeanDefinition::getBeanClassName)
+            .<Class<?>>map(nombre -> ClassUtils.resolveClassName(nombre, classLoader))
+            .toList();
+    }
+}
@@ -0,0 +1,175 @@
+package com.deportur.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita cuántos hilos pueden tener una conexión a la base de datos al mismo tiempo.
+ *
+ * Con hilos virtuales puede haber miles de peticiones en curso; sin este límite todas
+ * compiten a la vez por el pool de Hikari. El semáforo es justo (FIFO), tiene tantos permisos
+ * como conexiones el pool, y el permiso se devuelve al cerrar la conexión.
+ */
+public class LimitadorConexionesBd {
+
+    /**
+     * Tamaño por defecto de Hikari (maximumPoolSize) si no se puede leer del DataSource o si el pool
+     * aún no se ha inicializado (Hikari devuelve -1 hasta aplicar sus valores por defecto)
+     */
+    static final int POOL_POR_DEFECTO = 10;
+
+    private final Semaphore permisos;
+    private final long esperaMaxMs;
+
+    public LimitadorConexionesBd(int maxConexiones, long esperaMaxMs) {
+        this.permisos = new Semaphore(maxConexiones, true);
+        this.esperaMaxMs = esperaMaxMs;
+    }
+
+    /**
+     * Conexiones del pool de Hikari detrás del DataSource (aunque esté envuelto por otros proxies);
+     * con réplicas de lectura, la suma de todos los pools
+     */
+    public static int tamanoPool(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(EnrutadorReplicasDataSource.class)) {
+                return dataSource.unwrap(EnrutadorReplicasDataSource.class).totalConexiones();
+            }
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return maximoConexiones(dataSource.unwrap(HikariDataSource.class));
+            }
+        } catch (SQLException e) {
+            // Sin acceso al pool: se usa el tamaño por defecto de Hikari
+        }
+        return POOL_POR_DEFECTO;
+    }
+
+    static int maximoConexiones(HikariDataSource pool) {
+        int tamano = pool.getMaximumPoolSize();
+        return tamano > 0 ? tamano : POOL_POR_DEFECTO;
+    }
+
+    /**
+     * Limitador que envuelve el DataSource (aunque esté envuelto por otros proxies), si lo hay
+     */
+    public static Optional<LimitadorConexionesBd> de(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(LimitadorConexionesBd.class)) {
+                return Optional.of(dataSource.unwrap(LimitadorConexionesBd.class));
+            }
+        } catch (SQLException e) {
+            // Sin limitador accesible
+        }
+        return Optional.empty();
+    }
+
+    int permisosDisponibles() {
+        return permisos.availablePermits();
+    }
+
+    /**
+     * Hilos esperando un permiso. Con el limitador la cola está aquí y no en Hikari
+     * (hikaricp.connections.pending se queda cerca de 0)
+     */
+    public int hilosEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    public DataSource envolver(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (proxy, metodo, args) -> {
+            Object identidad = identidad(proxy, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            // unwrap(LimitadorConexionesBd.class) devuelve este limitador; el resto va al DataSource
+            if (args != null && args.length == 1 && args[0] == LimitadorConexionesBd.class) {
+                if (metodo.getName().equals("isWrapperFor")) {
+                    return true;
+                }
+                if (metodo.getName().equals("unwrap")) {
+                    return this;
+                }
+            }
+            if (!metodo.getName().equals("getConnection")) {
+                return invocar(dataSource, metodo, args);
+            }
+            adquirir();
+            try {
+                return envolverConexion((Connection) invocar(dataSource, metodo, args));
+            } catch (Throwable e) {
+                permisos.release();
+                throw e;
+            }
+        });
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMaxMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No se obtuvo conexión a la base de datos en "
+                    + esperaMaxMs + " ms (" + permisos.getQueueLength() + " hilos en espera)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando conexión a la base de datos", e);
+        }
+    }
+
+    private Connection envolverConexion(Connection conexion) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return proxy(Connection.class, conexion, (proxy, metodo, args) -> {
+            Object identidad = identidad(proxy, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            if (!metodo.getName().equals("close")) {
+                return invocar(conexion, metodo, args);
+            }
+            try {
+                return invocar(conexion, metodo, args);
+            } finally {
+                // close puede llamarse más de una vez; el permiso se devuelve solo la primera
+                if (liberada.compareAndSet(false, true)) {
+                    permisos.release();
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, T delegado, InvocationHandler manejador) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(),
+            RegistroConsultasLentas.interfaces(tipo, delegado), manejador);
+    }
+
+    /**
+     * equals/hashCode por identidad del proxy, igual que en RegistroConsultasLentas
+     */
+    private static Object identidad(Object proxy, Method metodo, Object[] args) {
+        return switch (metodo.getName()) {
+            case "equals" -> args != null && args.length == 1 ? (Object) (proxy == args[0]) : null;
+            case "hashCode" -> metodo.getParameterCount() == 0 ? (Object) System.identityHashCode(proxy) : null;
+            default -> null;
+        };
+    }
+
+    private static Object invocar(Object delegado, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(delegado, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
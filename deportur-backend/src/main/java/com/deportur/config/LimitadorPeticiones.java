@@ -0,0 +1,278 @@
+package com.deportur.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de peticiones por usuario (sub del JWT) y grupo de endpoints, y descarte de carga.
+ *
+ * Cada usuario tiene un cubo de tokens por grupo: por-segundo peticiones sostenidas y ráfagas de
+ * hasta rafaga. Pasado el límite se responde 429 y el resto de usuarios no lo nota.
+ *
+ * Además, cada intervalo-ms se mira la cola de espera por conexión (la de Hikari más la de
+ * LimitadorConexionesBd, que con hilos virtuales es donde se forma) y el p99 de las peticiones
+ * de los últimos 30 s. Por encima de los umbrales (carga ALTA) se rechazan con 503 la disponibilidad
+ * y el grupo general para proteger las reservas; al doble de los umbrales (CRITICA), todo.
+ */
+@Component
+public class LimitadorPeticiones {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimitadorPeticiones.class);
+
+    /** Por debajo de esta fracción de los umbrales se baja de nivel; evita oscilar en el límite */
+    private static final double HISTERESIS = 0.8;
+
+    /** Métricas que cuentan hilos esperando conexión: la cola de Hikari y la de LimitadorConexionesBd */
+    private static final List<String> COLAS_CONEXION =
+        List.of("hikaricp.connections.pending", "deportur.bd.hilos-en-espera");
+
+    public enum Grupo {
+        RESERVAS("reservas", 5, 20),
+        DISPONIBILIDAD("disponibilidad", 10, 30),
+        GENERAL("general", 20, 60);
+
+        private final String nombre;
+        private final double porSegundoPorDefecto;
+        private final int rafagaPorDefecto;
+
+        Grupo(String nombre, double porSegundoPorDefecto, int rafagaPorDefecto) {
+            this.nombre = nombre;
+            this.porSegundoPorDefecto = porSegundoPorDefecto;
+            this.rafagaPorDefecto = rafagaPorDefecto;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        /**
+         * Grupo de una ruta de la API
+         */
+        public static Grupo de(String ruta) {
+            if (ruta.startsWith("/api/reservas")) {
+                return RESERVAS;
+            }
+            if (ruta.startsWith("/api/equipos/disponibles") || ruta.startsWith("/api/equipos/verificar-disponibilidad")) {
+                return DISPONIBILIDAD;
+            }
+            return GENERAL;
+        }
+    }
+
+    public enum NivelCarga {
+        NORMAL,
+        ALTA,
+        CRITICA
+    }
+
+    /**
+     * Resultado de una petición: permitida, o el código y los segundos para Retry-After
+     */
+    public record Decision(boolean permitida, int codigo, long reintentarSegundos) {
+
+        static final Decision PERMITIDA = new Decision(true, 200, 0);
+    }
+
+    /**
+     * Cubo de tokens sin candados. Se guarda como GCRA: un solo long con el instante teórico en que el
+     * cubo vuelve a estar lleno, que se avanza con compareAndSet. El cubo está lleno (y se puede
+     * descartar sin perder nada) cuando ese instante ya pasó.
+     */
+    static final class Cubo {
+
+        private final AtomicLong lleno = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * Consume un token; devuelve 0 si lo había o los nanosegundos hasta que haya uno
+         */
+        long consumir(long ahora, long intervaloNanos, long capacidadNanos) {
+            while (true) {
+                long actual = lleno.get();
+                long siguiente = Math.max(actual, ahora) + intervaloNanos;
+                long exceso = siguiente - ahora - capacidadNanos;
+                if (exceso > 0) {
+                    return exceso;
+                }
+                if (lleno.compareAndSet(actual, siguiente)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean estaLleno(long ahora) {
+            return lleno.get() <= ahora;
+        }
+    }
+
+    private record Tasa(long intervaloNanos, long capacidadNanos) {
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${deportur.limites.habilitado:true}")
+    private boolean habilitado = true;
+
+    @Value("${deportur.limites.max-cubos:50000}")
+    private int maxCubos = 50_000;
+
+    @Value("${deportur.carga.conexiones-en-espera-max:20}")
+    private double conexionesEnEsperaMax = 20;
+
+    @Value("${deportur.carga.p99-max-ms:2000}")
+    private double p99MaxMs = 2000;
+
+    private final Map<String, Cubo> cubos = new ConcurrentHashMap<>();
+    private final Map<Grupo, Cubo> desbordados = new EnumMap<>(Grupo.class);
+    private final Map<Grupo, Tasa> tasas = new EnumMap<>(Grupo.class);
+    private final AtomicBoolean limpiando = new AtomicBoolean();
+
+    private volatile NivelCarga nivel = NivelCarga.NORMAL;
+    private volatile double conexionesEnEspera;
+    private volatile double p99Ms;
+    private Timer latencia;
+
+    @PostConstruct
+    void iniciar() {
+        for (Grupo grupo : Grupo.values()) {
+            String prefijo = "deportur.limites." + grupo.nombre + ".";
+            double porSegundo = environment.getProperty(prefijo + "por-segundo", Double.class, grupo.porSegundoPorDefecto);
+            int rafaga = environment.getProperty(prefijo + "rafaga", Integer.class, grupo.rafagaPorDefecto);
+            long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / porSegundo);
+            tasas.put(grupo, new Tasa(intervalo, intervalo * rafaga));
+            desbordados.put(grupo, new Cubo());
+        }
+
+        latencia = Timer.builder("deportur.carga.latencia")
+            .description("Peticiones a /api que pasaron el limitador; su p99 decide el descarte de carga")
+            .publishPercentiles(0.99)
+            .distributionStatisticExpiry(Duration.ofSeconds(30))
+            .distributionStatisticBufferLength(3)
+            .register(meterRegistry);
+        meterRegistry.gaugeMapSize("deportur.limites.cubos", List.of(), cubos);
+        Gauge.builder("deportur.carga.nivel", this, limitador -> limitador.nivel.ordinal())
+            .description("0 NORMAL, 1 ALTA, 2 CRITICA")
+            .register(meterRegistry);
+        Gauge.builder("deportur.carga.conexiones-en-espera", this, limitador -> limitador.conexionesEnEspera)
+            .register(meterRegistry);
+        Gauge.builder("deportur.carga.p99", this, limitador -> limitador.p99Ms)
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public NivelCarga getNivel() {
+        return nivel;
+    }
+
+    public Timer getLatencia() {
+        return latencia;
+    }
+
+    public Decision evaluar(String sujeto, Grupo grupo) {
+        return evaluar(sujeto, grupo, System.nanoTime());
+    }
+
+    Decision evaluar(String sujeto, Grupo grupo, long ahora) {
+        NivelCarga actual = nivel;
+        if (actual == NivelCarga.CRITICA || (actual == NivelCarga.ALTA && grupo != Grupo.RESERVAS)) {
+            meterRegistry.counter("deportur.limites.rechazos", "grupo", grupo.nombre, "motivo", "carga").increment();
+            return new Decision(false, 503, 1);
+        }
+
+        Tasa tasa = tasas.get(grupo);
+        long espera = cubo(grupo.nombre + ":" + sujeto, grupo, ahora).consumir(ahora, tasa.intervaloNanos, tasa.capacidadNanos);
+        if (espera == 0) {
+            return Decision.PERMITIDA;
+        }
+        meterRegistry.counter("deportur.limites.rechazos", "grupo", grupo.nombre, "motivo", "limite").increment();
+        return new Decision(false, 429, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + TimeUnit.SECONDS.toNanos(1) - 1)));
+    }
+
+    private Cubo cubo(String clave, Grupo grupo, long ahora) {
+        Cubo cubo = cubos.get(clave);
+        if (cubo != null) {
+            return cubo;
+        }
+        if (cubos.size() >= maxCubos) {
+            // Un cubo lleno es igual que uno nuevo: se puede quitar sin perder nada
+            if (limpiando.compareAndSet(false, true)) {
+                try {
+                    cubos.values().removeIf(existente -> existente.estaLleno(ahora));
+                } finally {
+                    limpiando.set(false);
+                }
+            }
+            if (cubos.size() >= maxCubos) {
+                // Todos los cubos están en uso: los usuarios nuevos comparten uno por grupo
+                return desbordados.get(grupo);
+            }
+        }
+        return cubos.computeIfAbsent(clave, k -> new Cubo());
+    }
+
+    /**
+     * Recalcula el nivel de carga a partir de las colas de espera por conexión y el p99 reciente
+     */
+    @Scheduled(fixedDelayString = "${deportur.carga.intervalo-ms:1000}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "evaluar-carga"})
+    public void evaluarCarga() {
+        conexionesEnEspera = COLAS_CONEXION.stream()
+            .flatMap(nombre -> meterRegistry.find(nombre).gauges().stream())
+            .mapToDouble(Gauge::value)
+            .filter(valor -> !Double.isNaN(valor))
+            .sum();
+        ValueAtPercentile[] percentiles = latencia.takeSnapshot().percentileValues();
+        p99Ms = percentiles.length > 0 ? percentiles[0].value(TimeUnit.MILLISECONDS) : 0;
+
+        NivelCarga nuevo = nivelPara(conexionesEnEspera, p99Ms, nivel);
+        if (nuevo != nivel) {
+            logger.warn("Nivel de carga {} -> {} (conexiones en espera {}, p99 {} ms)",
+                nivel, nuevo, conexionesEnEspera, Math.round(p99Ms));
+            nivel = nuevo;
+        }
+    }
+
+    NivelCarga nivelPara(double enEspera, double p99, NivelCarga anterior) {
+        double uso = Math.max(enEspera / conexionesEnEsperaMax, p99 / p99MaxMs);
+        if (uso >= 2) {
+            return NivelCarga.CRITICA;
+        }
+        if (anterior == NivelCarga.CRITICA && uso >= 2 * HISTERESIS) {
+            return NivelCarga.CRITICA;
+        }
+        if (uso >= 1) {
+            return NivelCarga.ALTA;
+        }
+        if (anterior != NivelCarga.NORMAL && uso >= HISTERESIS) {
+            return NivelCarga.ALTA;
+        }
+        return NivelCarga.NORMAL;
+    }
+}
@@ -0,0 +1,66 @@
+package com.deportur.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica LimitadorPeticiones a /api. Va detrás de la autenticación del JWT para conocer el usuario;
+ * las peticiones sin usuario se limitan por dirección IP.
+ */
+public class LimitePeticionesFilter extends OncePerRequestFilter {
+
+    private final LimitadorPeticiones limitador;
+
+    public LimitePeticionesFilter(LimitadorPeticiones limitador) {
+        this.limitador = limitador;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limitador.isHabilitado()
+            || "OPTIONS".equals(request.getMethod())
+            || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LimitadorPeticiones.Grupo grupo = LimitadorPeticiones.Grupo.de(request.getRequestURI());
+        LimitadorPeticiones.Decision decision = limitador.evaluar(sujeto(request), grupo);
+        if (!decision.permitida()) {
+            response.setStatus(decision.codigo());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.reintentarSegundos()));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(decision.codigo() == 429
+                ? "Demasiadas peticiones; reintente en " + decision.reintentarSegundos() + " s"
+                : "Servicio saturado; reintente en unos segundos");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limitador.getLatencia().record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String sujeto(HttpServletRequest request) {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null && autenticacion.isAuthenticated() && autenticacion.getName() != null) {
+            return autenticacion.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
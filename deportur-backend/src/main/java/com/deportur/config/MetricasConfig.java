@@ -0,0 +1,23 @@
+package com.deportur.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Instrumentación con Micrometer.
+ * Las peticiones HTTP, el pool Hikari y las estadísticas de Hibernate las registra
+ * Spring Boot; aquí solo se habilita @Timed en los métodos de servicio.
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Permite anotar métodos de beans con @Timed (nombres deportur.*, ver docs/backend/configuration.md)
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,34 @@
+package com.deportur.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Anota en el hilo el método de controlador que atiende la petición, para que el
+ * registro de consultas lentas indique de dónde vino cada sentencia
+ */
+public class OrigenConsultaInterceptor implements HandlerInterceptor {
+
+    // Un texto por método de controlador, calculado una sola vez
+    private final Map<Method, String> nombres = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod metodo) {
+            RegistroConsultasLentas.fijarOrigen(nombres.computeIfAbsent(metodo.getMethod(),
+                m -> m.getDeclaringClass().getSimpleName() + "#" + m.getName()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RegistroConsultasLentas.limpiarOrigen();
+    }
+}
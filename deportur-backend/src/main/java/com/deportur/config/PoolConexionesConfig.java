@@ -0,0 +1,64 @@
+package com.deportur.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Tamaño del pool de Hikari a partir de los núcleos y de la latencia con la base (deportur.bd.pool.*).
+ *
+ * Una conexión pasa consulta-ms trabajando y latencia-ms esperando la red; para no dejar núcleos
+ * ociosos hacen falta núcleos × (1 + latencia-ms / consulta-ms) conexiones, acotadas entre minimo
+ * y maximo (el límite de conexiones de la instancia de Supabase, repartido entre réplicas de la app).
+ * Un spring.datasource.hikari.maximum-pool-size mayor que 0 siempre manda.
+ */
+@Configuration
+public class PoolConexionesConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoolConexionesConfig.class);
+
+    /**
+     * Antes de inicializar el pool, para que LimitadorConexionesBd y LecturasParalelas vean el tamaño
+     * final. Estático como el de ConsultasLentasConfig.
+     */
+    @Bean
+    public static BeanPostProcessor dimensionarPoolPostProcessor(Environment environment) {
+        int tamano = tamanoCalculado(environment);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (tamano > 0 && bean instanceof HikariDataSource pool) {
+                    pool.setMaximumPoolSize(tamano);
+                    logger.info("Pool {} dimensionado a {} conexiones", beanName, tamano);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Tamaño calculado, o 0 si el cálculo está desactivado o el tamaño se fijó a mano
+     */
+    public static int tamanoCalculado(Environment environment) {
+        if (!environment.getProperty("deportur.bd.pool.automatico", Boolean.class, false)
+                || environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 0) > 0) {
+            return 0;
+        }
+        int nucleos = environment.getProperty("deportur.bd.pool.nucleos", Integer.class, 0);
+        return tamano(nucleos > 0 ? nucleos : Runtime.getRuntime().availableProcessors(),
+            environment.getProperty("deportur.bd.pool.latencia-ms", Double.class, 0.0),
+            environment.getProperty("deportur.bd.pool.consulta-ms", Double.class, 1.0),
+            environment.getProperty("deportur.bd.pool.minimo", Integer.class, 2),
+            environment.getProperty("deportur.bd.pool.maximo", Integer.class, 40));
+    }
+
+    static int tamano(int nucleos, double latenciaMs, double consultaMs, int minimo, int maximo) {
+        double conexiones = nucleos * (1 + latenciaMs / Math.max(consultaMs, 0.1));
+        return (int) Math.max(minimo, Math.min(maximo, Math.ceil(conexiones)));
+    }
+}
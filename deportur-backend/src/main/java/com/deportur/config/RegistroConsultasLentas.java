@@ -0,0 +1,408 @@
+package com.deportur.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Registro JSON de sentencias SQL lentas, más una muestra del resto.
+ *
+ * Envuelve el DataSource con proxies JDBC que miden cada ejecución. Para una sentencia
+ * rápida que no cae en la muestra solo se toman dos lecturas de reloj; el JSON, el enmascarado
+ * y el conteo de filas se hacen únicamente para las sentencias que se registran.
+ * Los parámetros se guardan por referencia en el arreglo de la sentencia, reutilizado entre ejecuciones.
+ */
+public class RegistroConsultasLentas {
+
+    private static final Logger logger = LoggerFactory.getLogger("deportur.sql.lento");
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /** Columnas de cliente que no deben salir en claro en el log */
+    static final Set<String> COLUMNAS_SENSIBLES = Set.of("nombre", "apellido", "documento", "telefono", "email", "direccion");
+
+    private static final Pattern TABLA_CLIENTE = Pattern.compile("\\bcliente\\b");
+
+    static final String ENMASCARADO = "***";
+
+    /** Controlador que atiende la petición del hilo actual (lo fija OrigenConsultaInterceptor) */
+    private static final ThreadLocal<String> ORIGEN = new ThreadLocal<>();
+
+    private final long umbralNanos;
+    private final int muestreoPorDiezMil;
+
+    public RegistroConsultasLentas(long umbralMs, double muestreo) {
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(umbralMs);
+        this.muestreoPorDiezMil = (int) Math.round(Math.max(0, Math.min(1, muestreo)) * 10_000);
+    }
+
+    public static void fijarOrigen(String origen) {
+        ORIGEN.set(origen);
+    }
+
+    public static void limpiarOrigen() {
+        ORIGEN.remove();
+    }
+
+    /**
+     * Origen del hilo actual, para propagarlo a las tareas que corren en otros hilos
+     */
+    public static String origenActual() {
+        return ORIGEN.get();
+    }
+
+    public DataSource envolver(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (delegado, metodo, args) -> {
+            Object resultado = invocar(delegado, metodo, args);
+            return resultado instanceof Connection conexion ? envolverConexion(conexion) : resultado;
+        });
+    }
+
+    private Connection envolverConexion(Connection conexion) {
+        return proxy(Connection.class, conexion, (delegado, metodo, args) -> {
+            Object resultado = invocar(delegado, metodo, args);
+            if (resultado instanceof Statement sentencia && metodo.getReturnType().isInstance(sentencia)) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String texto ? texto : null;
+                return envolverSentencia(metodo.getReturnType(), sentencia, sql);
+            }
+            return resultado;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T envolverSentencia(Class<T> tipo, Statement sentencia, String sql) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] {tipo},
+            new SentenciaMedida(sentencia, sql));
+    }
+
+    /**
+     * Decide si se registra una ejecución: lenta o dentro de la muestra. No reserva memoria.
+     */
+    boolean debeRegistrar(long nanos) {
+        return nanos >= umbralNanos
+            || (muestreoPorDiezMil > 0 && ThreadLocalRandom.current().nextInt(10_000) < muestreoPorDiezMil);
+    }
+
+    private void registrar(String sql, Object[] parametros, int totalParametros, long nanos, Long filas) {
+        boolean lenta = nanos >= umbralNanos;
+        Map<String, Object> entrada = new LinkedHashMap<>();
+        entrada.put("tipo", lenta ? "lenta" : "muestra");
+        entrada.put("duracionMs", Math.round(nanos / 10_000.0) / 100.0);
+        entrada.put("filas", filas);
+        entrada.put("origen", ORIGEN.get());
+        entrada.put("sql", sql);
+        entrada.put("parametros", parametrosParaLog(sql, parametros, totalParametros));
+
+        String json;
+        try {
+            json = JSON.writeValueAsString(entrada);
+        } catch (JsonProcessingException e) {
+            json = String.valueOf(entrada);
+        }
+        if (lenta) {
+            logger.warn(json);
+        } else {
+            logger.info(json);
+        }
+    }
+
+    /**
+     * Valores de los parámetros con las columnas de cliente enmascaradas. Si la sentencia toca
+     * la tabla cliente, también se enmascaran los textos cuya columna no se puede identificar.
+     */
+    static List<Object> parametrosParaLog(String sql, Object[] parametros, int totalParametros) {
+        if (sql == null || parametros == null || totalParametros == 0) {
+            return Collections.emptyList();
+        }
+        String minusculas = sql.toLowerCase(Locale.ROOT);
+        boolean tocaCliente = TABLA_CLIENTE.matcher(minusculas).find();
+        String[] columnas = tocaCliente ? columnasDeParametros(minusculas) : null;
+
+        List<Object> valores = new ArrayList<>(totalParametros);
+        for (int i = 0; i < totalParametros; i++) {
+            Object valor = parametros[i];
+            if (valor == null || valor instanceof Number || valor instanceof Boolean) {
+                valores.add(valor);
+                continue;
+            }
+            if (tocaCliente) {
+                String columna = columnas != null && i < columnas.length ? columnas[i] : null;
+                if (columna == null || COLUMNAS_SENSIBLES.contains(columna)) {
+                    valores.add(ENMASCARADO);
+                    continue;
+                }
+            }
+            valores.add(String.valueOf(valor));
+        }
+        return valores;
+    }
+
+    /**
+     * Columna asociada a cada '?' de la sentencia (null si no se reconoce):
+     * la lista de columnas en "insert into t (a, b) values (?, ?)" o el identificador
+     * delante del operador en "t.a = ?", "a like ?", etc.
+     */
+    static String[] columnasDeParametros(String sql) {
+        List<String> columnas = new ArrayList<>();
+        if (sql.startsWith("insert into")) {
+            int abre = sql.indexOf('(');
+            int cierra = sql.indexOf(')', abre + 1);
+            int valores = sql.indexOf("values", cierra);
+            int abreValores = valores >= 0 ? sql.indexOf('(', valores) : -1;
+            int cierraValores = abreValores >= 0 ? sql.lastIndexOf(')') : -1;
+            if (abre >= 0 && cierra > abre && abreValores > 0 && cierraValores > abreValores) {
+                String[] nombres = sql.substring(abre + 1, cierra).split(",");
+                String[] expresiones = sql.substring(abreValores + 1, cierraValores).split(",");
+                for (int i = 0; i < expresiones.length; i++) {
+                    if (expresiones[i].trim().equals("?")) {
+                        columnas.add(i < nombres.length ? nombres[i].trim() : null);
+                    }
+                }
+                return columnas.toArray(new String[0]);
+            }
+        }
+
+        boolean enLiteral = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                enLiteral = !enLiteral;
+            } else if (c == '?' && !enLiteral) {
+                columnas.add(columnaAntesDe(sql, i));
+            }
+        }
+        return columnas.toArray(new String[0]);
+    }
+
+    private static String columnaAntesDe(String sql, int posicion) {
+        int i = posicion - 1;
+        while (i >= 0 && Character.isWhitespace(sql.charAt(i))) {
+            i--;
+        }
+        // Operador: =, <>, <=, >=, !=, like, ilike
+        int finOperador = i;
+        while (i >= 0 && "=<>!".indexOf(sql.charAt(i)) >= 0) {
+            i--;
+        }
+        if (i == finOperador) {
+            if (sql.startsWith("like", i - 3)) {
+                i -= sql.startsWith("ilike", i - 4) ? 5 : 4;
+            } else {
+                return null;
+            }
+        }
+        while (i >= 0 && Character.isWhitespace(sql.charAt(i))) {
+            i--;
+        }
+        int fin = i + 1;
+        while (i >= 0 && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            i--;
+        }
+        return fin > i + 1 ? sql.substring(i + 1, fin) : null;
+    }
+
+    /**
+     * Proxy de Statement / PreparedStatement / CallableStatement que mide las ejecuciones
+     */
+    private final class SentenciaMedida implements InvocationHandler {
+
+        private final Statement delegado;
+        private final String sqlPreparado;
+        private Object[] parametros;
+        private int totalParametros;
+        private FilasContadas pendiente;
+
+        SentenciaMedida(Statement delegado, String sqlPreparado) {
+            this.delegado = delegado;
+            this.sqlPreparado = sqlPreparado;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object identidad = identidad(proxy, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            String nombre = metodo.getName();
+            if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                guardarParametro(indice, args[1]);
+                return invocar(delegado, metodo, args);
+            }
+            if (nombre.equals("clearParameters")) {
+                if (parametros != null) {
+                    Arrays.fill(parametros, null);
+                }
+                totalParametros = 0;
+                return invocar(delegado, metodo, args);
+            }
+            if (nombre.equals("close")) {
+                registrarPendiente();
+                return invocar(delegado, metodo, args);
+            }
+            if (!nombre.startsWith("execute")) {
+                return invocar(delegado, metodo, args);
+            }
+
+            registrarPendiente();
+            long inicio = System.nanoTime();
+            Object resultado = invocar(delegado, metodo, args);
+            long nanos = System.nanoTime() - inicio;
+            if (!debeRegistrar(nanos)) {
+                return resultado;
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String texto ? texto : sqlPreparado;
+            if (resultado instanceof ResultSet filas) {
+                // Las filas se cuentan mientras Hibernate las recorre; se registra al cerrar
+                pendiente = new FilasContadas(sql, parametros != null ? parametros.clone() : null, totalParametros, nanos);
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                    new ResultadoContado(filas, pendiente, this));
+            }
+            registrar(sql, parametros, totalParametros, nanos, filasAfectadas(resultado));
+            return resultado;
+        }
+
+        private void guardarParametro(int indice, Object valor) {
+            if (parametros == null || parametros.length < indice) {
+                parametros = Arrays.copyOf(parametros != null ? parametros : new Object[0], Math.max(indice, 8));
+            }
+            parametros[indice - 1] = valor;
+            totalParametros = Math.max(totalParametros, indice);
+        }
+
+        void registrarPendiente() {
+            FilasContadas actual = pendiente;
+            if (actual != null) {
+                pendiente = null;
+                registrar(actual.sql, actual.parametros, actual.totalParametros, actual.nanos, actual.filas);
+            }
+        }
+
+        private Long filasAfectadas(Object resultado) {
+            if (resultado instanceof Integer n) {
+                return n.longValue();
+            }
+            if (resultado instanceof Long n) {
+                return n;
+            }
+            if (resultado instanceof int[] lote) {
+                long total = 0;
+                for (int n : lote) {
+                    total += Math.max(n, 0);
+                }
+                return total;
+            }
+            if (resultado instanceof long[] lote) {
+                long total = 0;
+                for (long n : lote) {
+                    total += Math.max(n, 0);
+                }
+                return total;
+            }
+            return null;
+        }
+    }
+
+    private static final class FilasContadas {
+        final String sql;
+        final Object[] parametros;
+        final int totalParametros;
+        final long nanos;
+        long filas;
+
+        FilasContadas(String sql, Object[] parametros, int totalParametros, long nanos) {
+            this.sql = sql;
+            this.parametros = parametros;
+            this.totalParametros = totalParametros;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Cuenta las filas de un ResultSet registrado y escribe la entrada al cerrarlo
+     */
+    private static final class ResultadoContado implements InvocationHandler {
+
+        private final ResultSet delegado;
+        private final FilasContadas conteo;
+        private final SentenciaMedida sentencia;
+
+        ResultadoContado(ResultSet delegado, FilasContadas conteo, SentenciaMedida sentencia) {
+            this.delegado = delegado;
+            this.conteo = conteo;
+            this.sentencia = sentencia;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            Object identidad = identidad(proxy, metodo, args);
+            if (identidad != null) {
+                return identidad;
+            }
+            Object resultado = invocar(delegado, metodo, args);
+            if (metodo.getName().equals("next") && Boolean.TRUE.equals(resultado)) {
+                conteo.filas++;
+            } else if (metodo.getName().equals("close")) {
+                sentencia.registrarPendiente();
+            }
+            return resultado;
+        }
+    }
+
+    private interface Manejador {
+        Object invocar(Object delegado, Method metodo, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, T delegado, Manejador manejador) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), interfaces(tipo, delegado),
+            (proxy, metodo, args) -> {
+                Object identidad = identidad(proxy, metodo, args);
+                return identidad != null ? identidad : manejador.invocar(delegado, metodo, args);
+            });
+    }
+
+    /**
+     * Interfaz del proxy, más AutoCloseable si el delegado la implementa (p. ej. HikariDataSource):
+     * así Spring sigue cerrando el pool al apagar el contexto
+     */
+    static Class<?>[] interfaces(Class<?> tipo, Object delegado) {
+        return delegado instanceof AutoCloseable && !AutoCloseable.class.isAssignableFrom(tipo)
+            ? new Class<?>[] {tipo, AutoCloseable.class}
+            : new Class<?>[] {tipo};
+    }
+
+    /**
+     * Identidad del proxy: equals/hashCode no se delegan para que el proxy funcione como clave
+     * (p. ej. el DataSource en los recursos de transacción de Spring)
+     */
+    private static Object identidad(Object proxy, Method metodo, Object[] args) {
+        return switch (metodo.getName()) {
+            case "equals" -> args != null && args.length == 1 ? (Object) (proxy == args[0]) : null;
+            case "hashCode" -> metodo.getParameterCount() == 0 ? (Object) System.identityHashCode(proxy) : null;
+            default -> null;
+        };
+    }
+
+    private static Object invocar(Object delegado, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(delegado, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.deportur.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de lectura: sustituye el DataSource de Spring Boot por EnrutadorReplicasDataSource,
+ * que manda las transacciones @Transactional(readOnly = true) a las réplicas y el resto al primario.
+ *
+ * El primario usa spring.datasource.* y las réplicas deportur.replicas.urls; todos los pools
+ * toman spring.datasource.hikari.* y publican sus métricas hikaricp.* con su nombre en la etiqueta pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "deportur.replicas.habilitado", havingValue = "true")
+public class ReplicasLecturaConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicasLecturaConfig.class);
+
+    /**
+     * Se declara como DataSource: ConsultasLentasConfig e HilosVirtualesConfig lo envuelven en proxies
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        // Estos pools no pasan por el BeanPostProcessor de PoolConexionesConfig
+        int tamanoCalculado = PoolConexionesConfig.tamanoCalculado(environment);
+
+        HikariDataSource primario = crearPool("deportur-primario", properties.determineUrl(),
+            properties.determineUsername(), properties.determinePassword(), properties, binder, registry,
+            tamanoCalculado);
+
+        List<String> urls = binder.bind("deportur.replicas.urls", Bindable.listOf(String.class)).orElse(List.of());
+        String usuario = environment.getProperty("deportur.replicas.usuario", properties.determineUsername());
+        String contrasena = environment.getProperty("deportur.replicas.contrasena", properties.determinePassword());
+        int maxConexiones = environment.getProperty("deportur.replicas.maximo-conexiones", Integer.class, 0);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (!url.isBlank()) {
+                replicas.add(crearPool("deportur-replica-" + (replicas.size() + 1), url.trim(), usuario, contrasena,
+                    properties, binder, registry, maxConexiones > 0 ? maxConexiones : tamanoCalculado));
+            }
+        }
+        if (replicas.isEmpty()) {
+            logger.warn("deportur.replicas.habilitado=true sin deportur.replicas.urls: todas las lecturas irán al primario");
+        } else {
+            logger.info("Lecturas de solo lectura repartidas entre {} réplicas", replicas.size());
+        }
+
+        long retrasoMaxMs = environment.getProperty("deportur.replicas.retraso-max-ms", Long.class, 2000L);
+        return new EnrutadorReplicasDataSource(primario, replicas, retrasoMaxMs);
+    }
+
+    private static HikariDataSource crearPool(String nombre, String url, String usuario, String contrasena,
+                                              DataSourceProperties properties, Binder binder, MeterRegistry registry,
+                                              int maxConexiones) {
+        HikariConfig config = new HikariConfig();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        config.setPoolName(nombre);
+        config.setJdbcUrl(url);
+        config.setUsername(usuario);
+        config.setPassword(contrasena);
+        config.setDriverClassName(properties.determineDriverClassName());
+        if (maxConexiones > 0) {
+            config.setMaximumPoolSize(maxConexiones);
+        }
+        if (registry != null) {
+            config.setMetricRegistry(registry);
+        }
+        return new HikariDataSource(config);
+    }
+}
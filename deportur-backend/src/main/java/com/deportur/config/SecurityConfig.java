@@ -1,5 +1,10 @@
 package com.deportur.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,11 +14,16 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.*;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Clock;
 import java.util.Arrays;
 
 @Configuration
@@ -27,8 +37,18 @@ public class SecurityConfig {
     @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
     private String issuer;
 
+    @Value("${deportur.seguridad.jwt.cache-capacidad:10000}")
+    private int capacidadCacheJwt;
+
+    // Puerto interno de actuator (management.server.port); 0 si comparte el puerto de la API
+    @Value("${management.server.port:0}")
+    private int puertoGestion;
+
+    @Value("${server.port:8080}")
+    private int puertoServidor;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, LimitadorPeticiones limitadorPeticiones) throws Exception {
         http
             .cors().and()
             .csrf().disable()
@@ -36,19 +56,42 @@ public class SecurityConfig {
                 // Endpoints públicos
                 .requestMatchers("/api/public/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
+                // Sondas públicas; Prometheus solo sin token en el puerto interno de gestión
+                .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers(prometheusEnPuertoGestion()).permitAll()
 
                 // Endpoints protegidos - requieren autenticación
                 .anyRequest().authenticated()
             )
             .oauth2ResourceServer()
                 .jwt();
+        // Límite por usuario y descarte de carga, una vez conocido el sub del JWT
+        http.addFilterAfter(new LimitePeticionesFilter(limitadorPeticiones), BearerTokenAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * Scrape de /actuator/prometheus recibido en management.server.port. Sin puerto de gestión propio
+     * (o si es el mismo de la API) no coincide nunca y el endpoint exige token como el resto de /actuator
+     */
+    private RequestMatcher prometheusEnPuertoGestion() {
+        boolean puertoPropio = puertoGestion > 0 && puertoGestion != puertoServidor;
+        return new AndRequestMatcher(new AntPathRequestMatcher("/actuator/prometheus"),
+            request -> puertoPropio && request.getLocalPort() == puertoGestion);
+    }
+
+    /**
+     * Verifica la firma con las claves en memoria de ClavesJwks (sin consultar Auth0 al arrancar)
+     * y recuerda los tokens ya validados hasta su exp
+     */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        NimbusJwtDecoder jwtDecoder = JwtDecoders.fromOidcIssuerLocation(issuer);
+    public JwtDecoder jwtDecoder(ClavesJwks clavesJwks, MeterRegistry meterRegistry) {
+        DefaultJWTProcessor<SecurityContext> procesador = new DefaultJWTProcessor<>();
+        procesador.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, clavesJwks));
+        // Los claims los comprueban los validadores de abajo, igual que en NimbusJwtDecoder.withJwkSetUri
+        procesador.setJWTClaimsSetVerifier((claims, contexto) -> { });
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(procesador);
 
         OAuth2TokenValidator<Jwt> audienceValidator = new AudienceValidator(audience);
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuer);
@@ -56,7 +99,7 @@ public class SecurityConfig {
 
         jwtDecoder.setJwtValidator(withAudience);
 
-        return jwtDecoder;
+        return new DecodificadorJwtCache(jwtDecoder, capacidadCacheJwt, Clock.systemUTC(), meterRegistry);
     }
 
     @Bean
@@ -65,6 +108,8 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:5173", "http://localhost:3000", "http://localhost:8080"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Permite al frontend leer el ETag de los listados del catálogo y si una reserva fue repetida
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,25 @@
+package com.deportur.controller;
+
+import com.deportur.service.CatalogoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/catalogo")
+@CrossOrigin(origins = "*")
+public class CatalogoController {
+
+    @Autowired
+    private CatalogoService catalogoService;
+
+    @GetMapping
+    public ResponseEntity<?> obtenerCatalogo(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        try {
+            CatalogoService.Instantanea instantanea = catalogoService.obtener(CatalogoService.Recurso.CATALOGO);
+            return RespuestasCondicionales.instantanea(instantanea, ifNoneMatch);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
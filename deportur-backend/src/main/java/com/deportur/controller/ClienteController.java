@@ -1,12 +1,14 @@
 package com.deportur.controller;
 
 import com.deportur.dto.request.CrearClienteRequest;
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.Cliente;
 import com.deportur.service.ClienteService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -48,10 +50,19 @@ public class ClienteController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Long id,
+                                         @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            // Si el cliente ya tiene la versión vigente basta con leer la columna version
+            if (ifNoneMatch != null) {
+                Long version = clienteService.buscarVersion(id).orElse(null);
+                if (RespuestasCondicionales.coincideVersion(ifNoneMatch, version)) {
+                    return RespuestasCondicionales.noModificado(version);
+                }
+            }
+
             Cliente cliente = clienteService.buscarClientePorId(id);
-            return ResponseEntity.ok(cliente);
+            return RespuestasCondicionales.conVersion(cliente, cliente.getVersion());
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -79,7 +90,8 @@ public class ClienteController {
 
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizarCliente(@PathVariable Long id,
-                                               @Valid @RequestBody CrearClienteRequest request) {
+                                               @Valid @RequestBody CrearClienteRequest request,
+                                               @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         try {
             Cliente cliente = new Cliente();
             cliente.setNombre(request.getNombre());
@@ -89,9 +101,14 @@ public class ClienteController {
             cliente.setTelefono(request.getTelefono());
             cliente.setEmail(request.getEmail());
             cliente.setDireccion(request.getDireccion());
+            cliente.setVersion(RespuestasCondicionales.versionDeIfMatch(ifMatch));
 
             Cliente clienteActualizado = clienteService.actualizarCliente(id, cliente);
-            return ResponseEntity.ok(clienteActualizado);
+            return RespuestasCondicionales.conVersion(clienteActualizado, clienteActualizado.getVersion());
+        } catch (PrecondicionFallidaException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(RespuestasCondicionales.MENSAJE_CONFLICTO);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -1,13 +1,18 @@
 package com.deportur.controller;
 
 import com.deportur.dto.request.CrearDestinoRequest;
+import com.deportur.dto.response.DestinoCercanoResponse;
 import com.deportur.model.DestinoTuristico;
+import com.deportur.service.CatalogoService;
+import com.deportur.service.DestinoCercanoService;
 import com.deportur.service.DestinoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -18,6 +23,12 @@ public class DestinoController {
     @Autowired
     private DestinoService destinoService;
 
+    @Autowired
+    private CatalogoService catalogoService;
+
+    @Autowired
+    private DestinoCercanoService destinoCercanoService;
+
     @PostMapping
     public ResponseEntity<?> registrarDestino(@Valid @RequestBody CrearDestinoRequest request) {
         try {
@@ -42,10 +53,11 @@ public class DestinoController {
     }
 
     @GetMapping
-    public ResponseEntity<?> listarTodos() {
+    public ResponseEntity<?> listarTodos(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
-            List<DestinoTuristico> destinos = destinoService.listarTodosLosDestinos();
-            return ResponseEntity.ok(destinos);
+            // Se sirve la instantánea del catálogo: sin consulta ni serialización si no hubo cambios
+            CatalogoService.Instantanea instantanea = catalogoService.obtener(CatalogoService.Recurso.DESTINOS);
+            return RespuestasCondicionales.instantanea(instantanea, ifNoneMatch);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -71,6 +83,27 @@ public class DestinoController {
         }
     }
 
+    /**
+     * Destinos más cercanos a un punto con equipos libres (opcionalmente de un tipo) en las fechas indicadas
+     */
+    @GetMapping("/cercanos")
+    public ResponseEntity<?> buscarCercanos(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(required = false) Long tipo,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(required = false) Double radioKm) {
+        try {
+            List<DestinoCercanoResponse> destinos = destinoCercanoService.buscarDestinosCercanos(
+                lat, lon, limite, tipo, inicio, fin, radioKm);
+            return ResponseEntity.ok(destinos);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizarDestino(@PathVariable Long id,
                                                @Valid @RequestBody CrearDestinoRequest request) {
@@ -1,18 +1,22 @@
 package com.deportur.controller;
 
+import com.deportur.config.EnrutadorReplicasDataSource;
 import com.deportur.dto.request.CrearEquipoRequest;
 import com.deportur.dto.response.DisponibilidadResponse;
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.DestinoTuristico;
 import com.deportur.model.EquipoDeportivo;
 import com.deportur.service.EquipoService;
 import com.deportur.service.DestinoService;
 import com.deportur.service.DisponibilidadService;
+import com.deportur.service.LecturasParalelas;
 import com.deportur.service.TipoEquipoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.List;
@@ -35,6 +39,9 @@ public class EquipoController {
     @Autowired
     private DisponibilidadService disponibilidadService;
 
+    @Autowired
+    private LecturasParalelas lecturasParalelas;
+
     @PostMapping
     public ResponseEntity<?> registrarEquipo(@Valid @RequestBody CrearEquipoRequest request) {
         try {
@@ -67,10 +74,19 @@ public class EquipoController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Long id,
+                                         @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            // Si el cliente ya tiene la versión vigente basta con leer la columna version
+            if (ifNoneMatch != null) {
+                Long version = equipoService.buscarVersion(id).orElse(null);
+                if (RespuestasCondicionales.coincideVersion(ifNoneMatch, version)) {
+                    return RespuestasCondicionales.noModificado(version);
+                }
+            }
+
             EquipoDeportivo equipo = equipoService.buscarEquipoPorId(id);
-            return ResponseEntity.ok(equipo);
+            return RespuestasCondicionales.conVersion(equipo, equipo.getVersion());
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -117,8 +133,21 @@ public class EquipoController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
         try {
-            DestinoTuristico dest = destinoService.buscarDestinoPorId(destino);
-            List<EquipoDeportivo> equipos = disponibilidadService.obtenerEquiposDisponibles(destino, inicio, fin);
+            // Destino y disponibilidad son independientes: se consultan en paralelo
+            DestinoTuristico dest;
+            List<EquipoDeportivo> equipos;
+            try (LecturasParalelas.Grupo grupo = lecturasParalelas.grupo()) {
+                LecturasParalelas.Lectura<DestinoTuristico> lecturaDestino =
+                    grupo.leer(() -> destinoService.buscarDestinoPorId(destino));
+                // Toda la transacción de la disponibilidad en el primario: la réplica puede no tener
+                // aún una reserva recién confirmada y la conexión se fija con la primera sentencia
+                LecturasParalelas.Lectura<List<EquipoDeportivo>> lecturaEquipos =
+                    grupo.leer(() -> EnrutadorReplicasDataSource.enPrimario(
+                        () -> disponibilidadService.obtenerEquiposDisponibles(destino, inicio, fin)));
+                grupo.esperar();
+                dest = lecturaDestino.obtener();
+                equipos = lecturaEquipos.obtener();
+            }
 
             DisponibilidadResponse response = new DisponibilidadResponse(
                 destino,
@@ -137,7 +166,8 @@ public class EquipoController {
 
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizarEquipo(@PathVariable Long id,
-                                              @Valid @RequestBody CrearEquipoRequest request) {
+                                              @Valid @RequestBody CrearEquipoRequest request,
+                                              @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         try {
             EquipoDeportivo equipo = new EquipoDeportivo();
             equipo.setNombre(request.getNombre());
@@ -149,9 +179,14 @@ public class EquipoController {
             equipo.setDestino(destinoService.buscarDestinoPorId(request.getIdDestino()));
             equipo.setDisponible(request.getDisponible());
             equipo.setImagenUrl(request.getImagenUrl());
+            equipo.setVersion(RespuestasCondicionales.versionDeIfMatch(ifMatch));
 
             EquipoDeportivo equipoActualizado = equipoService.actualizarEquipo(id, equipo);
-            return ResponseEntity.ok(equipoActualizado);
+            return RespuestasCondicionales.conVersion(equipoActualizado, equipoActualizado.getVersion());
+        } catch (PrecondicionFallidaException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(RespuestasCondicionales.MENSAJE_CONFLICTO);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -2,6 +2,7 @@ package com.deportur.controller;
 
 import com.deportur.dto.request.CrearPoliticaPrecioRequest;
 import com.deportur.dto.response.PoliticaPrecioResponse;
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.*;
 import com.deportur.model.enums.TipoPolitica;
 import com.deportur.repository.*;
@@ -11,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -109,11 +111,20 @@ public class PoliticaPrecioController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Long id,
+                                         @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            // Si el cliente ya tiene la versión vigente basta con leer la columna version
+            if (ifNoneMatch != null) {
+                Long version = politicaPrecioService.buscarVersion(id).orElse(null);
+                if (RespuestasCondicionales.coincideVersion(ifNoneMatch, version)) {
+                    return RespuestasCondicionales.noModificado(version);
+                }
+            }
+
             PoliticaPrecio politica = politicaPrecioService.buscarPoliticaPorId(id);
             PoliticaPrecioResponse response = new PoliticaPrecioResponse(politica);
-            return ResponseEntity.ok(response);
+            return RespuestasCondicionales.conVersion(response, politica.getVersion());
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -121,7 +132,8 @@ public class PoliticaPrecioController {
 
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizarPolitica(@PathVariable Long id,
-                                               @Valid @RequestBody CrearPoliticaPrecioRequest request) {
+                                               @Valid @RequestBody CrearPoliticaPrecioRequest request,
+                                               @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         try {
             // Cargar relaciones opcionales si existen
             DestinoTuristico destino = null;
@@ -158,11 +170,16 @@ public class PoliticaPrecioController {
                 tipoEquipo,
                 equipo
             );
+            politica.setVersion(RespuestasCondicionales.versionDeIfMatch(ifMatch));
 
             PoliticaPrecio politicaActualizada = politicaPrecioService.actualizarPolitica(id, politica);
             PoliticaPrecioResponse response = new PoliticaPrecioResponse(politicaActualizada);
 
-            return ResponseEntity.ok(response);
+            return RespuestasCondicionales.conVersion(response, politicaActualizada.getVersion());
+        } catch (PrecondicionFallidaException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(RespuestasCondicionales.MENSAJE_CONFLICTO);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -1,13 +1,22 @@
 package com.deportur.controller;
 
+import com.deportur.dto.request.CrearBloqueoRequest;
 import com.deportur.dto.request.CrearReservaRequest;
+import com.deportur.dto.request.CrearReservasLoteRequest;
 import com.deportur.dto.response.ReservaListResponse;
+import com.deportur.dto.response.ResultadoLoteReservasResponse;
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.Reserva;
+import com.deportur.service.BloqueoEquipoService;
+import com.deportur.service.IdempotenciaService;
+import com.deportur.service.ReservaLoteService;
 import com.deportur.service.ReservaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,15 +32,48 @@ public class ReservaController {
     @Autowired
     private ReservaService reservaService;
 
+    @Autowired
+    private BloqueoEquipoService bloqueoEquipoService;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private ReservaLoteService reservaLoteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
-    public ResponseEntity<?> crearReserva(@Valid @RequestBody CrearReservaRequest request) {
+    public ResponseEntity<?> crearReserva(@Valid @RequestBody CrearReservaRequest request,
+                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return crear(request);
+        }
+        // Un reintento con la misma clave recibe la respuesta de la primera ejecución
+        return idempotenciaService.ejecutar(idempotencyKey, request, () -> crear(request), this::reservaCreada);
+    }
+
+    /**
+     * Respuesta de una reserva ya creada con la Idempotency-Key cuya respuesta no llegó a guardarse
+     */
+    private ResponseEntity<?> reservaCreada(Long idReserva) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservaService.consultarReserva(idReserva));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> crear(CrearReservaRequest request) {
         try {
             Reserva reserva = reservaService.crearReserva(
                 request.getIdCliente(),
                 request.getFechaInicio(),
                 request.getFechaFin(),
                 request.getIdDestino(),
-                request.getIdsEquipos()
+                request.getIdsEquipos(),
+                request.getTokenBloqueo()
             );
             return ResponseEntity.status(HttpStatus.CREATED).body(reserva);
         } catch (Exception e) {
@@ -39,6 +81,54 @@ public class ReservaController {
         }
     }
 
+    /**
+     * Crea un lote de reservas en una petición. Responde 201 si se crearon todas, 207 si solo algunas
+     * (MEJOR_ESFUERZO) y 400 con el resultado por reserva si no se creó ninguna
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<?> crearLote(@Valid @RequestBody CrearReservasLoteRequest request) {
+        try {
+            ResultadoLoteReservasResponse resultado = reservaLoteService.crearLote(request.getReservas(), request.getModo());
+            if (resultado.getRechazadas() == 0) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(resultado);
+            }
+            if (resultado.getCreadas() > 0) {
+                return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(resultado);
+            }
+            return ResponseEntity.badRequest().body(resultado);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Aparta los equipos mientras el cliente completa la reserva; el token se envía luego en tokenBloqueo
+     */
+    @PostMapping("/bloqueos")
+    public ResponseEntity<?> crearBloqueo(@Valid @RequestBody CrearBloqueoRequest request) {
+        try {
+            BloqueoEquipoService.Bloqueo bloqueo = bloqueoEquipoService.bloquear(
+                request.getIdCliente(),
+                request.getFechaInicio(),
+                request.getFechaFin(),
+                request.getIdsEquipos()
+            );
+            return ResponseEntity.status(HttpStatus.CREATED).body(bloqueo);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/bloqueos/{token}")
+    public ResponseEntity<?> liberarBloqueo(@PathVariable String token) {
+        try {
+            bloqueoEquipoService.liberar(token);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping
     public ResponseEntity<?> listarTodas() {
         try {
@@ -56,10 +146,14 @@ public class ReservaController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> consultarReserva(@PathVariable Long id) {
+    public ResponseEntity<?> consultarReserva(@PathVariable Long id,
+                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
+            // El cuerpo incluye cliente, destino y equipos: el ETag sale del JSON completo,
+            // no solo de la versión de la reserva
             Reserva reserva = reservaService.consultarReserva(id);
-            return ResponseEntity.ok(reserva);
+            return RespuestasCondicionales.conContenido(
+                objectMapper.writeValueAsBytes(reserva), reserva.getVersion(), ifNoneMatch);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -67,7 +161,8 @@ public class ReservaController {
 
     @PutMapping("/{id}")
     public ResponseEntity<?> modificarReserva(@PathVariable Long id,
-                                              @Valid @RequestBody CrearReservaRequest request) {
+                                              @Valid @RequestBody CrearReservaRequest request,
+                                              @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         try {
             Reserva reserva = reservaService.modificarReserva(
                 id,
@@ -75,9 +170,15 @@ public class ReservaController {
                 request.getFechaInicio(),
                 request.getFechaFin(),
                 request.getIdDestino(),
-                request.getIdsEquipos()
+                request.getIdsEquipos(),
+                RespuestasCondicionales.versionDeIfMatch(ifMatch)
             );
-            return ResponseEntity.ok(reserva);
+            return RespuestasCondicionales.conContenido(
+                objectMapper.writeValueAsBytes(reserva), reserva.getVersion(), null);
+        } catch (PrecondicionFallidaException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(RespuestasCondicionales.MENSAJE_CONFLICTO);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -124,9 +225,10 @@ public class ReservaController {
     }
 
     @GetMapping("/{id}/historial")
-    public ResponseEntity<?> obtenerHistorial(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerHistorial(@PathVariable Long id,
+                                              @RequestParam(defaultValue = "false") boolean archivado) {
         try {
-            java.util.List<com.deportur.model.ReservaHistorial> historial = reservaService.obtenerHistorialReserva(id);
+            java.util.List<com.deportur.model.ReservaHistorial> historial = reservaService.obtenerHistorialReserva(id, archivado);
             return ResponseEntity.ok(historial);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -0,0 +1,147 @@
+package com.deportur.controller;
+
+import com.deportur.exception.PrecondicionFallidaException;
+import com.deportur.service.CatalogoService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Utilidades para respuestas HTTP condicionales (ETag / If-None-Match / If-Match)
+ */
+final class RespuestasCondicionales {
+
+    /**
+     * Respuesta 409 cuando otra transacción actualizó la misma fila entre la lectura y el guardado
+     */
+    static final String MENSAJE_CONFLICTO =
+        "El registro fue modificado por otro usuario al mismo tiempo; recárguelo e intente de nuevo";
+
+    private RespuestasCondicionales() {
+    }
+
+    /**
+     * Indica si alguno de los ETags de la cabecera (lista separada por comas,
+     * con o sin prefijo W/) coincide con el ETag actual, o si la cabecera es "*"
+     */
+    static boolean coincide(String cabecera, String etag) {
+        if (cabecera == null || cabecera.isBlank() || etag == null) {
+            return false;
+        }
+        for (String valor : cabecera.split(",")) {
+            String candidato = valor.trim();
+            if (candidato.equals("*")) {
+                return true;
+            }
+            if (candidato.startsWith("W/")) {
+                candidato = candidato.substring(2);
+            }
+            if (candidato.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 304 si el cliente ya tiene la instantánea; si no, 200 con el JSON pre-codificado.
+     * no-cache obliga al navegador a revalidar siempre, así los cambios se ven de inmediato.
+     */
+    static ResponseEntity<byte[]> instantanea(CatalogoService.Instantanea instantanea, String ifNoneMatch) {
+        if (coincide(ifNoneMatch, instantanea.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(instantanea.etag())
+                .cacheControl(CacheControl.noCache())
+                .build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(instantanea.etag())
+            .cacheControl(CacheControl.noCache())
+            .body(instantanea.contenido());
+    }
+
+    /**
+     * ETag de una entidad con columna @Version. Cambia con cada actualización de la fila;
+     * no refleja cambios en entidades relacionadas que se incluyan en la respuesta
+     * (para esas respuestas se usa {@link #etag(Long, byte[])}).
+     */
+    static String etag(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * Indica si el If-None-Match del cliente corresponde a la versión actual
+     */
+    static boolean coincideVersion(String ifNoneMatch, Long version) {
+        return version != null && coincide(ifNoneMatch, etag(version));
+    }
+
+    static ResponseEntity<?> noModificado(Long version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version)).build();
+    }
+
+    /**
+     * 200 con el cuerpo y, si se conoce, el ETag de la versión
+     */
+    static ResponseEntity<?> conVersion(Object cuerpo, Long version) {
+        if (version == null) {
+            return ResponseEntity.ok(cuerpo);
+        }
+        return ResponseEntity.ok().eTag(etag(version)).body(cuerpo);
+    }
+
+    /**
+     * ETag de una respuesta que incluye entidades relacionadas: versión de la raíz seguida
+     * del hash SHA-256 (16 primeros hex) del JSON, así cambia también si cambia una relación
+     */
+    static String etag(Long version, byte[] contenido) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenido);
+            return "\"" + version + "-" + HexFormat.of().formatHex(hash, 0, 8) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * 304 si el If-None-Match coincide con el ETag del contenido; si no, 200 con el JSON ya codificado
+     */
+    static ResponseEntity<?> conContenido(byte[] contenido, Long version, String ifNoneMatch) {
+        String etag = etag(version, contenido);
+        if (coincide(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(etag)
+            .body(contenido);
+    }
+
+    /**
+     * Versión esperada a partir de If-Match; null si no se envió o es "*".
+     * Solo se admite un ETag fuerte, tal como lo devuelven los GET por id; de los ETags
+     * con hash del contenido ("version-hash") solo se compara la versión.
+     */
+    static Long versionDeIfMatch(String ifMatch) throws PrecondicionFallidaException {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String valor = ifMatch.trim();
+        if (valor.length() > 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            String etiqueta = valor.substring(1, valor.length() - 1);
+            int separador = etiqueta.indexOf('-');
+            try {
+                return Long.valueOf(separador > 0 ? etiqueta.substring(0, separador) : etiqueta);
+            } catch (NumberFormatException e) {
+                // Se responde igual que ante una versión desconocida
+            }
+        }
+        throw new PrecondicionFallidaException("El ETag enviado en If-Match no corresponde a una versión válida");
+    }
+}
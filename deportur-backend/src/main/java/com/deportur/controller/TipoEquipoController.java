@@ -1,13 +1,13 @@
 package com.deportur.controller;
 
 import com.deportur.model.TipoEquipo;
+import com.deportur.service.CatalogoService;
 import com.deportur.service.TipoEquipoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/tipos-equipo")
@@ -17,6 +17,9 @@ public class TipoEquipoController {
     @Autowired
     private TipoEquipoService tipoEquipoService;
 
+    @Autowired
+    private CatalogoService catalogoService;
+
     @PostMapping
     public ResponseEntity<?> registrarTipoEquipo(@Valid @RequestBody TipoEquipo tipoEquipo) {
         try {
@@ -28,10 +31,11 @@ public class TipoEquipoController {
     }
 
     @GetMapping
-    public ResponseEntity<?> listarTodos() {
+    public ResponseEntity<?> listarTodos(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         try {
-            List<TipoEquipo> tipos = tipoEquipoService.listarTodosLosTiposEquipo();
-            return ResponseEntity.ok(tipos);
+            // Se sirve la instantánea del catálogo: sin consulta ni serialización si no hubo cambios
+            CatalogoService.Instantanea instantanea = catalogoService.obtener(CatalogoService.Recurso.TIPOS_EQUIPO);
+            return RespuestasCondicionales.instantanea(instantanea, ifNoneMatch);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
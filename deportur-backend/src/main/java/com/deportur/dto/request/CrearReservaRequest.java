@@ -22,6 +22,9 @@ public class CrearReservaRequest {
     @NotEmpty(message = "Debe incluir al menos un equipo")
     private List<Long> idsEquipos;
 
+    // Opcional: bloqueo temporal que se convierte en esta reserva
+    private String tokenBloqueo;
+
     // Getters y Setters
     public Long getIdCliente() {
         return idCliente;
@@ -62,4 +65,12 @@ public class CrearReservaRequest {
     public void setIdsEquipos(List<Long> idsEquipos) {
         this.idsEquipos = idsEquipos;
     }
+
+    public String getTokenBloqueo() {
+        return tokenBloqueo;
+    }
+
+    public void setTokenBloqueo(String tokenBloqueo) {
+        this.tokenBloqueo = tokenBloqueo;
+    }
 }
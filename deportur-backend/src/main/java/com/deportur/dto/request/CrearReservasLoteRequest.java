@@ -0,0 +1,34 @@
+package com.deportur.dto.request;
+
+import com.deportur.model.enums.ModoLoteReserva;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * Lote de reservas (operadores turísticos). Cada reserva se valida en el servicio y el resultado
+ * se informa por posición, así que las reservas no llevan @Valid
+ */
+public class CrearReservasLoteRequest {
+
+    @NotEmpty(message = "El lote debe incluir al menos una reserva")
+    private List<CrearReservaRequest> reservas;
+
+    private ModoLoteReserva modo = ModoLoteReserva.TODO_O_NADA;
+
+    // Getters y Setters
+    public List<CrearReservaRequest> getReservas() {
+        return reservas;
+    }
+
+    public void setReservas(List<CrearReservaRequest> reservas) {
+        this.reservas = reservas;
+    }
+
+    public ModoLoteReserva getModo() {
+        return modo;
+    }
+
+    public void setModo(ModoLoteReserva modo) {
+        this.modo = modo;
+    }
+}
@@ -0,0 +1,98 @@
+package com.deportur.dto.response;
+
+import com.deportur.model.DestinoTuristico;
+import java.math.BigDecimal;
+
+/**
+ * Response para la búsqueda de destinos cercanos con equipos libres
+ */
+public class DestinoCercanoResponse {
+
+    private Long idDestino;
+    private String nombre;
+    private String ciudad;
+    private String departamento;
+    private BigDecimal latitud;
+    private BigDecimal longitud;
+    private Double distanciaKm;
+    private Integer equiposDisponibles;
+
+    public DestinoCercanoResponse() {
+    }
+
+    public DestinoCercanoResponse(DestinoTuristico destino, double distanciaKm, int equiposDisponibles) {
+        this.idDestino = destino.getIdDestino();
+        this.nombre = destino.getNombre();
+        this.ciudad = destino.getCiudad();
+        this.departamento = destino.getDepartamento();
+        this.latitud = destino.getLatitud();
+        this.longitud = destino.getLongitud();
+        this.distanciaKm = Math.round(distanciaKm * 100.0) / 100.0;
+        this.equiposDisponibles = equiposDisponibles;
+    }
+
+    // Getters y Setters
+    public Long getIdDestino() {
+        return idDestino;
+    }
+
+    public void setIdDestino(Long idDestino) {
+        this.idDestino = idDestino;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getCiudad() {
+        return ciudad;
+    }
+
+    public void setCiudad(String ciudad) {
+        this.ciudad = ciudad;
+    }
+
+    public String getDepartamento() {
+        return departamento;
+    }
+
+    public void setDepartamento(String departamento) {
+        this.departamento = departamento;
+    }
+
+    public BigDecimal getLatitud() {
+        return latitud;
+    }
+
+    public void setLatitud(BigDecimal latitud) {
+        this.latitud = latitud;
+    }
+
+    public BigDecimal getLongitud() {
+        return longitud;
+    }
+
+    public void setLongitud(BigDecimal longitud) {
+        this.longitud = longitud;
+    }
+
+    public Double getDistanciaKm() {
+        return distanciaKm;
+    }
+
+    public void setDistanciaKm(Double distanciaKm) {
+        this.distanciaKm = distanciaKm;
+    }
+
+    public Integer getEquiposDisponibles() {
+        return equiposDisponibles;
+    }
+
+    public void setEquiposDisponibles(Integer equiposDisponibles) {
+        this.equiposDisponibles = equiposDisponibles;
+    }
+}
@@ -0,0 +1,116 @@
+package com.deportur.dto.response;
+
+import com.deportur.model.enums.ModoLoteReserva;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de un lote de reservas: uno por reserva, en el orden en que llegaron
+ */
+public class ResultadoLoteReservasResponse {
+
+    private ModoLoteReserva modo;
+    private int creadas;
+    private int rechazadas;
+    private List<Resultado> resultados = new ArrayList<>();
+
+    public ResultadoLoteReservasResponse() {
+    }
+
+    public ResultadoLoteReservasResponse(ModoLoteReserva modo) {
+        this.modo = modo;
+    }
+
+    public static class Resultado {
+        private int indice;
+        private boolean creada;
+        private Long idReserva;
+        private BigDecimal total;
+        private String error;
+
+        public Resultado() {
+        }
+
+        public Resultado(int indice, boolean creada, Long idReserva, BigDecimal total, String error) {
+            this.indice = indice;
+            this.creada = creada;
+            this.idReserva = idReserva;
+            this.total = total;
+            this.error = error;
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        public void setIndice(int indice) {
+            this.indice = indice;
+        }
+
+        public boolean isCreada() {
+            return creada;
+        }
+
+        public void setCreada(boolean creada) {
+            this.creada = creada;
+        }
+
+        public Long getIdReserva() {
+            return idReserva;
+        }
+
+        public void setIdReserva(Long idReserva) {
+            this.idReserva = idReserva;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public void setTotal(BigDecimal total) {
+            this.total = total;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+
+    // Getters y Setters
+    public ModoLoteReserva getModo() {
+        return modo;
+    }
+
+    public void setModo(ModoLoteReserva modo) {
+        this.modo = modo;
+    }
+
+    public int getCreadas() {
+        return creadas;
+    }
+
+    public void setCreadas(int creadas) {
+        this.creadas = creadas;
+    }
+
+    public int getRechazadas() {
+        return rechazadas;
+    }
+
+    public void setRechazadas(int rechazadas) {
+        this.rechazadas = rechazadas;
+    }
+
+    public List<Resultado> getResultados() {
+        return resultados;
+    }
+
+    public void setResultados(List<Resultado> resultados) {
+        this.resultados = resultados;
+    }
+}
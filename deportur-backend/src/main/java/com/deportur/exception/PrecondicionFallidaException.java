@@ -0,0 +1,21 @@
+package com.deportur.exception;
+
+/**
+ * La versión enviada por el cliente (If-Match) ya no coincide con la almacenada
+ */
+public class PrecondicionFallidaException extends Exception {
+
+    public PrecondicionFallidaException(String message) {
+        super(message);
+    }
+
+    /**
+     * Falla si se indicó una versión esperada y la entidad ya tiene otra
+     */
+    public static void verificarVersion(Long versionEsperada, Long versionActual) throws PrecondicionFallidaException {
+        if (versionEsperada != null && !versionEsperada.equals(versionActual)) {
+            throw new PrecondicionFallidaException(
+                "El registro fue modificado por otro usuario; recárguelo e intente de nuevo");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.deportur.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Fila de un bloqueo temporal: aparta un equipo para un rango de fechas hasta expiraEn.
+ * Un bloqueo de varios equipos son varias filas con el mismo token. Es la copia compartida
+ * entre instancias de la tabla en memoria de BloqueoEquipoService.
+ */
+@Entity
+@Table(name = "bloqueo_equipo", indexes = {
+    @Index(name = "idx_bloqueo_equipo_equipo", columnList = "id_equipo, expira_en"),
+    @Index(name = "idx_bloqueo_equipo_token", columnList = "token"),
+    @Index(name = "idx_bloqueo_equipo_expira", columnList = "expira_en")
+})
+public class BloqueoEquipo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_bloqueo")
+    private Long idBloqueo;
+
+    @Column(nullable = false, length = 36)
+    private String token;
+
+    @Column(name = "id_equipo", nullable = false)
+    private Long idEquipo;
+
+    @Column(name = "id_cliente", nullable = false)
+    private Long idCliente;
+
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDate fechaInicio;
+
+    @Column(name = "fecha_fin", nullable = false)
+    private LocalDate fechaFin;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    // Constructores
+    public BloqueoEquipo() {
+    }
+
+    public BloqueoEquipo(String token, Long idEquipo, Long idCliente, LocalDate fechaInicio,
+                         LocalDate fechaFin, LocalDateTime expiraEn) {
+        this.token = token;
+        this.idEquipo = idEquipo;
+        this.idCliente = idCliente;
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.expiraEn = expiraEn;
+    }
+
+    // Getters y Setters
+    public Long getIdBloqueo() {
+        return idBloqueo;
+    }
+
+    public void setIdBloqueo(Long idBloqueo) {
+        this.idBloqueo = idBloqueo;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Long getIdEquipo() {
+        return idEquipo;
+    }
+
+    public void setIdEquipo(Long idEquipo) {
+        this.idEquipo = idEquipo;
+    }
+
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public void setFechaInicio(LocalDate fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public void setFechaFin(LocalDate fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+
+    public LocalDateTime getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(LocalDateTime expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+}
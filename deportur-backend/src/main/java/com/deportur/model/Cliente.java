@@ -61,6 +61,11 @@ public class Cliente {
     @Column(name = "nivel_fidelizacion", length = 20, columnDefinition = "VARCHAR(20) DEFAULT 'BRONCE'")
     private NivelFidelizacion nivelFidelizacion = NivelFidelizacion.BRONCE;
 
+    // Se incrementa en cada actualización; sirve para el bloqueo optimista y como ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Constructores
     public Cliente() {
     }
@@ -88,6 +93,14 @@ public class Cliente {
         this.idCliente = idCliente;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -0,0 +1,169 @@
+package com.deportur.model;
+
+import com.deportur.model.enums.EstadoReserva;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Modelo de lectura con las estadísticas acumuladas de un cliente.
+ * Se mantiene de forma incremental desde ReservaService para que la ficha
+ * del cliente no tenga que recorrer todo su historial de reservas.
+ */
+@Entity
+@Table(name = "cliente_estadistica")
+public class ClienteEstadistica {
+
+    @Id
+    @Column(name = "id_cliente")
+    private Long idCliente;
+
+    @Column(name = "total_gastado", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalGastado = BigDecimal.ZERO;
+
+    @Column(name = "reservas_pendientes", nullable = false)
+    private Integer reservasPendientes = 0;
+
+    @Column(name = "reservas_confirmadas", nullable = false)
+    private Integer reservasConfirmadas = 0;
+
+    @Column(name = "reservas_en_progreso", nullable = false)
+    private Integer reservasEnProgreso = 0;
+
+    @Column(name = "reservas_finalizadas", nullable = false)
+    private Integer reservasFinalizadas = 0;
+
+    @Column(name = "reservas_canceladas", nullable = false)
+    private Integer reservasCanceladas = 0;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "id_tipo_favorito")
+    private TipoEquipo tipoEquipoFavorito;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        fechaActualizacion = LocalDateTime.now();
+    }
+
+    // Constructores
+    public ClienteEstadistica() {
+    }
+
+    public ClienteEstadistica(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    // Getters y Setters
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public BigDecimal getTotalGastado() {
+        return totalGastado;
+    }
+
+    public void setTotalGastado(BigDecimal totalGastado) {
+        this.totalGastado = totalGastado;
+    }
+
+    public Integer getReservasPendientes() {
+        return reservasPendientes;
+    }
+
+    public void setReservasPendientes(Integer reservasPendientes) {
+        this.reservasPendientes = reservasPendientes;
+    }
+
+    public Integer getReservasConfirmadas() {
+        return reservasConfirmadas;
+    }
+
+    public void setReservasConfirmadas(Integer reservasConfirmadas) {
+        this.reservasConfirmadas = reservasConfirmadas;
+    }
+
+    public Integer getReservasEnProgreso() {
+        return reservasEnProgreso;
+    }
+
+    public void setReservasEnProgreso(Integer reservasEnProgreso) {
+        this.reservasEnProgreso = reservasEnProgreso;
+    }
+
+    public Integer getReservasFinalizadas() {
+        return reservasFinalizadas;
+    }
+
+    public void setReservasFinalizadas(Integer reservasFinalizadas) {
+        this.reservasFinalizadas = reservasFinalizadas;
+    }
+
+    public Integer getReservasCanceladas() {
+        return reservasCanceladas;
+    }
+
+    public void setReservasCanceladas(Integer reservasCanceladas) {
+        this.reservasCanceladas = reservasCanceladas;
+    }
+
+    public TipoEquipo getTipoEquipoFavorito() {
+        return tipoEquipoFavorito;
+    }
+
+    public void setTipoEquipoFavorito(TipoEquipo tipoEquipoFavorito) {
+        this.tipoEquipoFavorito = tipoEquipoFavorito;
+    }
+
+    public LocalDateTime getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+
+    /**
+     * Suma (o resta, con delta negativo) reservas al contador del estado indicado
+     */
+    public void ajustarConteo(EstadoReserva estado, int delta) {
+        switch (estado) {
+            case PENDIENTE -> reservasPendientes = reservasPendientes + delta;
+            case CONFIRMADA -> reservasConfirmadas = reservasConfirmadas + delta;
+            case EN_PROGRESO -> reservasEnProgreso = reservasEnProgreso + delta;
+            case FINALIZADA -> reservasFinalizadas = reservasFinalizadas + delta;
+            case CANCELADA -> reservasCanceladas = reservasCanceladas + delta;
+        }
+    }
+
+    /**
+     * Suma un importe al total gastado (usar valores negativos para descontar)
+     */
+    public void ajustarTotalGastado(BigDecimal importe) {
+        if (importe != null) {
+            this.totalGastado = this.totalGastado.add(importe);
+        }
+    }
+
+    /**
+     * Reservas que cuentan para fidelización (todas excepto las canceladas)
+     */
+    public int getTotalReservasActivas() {
+        return reservasPendientes + reservasConfirmadas + reservasEnProgreso + reservasFinalizadas;
+    }
+
+    public Map<EstadoReserva, Integer> getReservasPorEstado() {
+        Map<EstadoReserva, Integer> conteo = new EnumMap<>(EstadoReserva.class);
+        conteo.put(EstadoReserva.PENDIENTE, reservasPendientes);
+        conteo.put(EstadoReserva.CONFIRMADA, reservasConfirmadas);
+        conteo.put(EstadoReserva.EN_PROGRESO, reservasEnProgreso);
+        conteo.put(EstadoReserva.FINALIZADA, reservasFinalizadas);
+        conteo.put(EstadoReserva.CANCELADA, reservasCanceladas);
+        return conteo;
+    }
+}
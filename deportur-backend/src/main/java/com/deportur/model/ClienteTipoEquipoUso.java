@@ -0,0 +1,74 @@
+package com.deportur.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Número de equipos de cada tipo que un cliente ha reservado (sin contar canceladas).
+ * Permite calcular el tipo de equipo favorito sin recorrer las reservas.
+ */
+@Entity
+@Table(name = "cliente_tipo_equipo_uso",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"id_cliente", "id_tipo"}))
+public class ClienteTipoEquipoUso {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_uso")
+    private Long idUso;
+
+    @Column(name = "id_cliente", nullable = false)
+    private Long idCliente;
+
+    @Column(name = "id_tipo", nullable = false)
+    private Long idTipo;
+
+    @Column(nullable = false)
+    private Integer cantidad = 0;
+
+    // Constructores
+    public ClienteTipoEquipoUso() {
+    }
+
+    public ClienteTipoEquipoUso(Long idCliente, Long idTipo) {
+        this.idCliente = idCliente;
+        this.idTipo = idTipo;
+        this.cantidad = 0;
+    }
+
+    // Getters y Setters
+    public Long getIdUso() {
+        return idUso;
+    }
+
+    public void setIdUso(Long idUso) {
+        this.idUso = idUso;
+    }
+
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public Long getIdTipo() {
+        return idTipo;
+    }
+
+    public void setIdTipo(Long idTipo) {
+        this.idTipo = idTipo;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public void ajustarCantidad(int delta) {
+        this.cantidad = Math.max(0, this.cantidad + delta);
+    }
+}
@@ -62,6 +62,11 @@ public class EquipoDeportivo {
     @Column(name = "contador_uso", columnDefinition = "INTEGER DEFAULT 0")
     private Integer contadorUso = 0;
 
+    // Se incrementa en cada actualización; sirve para el bloqueo optimista y como ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Constructores
     public EquipoDeportivo() {
     }
@@ -90,6 +95,14 @@ public class EquipoDeportivo {
         this.idEquipo = idEquipo;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getNombre() {
         return nombre;
     }
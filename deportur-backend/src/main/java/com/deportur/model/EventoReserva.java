@@ -0,0 +1,131 @@
+package com.deportur.model;
+
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.model.enums.TipoEventoReserva;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Fila de la bandeja de salida (outbox) de reservas.
+ * Se escribe en la misma transacción que el cambio de la reserva, así que existe
+ * si y solo si el cambio se confirmó; RelayEventosReserva la difunde después.
+ */
+@Entity
+@Table(name = "evento_reserva")
+public class EventoReserva {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_evento")
+    private Long idEvento;
+
+    @Column(name = "id_reserva", nullable = false)
+    private Long idReserva;
+
+    @Column(name = "id_cliente")
+    private Long idCliente;
+
+    @Column(name = "id_destino")
+    private Long idDestino;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEventoReserva tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_anterior", length = 20)
+    private EstadoReserva estadoAnterior;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_nuevo", nullable = false, length = 20)
+    private EstadoReserva estadoNuevo;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @PrePersist
+    protected void onCreate() {
+        if (fechaCreacion == null) {
+            fechaCreacion = LocalDateTime.now();
+        }
+    }
+
+    // Constructores
+    public EventoReserva() {
+    }
+
+    public EventoReserva(Reserva reserva, TipoEventoReserva tipo, EstadoReserva estadoAnterior) {
+        this.idReserva = reserva.getIdReserva();
+        this.idCliente = reserva.getCliente() != null ? reserva.getCliente().getIdCliente() : null;
+        this.idDestino = reserva.getDestino() != null ? reserva.getDestino().getIdDestino() : null;
+        this.tipo = tipo;
+        this.estadoAnterior = estadoAnterior;
+        this.estadoNuevo = reserva.getEstado();
+        this.fechaCreacion = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getIdEvento() {
+        return idEvento;
+    }
+
+    public void setIdEvento(Long idEvento) {
+        this.idEvento = idEvento;
+    }
+
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    public void setIdReserva(Long idReserva) {
+        this.idReserva = idReserva;
+    }
+
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public Long getIdDestino() {
+        return idDestino;
+    }
+
+    public void setIdDestino(Long idDestino) {
+        this.idDestino = idDestino;
+    }
+
+    public TipoEventoReserva getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(TipoEventoReserva tipo) {
+        this.tipo = tipo;
+    }
+
+    public EstadoReserva getEstadoAnterior() {
+        return estadoAnterior;
+    }
+
+    public void setEstadoAnterior(EstadoReserva estadoAnterior) {
+        this.estadoAnterior = estadoAnterior;
+    }
+
+    public EstadoReserva getEstadoNuevo() {
+        return estadoNuevo;
+    }
+
+    public void setEstadoNuevo(EstadoReserva estadoNuevo) {
+        this.estadoNuevo = estadoNuevo;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
@@ -79,6 +79,11 @@ public class PoliticaPrecio {
     @Column(name = "fecha_actualizacion")
     private LocalDateTime fechaActualizacion;
 
+    // Se incrementa en cada actualización; sirve para el bloqueo optimista y como ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Constructores
     public PoliticaPrecio() {
     }
@@ -126,6 +131,14 @@ public class PoliticaPrecio {
         this.idPolitica = idPolitica;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -64,6 +64,11 @@ public class Reserva {
     @OneToMany(mappedBy = "reserva", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<DetalleReserva> detalles = new ArrayList<>();
 
+    // Se incrementa en cada actualización; sirve para el bloqueo optimista y como ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
@@ -98,6 +103,14 @@ public class Reserva {
         this.idReserva = idReserva;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Cliente getCliente() {
         return cliente;
     }
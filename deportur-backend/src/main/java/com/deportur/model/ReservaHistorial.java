@@ -1,12 +1,17 @@
 package com.deportur.model;
 
 import com.deportur.model.enums.EstadoReserva;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reserva_historial")
+@Table(name = "reserva_historial", indexes = {
+    // En Postgres la tabla está particionada por mes (V5); el índice existe en cada partición
+    @Index(name = "idx_reserva_historial_reserva_fecha", columnList = "id_reserva, fecha_cambio DESC")
+})
 public class ReservaHistorial {
 
     @Id
@@ -14,6 +19,8 @@ public class ReservaHistorial {
     @Column(name = "id_historial")
     private Long idHistorial;
 
+    // Se serializa solo su id (getIdReserva): las entradas archivadas no tienen la reserva cargada
+    @JsonIgnore
     @NotNull(message = "La reserva es requerida")
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_reserva", nullable = false)
@@ -75,6 +82,11 @@ public class ReservaHistorial {
         this.reserva = reserva;
     }
 
+    @JsonProperty("idReserva")
+    public Long getIdReserva() {
+        return reserva != null ? reserva.getIdReserva() : null;
+    }
+
     public EstadoReserva getEstadoAnterior() {
         return estadoAnterior;
     }
@@ -0,0 +1,117 @@
+package com.deportur.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta guardada de una petición con Idempotency-Key, compartida entre instancias.
+ * Mientras la primera ejecución está en curso la fila no tiene codigoEstado; al terminar
+ * guarda la respuesta y vive hasta expiraEn (la ventana de deportur.idempotencia.ventana-horas).
+ */
+@Entity
+@Table(name = "solicitud_idempotente", indexes = {
+    @Index(name = "idx_solicitud_idempotente_expira", columnList = "expira_en")
+})
+public class SolicitudIdempotente {
+
+    /** Usuario autenticado y clave enviada por el cliente */
+    @Id
+    @Column(length = 512)
+    private String clave;
+
+    /** SHA-256 del cuerpo de la petición */
+    @Column(name = "hash_peticion", nullable = false, length = 64)
+    private String hashPeticion;
+
+    @Column(name = "codigo_estado")
+    private Integer codigoEstado;
+
+    @Column(name = "tipo_contenido", length = 100)
+    private String tipoContenido;
+
+    @Column(columnDefinition = "TEXT")
+    private String cuerpo;
+
+    /** Reserva creada por la primera ejecución; se anota en la misma transacción que la crea */
+    @Column(name = "id_reserva")
+    private Long idReserva;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    // Constructores
+    public SolicitudIdempotente() {
+    }
+
+    public boolean isCompletada() {
+        return codigoEstado != null;
+    }
+
+    // Getters y Setters
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getHashPeticion() {
+        return hashPeticion;
+    }
+
+    public void setHashPeticion(String hashPeticion) {
+        this.hashPeticion = hashPeticion;
+    }
+
+    public Integer getCodigoEstado() {
+        return codigoEstado;
+    }
+
+    public void setCodigoEstado(Integer codigoEstado) {
+        this.codigoEstado = codigoEstado;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public void setTipoContenido(String tipoContenido) {
+        this.tipoContenido = tipoContenido;
+    }
+
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    public void setCuerpo(String cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    public void setIdReserva(Long idReserva) {
+        this.idReserva = idReserva;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public LocalDateTime getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(LocalDateTime expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+}
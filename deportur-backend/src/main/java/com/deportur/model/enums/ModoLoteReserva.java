@@ -0,0 +1,11 @@
+package com.deportur.model.enums;
+
+/**
+ * Cómo se confirma un lote de reservas cuando alguna no es válida
+ */
+public enum ModoLoteReserva {
+    /** Si alguna reserva falla no se crea ninguna */
+    TODO_O_NADA,
+    /** Se crean las válidas y se informan las que fallaron */
+    MEJOR_ESFUERZO
+}
@@ -0,0 +1,19 @@
+package com.deportur.model.enums;
+
+public enum TipoEventoReserva {
+    CREADA("Reserva creada"),
+    MODIFICADA("Reserva modificada"),
+    CONFIRMADA("Reserva confirmada"),
+    CANCELADA("Reserva cancelada"),
+    ESTADO_AUTOMATICO("Estado actualizado por fechas");
+
+    private final String descripcion;
+
+    TipoEventoReserva(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
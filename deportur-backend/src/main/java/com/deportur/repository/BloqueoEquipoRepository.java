@@ -0,0 +1,67 @@
+package com.deportur.repository;
+
+import com.deportur.model.BloqueoEquipo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BloqueoEquipoRepository extends JpaRepository<BloqueoEquipo, Long> {
+
+    /**
+     * Equipos de la lista con un bloqueo vigente que se solapa con las fechas, sin contar
+     * el bloqueo tokenPropio (cadena vacía si no hay)
+     */
+    @Query("SELECT DISTINCT b.idEquipo FROM BloqueoEquipo b " +
+           "WHERE b.idEquipo IN :idsEquipos " +
+           "AND b.expiraEn > :ahora " +
+           "AND b.fechaInicio <= :fechaFin AND b.fechaFin >= :fechaInicio " +
+           "AND b.token <> :tokenPropio")
+    List<Long> findEquiposBloqueados(
+        @Param("idsEquipos") Collection<Long> idsEquipos,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin,
+        @Param("ahora") LocalDateTime ahora,
+        @Param("tokenPropio") String tokenPropio
+    );
+
+    /**
+     * Bloqueos vigentes de varios equipos que se solapan con el rango, para comprobar un lote en memoria
+     */
+    @Query("SELECT b FROM BloqueoEquipo b " +
+           "WHERE b.idEquipo IN :idsEquipos " +
+           "AND b.expiraEn > :ahora " +
+           "AND b.fechaInicio <= :fechaFin AND b.fechaFin >= :fechaInicio")
+    List<BloqueoEquipo> findVigentesEnRango(
+        @Param("idsEquipos") Collection<Long> idsEquipos,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin,
+        @Param("ahora") LocalDateTime ahora
+    );
+
+    List<BloqueoEquipo> findByToken(String token);
+
+    List<BloqueoEquipo> findByExpiraEnAfter(LocalDateTime ahora);
+
+    /**
+     * Borra el bloqueo si sigue vigente. Dos conversiones del mismo token se serializan en las
+     * filas: la segunda borra cero filas
+     */
+    @Modifying
+    @Query("DELETE FROM BloqueoEquipo b WHERE b.token = :token AND b.expiraEn > :ahora")
+    int consumir(@Param("token") String token, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("DELETE FROM BloqueoEquipo b WHERE b.token = :token")
+    int liberar(@Param("token") String token);
+
+    @Modifying
+    @Query("DELETE FROM BloqueoEquipo b WHERE b.expiraEn <= :ahora")
+    int eliminarVencidos(@Param("ahora") LocalDateTime ahora);
+}
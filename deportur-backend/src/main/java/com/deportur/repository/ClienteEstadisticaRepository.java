@@ -0,0 +1,34 @@
+package com.deportur.repository;
+
+import com.deportur.model.ClienteEstadistica;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface ClienteEstadisticaRepository extends JpaRepository<ClienteEstadistica, Long> {
+
+    /**
+     * Obtiene las estadísticas bloqueando la fila para actualizarlas de forma incremental
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM ClienteEstadistica e WHERE e.idCliente = :idCliente")
+    Optional<ClienteEstadistica> bloquearPorCliente(@Param("idCliente") Long idCliente);
+
+    /**
+     * Inserta la fila vacía del cliente si no existe. Devuelve 0 si ya existía o si otra transacción
+     * la insertó a la vez: en ese caso espera a que esa confirme y la fila queda lista para bloquearse
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cliente_estadistica (id_cliente, total_gastado, reservas_pendientes, " +
+                   "reservas_confirmadas, reservas_en_progreso, reservas_finalizadas, reservas_canceladas, " +
+                   "fecha_actualizacion) VALUES (:idCliente, 0, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (id_cliente) DO NOTHING",
+           nativeQuery = true)
+    int crearSiNoExiste(@Param("idCliente") Long idCliente);
+}
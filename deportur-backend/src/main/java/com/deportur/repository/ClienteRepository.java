@@ -1,8 +1,11 @@
 package com.deportur.repository;
 
 import com.deportur.model.Cliente;
+import com.deportur.model.enums.NivelFidelizacion;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -25,4 +28,29 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     @Override
     @EntityGraph(attributePaths = "destinoPreferido")
     Optional<Cliente> findById(Long id);
+
+    interface ReferenciasCliente {
+        Long getReservas();
+    }
+
+    // Conteos acotados a 1000 filas: solo interesa saber si hay referencias y cuántas, aproximadamente
+    @Query(value = "SELECT " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM reserva r WHERE r.id_cliente = :idCliente LIMIT 1000) t) AS \"reservas\"",
+           nativeQuery = true)
+    ReferenciasCliente contarReferencias(@Param("idCliente") Long idCliente);
+
+    interface NivelClienteConteo {
+        NivelFidelizacion getNivel();
+        Long getCantidad();
+    }
+
+    // Dashboard: clientes por nivel de fidelización sin cargar las entidades
+    @Query("SELECT c.nivelFidelizacion AS nivel, COUNT(c) AS cantidad FROM Cliente c GROUP BY c.nivelFidelizacion")
+    List<NivelClienteConteo> contarPorNivelFidelizacion();
+
+    /**
+     * Versión actual sin cargar la entidad; permite responder If-None-Match / If-Match
+     */
+    @Query("SELECT c.version FROM Cliente c WHERE c.idCliente = :id")
+    Optional<Long> buscarVersion(@Param("id") Long id);
 }
@@ -0,0 +1,19 @@
+package com.deportur.repository;
+
+import com.deportur.model.ClienteTipoEquipoUso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface ClienteTipoEquipoUsoRepository extends JpaRepository<ClienteTipoEquipoUso, Long> {
+
+    List<ClienteTipoEquipoUso> findByIdCliente(Long idCliente);
+
+    @Modifying
+    @Query("DELETE FROM ClienteTipoEquipoUso u WHERE u.idCliente = :idCliente")
+    void deleteByIdCliente(@Param("idCliente") Long idCliente);
+}
@@ -2,6 +2,8 @@ package com.deportur.repository;
 
 import com.deportur.model.DestinoTuristico;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -10,4 +12,21 @@ public interface DestinoTuristicoRepository extends JpaRepository<DestinoTuristi
 
     // Migrado de DestinoTuristicoDAO.buscarPorNombreOUbicacion()
     List<DestinoTuristico> findByNombreContainingOrUbicacionContaining(String nombre, String ubicacion);
+
+    // Destinos que pueden ubicarse en el mapa (usado por el índice espacial)
+    List<DestinoTuristico> findByActivoTrueAndLatitudIsNotNullAndLongitudIsNotNull();
+
+    interface ReferenciasDestino {
+        Long getEquipos();
+        Long getReservas();
+        Long getPoliticasPrecio();
+    }
+
+    // Conteos acotados a 1000 filas, resueltos en una sola consulta
+    @Query(value = "SELECT " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM equipo_deportivo e WHERE e.id_destino = :idDestino LIMIT 1000) t1) AS \"equipos\", " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM reserva r WHERE r.id_destino = :idDestino LIMIT 1000) t2) AS \"reservas\", " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM politica_precio p WHERE p.destino_id = :idDestino LIMIT 1000) t3) AS \"politicasPrecio\"",
+           nativeQuery = true)
+    ReferenciasDestino contarReferencias(@Param("idDestino") Long idDestino);
 }
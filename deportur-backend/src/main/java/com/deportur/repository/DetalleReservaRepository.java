@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -36,6 +37,30 @@ public interface DetalleReservaRepository extends JpaRepository<DetalleReserva,
         @Param("fechaFin") LocalDate fechaFin
     );
 
+    /**
+     * Fechas de una reserva activa que ocupa un equipo (proyección)
+     */
+    interface Ocupacion {
+        Long getIdEquipo();
+        LocalDate getFechaInicio();
+        LocalDate getFechaFin();
+    }
+
+    /**
+     * Ocupaciones de reservas activas de varios equipos que se solapan con el rango. Una sola
+     * consulta para todo un lote; el solape de cada reserva se comprueba luego en memoria
+     */
+    @Query("SELECT dr.equipo.idEquipo AS idEquipo, r.fechaInicio AS fechaInicio, r.fechaFin AS fechaFin " +
+           "FROM DetalleReserva dr JOIN dr.reserva r " +
+           "WHERE dr.equipo.idEquipo IN :idsEquipos " +
+           "AND r.estado IN ('PENDIENTE', 'CONFIRMADA', 'EN_PROGRESO') " +
+           "AND r.fechaInicio <= :fechaFin AND r.fechaFin >= :fechaInicio")
+    List<Ocupacion> findOcupacionesEnRango(
+        @Param("idsEquipos") Collection<Long> idsEquipos,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin
+    );
+
     // Verificar si un equipo tiene reservas activas
     @Query("SELECT COUNT(dr) > 0 FROM DetalleReserva dr " +
            "JOIN dr.reserva r " +
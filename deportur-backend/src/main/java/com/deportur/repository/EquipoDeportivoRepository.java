@@ -3,12 +3,17 @@ package com.deportur.repository;
 import com.deportur.model.DestinoTuristico;
 import com.deportur.model.EquipoDeportivo;
 import com.deportur.model.TipoEquipo;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EquipoDeportivoRepository extends JpaRepository<EquipoDeportivo, Long> {
@@ -39,4 +44,63 @@ public interface EquipoDeportivoRepository extends JpaRepository<EquipoDeportivo
         @Param("fechaInicio") LocalDate fechaInicio,
         @Param("fechaFin") LocalDate fechaFin
     );
+
+    interface DisponiblesPorDestino {
+        Long getIdDestino();
+        Long getDisponibles();
+    }
+
+    // Número de equipos libres por destino (opcionalmente de un tipo) para un rango de fechas,
+    // sin los reservados ni los apartados por un bloqueo temporal vigente
+    @Query("SELECT e.destino.idDestino AS idDestino, COUNT(e) AS disponibles FROM EquipoDeportivo e " +
+           "WHERE e.destino.idDestino IN :idsDestino " +
+           "AND (:idTipo IS NULL OR e.tipo.idTipo = :idTipo) " +
+           "AND e.disponible = true " +
+           "AND e.idEquipo NOT IN (" +
+           "  SELECT dr.equipo.idEquipo FROM DetalleReserva dr " +
+           "  JOIN dr.reserva r " +
+           "  WHERE r.estado IN ('PENDIENTE', 'CONFIRMADA', 'EN_PROGRESO') " +
+           "  AND r.fechaInicio <= :fechaFin AND r.fechaFin >= :fechaInicio) " +
+           "AND NOT EXISTS (" +
+           "  SELECT 1 FROM BloqueoEquipo b " +
+           "  WHERE b.idEquipo = e.idEquipo " +
+           "  AND b.expiraEn > :ahora " +
+           "  AND b.fechaInicio <= :fechaFin AND b.fechaFin >= :fechaInicio) " +
+           "GROUP BY e.destino.idDestino")
+    List<DisponiblesPorDestino> contarDisponiblesPorDestinos(
+        @Param("idsDestino") Collection<Long> idsDestino,
+        @Param("idTipo") Long idTipo,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin,
+        @Param("ahora") LocalDateTime ahora
+    );
+
+    interface ReferenciasEquipo {
+        Long getReservasActivas();
+        Long getPoliticasPrecio();
+    }
+
+    // Conteos acotados a 1000 filas, resueltos en una sola consulta
+    @Query(value = "SELECT " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM detalle_reserva dr " +
+                   "   JOIN reserva r ON r.id_reserva = dr.id_reserva " +
+                   "   WHERE dr.id_equipo = :idEquipo " +
+                   "   AND r.estado IN ('PENDIENTE', 'CONFIRMADA', 'EN_PROGRESO') LIMIT 1000) t1) AS \"reservasActivas\", " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM politica_precio p WHERE p.equipo_id = :idEquipo LIMIT 1000) t2) AS \"politicasPrecio\"",
+           nativeQuery = true)
+    ReferenciasEquipo contarReferencias(@Param("idEquipo") Long idEquipo);
+
+    /**
+     * Versión actual sin cargar la entidad; permite responder If-None-Match / If-Match
+     */
+    @Query("SELECT e.version FROM EquipoDeportivo e WHERE e.idEquipo = :id")
+    Optional<Long> buscarVersion(@Param("id") Long id);
+
+    /**
+     * Bloquea las filas de los equipos (SELECT ... FOR UPDATE) hasta el fin de la transacción.
+     * Serializa reservas y bloqueos temporales sobre los mismos equipos; el orden por id evita interbloqueos
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM EquipoDeportivo e WHERE e.idEquipo IN :ids ORDER BY e.idEquipo")
+    List<EquipoDeportivo> bloquearPorIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,29 @@
+package com.deportur.repository;
+
+import com.deportur.model.EventoReserva;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoReservaRepository extends JpaRepository<EventoReserva, Long> {
+
+    /**
+     * Siguientes eventos tras el cursor de una instancia, en orden. Sin bloqueo: todas las instancias
+     * leen todos los eventos
+     */
+    @Query(value = "SELECT * FROM evento_reserva WHERE id_evento > :cursor ORDER BY id_evento LIMIT :lote",
+           nativeQuery = true)
+    List<EventoReserva> findSiguientes(@Param("cursor") long cursor, @Param("lote") int lote);
+
+    @Query("SELECT MAX(e.idEvento) FROM EventoReserva e WHERE e.fechaCreacion < :limite")
+    Long findUltimoIdAntesDe(@Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("DELETE FROM EventoReserva e WHERE e.fechaCreacion < :limite")
+    int eliminarCreadosAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -116,4 +116,10 @@ public interface PoliticaPrecioRepository extends JpaRepository<PoliticaPrecio,
     @Override
     @EntityGraph(attributePaths = {"destino", "tipoEquipo", "equipo"})
     Optional<PoliticaPrecio> findById(Long id);
+
+    /**
+     * Versión actual sin cargar la entidad; permite responder If-None-Match / If-Match
+     */
+    @Query("SELECT p.version FROM PoliticaPrecio p WHERE p.idPolitica = :id")
+    Optional<Long> buscarVersion(@Param("id") Long id);
 }
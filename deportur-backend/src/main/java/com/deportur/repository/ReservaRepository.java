@@ -4,10 +4,12 @@ import com.deportur.model.Cliente;
 import com.deportur.model.DestinoTuristico;
 import com.deportur.model.Reserva;
 import com.deportur.model.enums.EstadoReserva;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
@@ -16,6 +18,9 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
     // Migrado de ReservaDAO.buscarPorCliente()
     List<Reserva> findByClienteOrderByFechaCreacionDesc(Cliente cliente);
 
+    // Últimas reservas de un cliente, acotadas con LIMIT en la base de datos
+    List<Reserva> findByCliente_IdClienteOrderByFechaCreacionDesc(Long idCliente, Pageable pageable);
+
     // Migrado de ReservaDAO.buscarPorDestino()
     List<Reserva> findByDestinoOrderByFechaInicio(DestinoTuristico destino);
 
@@ -40,4 +45,45 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
            "WHERE r.cliente.idCliente = :clienteId " +
            "AND r.estado <> com.deportur.model.enums.EstadoReserva.CANCELADA")
     Long contarReservasPorCliente(@Param("clienteId") Long clienteId);
+
+    interface EstadoReservaResumen {
+        EstadoReserva getEstado();
+        Long getCantidad();
+        BigDecimal getTotal();
+    }
+
+    @Query("SELECT r.estado AS estado, COUNT(r) AS cantidad, COALESCE(SUM(r.total), 0) AS total " +
+           "FROM Reserva r " +
+           "WHERE r.cliente.idCliente = :clienteId " +
+           "GROUP BY r.estado")
+    List<EstadoReservaResumen> resumirReservasPorEstado(@Param("clienteId") Long clienteId);
+
+    interface TipoEquipoUsoResumen {
+        Long getIdTipo();
+        Long getCantidad();
+    }
+
+    @Query("SELECT d.equipo.tipo.idTipo AS idTipo, COUNT(d) AS cantidad " +
+           "FROM DetalleReserva d " +
+           "WHERE d.reserva.cliente.idCliente = :clienteId " +
+           "AND d.reserva.estado <> com.deportur.model.enums.EstadoReserva.CANCELADA " +
+           "GROUP BY d.equipo.tipo.idTipo")
+    List<TipoEquipoUsoResumen> resumirUsoTiposEquipo(@Param("clienteId") Long clienteId);
+
+    interface EstadoReservaConteo {
+        EstadoReserva getEstado();
+        Long getCantidad();
+    }
+
+    // Dashboard: conteos agregados en la base de datos en lugar de recorrer todas las reservas
+    @Query("SELECT r.estado AS estado, COUNT(r) AS cantidad FROM Reserva r GROUP BY r.estado")
+    List<EstadoReservaConteo> contarPorEstado();
+
+    interface DestinoReservaConteo {
+        String getDestino();
+        Long getCantidad();
+    }
+
+    @Query("SELECT r.destino.nombre AS destino, COUNT(r) AS cantidad FROM Reserva r GROUP BY r.destino.nombre")
+    List<DestinoReservaConteo> contarPorDestino();
 }
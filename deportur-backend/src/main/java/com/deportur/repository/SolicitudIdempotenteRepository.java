@@ -0,0 +1,56 @@
+package com.deportur.repository;
+
+import com.deportur.model.SolicitudIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface SolicitudIdempotenteRepository extends JpaRepository<SolicitudIdempotente, String> {
+
+    /**
+     * Reserva la clave para ejecutar la petición: inserta la fila en curso, o reutiliza una ya
+     * vencida. Devuelve 0 si la clave está vigente (otra ejecución en curso o una respuesta guardada)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO solicitud_idempotente (clave, hash_peticion, fecha_creacion, expira_en) " +
+                   "VALUES (:clave, :hash, :ahora, :expiraEn) " +
+                   "ON CONFLICT (clave) DO UPDATE SET hash_peticion = EXCLUDED.hash_peticion, " +
+                   "codigo_estado = NULL, tipo_contenido = NULL, cuerpo = NULL, id_reserva = NULL, " +
+                   "fecha_creacion = EXCLUDED.fecha_creacion, expira_en = EXCLUDED.expira_en " +
+                   "WHERE solicitud_idempotente.expira_en <= :ahora",
+           nativeQuery = true)
+    int reservar(@Param("clave") String clave, @Param("hash") String hash,
+                 @Param("ahora") LocalDateTime ahora, @Param("expiraEn") LocalDateTime expiraEn);
+
+    /**
+     * Anota la reserva creada, en la transacción de la reserva, y extiende la fila a toda la ventana.
+     * Devuelve 0 si la clave ya tiene otra reserva
+     */
+    @Modifying
+    @Query("UPDATE SolicitudIdempotente s SET s.idReserva = :idReserva, s.expiraEn = :expiraEn " +
+           "WHERE s.clave = :clave AND s.idReserva IS NULL")
+    int registrarReserva(@Param("clave") String clave, @Param("idReserva") Long idReserva,
+                         @Param("expiraEn") LocalDateTime expiraEn);
+
+    @Modifying
+    @Query("UPDATE SolicitudIdempotente s SET s.codigoEstado = :codigoEstado, s.tipoContenido = :tipoContenido, " +
+           "s.cuerpo = :cuerpo, s.expiraEn = :expiraEn WHERE s.clave = :clave")
+    int completar(@Param("clave") String clave, @Param("codigoEstado") int codigoEstado,
+                  @Param("tipoContenido") String tipoContenido, @Param("cuerpo") String cuerpo,
+                  @Param("expiraEn") LocalDateTime expiraEn);
+
+    /**
+     * Suelta una reserva en curso cuya ejecución no dejó respuesta que guardar ni reserva creada
+     */
+    @Modifying
+    @Query("DELETE FROM SolicitudIdempotente s WHERE s.clave = :clave AND s.codigoEstado IS NULL AND s.idReserva IS NULL")
+    int liberar(@Param("clave") String clave);
+
+    @Modifying
+    @Query("DELETE FROM SolicitudIdempotente s WHERE s.expiraEn <= :ahora")
+    int eliminarVencidas(@Param("ahora") LocalDateTime ahora);
+}
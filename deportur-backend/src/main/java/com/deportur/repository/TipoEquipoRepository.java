@@ -2,9 +2,23 @@ package com.deportur.repository;
 
 import com.deportur.model.TipoEquipo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface TipoEquipoRepository extends JpaRepository<TipoEquipo, Long> {
     // Los métodos básicos (findAll, findById, save, delete) vienen de JpaRepository
+
+    interface ReferenciasTipoEquipo {
+        Long getEquipos();
+        Long getPoliticasPrecio();
+    }
+
+    // Conteos acotados a 1000 filas, resueltos en una sola consulta
+    @Query(value = "SELECT " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM equipo_deportivo e WHERE e.id_tipo = :idTipo LIMIT 1000) t1) AS \"equipos\", " +
+                   "(SELECT COUNT(*) FROM (SELECT 1 FROM politica_precio p WHERE p.tipo_equipo_id = :idTipo LIMIT 1000) t2) AS \"politicasPrecio\"",
+           nativeQuery = true)
+    ReferenciasTipoEquipo contarReferencias(@Param("idTipo") Long idTipo);
 }
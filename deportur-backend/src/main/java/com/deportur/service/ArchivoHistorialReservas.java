@@ -0,0 +1,405 @@
+package com.deportur.service;
+
+import com.deportur.model.Reserva;
+import com.deportur.model.ReservaHistorial;
+import com.deportur.model.enums.EstadoReserva;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Mantenimiento de reserva_historial, particionada por mes en Postgres (V5__reserva_historial_particionada).
+ *
+ * Cada día crea las particiones de los próximos meses y, con deportur.historial.archivo.habilitado,
+ * pasa a disco los meses más antiguos que deportur.historial.archivo.retencion-meses: escribe un
+ * segmento historial-AAAAMM.ndjson.gz y su índice .idx, y después quita la partición de la tabla.
+ *
+ * El segmento está ordenado por id_reserva y es una serie de bloques gzip independientes (un gzip de
+ * varios miembros, legible con zcat). El índice es disperso: guarda el primer id_reserva y la posición
+ * de cada bloque, y un bloque nunca parte las filas de una reserva, así que leer el historial archivado
+ * de una reserva descomprime un solo bloque por segmento. Los segmentos no se modifican una vez escritos.
+ *
+ * Con varias instancias solo una mantiene las particiones a la vez: la ejecución toma un candado
+ * consultivo de Postgres en una transacción que sigue abierta hasta el final, y cada paso va en su
+ * propia transacción (REQUIRES_NEW, una segunda conexión) para que un fallo no deshaga los demás.
+ */
+@Component
+public class ArchivoHistorialReservas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoHistorialReservas.class);
+
+    private static final String PREFIJO_PARTICION = "reserva_historial_";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String EXTENSION_SEGMENTO = ".ndjson.gz";
+    private static final String EXTENSION_INDICE = ".idx";
+    private static final String CABECERA_INDICE = "# filas=";
+    private static final String CANDADO = "SELECT pg_try_advisory_xact_lock(hashtext('deportur.historial.archivo'))";
+
+    /**
+     * Fila de historial tal como se guarda en el segmento
+     */
+    public record Registro(Long idHistorial, Long idReserva, EstadoReserva estadoAnterior, EstadoReserva estadoNuevo,
+                           String usuarioModificacion, LocalDateTime fechaCambio, String observaciones) {
+    }
+
+    /**
+     * Índice disperso de un segmento: primer id_reserva y posición de cada bloque
+     */
+    record Indice(long filas, long[] inicios, long[] posiciones, long tamano) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Quita historial de la base: solo con un directorio persistente (y compartido si hay varias instancias)
+    @Value("${deportur.historial.archivo.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${deportur.historial.archivo.dir:${java.io.tmpdir}/deportur-historial-archivo}")
+    private String directorioArchivo;
+
+    @Value("${deportur.historial.archivo.retencion-meses:12}")
+    private int retencionMeses = 12;
+
+    @Value("${deportur.historial.archivo.meses-futuros:3}")
+    private int mesesFuturos = 3;
+
+    @Value("${deportur.historial.archivo.filas-por-bloque:256}")
+    private int filasPorBloque = 256;
+
+    // Los segmentos no cambian: su índice se carga una vez
+    private final Map<String, Indice> indices = new ConcurrentHashMap<>();
+    private volatile Boolean postgres;
+
+    /**
+     * Crea las particiones futuras y archiva las que superan la retención
+     */
+    @Scheduled(cron = "${deportur.historial.archivo.cron:0 0 4 * * *}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "mantener-historial"})
+    public void mantenerParticiones() {
+        if (!esPostgres()) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(CANDADO, Boolean.class))) {
+                logger.info("Otra instancia está manteniendo las particiones del historial");
+                return;
+            }
+            mantenerConCandado();
+        });
+    }
+
+    private void mantenerConCandado() {
+        TransactionTemplate paso = new TransactionTemplate(transactionManager);
+        paso.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        YearMonth actual = YearMonth.now();
+        for (int i = 0; i <= mesesFuturos; i++) {
+            LocalDate mes = actual.plusMonths(i).atDay(1);
+            try {
+                // Si DEFAULT ya tiene filas del mes, la función las pasa a la partición nueva
+                paso.executeWithoutResult(estado -> jdbcTemplate.queryForList("SELECT crear_particion_historial(?)", mes));
+            } catch (RuntimeException e) {
+                logger.error("No se pudo crear la partición del historial de {}", mes, e);
+            }
+        }
+        if (!habilitado) {
+            return;
+        }
+
+        YearMonth limite = actual.minusMonths(retencionMeses);
+        List<String> particiones = paso.execute(estado -> jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'reserva_historial' ORDER BY c.relname", String.class));
+        for (String particion : particiones) {
+            YearMonth mes = mesDeParticion(particion);
+            if (mes != null && mes.isBefore(limite)) {
+                try {
+                    archivar(particion, mes);
+                } catch (IOException | RuntimeException e) {
+                    logger.error("No se pudo archivar la partición {}; se reintentará en la próxima ejecución", particion, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Historial archivado de una reserva, del cambio más reciente al más antiguo
+     */
+    public List<ReservaHistorial> buscar(Long idReserva) throws IOException {
+        Path directorio = Paths.get(directorioArchivo);
+        List<ReservaHistorial> historial = new ArrayList<>();
+        if (idReserva == null || !Files.isDirectory(directorio)) {
+            return historial;
+        }
+        try (DirectoryStream<Path> indicesEnDisco = Files.newDirectoryStream(directorio, "historial-*" + EXTENSION_INDICE)) {
+            for (Path archivoIndice : indicesEnDisco) {
+                String nombre = archivoIndice.getFileName().toString();
+                String segmento = nombre.substring(0, nombre.length() - EXTENSION_INDICE.length());
+                for (Registro registro : leer(directorio, segmento, idReserva)) {
+                    historial.add(aEntidad(registro));
+                }
+            }
+        }
+        historial.sort((a, b) -> b.getFechaCambio().compareTo(a.getFechaCambio()));
+        return historial;
+    }
+
+    private void archivar(String particion, YearMonth mes) throws IOException {
+        TransactionTemplate paso = new TransactionTemplate(transactionManager);
+        paso.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Path directorio = Paths.get(directorioArchivo);
+        String segmento = "historial-" + mes.format(FORMATO_MES);
+        long filas = paso.execute(estado -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + particion, Long.class));
+
+        // Un segmento completo de una ejecución anterior que no llegó a quitar la partición no se reescribe
+        Indice existente = Files.exists(directorio.resolve(segmento + EXTENSION_INDICE))
+            ? cargarIndice(directorio, segmento) : null;
+        if (existente == null || existente.filas() != filas) {
+            // Postgres solo lee por tandas (fetch size) dentro de una transacción; si no, trae el mes entero a memoria
+            JdbcTemplate lectura = new JdbcTemplate(jdbcTemplate.getDataSource());
+            lectura.setFetchSize(1000);
+            try (Escritor escritor = new Escritor(directorio, segmento, filasPorBloque)) {
+                String consulta = "SELECT id_historial, id_reserva, estado_anterior, estado_nuevo, " +
+                    "usuario_modificacion, fecha_cambio, observaciones FROM " + particion +
+                    " ORDER BY id_reserva, fecha_cambio DESC";
+                paso.executeWithoutResult(estado -> lectura.query(consulta,
+                    resultado -> {
+                        String anterior = resultado.getString("estado_anterior");
+                        escritor.agregar(new Registro(
+                            resultado.getLong("id_historial"),
+                            resultado.getLong("id_reserva"),
+                            anterior != null ? EstadoReserva.valueOf(anterior) : null,
+                            EstadoReserva.valueOf(resultado.getString("estado_nuevo")),
+                            resultado.getString("usuario_modificacion"),
+                            resultado.getTimestamp("fecha_cambio").toLocalDateTime(),
+                            resultado.getString("observaciones")));
+                    }));
+                escritor.completar();
+            }
+            indices.remove(segmento);
+        }
+
+        paso.executeWithoutResult(estado -> {
+            jdbcTemplate.execute("ALTER TABLE reserva_historial DETACH PARTITION " + particion);
+            jdbcTemplate.execute("DROP TABLE " + particion);
+        });
+        logger.info("Partición {} archivada en {} ({} filas)", particion, segmento, filas);
+    }
+
+    /**
+     * Filas de la reserva en un segmento: descomprime solo el bloque que puede contenerlas
+     */
+    List<Registro> leer(Path directorio, String segmento, long idReserva) throws IOException {
+        Indice indice = indices.get(segmento);
+        if (indice == null) {
+            indice = cargarIndice(directorio, segmento);
+            indices.put(segmento, indice);
+        }
+        int bloque = Arrays.binarySearch(indice.inicios(), idReserva);
+        if (bloque < 0) {
+            // Bloque con el mayor id inicial menor que idReserva
+            bloque = -bloque - 2;
+        }
+        List<Registro> registros = new ArrayList<>();
+        if (bloque < 0) {
+            return registros;
+        }
+
+        long inicio = indice.posiciones()[bloque];
+        long fin = bloque + 1 < indice.posiciones().length ? indice.posiciones()[bloque + 1] : indice.tamano();
+        ByteBuffer comprimido = ByteBuffer.allocate((int) (fin - inicio));
+        try (FileChannel canal = FileChannel.open(directorio.resolve(segmento + EXTENSION_SEGMENTO), StandardOpenOption.READ)) {
+            while (comprimido.hasRemaining() && canal.read(comprimido, inicio + comprimido.position()) >= 0) {
+                // lee el bloque completo
+            }
+        }
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(comprimido.array())), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                Registro registro = objectMapper.readValue(linea, Registro.class);
+                if (registro.idReserva() == idReserva) {
+                    registros.add(registro);
+                } else if (registro.idReserva() > idReserva) {
+                    break;
+                }
+            }
+        }
+        return registros;
+    }
+
+    private Indice cargarIndice(Path directorio, String segmento) throws IOException {
+        List<String> lineas = Files.readAllLines(directorio.resolve(segmento + EXTENSION_INDICE), StandardCharsets.UTF_8);
+        long filas = Long.parseLong(lineas.get(0).substring(CABECERA_INDICE.length()).trim());
+        long[] inicios = new long[lineas.size() - 1];
+        long[] posiciones = new long[lineas.size() - 1];
+        for (int i = 1; i < lineas.size(); i++) {
+            String[] partes = lineas.get(i).split("\t");
+            inicios[i - 1] = Long.parseLong(partes[0]);
+            posiciones[i - 1] = Long.parseLong(partes[1]);
+        }
+        return new Indice(filas, inicios, posiciones, Files.size(directorio.resolve(segmento + EXTENSION_SEGMENTO)));
+    }
+
+    private ReservaHistorial aEntidad(Registro registro) {
+        Reserva reserva = new Reserva();
+        reserva.setIdReserva(registro.idReserva());
+        ReservaHistorial historial = new ReservaHistorial(reserva, registro.estadoAnterior(), registro.estadoNuevo(),
+            registro.usuarioModificacion(), registro.observaciones());
+        historial.setIdHistorial(registro.idHistorial());
+        historial.setFechaCambio(registro.fechaCambio());
+        return historial;
+    }
+
+    private boolean esPostgres() {
+        Boolean actual = postgres;
+        if (actual == null) {
+            actual = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion ->
+                "PostgreSQL".equals(conexion.getMetaData().getDatabaseProductName()));
+            postgres = actual;
+        }
+        return Boolean.TRUE.equals(actual);
+    }
+
+    static YearMonth mesDeParticion(String particion) {
+        String sufijo = particion.startsWith(PREFIJO_PARTICION) ? particion.substring(PREFIJO_PARTICION.length()) : "";
+        if (!sufijo.matches("\\d{6}")) {
+            return null;
+        }
+        return YearMonth.from(LocalDate.parse(sufijo + "01", DateTimeFormatter.BASIC_ISO_DATE));
+    }
+
+    /**
+     * Escribe un segmento y su índice en archivos temporales; completar() los hace visibles.
+     * Las filas deben llegar ordenadas por id_reserva
+     */
+    final class Escritor implements Closeable {
+
+        private final Path directorio;
+        private final String segmento;
+        private final int filasPorBloque;
+        private final Path temporalSegmento;
+        private final Path temporalIndice;
+        private final FileChannel canal;
+        private final StringBuilder indice = new StringBuilder();
+        private OutputStream bloque;
+        private long filas;
+        private int filasEnBloque;
+        private long ultimaReserva = Long.MIN_VALUE;
+        private boolean completado;
+
+        Escritor(Path directorio, String segmento, int filasPorBloque) throws IOException {
+            Files.createDirectories(directorio);
+            this.directorio = directorio;
+            this.segmento = segmento;
+            this.filasPorBloque = filasPorBloque;
+            this.temporalSegmento = directorio.resolve(segmento + EXTENSION_SEGMENTO + ".tmp");
+            this.temporalIndice = directorio.resolve(segmento + EXTENSION_INDICE + ".tmp");
+            this.canal = FileChannel.open(temporalSegmento, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void agregar(Registro registro) {
+            try {
+                // Un bloque se cierra al cambiar de reserva, nunca en medio de sus filas
+                if (bloque == null || (filasEnBloque >= filasPorBloque && registro.idReserva() != ultimaReserva)) {
+                    cerrarBloque();
+                    indice.append(registro.idReserva()).append('\t').append(canal.position()).append('\n');
+                    bloque = new GZIPOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+                }
+                bloque.write(objectMapper.writeValueAsBytes(registro));
+                bloque.write('\n');
+                filas++;
+                filasEnBloque++;
+                ultimaReserva = registro.idReserva();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Fuerza el segmento a disco y lo publica; el índice se renombra al final y marca el segmento como completo
+         */
+        void completar() throws IOException {
+            cerrarBloque();
+            canal.force(true);
+            Files.writeString(temporalIndice, CABECERA_INDICE + filas + "\n" + indice, StandardCharsets.UTF_8);
+            try (FileChannel canalIndice = FileChannel.open(temporalIndice, StandardOpenOption.WRITE)) {
+                canalIndice.force(true);
+            }
+            Files.move(temporalSegmento, directorio.resolve(segmento + EXTENSION_SEGMENTO),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporalIndice, directorio.resolve(segmento + EXTENSION_INDICE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            completado = true;
+        }
+
+        private void cerrarBloque() throws IOException {
+            if (bloque != null) {
+                // finish() escribe el final del miembro gzip sin cerrar el canal
+                ((GZIPOutputStream) bloque).finish();
+                bloque.flush();
+                bloque = null;
+                filasEnBloque = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+            if (!completado) {
+                Files.deleteIfExists(temporalSegmento);
+                Files.deleteIfExists(temporalIndice);
+            }
+        }
+    }
+}
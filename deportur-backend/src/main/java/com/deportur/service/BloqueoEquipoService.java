@@ -0,0 +1,351 @@
+package com.deportur.service;
+
+import com.deportur.model.BloqueoEquipo;
+import com.deportur.model.EquipoDeportivo;
+import com.deportur.repository.BloqueoEquipoRepository;
+import com.deportur.repository.ClienteRepository;
+import com.deportur.repository.DetalleReservaRepository;
+import com.deportur.repository.EquipoDeportivoRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Bloqueos temporales de equipos: apartan equipos para unas fechas mientras el cliente termina
+ * la reserva, y caducan solos a los deportur.bloqueos.ttl-segundos.
+ *
+ * Cada bloqueo vive en una tabla en memoria (por token y por equipo) y en bloqueo_equipo, que
+ * comparten todas las instancias. Crear un bloqueo o una reserva bloquea las filas de los equipos
+ * y consulta bloqueo_equipo, así que dos instancias no pueden apartar el mismo equipo. Las consultas
+ * de disponibilidad para mostrar usan la tabla en memoria, que se sincroniza con la base cada
+ * deportur.bloqueos.sincronizacion-ms para ver los bloqueos de las otras instancias.
+ *
+ * Los vencimientos los lleva una RuedaTemporizadora: vencer() solo toca los bloqueos que vencen.
+ */
+@Service
+public class BloqueoEquipoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BloqueoEquipoService.class);
+
+    /**
+     * Bloqueo de uno o varios equipos para un cliente y unas fechas
+     */
+    public record Bloqueo(String token, Long idCliente, List<Long> idsEquipos, LocalDate fechaInicio,
+                          LocalDate fechaFin, LocalDateTime expiraEn) {
+
+        boolean seSolapa(LocalDate inicio, LocalDate fin) {
+            return !fechaInicio.isAfter(fin) && !fechaFin.isBefore(inicio);
+        }
+    }
+
+    private record Activo(Bloqueo bloqueo, RuedaTemporizadora.Entrada<String> entrada, long registradoMs) {
+    }
+
+    @Autowired
+    private BloqueoEquipoRepository bloqueoEquipoRepository;
+
+    @Autowired
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Autowired
+    private DetalleReservaRepository detalleReservaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${deportur.bloqueos.ttl-segundos:600}")
+    private long ttlSegundos = 600;
+
+    @Value("${deportur.bloqueos.tick-ms:1000}")
+    private long tickMs = 1000;
+
+    private final Object candado = new Object();
+    private final Map<String, Activo> activos = new HashMap<>();
+    private final Map<Long, List<Activo>> porEquipo = new HashMap<>();
+    private RuedaTemporizadora<String> rueda;
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    void iniciar() {
+        rueda = new RuedaTemporizadora<>(tickMs, System.currentTimeMillis());
+        transaccion = new TransactionTemplate(transactionManager);
+        meterRegistry.gaugeMapSize("deportur.bloqueos.activos", List.of(), activos);
+    }
+
+    /**
+     * Aparta los equipos para las fechas. Falla si alguno está reservado o apartado por otro bloqueo
+     */
+    @Transactional
+    public Bloqueo bloquear(Long idCliente, LocalDate fechaInicio, LocalDate fechaFin, List<Long> idsEquipos) throws Exception {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new Exception("Las fechas de inicio y fin son requeridas");
+        }
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new Exception("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        if (fechaInicio.isBefore(LocalDate.now())) {
+            throw new Exception("La fecha de inicio no puede ser anterior a la fecha actual");
+        }
+        if (idsEquipos == null || idsEquipos.isEmpty()) {
+            throw new Exception("El bloqueo debe incluir al menos un equipo");
+        }
+        if (idCliente == null || !clienteRepository.existsById(idCliente)) {
+            throw new Exception("El cliente seleccionado no existe");
+        }
+
+        List<Long> ids = idsEquipos.stream().distinct().sorted().toList();
+        List<EquipoDeportivo> equipos = equipoRepository.bloquearPorIds(ids);
+        if (equipos.size() != ids.size()) {
+            throw new Exception("El equipo seleccionado no existe");
+        }
+
+        // Solapes y bloqueos se leen en esta transacción de escritura, en el primario: una réplica
+        // atrasada dejaría apartar un equipo recién reservado
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> bloqueados = bloqueoEquipoRepository.findEquiposBloqueados(ids, fechaInicio, fechaFin, ahora, "");
+        Set<Long> reservados = detalleReservaRepository.findOcupacionesEnRango(ids, fechaInicio, fechaFin).stream()
+            .map(DetalleReservaRepository.Ocupacion::getIdEquipo)
+            .collect(Collectors.toSet());
+        for (EquipoDeportivo equipo : equipos) {
+            if (!equipo.getDisponible()) {
+                throw new Exception("El equipo " + equipo.getNombre() + " no está disponible");
+            }
+            if (bloqueados.contains(equipo.getIdEquipo())) {
+                throw new Exception("El equipo " + equipo.getNombre() + " está apartado por otra reserva en curso");
+            }
+            if (reservados.contains(equipo.getIdEquipo())) {
+                throw new Exception("El equipo " + equipo.getNombre() + " ya está reservado en las fechas seleccionadas");
+            }
+        }
+
+        String token = UUID.randomUUID().toString();
+        LocalDateTime expiraEn = ahora.plusSeconds(ttlSegundos);
+        List<BloqueoEquipo> filas = new ArrayList<>(ids.size());
+        for (Long idEquipo : ids) {
+            filas.add(new BloqueoEquipo(token, idEquipo, idCliente, fechaInicio, fechaFin, expiraEn));
+        }
+        bloqueoEquipoRepository.saveAll(filas);
+
+        Bloqueo bloqueo = new Bloqueo(token, idCliente, ids, fechaInicio, fechaFin, expiraEn);
+        despuesDelCommit(() -> {
+            synchronized (candado) {
+                agregar(bloqueo, System.currentTimeMillis());
+            }
+        });
+        meterRegistry.counter("deportur.bloqueos", "resultado", "creado").increment();
+        return bloqueo;
+    }
+
+    /**
+     * Libera un bloqueo antes de su vencimiento (el cliente abandona o cambia la selección)
+     */
+    @Transactional
+    public void liberar(String token) throws Exception {
+        if (bloqueoEquipoRepository.liberar(token) == 0) {
+            throw new Exception("El bloqueo no existe o ya venció");
+        }
+        despuesDelCommit(() -> quitar(token));
+        meterRegistry.counter("deportur.bloqueos", "resultado", "liberado").increment();
+    }
+
+    /**
+     * Convierte el bloqueo en reserva: lo borra en la transacción del llamador, que debe crear la
+     * reserva en esa misma transacción. Falla si venció o no cubre exactamente cliente, fechas y equipos
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void convertir(String token, Long idCliente, List<Long> idsEquipos,
+                          LocalDate fechaInicio, LocalDate fechaFin) throws Exception {
+        List<BloqueoEquipo> filas = bloqueoEquipoRepository.findByToken(token);
+        if (filas.isEmpty()) {
+            throw new Exception("El bloqueo no existe o ya venció");
+        }
+        BloqueoEquipo fila = filas.get(0);
+        if (!fila.getIdCliente().equals(idCliente)) {
+            throw new Exception("El bloqueo pertenece a otro cliente");
+        }
+        if (!fila.getFechaInicio().equals(fechaInicio) || !fila.getFechaFin().equals(fechaFin)) {
+            throw new Exception("Las fechas no coinciden con las del bloqueo");
+        }
+        HashSet<Long> equiposBloqueo = new HashSet<>();
+        filas.forEach(f -> equiposBloqueo.add(f.getIdEquipo()));
+        if (!equiposBloqueo.equals(new HashSet<>(idsEquipos))) {
+            throw new Exception("Los equipos no coinciden con los del bloqueo");
+        }
+
+        // El vencimiento se comprueba en las filas ya leídas, antes de borrar nada: un llamador que
+        // captura la excepción (lote parcial) confirmaría el borrado de las filas aún vigentes
+        LocalDateTime ahora = LocalDateTime.now();
+        if (filas.stream().anyMatch(f -> !f.getExpiraEn().isAfter(ahora))) {
+            throw new Exception("El bloqueo no existe o ya venció");
+        }
+        // Con el mismo instante borra todas las filas leídas. Los demás borrados quitan el bloqueo entero
+        // (por token, o por vencimiento, que es el mismo en todas sus filas): si otro llega antes, deja 0
+        if (bloqueoEquipoRepository.consumir(token, ahora) != filas.size()) {
+            throw new Exception("El bloqueo no existe o ya venció");
+        }
+        despuesDelCommit(() -> quitar(token));
+        meterRegistry.counter("deportur.bloqueos", "resultado", "convertido").increment();
+    }
+
+    /**
+     * Equipos de la lista apartados en la base por un bloqueo vigente distinto de tokenPropio.
+     * Es la comprobación para reservar; se hace con las filas de los equipos bloqueadas
+     */
+    public List<Long> equiposBloqueados(Collection<Long> idsEquipos, LocalDate fechaInicio,
+                                        LocalDate fechaFin, String tokenPropio) {
+        return bloqueoEquipoRepository.findEquiposBloqueados(idsEquipos, fechaInicio, fechaFin,
+            LocalDateTime.now(), tokenPropio != null ? tokenPropio : "");
+    }
+
+    /**
+     * Consulta la tabla en memoria, sin ir a la base. Para mostrar disponibilidad
+     */
+    public boolean estaBloqueado(Long idEquipo, LocalDate fechaInicio, LocalDate fechaFin) {
+        LocalDateTime ahora = LocalDateTime.now();
+        synchronized (candado) {
+            List<Activo> delEquipo = porEquipo.get(idEquipo);
+            if (delEquipo == null) {
+                return false;
+            }
+            for (Activo activo : delEquipo) {
+                // La rueda puede ir hasta un tick por detrás del reloj
+                if (activo.bloqueo().expiraEn().isAfter(ahora) && activo.bloqueo().seSolapa(fechaInicio, fechaFin)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Avanza la rueda, saca de memoria los bloqueos vencidos y borra de la base los vencidos de cualquier instancia
+     */
+    @Scheduled(fixedDelayString = "${deportur.bloqueos.tick-ms:1000}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "vencer-bloqueos"})
+    public void vencer() {
+        List<String> vencidos;
+        synchronized (candado) {
+            vencidos = rueda.avanzar(System.currentTimeMillis());
+            vencidos.forEach(this::quitarActivo);
+        }
+        if (!vencidos.isEmpty()) {
+            meterRegistry.counter("deportur.bloqueos", "resultado", "vencido").increment(vencidos.size());
+            transaccion.executeWithoutResult(estado -> bloqueoEquipoRepository.eliminarVencidos(LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Trae los bloqueos vigentes de la base: añade los de otras instancias y quita los que ya no están
+     * (convertidos o liberados en otra instancia)
+     */
+    @Scheduled(fixedDelayString = "${deportur.bloqueos.sincronizacion-ms:5000}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "sincronizar-bloqueos"})
+    public void sincronizar() {
+        long inicioMs = System.currentTimeMillis();
+        // Transacción de escritura: va a la primaria, no a una réplica que puede ir por detrás
+        List<BloqueoEquipo> filas = transaccion.execute(estado -> {
+            bloqueoEquipoRepository.eliminarVencidos(LocalDateTime.now());
+            return bloqueoEquipoRepository.findByExpiraEnAfter(LocalDateTime.now());
+        });
+
+        Map<String, Bloqueo> vigentes = new LinkedHashMap<>();
+        Map<String, List<Long>> equiposPorToken = new HashMap<>();
+        for (BloqueoEquipo fila : filas) {
+            equiposPorToken.computeIfAbsent(fila.getToken(), token -> new ArrayList<>()).add(fila.getIdEquipo());
+        }
+        for (BloqueoEquipo fila : filas) {
+            vigentes.computeIfAbsent(fila.getToken(), token -> new Bloqueo(token, fila.getIdCliente(),
+                equiposPorToken.get(token), fila.getFechaInicio(), fila.getFechaFin(), fila.getExpiraEn()));
+        }
+
+        synchronized (candado) {
+            vigentes.values().forEach(bloqueo -> agregar(bloqueo, inicioMs));
+            // Un bloqueo añadido después de empezar la consulta puede no estar en ella todavía
+            List<String> desaparecidos = activos.values().stream()
+                .filter(activo -> activo.registradoMs() < inicioMs && !vigentes.containsKey(activo.bloqueo().token()))
+                .map(activo -> activo.bloqueo().token())
+                .toList();
+            desaparecidos.forEach(this::quitarActivo);
+        }
+    }
+
+    private void agregar(Bloqueo bloqueo, long registradoMs) {
+        if (activos.containsKey(bloqueo.token())) {
+            return;
+        }
+        long venceMs = bloqueo.expiraEn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Activo activo = new Activo(bloqueo, rueda.programar(bloqueo.token(), venceMs), registradoMs);
+        activos.put(bloqueo.token(), activo);
+        for (Long idEquipo : bloqueo.idsEquipos()) {
+            porEquipo.computeIfAbsent(idEquipo, id -> new ArrayList<>(1)).add(activo);
+        }
+    }
+
+    private void quitar(String token) {
+        synchronized (candado) {
+            quitarActivo(token);
+        }
+    }
+
+    private void quitarActivo(String token) {
+        Activo activo = activos.remove(token);
+        if (activo == null) {
+            return;
+        }
+        activo.entrada().cancelar();
+        for (Long idEquipo : activo.bloqueo().idsEquipos()) {
+            List<Activo> delEquipo = porEquipo.get(idEquipo);
+            if (delEquipo != null) {
+                delEquipo.remove(activo);
+                if (delEquipo.isEmpty()) {
+                    porEquipo.remove(idEquipo);
+                }
+            }
+        }
+        logger.debug("Bloqueo {} retirado de memoria", token);
+    }
+
+    private static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
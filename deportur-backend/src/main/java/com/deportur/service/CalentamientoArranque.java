@@ -0,0 +1,80 @@
+package com.deportur.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calienta en segundo plano, ya con la aplicación aceptando tráfico, lo que la primera petición de cada
+ * tipo tendría que construir: las instantáneas del catálogo y el tarifario (el índice espacial de destinos
+ * ya se construye al iniciar). De paso abre conexiones del pool y prepara las consultas de Hibernate.
+ *
+ * Con deportur.arranque.entrenamiento=true la aplicación termina al acabar el calentamiento: es la
+ * ejecución con la que el perfil Maven "arranque" genera el archivo CDS de clases cargadas.
+ */
+@Component
+public class CalentamientoArranque {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalentamientoArranque.class);
+
+    @Autowired
+    private CatalogoService catalogoService;
+
+    @Autowired
+    private PoliticaPrecioService politicaPrecioService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${deportur.arranque.calentar:false}")
+    private boolean calentar;
+
+    @Value("${deportur.arranque.entrenamiento:false}")
+    private boolean entrenamiento;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "calentar"})
+    public void alIniciar() {
+        if (calentar || entrenamiento) {
+            calentar();
+        }
+        if (entrenamiento) {
+            logger.info("Ejecución de entrenamiento CDS terminada; cerrando la aplicación");
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    /**
+     * Cada paso es independiente: un fallo se registra y se reintenta en la primera petición real
+     */
+    public void calentar() {
+        long inicio = System.nanoTime();
+        for (CatalogoService.Recurso recurso : CatalogoService.Recurso.values()) {
+            paso("catálogo " + recurso, () -> catalogoService.obtener(recurso));
+        }
+        paso("tarifario", politicaPrecioService::tarifario);
+        logger.info("Calentamiento terminado en {} ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private static void paso(String nombre, PasoCalentamiento paso) {
+        try {
+            paso.ejecutar();
+        } catch (Exception e) {
+            logger.warn("No se pudo calentar {} al iniciar: {}", nombre, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface PasoCalentamiento {
+        Object ejecutar() throws Exception;
+    }
+}
@@ -0,0 +1,144 @@
+package com.deportur.service;
+
+import com.deportur.model.DestinoTuristico;
+import com.deportur.model.TipoEquipo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instantáneas del catálogo (destinos y tipos de equipo) ya serializadas a JSON.
+ * Cada instantánea guarda los bytes y un ETag calculado con su hash, de modo que
+ * los listados del frontend se sirven sin consultar la base de datos ni pasar
+ * por Jackson, y con If-None-Match terminan en un 304.
+ *
+ * Las instantáneas se descartan cuando DestinoService o TipoEquipoService
+ * publican un cambio y se reconstruyen en la siguiente lectura.
+ */
+@Service
+public class CatalogoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoService.class);
+
+    /**
+     * Recursos del catálogo que se sirven como instantánea
+     */
+    public enum Recurso {
+        DESTINOS,
+        TIPOS_EQUIPO,
+        CATALOGO
+    }
+
+    /**
+     * JSON pre-codificado y su ETag
+     */
+    public record Instantanea(byte[] contenido, String etag, long generadaEnMillis) {
+    }
+
+    @Autowired
+    private DestinoService destinoService;
+
+    @Autowired
+    private TipoEquipoService tipoEquipoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Con varias instancias del backend, una escritura en otra instancia solo se ve tras este tiempo
+    @Value("${deportur.catalogo.ttl-segundos:300}")
+    private long ttlSegundos = 300;
+
+    private final Map<Recurso, Instantanea> instantaneas = new EnumMap<>(Recurso.class);
+
+    // Aumenta con cada invalidación; evita guardar una instantánea construida con datos anteriores
+    private long generacion;
+
+    public Instantanea obtener(Recurso recurso) throws Exception {
+        long generacionInicial;
+        synchronized (instantaneas) {
+            Instantanea actual = instantaneas.get(recurso);
+            if (actual != null && System.currentTimeMillis() - actual.generadaEnMillis() <= ttlSegundos * 1000) {
+                return actual;
+            }
+            generacionInicial = generacion;
+        }
+
+        // Se construye fuera del candado; si dos hilos coinciden, ambos generan el mismo contenido
+        Instantanea nueva = construir(recurso);
+        synchronized (instantaneas) {
+            if (generacion == generacionInicial) {
+                instantaneas.put(recurso, nueva);
+            }
+        }
+        logger.debug("Instantánea de catálogo {} regenerada ({} bytes, ETag {})",
+            recurso, nueva.contenido().length, nueva.etag());
+        return nueva;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarDestino(DestinoModificadoEvent evento) {
+        invalidar(Recurso.DESTINOS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarTipoEquipo(TipoEquipoModificadoEvent evento) {
+        invalidar(Recurso.TIPOS_EQUIPO);
+    }
+
+    private void invalidar(Recurso recurso) {
+        synchronized (instantaneas) {
+            generacion++;
+            instantaneas.remove(recurso);
+            instantaneas.remove(Recurso.CATALOGO);
+        }
+    }
+
+    private Instantanea construir(Recurso recurso) throws Exception {
+        Object contenido = switch (recurso) {
+            case DESTINOS -> destinoService.listarTodosLosDestinos();
+            case TIPOS_EQUIPO -> tipoEquipoService.listarTodosLosTiposEquipo();
+            case CATALOGO -> {
+                List<DestinoTuristico> destinos = destinoService.listarTodosLosDestinos();
+                List<TipoEquipo> tiposEquipo = tipoEquipoService.listarTodosLosTiposEquipo();
+                Map<String, Object> catalogo = new LinkedHashMap<>();
+                catalogo.put("destinos", destinos);
+                catalogo.put("tiposEquipo", tiposEquipo);
+                yield catalogo;
+            }
+        };
+
+        byte[] json = serializar(contenido);
+        return new Instantanea(json, calcularEtag(json), System.currentTimeMillis());
+    }
+
+    private byte[] serializar(Object contenido) throws Exception {
+        try {
+            return objectMapper.writeValueAsBytes(contenido);
+        } catch (JsonProcessingException e) {
+            throw new Exception("No se pudo serializar el catálogo: " + e.getOriginalMessage());
+        }
+    }
+
+    static String calcularEtag(byte[] contenido) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenido);
+            // 128 bits del hash son suficientes para distinguir versiones
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
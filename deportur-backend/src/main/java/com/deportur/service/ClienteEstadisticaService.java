@@ -0,0 +1,280 @@
+package com.deportur.service;
+
+import com.deportur.model.ClienteEstadistica;
+import com.deportur.model.ClienteTipoEquipoUso;
+import com.deportur.model.DetalleReserva;
+import com.deportur.model.EquipoDeportivo;
+import com.deportur.model.Reserva;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.repository.ClienteEstadisticaRepository;
+import com.deportur.repository.ClienteTipoEquipoUsoRepository;
+import com.deportur.repository.ReservaRepository;
+import com.deportur.repository.TipoEquipoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene el modelo de lectura ClienteEstadistica.
+ * ReservaService notifica cada alta, modificación o cambio de estado con una
+ * "foto" de la reserva antes y después del cambio; aquí solo se aplican las
+ * diferencias, de modo que el coste no depende del historial del cliente.
+ */
+@Service
+public class ClienteEstadisticaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClienteEstadisticaService.class);
+
+    // Mayor cantidad primero; en empate gana el tipo con id menor para que el resultado sea estable
+    private static final Comparator<ClienteTipoEquipoUso> COMPARADOR_USO =
+        Comparator.comparing(ClienteTipoEquipoUso::getCantidad)
+            .thenComparing(ClienteTipoEquipoUso::getIdTipo, Comparator.reverseOrder());
+
+    @Autowired
+    private ClienteEstadisticaRepository clienteEstadisticaRepository;
+
+    @Autowired
+    private ClienteTipoEquipoUsoRepository clienteTipoEquipoUsoRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private TipoEquipoRepository tipoEquipoRepository;
+
+    /**
+     * Datos de una reserva que afectan a las estadísticas del cliente
+     */
+    public record ResumenReserva(Long idCliente, EstadoReserva estado, BigDecimal total,
+                                 Map<Long, Integer> equiposPorTipo) {
+    }
+
+    /**
+     * Toma una foto de la reserva con su estado actual
+     */
+    public static ResumenReserva capturar(Reserva reserva) {
+        return capturar(reserva, reserva != null ? reserva.getEstado() : null);
+    }
+
+    /**
+     * Toma una foto de la reserva suponiendo el estado indicado
+     */
+    public static ResumenReserva capturar(Reserva reserva, EstadoReserva estado) {
+        if (reserva == null || reserva.getCliente() == null || reserva.getCliente().getIdCliente() == null) {
+            return null;
+        }
+
+        Map<Long, Integer> equiposPorTipo = new HashMap<>();
+        if (reserva.getDetalles() != null) {
+            for (DetalleReserva detalle : reserva.getDetalles()) {
+                EquipoDeportivo equipo = detalle.getEquipo();
+                if (equipo != null && equipo.getTipo() != null && equipo.getTipo().getIdTipo() != null) {
+                    equiposPorTipo.merge(equipo.getTipo().getIdTipo(), 1, Integer::sum);
+                }
+            }
+        }
+
+        return new ResumenReserva(reserva.getCliente().getIdCliente(), estado, reserva.getTotal(), equiposPorTipo);
+    }
+
+    /**
+     * Aplica a las estadísticas la diferencia entre dos fotos de la misma reserva.
+     * Usar antes = null para altas y despues = null para bajas.
+     */
+    @Transactional
+    public void registrarCambio(ResumenReserva antes, ResumenReserva despues) {
+        Set<Long> clientes = new LinkedHashSet<>();
+        if (antes != null) {
+            clientes.add(antes.idCliente());
+        }
+        if (despues != null) {
+            clientes.add(despues.idCliente());
+        }
+
+        for (Long idCliente : clientes) {
+            Optional<ClienteEstadistica> existente = bloquearOReconstruir(idCliente);
+            if (existente.isEmpty()) {
+                // La reconstrucción ya refleja el estado actual de la reserva
+                continue;
+            }
+
+            ClienteEstadistica estadistica = existente.get();
+            Map<Long, Integer> deltaTipos = new HashMap<>();
+            if (antes != null && antes.idCliente().equals(idCliente)) {
+                aplicar(estadistica, antes, -1, deltaTipos);
+            }
+            if (despues != null && despues.idCliente().equals(idCliente)) {
+                aplicar(estadistica, despues, 1, deltaTipos);
+            }
+
+            actualizarUsoTiposEquipo(estadistica, deltaTipos);
+            clienteEstadisticaRepository.save(estadistica);
+        }
+    }
+
+    /**
+     * Altas de varias reservas ya insertadas (lotes): una actualización por cliente, en orden de id
+     * para que dos lotes no se bloqueen entre sí. Si el cliente no tiene fila, la reconstrucción
+     * ya cuenta todas sus reservas del lote
+     */
+    @Transactional
+    public void registrarAltas(List<ResumenReserva> altas) {
+        Map<Long, List<ResumenReserva>> porCliente = altas.stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.groupingBy(ResumenReserva::idCliente, TreeMap::new, Collectors.toList()));
+
+        porCliente.forEach((idCliente, resumenes) -> {
+            Optional<ClienteEstadistica> existente = bloquearOReconstruir(idCliente);
+            if (existente.isEmpty()) {
+                return;
+            }
+
+            ClienteEstadistica estadistica = existente.get();
+            Map<Long, Integer> deltaTipos = new HashMap<>();
+            resumenes.forEach(resumen -> aplicar(estadistica, resumen, 1, deltaTipos));
+            actualizarUsoTiposEquipo(estadistica, deltaTipos);
+            clienteEstadisticaRepository.save(estadistica);
+        });
+    }
+
+    /**
+     * Estadísticas de un cliente: las guardadas o, si aún no tiene fila, calculadas a partir de sus
+     * reservas sin guardarlas. Una lectura no escribe; la fila se crea con su próxima reserva
+     */
+    @Transactional(readOnly = true)
+    public ClienteEstadistica obtenerEstadistica(Long idCliente) {
+        return clienteEstadisticaRepository.findById(idCliente)
+            .orElseGet(() -> calcular(idCliente, reservaRepository.resumirUsoTiposEquipo(idCliente).stream()
+                .map(resumen -> crearUso(idCliente, resumen))
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * Fila del cliente bloqueada para aplicar una diferencia, o vacío si no existía y se acaba de
+     * reconstruir (la reconstrucción ya incluye el cambio en curso).
+     *
+     * Si dos primeras reservas del mismo cliente llegan a la vez, solo una inserta la fila; la otra
+     * espera en el INSERT a que esa confirme y luego bloquea la fila y suma su reserva, que la
+     * reconstrucción de la primera no podía ver.
+     */
+    private Optional<ClienteEstadistica> bloquearOReconstruir(Long idCliente) {
+        Optional<ClienteEstadistica> existente = clienteEstadisticaRepository.bloquearPorCliente(idCliente);
+        if (existente.isPresent()) {
+            return existente;
+        }
+        if (clienteEstadisticaRepository.crearSiNoExiste(idCliente) > 0) {
+            reconstruir(idCliente);
+            return Optional.empty();
+        }
+        return clienteEstadisticaRepository.bloquearPorCliente(idCliente);
+    }
+
+    /**
+     * Recalcula las estadísticas de un cliente a partir de sus reservas, sobre la fila ya insertada
+     * y bloqueada por esta transacción
+     */
+    private ClienteEstadistica reconstruir(Long idCliente) {
+        logger.debug("Reconstruyendo estadísticas del cliente {}", idCliente);
+
+        clienteTipoEquipoUsoRepository.deleteByIdCliente(idCliente);
+        List<ClienteTipoEquipoUso> usos = reservaRepository.resumirUsoTiposEquipo(idCliente).stream()
+            .map(resumen -> crearUso(idCliente, resumen))
+            .collect(Collectors.toList());
+        clienteTipoEquipoUsoRepository.saveAll(usos);
+
+        return clienteEstadisticaRepository.save(calcular(idCliente, usos));
+    }
+
+    private ClienteEstadistica calcular(Long idCliente, List<ClienteTipoEquipoUso> usos) {
+        ClienteEstadistica estadistica = new ClienteEstadistica(idCliente);
+        for (ReservaRepository.EstadoReservaResumen resumen : reservaRepository.resumirReservasPorEstado(idCliente)) {
+            estadistica.ajustarConteo(resumen.getEstado(), resumen.getCantidad().intValue());
+            if (resumen.getEstado() != EstadoReserva.CANCELADA) {
+                estadistica.ajustarTotalGastado(resumen.getTotal());
+            }
+        }
+        asignarTipoFavorito(estadistica, usos);
+        return estadistica;
+    }
+
+    private static ClienteTipoEquipoUso crearUso(Long idCliente, ReservaRepository.TipoEquipoUsoResumen resumen) {
+        ClienteTipoEquipoUso uso = new ClienteTipoEquipoUso(idCliente, resumen.getIdTipo());
+        uso.setCantidad(resumen.getCantidad().intValue());
+        return uso;
+    }
+
+    private void aplicar(ClienteEstadistica estadistica, ResumenReserva resumen, int signo,
+                         Map<Long, Integer> deltaTipos) {
+        if (resumen.estado() != null) {
+            estadistica.ajustarConteo(resumen.estado(), signo);
+        }
+
+        // Las reservas canceladas no suman gasto ni uso de equipos
+        if (resumen.estado() == EstadoReserva.CANCELADA) {
+            return;
+        }
+
+        if (resumen.total() != null) {
+            estadistica.ajustarTotalGastado(signo > 0 ? resumen.total() : resumen.total().negate());
+        }
+        resumen.equiposPorTipo().forEach((idTipo, cantidad) ->
+            deltaTipos.merge(idTipo, signo * cantidad, Integer::sum)
+        );
+    }
+
+    private void actualizarUsoTiposEquipo(ClienteEstadistica estadistica, Map<Long, Integer> deltaTipos) {
+        deltaTipos.values().removeIf(delta -> delta == 0);
+        if (deltaTipos.isEmpty()) {
+            return;
+        }
+
+        // Un cliente usa pocos tipos de equipo, así que basta con cargar sus contadores
+        Map<Long, ClienteTipoEquipoUso> usos = clienteTipoEquipoUsoRepository
+            .findByIdCliente(estadistica.getIdCliente()).stream()
+            .collect(Collectors.toMap(ClienteTipoEquipoUso::getIdTipo, Function.identity()));
+
+        deltaTipos.forEach((idTipo, delta) -> {
+            ClienteTipoEquipoUso uso = usos.computeIfAbsent(idTipo,
+                id -> new ClienteTipoEquipoUso(estadistica.getIdCliente(), id));
+            uso.ajustarCantidad(delta);
+            clienteTipoEquipoUsoRepository.save(uso);
+        });
+
+        asignarTipoFavorito(estadistica, usos.values());
+    }
+
+    private void asignarTipoFavorito(ClienteEstadistica estadistica, Iterable<ClienteTipoEquipoUso> usos) {
+        ClienteTipoEquipoUso favorito = null;
+        for (ClienteTipoEquipoUso uso : usos) {
+            if (uso.getCantidad() > 0 && (favorito == null || COMPARADOR_USO.compare(uso, favorito) > 0)) {
+                favorito = uso;
+            }
+        }
+
+        if (favorito == null) {
+            estadistica.setTipoEquipoFavorito(null);
+            return;
+        }
+
+        Long idFavoritoActual = estadistica.getTipoEquipoFavorito() != null
+            ? estadistica.getTipoEquipoFavorito().getIdTipo()
+            : null;
+        if (!favorito.getIdTipo().equals(idFavoritoActual)) {
+            estadistica.setTipoEquipoFavorito(tipoEquipoRepository.findById(favorito.getIdTipo()).orElse(null));
+        }
+    }
+}
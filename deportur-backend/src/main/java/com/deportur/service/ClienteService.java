@@ -1,6 +1,8 @@
 package com.deportur.service;
 
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.Cliente;
+import com.deportur.model.ClienteEstadistica;
 import com.deportur.model.DestinoTuristico;
 import com.deportur.model.Reserva;
 import com.deportur.model.enums.NivelFidelizacion;
@@ -9,11 +11,13 @@ import com.deportur.repository.ReservaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -25,12 +29,20 @@ public class ClienteService {
 
     private static final Logger logger = LoggerFactory.getLogger(ClienteService.class);
 
+    private static final int RESERVAS_RECIENTES = 5;
+
     @Autowired
     private ClienteRepository clienteRepository;
 
     @Autowired
     private ReservaRepository reservaRepository;
 
+    @Autowired
+    private ClienteEstadisticaService clienteEstadisticaService;
+
+    @Autowired
+    private IntegridadReferencialService integridadReferencialService;
+
     /**
      * Migrado de GestionReservasService.registrarCliente()
      */
@@ -70,6 +82,9 @@ public class ClienteService {
         Cliente clienteExistente = clienteRepository.findById(idCliente)
             .orElseThrow(() -> new Exception("El cliente que intenta actualizar no existe"));
 
+        // La versión del cliente recibido es la que el usuario leyó (If-Match)
+        PrecondicionFallidaException.verificarVersion(cliente.getVersion(), clienteExistente.getVersion());
+
         // Validar datos
         if (cliente.getNombre() == null || cliente.getNombre().trim().isEmpty()) {
             throw new Exception("El nombre del cliente es requerido");
@@ -115,9 +130,11 @@ public class ClienteService {
             .orElseThrow(() -> new Exception("El cliente que intenta eliminar no existe"));
 
         // Verificar si tiene reservas
-        List<Reserva> reservas = reservaRepository.findByClienteOrderByFechaCreacionDesc(cliente);
-        if (reservas != null && !reservas.isEmpty()) {
-            throw new Exception("No se puede eliminar el cliente porque tiene reservas asociadas");
+        IntegridadReferencialService.ReferenciasBloqueantes referencias =
+            integridadReferencialService.verificarCliente(idCliente);
+        if (referencias.hayReferencias()) {
+            throw new Exception("No se puede eliminar el cliente porque tiene reservas asociadas ("
+                + referencias.describir() + ")");
         }
 
         clienteRepository.delete(cliente);
@@ -134,6 +151,14 @@ public class ClienteService {
         return cliente;
     }
 
+    /**
+     * Versión actual del cliente sin cargar la entidad, para responder a If-None-Match
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> buscarVersion(Long idCliente) {
+        return clienteRepository.buscarVersion(idCliente);
+    }
+
     /**
      * Migrado de GestionReservasService.buscarClientePorDocumento()
      */
@@ -199,20 +224,30 @@ public class ClienteService {
     }
 
     /**
-     * Obtiene estadísticas completas de un cliente
+     * Obtiene estadísticas completas de un cliente.
+     * Los acumulados salen del modelo de lectura ClienteEstadistica y solo se
+     * consultan las últimas reservas, así que el coste no crece con el historial.
      */
     @Transactional(readOnly = true)
     public Map<String, Object> obtenerEstadisticasCliente(Long idCliente) throws Exception {
-        Cliente cliente = buscarClientePorId(idCliente);
-        List<Reserva> reservas = reservaRepository.findByClienteOrderByFechaCreacionDesc(cliente);
-        actualizarConteoReservasCliente(cliente);
+        Cliente cliente = clienteRepository.findById(idCliente)
+            .orElseThrow(() -> new Exception("El cliente no existe"));
+
+        ClienteEstadistica resumen = clienteEstadisticaService.obtenerEstadistica(idCliente);
+        aplicarConteoReservas(cliente, (long) resumen.getTotalReservasActivas());
+
+        List<Reserva> reservasRecientes = reservaRepository.findByCliente_IdClienteOrderByFechaCreacionDesc(
+            idCliente, PageRequest.of(0, RESERVAS_RECIENTES));
 
         Map<String, Object> estadisticas = new HashMap<>();
         estadisticas.put("cliente", cliente);
         estadisticas.put("numeroReservas", cliente.getNumeroReservas());
         estadisticas.put("nivelFidelizacion", cliente.getNivelFidelizacion());
         estadisticas.put("destinoPreferido", cliente.getDestinoPreferido());
-        estadisticas.put("reservasRecientes", reservas.stream().limit(5).collect(Collectors.toList()));
+        estadisticas.put("reservasRecientes", reservasRecientes);
+        estadisticas.put("totalGastado", resumen.getTotalGastado());
+        estadisticas.put("reservasPorEstado", resumen.getReservasPorEstado());
+        estadisticas.put("tipoEquipoFavorito", resumen.getTipoEquipoFavorito());
 
         return estadisticas;
     }
@@ -0,0 +1,140 @@
+package com.deportur.service;
+
+import com.deportur.dto.response.DashboardMetricasResponse;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.repository.ClienteRepository;
+import com.deportur.repository.DestinoTuristicoRepository;
+import com.deportur.repository.EquipoDeportivoRepository;
+import com.deportur.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Métricas del dashboard de administración.
+ *
+ * Se guardan en memoria y se recalculan cuando llega un ReservaModificadaEvent (bandeja
+ * de salida de reservas, que llega a todas las instancias) o un DestinoModificadoEvent.
+ * Los totales de clientes y equipos se ven tras deportur.dashboard.ttl-segundos.
+ */
+@Service
+public class DashboardService {
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Autowired
+    private DestinoTuristicoRepository destinoRepository;
+
+    @Autowired
+    private LecturasParalelas lecturasParalelas;
+
+    // 0 = sin caché: cada petición consulta la base
+    @Value("${deportur.dashboard.ttl-segundos:30}")
+    private long ttlSegundos = 30;
+
+    private volatile DashboardMetricasResponse metricas;
+    private volatile boolean desactualizado = true;
+    private volatile long calculadasEnMillis;
+
+    public DashboardMetricasResponse obtenerMetricas() throws Exception {
+        DashboardMetricasResponse actual = metricas;
+        if (actual != null && !desactualizado && !expirado()) {
+            return actual;
+        }
+
+        synchronized (this) {
+            if (metricas == null || desactualizado || expirado()) {
+                // Se baja la marca antes de leer: un evento concurrente vuelve a subirla
+                desactualizado = false;
+                metricas = calcular();
+                calculadasEnMillis = System.currentTimeMillis();
+            }
+            return metricas;
+        }
+    }
+
+    /**
+     * Marca las métricas para recalcularse en la próxima consulta
+     */
+    public void invalidar() {
+        desactualizado = true;
+    }
+
+    @EventListener
+    public void alModificarReserva(ReservaModificadaEvent evento) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarDestino(DestinoModificadoEvent evento) {
+        invalidar();
+    }
+
+    private boolean expirado() {
+        return ttlSegundos <= 0 || System.currentTimeMillis() - calculadasEnMillis > ttlSegundos * 1000;
+    }
+
+    private DashboardMetricasResponse calcular() throws Exception {
+        DashboardMetricasResponse nuevas = new DashboardMetricasResponse();
+
+        // Consultas independientes: se lanzan en paralelo y el cálculo tarda lo que la más lenta
+        try (LecturasParalelas.Grupo grupo = lecturasParalelas.grupo()) {
+            // Totales generales
+            LecturasParalelas.Lectura<Long> totalClientes = grupo.leer(clienteRepository::count);
+            LecturasParalelas.Lectura<Long> totalReservas = grupo.leer(reservaRepository::count);
+            LecturasParalelas.Lectura<Long> totalEquipos = grupo.leer(equipoRepository::count);
+            LecturasParalelas.Lectura<Long> totalDestinos = grupo.leer(destinoRepository::count);
+
+            // Reservas por estado, por destino y clientes por nivel de fidelización, agregados en la base
+            LecturasParalelas.Lectura<List<ReservaRepository.EstadoReservaConteo>> porEstado =
+                grupo.leer(reservaRepository::contarPorEstado);
+            LecturasParalelas.Lectura<List<ReservaRepository.DestinoReservaConteo>> porDestino =
+                grupo.leer(reservaRepository::contarPorDestino);
+            LecturasParalelas.Lectura<List<ClienteRepository.NivelClienteConteo>> porNivel =
+                grupo.leer(clienteRepository::contarPorNivelFidelizacion);
+            grupo.esperar();
+
+            nuevas.setTotalClientes(totalClientes.obtener());
+            nuevas.setTotalReservas(totalReservas.obtener());
+            nuevas.setTotalEquipos(totalEquipos.obtener());
+            nuevas.setTotalDestinos(totalDestinos.obtener());
+
+            Map<EstadoReserva, Long> reservasPorEstado = new EnumMap<>(EstadoReserva.class);
+            for (ReservaRepository.EstadoReservaConteo conteo : porEstado.obtener()) {
+                reservasPorEstado.put(conteo.getEstado(), conteo.getCantidad());
+            }
+            nuevas.setReservasPendientes(reservasPorEstado.getOrDefault(EstadoReserva.PENDIENTE, 0L));
+            nuevas.setReservasConfirmadas(reservasPorEstado.getOrDefault(EstadoReserva.CONFIRMADA, 0L));
+            nuevas.setReservasEnProgreso(reservasPorEstado.getOrDefault(EstadoReserva.EN_PROGRESO, 0L));
+            nuevas.setReservasFinalizadas(reservasPorEstado.getOrDefault(EstadoReserva.FINALIZADA, 0L));
+            nuevas.setReservasCanceladas(reservasPorEstado.getOrDefault(EstadoReserva.CANCELADA, 0L));
+
+            Map<String, Long> reservasPorDestino = new HashMap<>();
+            for (ReservaRepository.DestinoReservaConteo conteo : porDestino.obtener()) {
+                reservasPorDestino.put(conteo.getDestino(), conteo.getCantidad());
+            }
+            nuevas.setReservasPorDestino(reservasPorDestino);
+
+            Map<String, Long> clientesPorNivel = new HashMap<>();
+            for (ClienteRepository.NivelClienteConteo conteo : porNivel.obtener()) {
+                clientesPorNivel.put(conteo.getNivel().toString(), conteo.getCantidad());
+            }
+            nuevas.setClientesPorNivelFidelizacion(clientesPorNivel);
+        }
+
+        return nuevas;
+    }
+}
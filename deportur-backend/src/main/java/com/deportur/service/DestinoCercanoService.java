@@ -0,0 +1,98 @@
+package com.deportur.service;
+
+import com.deportur.dto.response.DestinoCercanoResponse;
+import com.deportur.repository.EquipoDeportivoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Búsqueda de los destinos más cercanos a un punto que tienen equipos libres.
+ * Los candidatos salen del índice espacial en memoria y la disponibilidad se
+ * resuelve con una consulta agrupada solo para esos candidatos.
+ */
+@Service
+public class DestinoCercanoService {
+
+    static final int MAX_RESULTADOS = 50;
+
+    // Candidatos iniciales por resultado pedido; se duplica si no alcanzan
+    private static final int FACTOR_CANDIDATOS = 4;
+
+    @Autowired
+    private IndiceEspacialDestinos indiceEspacialDestinos;
+
+    @Autowired
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    @Transactional(readOnly = true)
+    public List<DestinoCercanoResponse> buscarDestinosCercanos(Double latitud, Double longitud, Integer limite,
+                                                               Long idTipo, LocalDate fechaInicio,
+                                                               LocalDate fechaFin, Double radioKm) throws Exception {
+        if (latitud == null || longitud == null) {
+            throw new Exception("Debe proporcionar tanto latitud como longitud");
+        }
+        if (latitud < -90 || latitud > 90) {
+            throw new Exception("La latitud debe estar entre -90 y 90");
+        }
+        if (longitud < -180 || longitud > 180) {
+            throw new Exception("La longitud debe estar entre -180 y 180");
+        }
+        if (radioKm != null && radioKm <= 0) {
+            throw new Exception("El radio de búsqueda debe ser mayor a cero");
+        }
+        int k = limite != null ? limite : 10;
+        if (k < 1 || k > MAX_RESULTADOS) {
+            throw new Exception("El número de resultados debe estar entre 1 y " + MAX_RESULTADOS);
+        }
+        disponibilidadService.validarFechas(fechaInicio, fechaFin);
+
+        int totalDestinos = indiceEspacialDestinos.tamano();
+        LocalDateTime ahora = LocalDateTime.now();
+        Map<Long, Long> disponiblesPorDestino = new HashMap<>();
+        List<DestinoCercanoResponse> resultado = new ArrayList<>();
+        int candidatosPedidos = Math.min(totalDestinos, k * FACTOR_CANDIDATOS);
+
+        while (true) {
+            List<IndiceEspacialDestinos.Vecino> candidatos =
+                indiceEspacialDestinos.buscarMasCercanos(latitud, longitud, candidatosPedidos, radioKm);
+
+            // Solo se consulta la disponibilidad de los candidatos nuevos
+            List<Long> pendientes = candidatos.stream()
+                .map(vecino -> vecino.destino().getIdDestino())
+                .filter(id -> !disponiblesPorDestino.containsKey(id))
+                .toList();
+            if (!pendientes.isEmpty()) {
+                pendientes.forEach(id -> disponiblesPorDestino.put(id, 0L));
+                equipoRepository.contarDisponiblesPorDestinos(pendientes, idTipo, fechaInicio, fechaFin, ahora)
+                    .forEach(conteo -> disponiblesPorDestino.put(conteo.getIdDestino(), conteo.getDisponibles()));
+            }
+
+            resultado.clear();
+            for (IndiceEspacialDestinos.Vecino vecino : candidatos) {
+                long disponibles = disponiblesPorDestino.getOrDefault(vecino.destino().getIdDestino(), 0L);
+                if (disponibles > 0) {
+                    resultado.add(new DestinoCercanoResponse(vecino.destino(), vecino.distanciaKm(), (int) disponibles));
+                    if (resultado.size() == k) {
+                        return resultado;
+                    }
+                }
+            }
+
+            // Sin más destinos dentro del radio o en el índice: se devuelve lo encontrado
+            if (candidatos.size() < candidatosPedidos || candidatosPedidos >= totalDestinos) {
+                return resultado;
+            }
+            candidatosPedidos = Math.min(totalDestinos, candidatosPedidos * 2);
+        }
+    }
+}
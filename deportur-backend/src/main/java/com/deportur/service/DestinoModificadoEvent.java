@@ -0,0 +1,9 @@
+package com.deportur.service;
+
+/**
+ * Evento publicado por DestinoService cada vez que se crea, actualiza o elimina
+ * un destino. Los componentes que mantienen copias en memoria de los destinos
+ * lo escuchan para invalidarlas después del commit.
+ */
+public record DestinoModificadoEvent(Long idDestino) {
+}
@@ -1,10 +1,9 @@
 package com.deportur.service;
 
 import com.deportur.model.DestinoTuristico;
-import com.deportur.model.EquipoDeportivo;
 import com.deportur.repository.DestinoTuristicoRepository;
-import com.deportur.repository.EquipoDeportivoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -19,7 +18,10 @@ public class DestinoService {
     private DestinoTuristicoRepository destinoRepository;
 
     @Autowired
-    private EquipoDeportivoRepository equipoRepository;
+    private IntegridadReferencialService integridadReferencialService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * Migrado de GestionInventarioService.registrarDestino()
@@ -73,7 +75,9 @@ public class DestinoService {
         // Mantener compatibilidad con campo ubicacion legacy
         destino.setUbicacion(destino.getCiudad() + ", " + destino.getDepartamento());
 
-        return destinoRepository.save(destino);
+        DestinoTuristico destinoGuardado = destinoRepository.save(destino);
+        eventPublisher.publishEvent(new DestinoModificadoEvent(destinoGuardado.getIdDestino()));
+        return destinoGuardado;
     }
 
     /**
@@ -133,7 +137,9 @@ public class DestinoService {
         // Mantener compatibilidad con campo ubicacion legacy
         destinoExistente.setUbicacion(destino.getCiudad() + ", " + destino.getDepartamento());
 
-        return destinoRepository.save(destinoExistente);
+        DestinoTuristico destinoActualizado = destinoRepository.save(destinoExistente);
+        eventPublisher.publishEvent(new DestinoModificadoEvent(idDestino));
+        return destinoActualizado;
     }
 
     /**
@@ -144,13 +150,20 @@ public class DestinoService {
         DestinoTuristico destino = destinoRepository.findById(idDestino)
             .orElseThrow(() -> new Exception("El destino turístico no existe"));
 
-        // Verificar si tiene equipos asociados
-        List<EquipoDeportivo> equipos = equipoRepository.findByDestino(destino);
-        if (equipos != null && !equipos.isEmpty()) {
-            throw new Exception("No se puede eliminar el destino turístico porque existen equipos asociados");
+        // Verificar si tiene equipos, reservas o políticas asociadas
+        IntegridadReferencialService.ReferenciasBloqueantes referencias =
+            integridadReferencialService.verificarDestino(idDestino);
+        if (referencias.tiene(IntegridadReferencialService.EQUIPOS)) {
+            throw new Exception("No se puede eliminar el destino turístico porque existen equipos asociados ("
+                + referencias.describir() + ")");
+        }
+        if (referencias.hayReferencias()) {
+            throw new Exception("No se puede eliminar el destino turístico porque tiene registros asociados ("
+                + referencias.describir() + ")");
         }
 
         destinoRepository.delete(destino);
+        eventPublisher.publishEvent(new DestinoModificadoEvent(idDestino));
     }
 
     /**
@@ -1,10 +1,12 @@
 package com.deportur.service;
 
+import com.deportur.config.EnrutadorReplicasDataSource;
 import com.deportur.model.DestinoTuristico;
 import com.deportur.model.EquipoDeportivo;
 import com.deportur.repository.DetalleReservaRepository;
 import com.deportur.repository.DestinoTuristicoRepository;
 import com.deportur.repository.EquipoDeportivoRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
@@ -27,9 +29,13 @@ public class DisponibilidadService {
     @Autowired
     private DetalleReservaRepository detalleReservaRepository;
 
+    @Autowired
+    private BloqueoEquipoService bloqueoEquipoService;
+
     /**
      * Verifica si un equipo específico está disponible en un rango de fechas
      */
+    @Timed(value = "deportur.disponibilidad", extraTags = {"operacion", "verificar-equipo"})
     public boolean verificarDisponibilidadEquipo(Long idEquipo, LocalDate fechaInicio, LocalDate fechaFin) throws Exception {
         // Validar fechas
         if (fechaInicio.isAfter(fechaFin)) {
@@ -50,13 +56,21 @@ public class DisponibilidadService {
             return false;
         }
 
-        // Verificar que no haya reservas solapadas
-        return !detalleReservaRepository.existsReservaEnFechas(idEquipo, fechaInicio, fechaFin);
+        // Apartado por un bloqueo temporal (tabla en memoria de BloqueoEquipoService)
+        if (bloqueoEquipoService.estaBloqueado(idEquipo, fechaInicio, fechaFin)) {
+            return false;
+        }
+
+        // Verificar que no haya reservas solapadas, en el primario: la réplica puede no tener aún
+        // una reserva recién confirmada
+        return !EnrutadorReplicasDataSource.enPrimario(
+            () -> detalleReservaRepository.existsReservaEnFechas(idEquipo, fechaInicio, fechaFin));
     }
 
     /**
      * Obtiene lista de equipos disponibles para un destino y rango de fechas
      */
+    @Timed(value = "deportur.disponibilidad", extraTags = {"operacion", "equipos-disponibles"})
     public List<EquipoDeportivo> obtenerEquiposDisponibles(Long idDestino, LocalDate fechaInicio, LocalDate fechaFin) throws Exception {
         // Validar destino
         DestinoTuristico destino = destinoRepository.findById(idDestino)
@@ -81,6 +95,7 @@ public class DisponibilidadService {
      * Verifica la capacidad máxima de un destino
      * (Número de reservas activas no debe exceder la capacidad)
      */
+    @Timed(value = "deportur.disponibilidad", extraTags = {"operacion", "capacidad-destino"})
     public boolean verificarCapacidadDestino(Long idDestino, LocalDate fechaInicio, LocalDate fechaFin) throws Exception {
         DestinoTuristico destino = destinoRepository.findById(idDestino)
             .orElseThrow(() -> new Exception("El destino especificado no existe"));
@@ -1,5 +1,6 @@
 package com.deportur.service;
 
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.DestinoTuristico;
 import com.deportur.model.EquipoDeportivo;
 import com.deportur.model.TipoEquipo;
@@ -12,6 +13,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Servicio migrado de GestionInventarioService.java (parte de equipos)
@@ -29,7 +32,10 @@ public class EquipoService {
     private DestinoTuristicoRepository destinoRepository;
 
     @Autowired
-    private com.deportur.repository.DetalleReservaRepository detalleReservaRepository;
+    private IntegridadReferencialService integridadReferencialService;
+
+    @Autowired
+    private BloqueoEquipoService bloqueoEquipoService;
 
     /**
      * Migrado de GestionInventarioService.registrarEquipo()
@@ -80,6 +86,9 @@ public class EquipoService {
         EquipoDeportivo equipoExistente = equipoRepository.findById(idEquipo)
             .orElseThrow(() -> new Exception("El equipo que intenta actualizar no existe"));
 
+        // La versión del equipo recibido es la que el usuario leyó (If-Match)
+        PrecondicionFallidaException.verificarVersion(equipo.getVersion(), equipoExistente.getVersion());
+
         // Validaciones (mismas que registrar)
         if (equipo.getNombre() == null || equipo.getNombre().trim().isEmpty()) {
             throw new Exception("El nombre del equipo es requerido");
@@ -136,12 +145,17 @@ public class EquipoService {
         EquipoDeportivo equipo = equipoRepository.findById(idEquipo)
             .orElseThrow(() -> new Exception("El equipo que intenta eliminar no existe"));
 
-        // Verificar si el equipo tiene reservas activas (PENDIENTE, CONFIRMADA, EN_PROGRESO)
-        boolean tieneReservasActivas = detalleReservaRepository.existsReservasActivasPorEquipo(idEquipo);
+        // Verificar si el equipo tiene reservas activas (PENDIENTE, CONFIRMADA, EN_PROGRESO) o políticas propias
+        IntegridadReferencialService.ReferenciasBloqueantes referencias =
+            integridadReferencialService.verificarEquipo(idEquipo);
 
-        if (tieneReservasActivas) {
+        if (referencias.tiene(IntegridadReferencialService.RESERVAS_ACTIVAS)) {
             throw new Exception("No se puede eliminar el equipo porque tiene reservas activas (pendientes, confirmadas o en progreso). Cancele las reservas asociadas primero.");
         }
+        if (referencias.hayReferencias()) {
+            throw new Exception("No se puede eliminar el equipo porque tiene registros asociados ("
+                + referencias.describir() + ")");
+        }
 
         equipoRepository.delete(equipo);
     }
@@ -154,6 +168,14 @@ public class EquipoService {
             .orElseThrow(() -> new Exception("El equipo no existe"));
     }
 
+    /**
+     * Versión actual del equipo sin cargar la entidad, para responder a If-None-Match
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> buscarVersion(Long idEquipo) {
+        return equipoRepository.buscarVersion(idEquipo);
+    }
+
     /**
      * Migrado de GestionInventarioService.listarTodosLosEquipos()
      */
@@ -204,6 +226,9 @@ public class EquipoService {
         DestinoTuristico destino = destinoRepository.findById(idDestino)
             .orElseThrow(() -> new Exception("El destino turístico especificado no existe"));
 
-        return equipoRepository.findDisponiblesPorDestinoYFechas(idDestino, fechaInicio, fechaFin);
+        // Sin los apartados por bloqueos temporales, que no están en la consulta
+        return equipoRepository.findDisponiblesPorDestinoYFechas(idDestino, fechaInicio, fechaFin).stream()
+            .filter(equipo -> !bloqueoEquipoService.estaBloqueado(equipo.getIdEquipo(), fechaInicio, fechaFin))
+            .collect(Collectors.toList());
     }
 }
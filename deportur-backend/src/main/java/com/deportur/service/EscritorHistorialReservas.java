@@ -0,0 +1,342 @@
+package com.deportur.service;
+
+import com.deportur.model.enums.EstadoReserva;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escribe el historial de reservas (reserva_historial) fuera de la transacción de la reserva.
+ *
+ * Los registros entran en una cola acotada después del commit (TransactionSynchronization.afterCommit),
+ * así un rollback no deja historial. Un hilo virtual los inserta con sentencias INSERT de varias filas
+ * cuando reúne deportur.historial.tamano-lote registros o pasan deportur.historial.intervalo-ms desde el
+ * primero. Con la cola llena, quien registra espera hasta deportur.historial.espera-max-ms; si sigue
+ * llena, o si la inserción falla, los registros se añaden a un archivo NDJSON en
+ * deportur.historial.respaldo-dir, que el mismo hilo vuelve a insertar cuando la base responde.
+ * El directorio debe sobrevivir a un reinicio, así que no tiene valor por defecto (solo en el perfil dev).
+ * Un archivo que no se puede insertar por su contenido pasa a fallido-*.ndjson y no detiene a los demás.
+ *
+ * El historial de un cambio aparece en la base unos milisegundos después del commit de la reserva.
+ */
+@Component
+public class EscritorHistorialReservas {
+
+    private static final Logger logger = LoggerFactory.getLogger(EscritorHistorialReservas.class);
+
+    private static final String INSERT = "INSERT INTO reserva_historial "
+        + "(id_reserva, estado_anterior, estado_nuevo, usuario_modificacion, fecha_cambio, observaciones) VALUES ";
+    private static final String FILA = "(?, ?, ?, ?, ?, ?)";
+
+    /** Filas por sentencia: 6 parámetros por fila, muy por debajo del límite de 32767 de Postgres */
+    private static final int MAX_FILAS_POR_SENTENCIA = 500;
+
+    private static final String ARCHIVO_PENDIENTE = "pendiente.ndjson";
+    private static final String PREFIJO_RECUPERACION = "recuperar-";
+    private static final String PREFIJO_FALLIDO = "fallido-";
+
+    /**
+     * Fila de reserva_historial pendiente de insertar
+     */
+    public record Registro(Long idReserva, EstadoReserva estadoAnterior, EstadoReserva estadoNuevo,
+                           String usuarioModificacion, LocalDateTime fechaCambio, String observaciones) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${deportur.historial.tamano-lote:200}")
+    private int tamanoLote = 200;
+
+    @Value("${deportur.historial.intervalo-ms:200}")
+    private long intervaloMs = 200;
+
+    @Value("${deportur.historial.capacidad-cola:10000}")
+    private int capacidadCola = 10000;
+
+    @Value("${deportur.historial.espera-max-ms:50}")
+    private long esperaMaxMs = 50;
+
+    @Value("${deportur.historial.respaldo-dir:}")
+    private String respaldoDir;
+
+    // Pausa tras un fallo al recuperar el respaldo, para no reintentar en cada vuelta
+    private long pausaRecuperacionMs = 5000;
+
+    private final Object candadoRespaldo = new Object();
+    private BlockingQueue<Registro> cola;
+    private TransactionTemplate transaccion;
+    private Path directorio;
+    private Counter respaldados;
+    private Counter fallidos;
+    private Thread escritor;
+    private volatile boolean activo;
+    private long siguienteRecuperacion;
+    private long secuenciaRecuperacion;
+
+    @PostConstruct
+    void iniciar() {
+        if (respaldoDir == null || respaldoDir.isBlank()) {
+            // Un directorio temporal se vacía al reiniciar y con él el historial que no llegó a la base
+            throw new IllegalStateException("Falta deportur.historial.respaldo-dir (DEPORTUR_HISTORIAL_RESPALDO_DIR): "
+                + "el respaldo del historial necesita un directorio persistente");
+        }
+        cola = new ArrayBlockingQueue<>(capacidadCola);
+        transaccion = new TransactionTemplate(transactionManager);
+        directorio = Paths.get(respaldoDir);
+        meterRegistry.gaugeCollectionSize("deportur.historial.cola", List.of(), cola);
+        respaldados = meterRegistry.counter("deportur.historial.respaldados");
+        fallidos = meterRegistry.counter("deportur.historial.archivos-fallidos");
+        activo = true;
+        escritor = Thread.ofVirtual().name("deportur-historial").start(this::ejecutar);
+    }
+
+    /**
+     * Vacía la cola antes de cerrar el pool de conexiones
+     */
+    @PreDestroy
+    void detener() throws InterruptedException {
+        activo = false;
+        escritor.join(TimeUnit.SECONDS.toMillis(10));
+        List<Registro> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        if (!restantes.isEmpty()) {
+            respaldar(restantes);
+        }
+    }
+
+    /**
+     * Encola el registro cuando confirme la transacción actual; sin transacción, de inmediato
+     */
+    public void registrar(Registro registro) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    encolar(registro);
+                }
+            });
+        } else {
+            encolar(registro);
+        }
+    }
+
+    private void encolar(Registro registro) {
+        if (activo) {
+            try {
+                if (cola.offer(registro, esperaMaxMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            logger.warn("Cola del historial llena ({} registros): el cambio de la reserva {} va al respaldo en disco",
+                capacidadCola, registro.idReserva());
+        }
+        respaldar(List.of(registro));
+    }
+
+    private void ejecutar() {
+        List<Registro> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                // Espera corta aunque el intervalo sea largo: detener() no debe esperar más de un segundo
+                Registro primero = cola.poll(Math.min(intervaloMs, 1000), TimeUnit.MILLISECONDS);
+                if (primero != null) {
+                    lote.add(primero);
+                    long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                    while (lote.size() < tamanoLote) {
+                        long restante = limite - System.nanoTime();
+                        Registro siguiente = restante > 0 ? cola.poll(restante, TimeUnit.NANOSECONDS) : cola.poll();
+                        if (siguiente == null) {
+                            break;
+                        }
+                        lote.add(siguiente);
+                    }
+                    escribir(lote);
+                    lote.clear();
+                }
+                recuperarRespaldo();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Error inesperado en el escritor del historial", e);
+            }
+        }
+        cola.drainTo(lote);
+        if (!lote.isEmpty()) {
+            respaldar(lote);
+        }
+    }
+
+    private void escribir(List<Registro> lote) {
+        try {
+            insertar(lote);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudieron insertar {} registros de historial, van al respaldo en disco: {}",
+                lote.size(), e.getMessage());
+            respaldar(lote);
+        }
+    }
+
+    /**
+     * Inserta el lote en una sola transacción, con sentencias de hasta MAX_FILAS_POR_SENTENCIA filas
+     */
+    void insertar(List<Registro> registros) {
+        transaccion.executeWithoutResult(estado -> {
+            for (int inicio = 0; inicio < registros.size(); inicio += MAX_FILAS_POR_SENTENCIA) {
+                List<Registro> tramo = registros.subList(inicio, Math.min(registros.size(), inicio + MAX_FILAS_POR_SENTENCIA));
+                StringBuilder sql = new StringBuilder(INSERT);
+                List<Object> parametros = new ArrayList<>(tramo.size() * 6);
+                for (int i = 0; i < tramo.size(); i++) {
+                    Registro registro = tramo.get(i);
+                    sql.append(i == 0 ? FILA : ", " + FILA);
+                    parametros.add(registro.idReserva());
+                    parametros.add(registro.estadoAnterior() != null ? registro.estadoAnterior().name() : null);
+                    parametros.add(registro.estadoNuevo().name());
+                    parametros.add(registro.usuarioModificacion());
+                    parametros.add(Timestamp.valueOf(registro.fechaCambio()));
+                    parametros.add(registro.observaciones());
+                }
+                jdbcTemplate.update(sql.toString(), parametros.toArray());
+            }
+        });
+    }
+
+    /**
+     * Añade los registros al archivo de respaldo y fuerza la escritura a disco
+     */
+    private void respaldar(List<Registro> registros) {
+        synchronized (candadoRespaldo) {
+            try {
+                Files.createDirectories(directorio);
+                StringBuilder lineas = new StringBuilder();
+                for (Registro registro : registros) {
+                    lineas.append(objectMapper.writeValueAsString(registro)).append('\n');
+                }
+                try (FileChannel canal = FileChannel.open(directorio.resolve(ARCHIVO_PENDIENTE),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    ByteBuffer contenido = ByteBuffer.wrap(lineas.toString().getBytes(StandardCharsets.UTF_8));
+                    while (contenido.hasRemaining()) {
+                        canal.write(contenido);
+                    }
+                    canal.force(false);
+                }
+                respaldados.increment(registros.size());
+            } catch (IOException e) {
+                // Último recurso: que el cambio quede al menos en el log
+                logger.error("No se pudo escribir el respaldo del historial en {}; registros perdidos: {}",
+                    directorio, registros, e);
+            }
+        }
+    }
+
+    /**
+     * Reinserta los archivos de respaldo. Cada archivo va en una transacción y se borra al confirmarla,
+     * así un fallo a medias no duplica filas. Si la base no responde se deja todo para la siguiente
+     * vuelta; un archivo que falla por su contenido se aparta como fallido-*.ndjson y se sigue con el resto
+     */
+    void recuperarRespaldo() {
+        if (System.currentTimeMillis() < siguienteRecuperacion) {
+            return;
+        }
+        Path pendiente = directorio.resolve(ARCHIVO_PENDIENTE);
+        try {
+            synchronized (candadoRespaldo) {
+                if (Files.exists(pendiente)) {
+                    // Lo que se respalde desde ahora va a un archivo pendiente nuevo
+                    String nombre = String.format("%s%019d-%06d.ndjson", PREFIJO_RECUPERACION,
+                        System.currentTimeMillis(), ++secuenciaRecuperacion % 1_000_000);
+                    Files.move(pendiente, directorio.resolve(nombre), StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            if (!Files.isDirectory(directorio)) {
+                return;
+            }
+            List<Path> archivos = new ArrayList<>();
+            try (DirectoryStream<Path> lista = Files.newDirectoryStream(directorio, PREFIJO_RECUPERACION + "*.ndjson")) {
+                lista.forEach(archivos::add);
+            }
+            archivos.sort(null);
+            for (Path archivo : archivos) {
+                try {
+                    int recuperados = recuperarArchivo(archivo);
+                    logger.info("Recuperados {} registros de historial desde {}", recuperados, archivo.getFileName());
+                } catch (JsonProcessingException | CharacterCodingException | DataIntegrityViolationException e) {
+                    apartar(archivo, e);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            siguienteRecuperacion = System.currentTimeMillis() + pausaRecuperacionMs;
+            logger.warn("No se pudo recuperar el respaldo del historial; se reintentará: {}", e.getMessage());
+        }
+    }
+
+    private int recuperarArchivo(Path archivo) throws IOException {
+        List<Registro> registros = new ArrayList<>();
+        for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+            if (!linea.isBlank()) {
+                registros.add(objectMapper.readValue(linea, Registro.class));
+            }
+        }
+        if (!registros.isEmpty()) {
+            insertar(registros);
+        }
+        Files.delete(archivo);
+        return registros.size();
+    }
+
+    /**
+     * Renombra recuperar-X.ndjson a fallido-X.ndjson, que ya no se reintenta: hay que revisarlo a mano
+     */
+    private void apartar(Path archivo, Exception causa) throws IOException {
+        String nombre = PREFIJO_FALLIDO + archivo.getFileName().toString().substring(PREFIJO_RECUPERACION.length());
+        Files.move(archivo, directorio.resolve(nombre), StandardCopyOption.ATOMIC_MOVE);
+        fallidos.increment();
+        logger.error("El respaldo del historial {} no se puede insertar; se aparta como {}",
+            archivo.getFileName(), nombre, causa);
+    }
+}
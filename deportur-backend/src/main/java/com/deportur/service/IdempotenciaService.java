@@ -0,0 +1,421 @@
+package com.deportur.service;
+
+import com.deportur.model.SolicitudIdempotente;
+import com.deportur.repository.SolicitudIdempotenteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Idempotencia de POST /api/reservas con la cabecera Idempotency-Key.
+ *
+ * La primera petición con una clave se ejecuta y, si termina con 2xx, su respuesta se guarda durante
+ * deportur.idempotencia.ventana-horas: un reintento con la misma clave y el mismo cuerpo recibe esa
+ * respuesta sin crear otra reserva. La misma clave con otro cuerpo se rechaza con 422. Las respuestas
+ * de error no se guardan: no crearon nada y el reintento vuelve a ejecutarse.
+ *
+ * Las respuestas recientes viven en una caché en memoria acotada (deportur.idempotencia.capacidad)
+ * y en solicitud_idempotente, que comparten las instancias y cubre lo que la caché ya descartó.
+ * Un duplicado que llega con la primera ejecución en curso la espera en vez de ejecutarse: en la misma
+ * instancia sobre su resultado y en otra consultando la fila. Si no termina en
+ * deportur.idempotencia.espera-max-ms responde 409 y el cliente reintenta.
+ *
+ * La reserva creada queda anotada en la fila de su clave dentro de su propia transacción
+ * (registrarReserva): si la reserva se confirmó pero la respuesta no llegó a guardarse (la instancia
+ * cayó justo después), el reintento la reconstruye a partir de esa reserva en vez de crear otra.
+ *
+ * Las claves se guardan junto al usuario autenticado: dos usuarios no comparten claves.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    /** Cabecera que marca una respuesta repetida de una ejecución anterior */
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    static final int LONGITUD_MAX_CLAVE = 255;
+    private static final long PAUSA_SONDEO_MS = 100;
+
+    /** Clave que se está ejecutando en el hilo actual, para registrarReserva */
+    private static final ThreadLocal<String> CLAVE_EN_EJECUCION = new ThreadLocal<>();
+
+    /**
+     * Respuesta tal como se devuelve al cliente y se guarda
+     */
+    record Respuesta(int codigoEstado, String tipoContenido, String cuerpo) {
+
+        boolean exitosa() {
+            return codigoEstado >= 200 && codigoEstado < 300;
+        }
+    }
+
+    private record Resultado(Respuesta respuesta, boolean repetida) {
+    }
+
+    private record Guardada(String hash, Respuesta respuesta, long expiraMs) {
+    }
+
+    private record EnCurso(String hash, CompletableFuture<Respuesta> resultado) {
+    }
+
+    @Autowired
+    private SolicitudIdempotenteRepository solicitudRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${deportur.idempotencia.ventana-horas:24}")
+    private long ventanaHoras = 24;
+
+    @Value("${deportur.idempotencia.capacidad:10000}")
+    private int capacidad = 10_000;
+
+    @Value("${deportur.idempotencia.espera-max-ms:10000}")
+    private long esperaMaxMs = 10_000;
+
+    @Value("${deportur.idempotencia.en-curso-max-segundos:120}")
+    private long enCursoMaxSegundos = 120;
+
+    private final Map<String, EnCurso> enCurso = new ConcurrentHashMap<>();
+    private Map<String, Guardada> recientes;
+    private TransactionTemplate transaccion;
+
+    @PostConstruct
+    void iniciar() {
+        // Transacciones de escritura: la reserva de la clave y su lectura van siempre a la primaria
+        transaccion = new TransactionTemplate(transactionManager);
+        recientes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Guardada> mayor) {
+                return size() > capacidad;
+            }
+        };
+        meterRegistry.gaugeMapSize("deportur.idempotencia.recientes", List.of(), recientes);
+    }
+
+    /**
+     * Ejecuta la acción una sola vez por clave y cuerpo de petición, o devuelve la respuesta
+     * de la ejecución que ya se hizo (o que está en curso) con esa clave
+     */
+    public ResponseEntity<?> ejecutar(String claveCliente, Object peticion, Supplier<ResponseEntity<?>> accion) {
+        return ejecutar(claveCliente, peticion, accion, null);
+    }
+
+    /**
+     * Como ejecutar, y si la ejecución anterior dejó anotada su reserva pero no su respuesta,
+     * repetir construye la respuesta a partir del id de esa reserva
+     */
+    public ResponseEntity<?> ejecutar(String claveCliente, Object peticion, Supplier<ResponseEntity<?>> accion,
+                                      Function<Long, ResponseEntity<?>> repetir) {
+        if (claveCliente.isBlank() || claveCliente.length() > LONGITUD_MAX_CLAVE) {
+            return ResponseEntity.badRequest()
+                .body("La cabecera Idempotency-Key debe tener entre 1 y " + LONGITUD_MAX_CLAVE + " caracteres");
+        }
+        String clave = ambito() + ":" + claveCliente;
+        String hash = huella(peticion);
+
+        Guardada guardada = buscarReciente(clave);
+        if (guardada != null) {
+            return aEntidad(comparar(guardada.hash(), hash, guardada.respuesta()));
+        }
+
+        EnCurso propia = new EnCurso(hash, new CompletableFuture<>());
+        EnCurso previa = enCurso.putIfAbsent(clave, propia);
+        if (previa != null) {
+            return esperar(previa, hash);
+        }
+
+        Resultado resultado = null;
+        try {
+            resultado = resolver(clave, hash, accion, repetir);
+            return aEntidad(resultado);
+        } catch (RuntimeException e) {
+            propia.resultado().completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+            if (resultado != null) {
+                propia.resultado().complete(resultado.respuesta());
+            }
+        }
+    }
+
+    /**
+     * Anota la reserva en la fila de la clave que se está ejecutando en este hilo, en la transacción
+     * que crea la reserva. Sin clave en ejecución no hace nada
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarReserva(Long idReserva) {
+        String clave = CLAVE_EN_EJECUCION.get();
+        if (clave == null) {
+            return;
+        }
+        LocalDateTime expiraEn = LocalDateTime.now().plusHours(ventanaHoras);
+        if (solicitudRepository.registrarReserva(clave, idReserva, expiraEn) == 0) {
+            // La clave venció en curso y otra ejecución ya anotó su reserva: esta se deshace
+            throw new IllegalStateException("La petición con esta Idempotency-Key ya creó una reserva");
+        }
+    }
+
+    /**
+     * Purga las respuestas vencidas de la base y de la caché
+     */
+    @Scheduled(cron = "${deportur.idempotencia.purga-cron:0 15 * * * *}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "purgar-idempotencia"})
+    public void purgar() {
+        Integer eliminadas = transaccion.execute(estado -> solicitudRepository.eliminarVencidas(LocalDateTime.now()));
+        long ahoraMs = System.currentTimeMillis();
+        synchronized (recientes) {
+            recientes.values().removeIf(guardada -> guardada.expiraMs() <= ahoraMs);
+        }
+        if (eliminadas != null && eliminadas > 0) {
+            logger.info("Purgadas {} respuestas idempotentes vencidas", eliminadas);
+        }
+    }
+
+    /**
+     * Reserva la clave en la base y ejecuta, o repite la respuesta que ya tiene la clave.
+     * Si otra instancia la está ejecutando sondea la fila hasta que termine o se agote la espera
+     */
+    private Resultado resolver(String clave, String hash, Supplier<ResponseEntity<?>> accion,
+                               Function<Long, ResponseEntity<?>> repetir) {
+        // La ejecución anterior pudo terminar entre la consulta a la caché y el registro en curso
+        Guardada guardada = buscarReciente(clave);
+        if (guardada != null) {
+            return comparar(guardada.hash(), hash, guardada.respuesta());
+        }
+
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaxMs);
+        boolean esperando = false;
+        while (true) {
+            LocalDateTime ahora = LocalDateTime.now();
+            Integer reservadas = transaccion.execute(estado ->
+                solicitudRepository.reservar(clave, hash, ahora, ahora.plusSeconds(enCursoMaxSegundos)));
+            if (reservadas != null && reservadas > 0) {
+                return new Resultado(ejecutarPrimera(clave, hash, accion), false);
+            }
+
+            SolicitudIdempotente fila = transaccion.execute(estado -> solicitudRepository.findById(clave).orElse(null));
+            if (fila != null && !fila.getHashPeticion().equals(hash)) {
+                return claveReutilizada();
+            }
+            if (fila != null && fila.isCompletada()) {
+                Respuesta respuesta = new Respuesta(fila.getCodigoEstado(), fila.getTipoContenido(), fila.getCuerpo());
+                recordar(clave, hash, respuesta, fila.getExpiraEn());
+                return comparar(hash, hash, respuesta);
+            }
+            if (fila != null && fila.getIdReserva() != null && repetir != null) {
+                // La reserva se confirmó y su respuesta no llegó a guardarse: se reconstruye sin crear otra
+                Respuesta respuesta = aRespuesta(repetir.apply(fila.getIdReserva()));
+                if (respuesta.exitosa()) {
+                    guardar(clave, respuesta, fila.getExpiraEn());
+                    recordar(clave, hash, respuesta, fila.getExpiraEn());
+                }
+                return comparar(hash, hash, respuesta);
+            }
+
+            // En curso en otra instancia (o liberada entre las dos consultas: se vuelve a reservar)
+            if (!esperando) {
+                meterRegistry.counter("deportur.idempotencia", "resultado", "esperada").increment();
+                esperando = true;
+            }
+            if (System.nanoTime() >= limite) {
+                return enCursoSinTerminar();
+            }
+            try {
+                Thread.sleep(PAUSA_SONDEO_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return enCursoSinTerminar();
+            }
+        }
+    }
+
+    private Respuesta ejecutarPrimera(String clave, String hash, Supplier<ResponseEntity<?>> accion) {
+        Respuesta respuesta;
+        CLAVE_EN_EJECUCION.set(clave);
+        try {
+            respuesta = aRespuesta(accion.get());
+        } catch (RuntimeException e) {
+            soltar(clave);
+            throw e;
+        } finally {
+            CLAVE_EN_EJECUCION.remove();
+        }
+        meterRegistry.counter("deportur.idempotencia", "resultado", "ejecutada").increment();
+
+        if (!respuesta.exitosa()) {
+            soltar(clave);
+            return respuesta;
+        }
+        LocalDateTime expiraEn = LocalDateTime.now().plusHours(ventanaHoras);
+        guardar(clave, respuesta, expiraEn);
+        recordar(clave, hash, respuesta, expiraEn);
+        return respuesta;
+    }
+
+    private void guardar(String clave, Respuesta respuesta, LocalDateTime expiraEn) {
+        try {
+            transaccion.executeWithoutResult(estado -> solicitudRepository.completar(clave,
+                respuesta.codigoEstado(), respuesta.tipoContenido(), respuesta.cuerpo(), expiraEn));
+        } catch (RuntimeException e) {
+            // La reserva ya quedó anotada con la clave: un reintento reconstruye la respuesta a partir de ella
+            logger.warn("No se pudo guardar la respuesta idempotente de {}", clave, e);
+        }
+    }
+
+    private ResponseEntity<?> esperar(EnCurso previa, String hash) {
+        if (!previa.hash().equals(hash)) {
+            return aEntidad(claveReutilizada());
+        }
+        meterRegistry.counter("deportur.idempotencia", "resultado", "esperada").increment();
+        try {
+            Respuesta respuesta = previa.resultado().get(esperaMaxMs, TimeUnit.MILLISECONDS);
+            return aEntidad(new Resultado(respuesta, respuesta.exitosa()));
+        } catch (TimeoutException | ExecutionException e) {
+            return aEntidad(enCursoSinTerminar());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return aEntidad(enCursoSinTerminar());
+        }
+    }
+
+    private Resultado comparar(String hashGuardado, String hash, Respuesta respuesta) {
+        if (!hashGuardado.equals(hash)) {
+            return claveReutilizada();
+        }
+        meterRegistry.counter("deportur.idempotencia", "resultado", "repetida").increment();
+        return new Resultado(respuesta, true);
+    }
+
+    private Resultado claveReutilizada() {
+        meterRegistry.counter("deportur.idempotencia", "resultado", "rechazada").increment();
+        return new Resultado(new Respuesta(HttpStatus.UNPROCESSABLE_ENTITY.value(), MediaType.TEXT_PLAIN_VALUE,
+            "La Idempotency-Key ya se usó con otra petición"), false);
+    }
+
+    private Resultado enCursoSinTerminar() {
+        meterRegistry.counter("deportur.idempotencia", "resultado", "conflicto").increment();
+        return new Resultado(new Respuesta(HttpStatus.CONFLICT.value(), MediaType.TEXT_PLAIN_VALUE,
+            "La petición con esta Idempotency-Key sigue en curso; reintente más tarde"), false);
+    }
+
+    private void soltar(String clave) {
+        try {
+            transaccion.executeWithoutResult(estado -> solicitudRepository.liberar(clave));
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo liberar la clave idempotente {}", clave, e);
+        }
+    }
+
+    private Guardada buscarReciente(String clave) {
+        synchronized (recientes) {
+            Guardada guardada = recientes.get(clave);
+            if (guardada != null && guardada.expiraMs() <= System.currentTimeMillis()) {
+                recientes.remove(clave);
+                return null;
+            }
+            return guardada;
+        }
+    }
+
+    private void recordar(String clave, String hash, Respuesta respuesta, LocalDateTime expiraEn) {
+        long expiraMs = expiraEn.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (recientes) {
+            recientes.put(clave, new Guardada(hash, respuesta, expiraMs));
+        }
+    }
+
+    /**
+     * Cuerpo serializado una vez: el mismo texto se devuelve a la primera petición y a las repetidas
+     */
+    private Respuesta aRespuesta(ResponseEntity<?> entidad) {
+        int codigoEstado = entidad.getStatusCode().value();
+        Object cuerpo = entidad.getBody();
+        if (cuerpo == null) {
+            return new Respuesta(codigoEstado, null, null);
+        }
+        if (cuerpo instanceof String texto) {
+            MediaType tipo = entidad.getHeaders().getContentType();
+            return new Respuesta(codigoEstado, tipo != null ? tipo.toString() : MediaType.TEXT_PLAIN_VALUE, texto);
+        }
+        try {
+            return new Respuesta(codigoEstado, MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsString(cuerpo));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    private static ResponseEntity<?> aEntidad(Resultado resultado) {
+        Respuesta respuesta = resultado.respuesta();
+        ResponseEntity.BodyBuilder constructor = ResponseEntity.status(respuesta.codigoEstado());
+        if (resultado.repetida()) {
+            constructor.header(CABECERA_REPETIDA, "true");
+        }
+        if (respuesta.tipoContenido() != null) {
+            constructor.contentType(MediaType.parseMediaType(respuesta.tipoContenido()));
+        }
+        return constructor.body(respuesta.cuerpo());
+    }
+
+    private String huella(Object peticion) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(peticion));
+            return HexFormat.of().formatHex(resumen);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la petición", e);
+        }
+    }
+
+    /**
+     * Usuario autenticado (sub del JWT), o "anonimo" sin autenticación
+     */
+    private static String ambito() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion == null || !autenticacion.isAuthenticated()
+                || autenticacion instanceof AnonymousAuthenticationToken) {
+            return "anonimo";
+        }
+        return autenticacion.getName();
+    }
+}
@@ -0,0 +1,275 @@
+package com.deportur.service;
+
+import com.deportur.model.DestinoTuristico;
+import com.deportur.repository.DestinoTuristicoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Índice espacial en memoria (k-d tree) con los destinos activos que tienen coordenadas.
+ * Cada destino se guarda como vector unitario 3D, así la distancia euclídea entre
+ * vectores (cuerda) crece igual que la distancia sobre la esfera y no hay problemas
+ * con el antimeridiano ni con los polos.
+ *
+ * El árbol es inmutable: las escrituras de DestinoService lo marcan como desactualizado
+ * y la siguiente consulta lo reconstruye con una sola lectura de la tabla.
+ */
+@Component
+public class IndiceEspacialDestinos {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceEspacialDestinos.class);
+
+    static final double RADIO_TIERRA_KM = 6371.0088;
+
+    @Autowired
+    private DestinoTuristicoRepository destinoRepository;
+
+    // Con varias instancias del backend, una escritura en otra instancia solo se ve tras este tiempo
+    @Value("${deportur.destinos.indice.ttl-segundos:300}")
+    private long ttlSegundos = 300;
+
+    private volatile Arbol arbol;
+    private volatile boolean desactualizado = true;
+    private volatile long construidoEnMillis;
+
+    /**
+     * Destino encontrado y su distancia al punto de consulta
+     */
+    public record Vecino(DestinoTuristico destino, double distanciaKm) {
+    }
+
+    /**
+     * Devuelve hasta k destinos ordenados por distancia al punto indicado.
+     * Si radioKm no es null se descartan los destinos más lejanos.
+     */
+    public List<Vecino> buscarMasCercanos(double latitud, double longitud, int k, Double radioKm) {
+        return obtenerArbol().buscarMasCercanos(latitud, longitud, k, radioKm);
+    }
+
+    public int tamano() {
+        return obtenerArbol().tamano();
+    }
+
+    /**
+     * Marca el índice para reconstruirse en la próxima consulta
+     */
+    public void invalidar() {
+        desactualizado = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarDestino(DestinoModificadoEvent evento) {
+        invalidar();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        try {
+            obtenerArbol();
+        } catch (RuntimeException e) {
+            // Se reintentará en la primera consulta
+            logger.warn("No se pudo construir el índice espacial de destinos al iniciar: {}", e.getMessage());
+        }
+    }
+
+    private Arbol obtenerArbol() {
+        Arbol actual = arbol;
+        if (actual != null && !desactualizado && !expirado()) {
+            return actual;
+        }
+
+        synchronized (this) {
+            if (arbol == null || desactualizado || expirado()) {
+                // Se baja la marca antes de leer: una escritura concurrente vuelve a subirla
+                desactualizado = false;
+                List<DestinoTuristico> destinos = destinoRepository.findByActivoTrueAndLatitudIsNotNullAndLongitudIsNotNull();
+                arbol = Arbol.construir(destinos);
+                construidoEnMillis = System.currentTimeMillis();
+                logger.debug("Índice espacial de destinos reconstruido con {} destinos", arbol.tamano());
+            }
+            return arbol;
+        }
+    }
+
+    private boolean expirado() {
+        return System.currentTimeMillis() - construidoEnMillis > ttlSegundos * 1000;
+    }
+
+    /**
+     * k-d tree implícito: los nodos se guardan en arreglos y el nodo de cada
+     * rango [inicio, fin) es su posición media; los hijos son las dos mitades.
+     */
+    static final class Arbol {
+
+        private final DestinoTuristico[] destinos;
+        private final double[][] puntos;
+
+        private Arbol(DestinoTuristico[] destinos, double[][] puntos) {
+            this.destinos = destinos;
+            this.puntos = puntos;
+        }
+
+        static Arbol construir(List<DestinoTuristico> origen) {
+            List<DestinoTuristico> validos = new ArrayList<>();
+            for (DestinoTuristico destino : origen) {
+                if (destino.getLatitud() != null && destino.getLongitud() != null) {
+                    validos.add(destino);
+                }
+            }
+
+            DestinoTuristico[] destinos = validos.toArray(new DestinoTuristico[0]);
+            double[][] puntos = new double[destinos.length][];
+            for (int i = 0; i < destinos.length; i++) {
+                puntos[i] = aVector(destinos[i].getLatitud().doubleValue(), destinos[i].getLongitud().doubleValue());
+            }
+
+            ordenar(destinos, puntos, 0, destinos.length, 0);
+            return new Arbol(destinos, puntos);
+        }
+
+        int tamano() {
+            return destinos.length;
+        }
+
+        List<Vecino> buscarMasCercanos(double latitud, double longitud, int k, Double radioKm) {
+            if (k <= 0 || destinos.length == 0) {
+                return Collections.emptyList();
+            }
+
+            double[] consulta = aVector(latitud, longitud);
+            double limite = Double.POSITIVE_INFINITY;
+            if (radioKm != null) {
+                double cuerda = 2 * Math.sin(Math.min(radioKm / RADIO_TIERRA_KM, Math.PI) / 2);
+                limite = cuerda * cuerda;
+            }
+
+            // Max-heap por distancia: la cabeza es el peor candidato actual
+            PriorityQueue<double[]> mejores = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b[0], a[0]));
+            buscar(consulta, 0, destinos.length, 0, k, limite, mejores);
+
+            List<Vecino> resultado = new ArrayList<>(mejores.size());
+            while (!mejores.isEmpty()) {
+                double[] candidato = mejores.poll();
+                resultado.add(new Vecino(destinos[(int) candidato[1]], aKilometros(candidato[0])));
+            }
+            Collections.reverse(resultado);
+            return resultado;
+        }
+
+        private void buscar(double[] consulta, int inicio, int fin, int eje, int k, double limite,
+                            PriorityQueue<double[]> mejores) {
+            if (inicio >= fin) {
+                return;
+            }
+
+            int medio = (inicio + fin) >>> 1;
+            double distancia = distanciaCuadrada(consulta, puntos[medio]);
+            double peor = mejores.size() == k ? mejores.peek()[0] : limite;
+            if (distancia <= peor && distancia <= limite) {
+                mejores.add(new double[] {distancia, medio});
+                if (mejores.size() > k) {
+                    mejores.poll();
+                }
+            }
+
+            double diferencia = consulta[eje] - puntos[medio][eje];
+            int siguienteEje = (eje + 1) % 3;
+            int cercanoInicio = diferencia < 0 ? inicio : medio + 1;
+            int cercanoFin = diferencia < 0 ? medio : fin;
+            int lejanoInicio = diferencia < 0 ? medio + 1 : inicio;
+            int lejanoFin = diferencia < 0 ? fin : medio;
+
+            buscar(consulta, cercanoInicio, cercanoFin, siguienteEje, k, limite, mejores);
+
+            // Solo se visita la otra mitad si el plano de corte está más cerca que el peor candidato
+            peor = mejores.size() == k ? mejores.peek()[0] : limite;
+            if (diferencia * diferencia <= peor) {
+                buscar(consulta, lejanoInicio, lejanoFin, siguienteEje, k, limite, mejores);
+            }
+        }
+
+        /**
+         * Deja la mediana del eje en la posición media del rango (quickselect) y repite en cada mitad
+         */
+        private static void ordenar(DestinoTuristico[] destinos, double[][] puntos, int inicio, int fin, int eje) {
+            if (fin - inicio <= 1) {
+                return;
+            }
+            int medio = (inicio + fin) >>> 1;
+            seleccionar(destinos, puntos, inicio, fin - 1, medio, eje);
+            int siguienteEje = (eje + 1) % 3;
+            ordenar(destinos, puntos, inicio, medio, siguienteEje);
+            ordenar(destinos, puntos, medio + 1, fin, siguienteEje);
+        }
+
+        private static void seleccionar(DestinoTuristico[] destinos, double[][] puntos,
+                                        int izquierda, int derecha, int objetivo, int eje) {
+            while (izquierda < derecha) {
+                double pivote = puntos[(izquierda + derecha) >>> 1][eje];
+                int i = izquierda;
+                int j = derecha;
+                while (i <= j) {
+                    while (puntos[i][eje] < pivote) {
+                        i++;
+                    }
+                    while (puntos[j][eje] > pivote) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        intercambiar(destinos, puntos, i, j);
+                        i++;
+                        j--;
+                    }
+                }
+                if (objetivo <= j) {
+                    derecha = j;
+                } else if (objetivo >= i) {
+                    izquierda = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private static void intercambiar(DestinoTuristico[] destinos, double[][] puntos, int i, int j) {
+            DestinoTuristico destino = destinos[i];
+            destinos[i] = destinos[j];
+            destinos[j] = destino;
+            double[] punto = puntos[i];
+            puntos[i] = puntos[j];
+            puntos[j] = punto;
+        }
+    }
+
+    static double[] aVector(double latitud, double longitud) {
+        double lat = Math.toRadians(latitud);
+        double lon = Math.toRadians(longitud);
+        double cosLat = Math.cos(lat);
+        return new double[] {cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)};
+    }
+
+    static double distanciaCuadrada(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Convierte la cuerda al cuadrado entre dos vectores unitarios en distancia sobre la superficie
+     */
+    static double aKilometros(double cuerdaCuadrada) {
+        double cuerda = Math.sqrt(cuerdaCuadrada);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, cuerda / 2));
+    }
+}
@@ -0,0 +1,109 @@
+package com.deportur.service;
+
+import com.deportur.repository.ClienteRepository;
+import com.deportur.repository.DestinoTuristicoRepository;
+import com.deportur.repository.EquipoDeportivoRepository;
+import com.deportur.repository.TipoEquipoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Responde "¿algo referencia a esta entidad?" antes de eliminarla.
+ * Cada verificación es una única consulta nativa con conteos acotados, en lugar
+ * de cargar las listas de entidades relacionadas solo para preguntar isEmpty().
+ */
+@Service
+public class IntegridadReferencialService {
+
+    /**
+     * Los conteos se cortan en este valor (ver las consultas contarReferencias)
+     */
+    public static final long LIMITE_CONTEO = 1000;
+
+    public static final String RESERVAS = "reservas";
+    public static final String RESERVAS_ACTIVAS = "reservas activas";
+    public static final String EQUIPOS = "equipos";
+    public static final String POLITICAS_PRECIO = "políticas de precio";
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private DestinoTuristicoRepository destinoRepository;
+
+    @Autowired
+    private TipoEquipoRepository tipoEquipoRepository;
+
+    @Autowired
+    private EquipoDeportivoRepository equipoRepository;
+
+    /**
+     * Conteo de referencias que impiden eliminar una entidad
+     */
+    public record ReferenciasBloqueantes(Map<String, Long> conteos) {
+
+        public long conteo(String referencia) {
+            Long valor = conteos.get(referencia);
+            return valor != null ? valor : 0L;
+        }
+
+        public boolean tiene(String referencia) {
+            return conteo(referencia) > 0;
+        }
+
+        public boolean hayReferencias() {
+            return conteos.values().stream().anyMatch(valor -> valor != null && valor > 0);
+        }
+
+        /**
+         * Texto del tipo "3 equipos, 1 políticas de precio" con las referencias encontradas
+         */
+        public String describir() {
+            return conteos.entrySet().stream()
+                .filter(entrada -> entrada.getValue() != null && entrada.getValue() > 0)
+                .map(entrada -> (entrada.getValue() >= LIMITE_CONTEO ? LIMITE_CONTEO + "+" : entrada.getValue().toString())
+                    + " " + entrada.getKey())
+                .collect(Collectors.joining(", "));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ReferenciasBloqueantes verificarCliente(Long idCliente) {
+        ClienteRepository.ReferenciasCliente referencias = clienteRepository.contarReferencias(idCliente);
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        conteos.put(RESERVAS, referencias.getReservas());
+        return new ReferenciasBloqueantes(conteos);
+    }
+
+    @Transactional(readOnly = true)
+    public ReferenciasBloqueantes verificarDestino(Long idDestino) {
+        DestinoTuristicoRepository.ReferenciasDestino referencias = destinoRepository.contarReferencias(idDestino);
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        conteos.put(EQUIPOS, referencias.getEquipos());
+        conteos.put(RESERVAS, referencias.getReservas());
+        conteos.put(POLITICAS_PRECIO, referencias.getPoliticasPrecio());
+        return new ReferenciasBloqueantes(conteos);
+    }
+
+    @Transactional(readOnly = true)
+    public ReferenciasBloqueantes verificarTipoEquipo(Long idTipo) {
+        TipoEquipoRepository.ReferenciasTipoEquipo referencias = tipoEquipoRepository.contarReferencias(idTipo);
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        conteos.put(EQUIPOS, referencias.getEquipos());
+        conteos.put(POLITICAS_PRECIO, referencias.getPoliticasPrecio());
+        return new ReferenciasBloqueantes(conteos);
+    }
+
+    @Transactional(readOnly = true)
+    public ReferenciasBloqueantes verificarEquipo(Long idEquipo) {
+        EquipoDeportivoRepository.ReferenciasEquipo referencias = equipoRepository.contarReferencias(idEquipo);
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        conteos.put(RESERVAS_ACTIVAS, referencias.getReservasActivas());
+        conteos.put(POLITICAS_PRECIO, referencias.getPoliticasPrecio());
+        return new ReferenciasBloqueantes(conteos);
+    }
+}
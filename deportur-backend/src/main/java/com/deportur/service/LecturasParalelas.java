@@ -0,0 +1,222 @@
+package com.deportur.service;
+
+import com.deportur.config.LimitadorConexionesBd;
+import com.deportur.config.RegistroConsultasLentas;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Ejecuta en paralelo lecturas independientes, cada una en un hilo virtual con su propia
+ * transacción de solo lectura. Con Postgres remoto (20-40 ms por viaje) la latencia de una
+ * lectura compuesta pasa a ser la de la lectura más lenta y no la suma de todas.
+ *
+ * Uso, al estilo de StructuredTaskScope (que en Java 21 sigue siendo preview):
+ * <pre>
+ * try (LecturasParalelas.Grupo grupo = lecturasParalelas.grupo()) {
+ *     LecturasParalelas.Lectura&lt;Long&gt; a = grupo.leer(() -> repoA.count());
+ *     LecturasParalelas.Lectura&lt;Long&gt; b = grupo.leer(() -> repoB.count());
+ *     grupo.esperar();
+ *     return a.obtener() + b.obtener();
+ * }
+ * </pre>
+ *
+ * Las entidades leídas en una tarea quedan desasociadas: sirven para responder, no para
+ * modificarlas en la transacción del llamador. Las tareas en paralelo se limitan a la mitad
+ * del pool de conexiones; sin cupo, la lectura se hace en el hilo del llamador.
+ *
+ * Solo se reparte desde un llamador sin transacción, que no tiene conexión. Uno dentro de una
+ * transacción ya ocupa una y, si esperara tareas que necesitan otra, con tantos llamadores como
+ * conexiones todos esperarían conexiones que solo ellos pueden liberar; sus lecturas se hacen en
+ * su hilo y dentro de su transacción. Las comprobaciones de varios elementos dentro de una
+ * transacción deben ser una sola consulta (p. ej. con IN), no un grupo.
+ */
+@Component
+public class LecturasParalelas {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Con false todas las lecturas se hacen en el hilo del llamador (p. ej. para contar SQL por petición)
+    @Value("${deportur.lecturas-paralelas.habilitado:true}")
+    private boolean habilitado = true;
+
+    // Tareas simultáneas en todo el proceso; 0 = mitad del pool de Hikari
+    @Value("${deportur.lecturas-paralelas.max-tareas:0}")
+    private int maxTareas;
+
+    private TransactionTemplate plantillaLectura;
+    private Semaphore cupos;
+    private ExecutorService ejecutor;
+
+    /**
+     * Instancia sin Spring: con maxTareas = 0 todas las lecturas son secuenciales
+     */
+    static LecturasParalelas crear(PlatformTransactionManager transactionManager, int maxTareas) {
+        LecturasParalelas lecturas = new LecturasParalelas();
+        lecturas.transactionManager = transactionManager;
+        lecturas.habilitado = maxTareas > 0;
+        lecturas.maxTareas = maxTareas;
+        lecturas.iniciar();
+        return lecturas;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (transactionManager != null) {
+            plantillaLectura = new TransactionTemplate(transactionManager);
+            plantillaLectura.setReadOnly(true);
+        }
+        int tareas = maxTareas > 0 ? maxTareas
+            : dataSource != null ? LimitadorConexionesBd.tamanoPool(dataSource) / 2 : 0;
+        cupos = new Semaphore(habilitado ? Math.max(0, tareas) : 0);
+        ejecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("deportur-lectura-", 0).factory());
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    public Grupo grupo() {
+        return new Grupo();
+    }
+
+    /**
+     * Resultado de una lectura del grupo; disponible después de Grupo.esperar()
+     */
+    public static final class Lectura<T> {
+
+        private final Future<T> futuro;
+
+        private Lectura(Future<T> futuro) {
+            this.futuro = futuro;
+        }
+
+        public T obtener() throws Exception {
+            return resultado(futuro);
+        }
+    }
+
+    /**
+     * Conjunto de lecturas que se esperan juntas. Si una falla, las pendientes se cancelan
+     */
+    public final class Grupo implements AutoCloseable {
+
+        private final List<Future<?>> tareas = new ArrayList<>();
+
+        public <T> Lectura<T> leer(Callable<T> lectura) {
+            Future<T> futuro;
+            if (!TransactionSynchronizationManager.isActualTransactionActive() && cupos.tryAcquire()) {
+                String origen = RegistroConsultasLentas.origenActual();
+                // El usuario autenticado decide si la lectura puede ir a una réplica (EnrutadorReplicasDataSource)
+                Callable<T> conUsuario = DelegatingSecurityContextCallable.create(lectura, SecurityContextHolder.getContext());
+                futuro = ejecutor.submit(() -> {
+                    RegistroConsultasLentas.fijarOrigen(origen);
+                    try {
+                        return enTransaccionDeLectura(conUsuario);
+                    } finally {
+                        RegistroConsultasLentas.limpiarOrigen();
+                        cupos.release();
+                    }
+                });
+            } else {
+                futuro = enHiloActual(lectura);
+            }
+            tareas.add(futuro);
+            return new Lectura<>(futuro);
+        }
+
+        /**
+         * Espera todas las lecturas en el orden en que se lanzaron y propaga el primer error
+         * tal cual (p. ej. la Exception de negocio de un servicio)
+         */
+        public void esperar() throws Exception {
+            try {
+                for (Future<?> tarea : tareas) {
+                    resultado(tarea);
+                }
+            } catch (Exception e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Future<?> tarea : tareas) {
+                tarea.cancel(true);
+            }
+        }
+    }
+
+    private <T> Future<T> enHiloActual(Callable<T> lectura) {
+        try {
+            return CompletableFuture.completedFuture(enTransaccionDeLectura(lectura));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Dentro de una transacción existente la lectura se une a ella; una excepción de la lectura
+     * no debe marcarla como rollback-only, así que en ese caso no se usa la plantilla.
+     */
+    private <T> T enTransaccionDeLectura(Callable<T> lectura) throws Exception {
+        if (plantillaLectura == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return lectura.call();
+        }
+        try {
+            return plantillaLectura.execute(estado -> {
+                try {
+                    return lectura.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new LecturaFallida(e);
+                }
+            });
+        } catch (LecturaFallida e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private static <T> T resultado(Future<T> futuro) throws Exception {
+        try {
+            return futuro.get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof Exception excepcion) {
+                throw excepcion;
+            }
+            throw (Error) causa;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Transporta una excepción comprobada a través de TransactionTemplate
+     */
+    private static final class LecturaFallida extends RuntimeException {
+        LecturaFallida(Exception causa) {
+            super(causa);
+        }
+    }
+}
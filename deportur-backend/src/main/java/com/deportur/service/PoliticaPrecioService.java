@@ -1,9 +1,11 @@
 package com.deportur.service;
 
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.*;
 import com.deportur.model.enums.NivelFidelizacion;
 import com.deportur.model.enums.TipoPolitica;
 import com.deportur.repository.*;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +15,12 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
 
 /**
  * Servicio para gestión de políticas de precio y cálculo de descuentos/impuestos
@@ -23,6 +30,27 @@ public class PoliticaPrecioService {
 
     private static final Logger logger = LoggerFactory.getLogger(PoliticaPrecioService.class);
 
+    /**
+     * Foto de las políticas activas. aplicables() filtra como findPoliticasPorTipoYFecha
+     */
+    public static final class Tarifario {
+
+        private final Map<TipoPolitica, List<PoliticaPrecio>> porTipo = new EnumMap<>(TipoPolitica.class);
+
+        Tarifario(List<PoliticaPrecio> politicas) {
+            for (PoliticaPrecio politica : politicas) {
+                porTipo.computeIfAbsent(politica.getTipoPolitica(), tipo -> new ArrayList<>()).add(politica);
+            }
+        }
+
+        public List<PoliticaPrecio> aplicables(TipoPolitica tipo, LocalDate fecha) {
+            return porTipo.getOrDefault(tipo, List.of()).stream()
+                .filter(politica -> politica.getFechaInicio() == null || !politica.getFechaInicio().isAfter(fecha))
+                .filter(politica -> politica.getFechaFin() == null || !politica.getFechaFin().isBefore(fecha))
+                .toList();
+        }
+    }
+
     @Autowired
     private PoliticaPrecioRepository politicaPrecioRepository;
 
@@ -108,6 +136,9 @@ public class PoliticaPrecioService {
         PoliticaPrecio existente = politicaPrecioRepository.findById(id)
             .orElseThrow(() -> new Exception("La política no existe"));
 
+        // La versión de la política recibida es la que el usuario leyó (If-Match)
+        PrecondicionFallidaException.verificarVersion(politica.getVersion(), existente.getVersion());
+
         existente.setNombre(politica.getNombre());
         existente.setDescripcion(politica.getDescripcion());
         existente.setTipoPolitica(politica.getTipoPolitica());
@@ -169,6 +200,14 @@ public class PoliticaPrecioService {
             .orElseThrow(() -> new Exception("La política no existe"));
     }
 
+    /**
+     * Versión actual de la política sin cargar la entidad, para responder a If-None-Match
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> buscarVersion(Long id) {
+        return politicaPrecioRepository.buscarVersion(id);
+    }
+
     /**
      * Elimina una política
      */
@@ -185,11 +224,14 @@ public class PoliticaPrecioService {
      * Por ejemplo: 5% por cada semana adicional
      */
     public BigDecimal calcularDescuentoPorDuracion(LocalDate fechaInicio, LocalDate fechaFin, BigDecimal subtotal) {
-        long dias = ChronoUnit.DAYS.between(fechaInicio, fechaFin) + 1; // incluir fecha fin
-
-        List<PoliticaPrecio> politicas = politicaPrecioRepository.findPoliticasPorTipoYFecha(
+        return descuentoPorDuracion(politicaPrecioRepository.findPoliticasPorTipoYFecha(
             TipoPolitica.DESCUENTO_DURACION, fechaInicio
-        );
+        ), fechaInicio, fechaFin, subtotal);
+    }
+
+    private static BigDecimal descuentoPorDuracion(List<PoliticaPrecio> politicas, LocalDate fechaInicio,
+                                                   LocalDate fechaFin, BigDecimal subtotal) {
+        long dias = ChronoUnit.DAYS.between(fechaInicio, fechaFin) + 1; // incluir fecha fin
 
         BigDecimal descuentoTotal = BigDecimal.ZERO;
 
@@ -225,11 +267,13 @@ public class PoliticaPrecioService {
      * Calcula el descuento por nivel de fidelización del cliente
      */
     public BigDecimal calcularDescuentoPorCliente(Cliente cliente, LocalDate fechaReferencia, BigDecimal subtotal) {
-        NivelFidelizacion nivel = cliente.getNivelFidelizacion();
-
-        List<PoliticaPrecio> politicas = politicaPrecioRepository.findPoliticasPorTipoYFecha(
+        return descuentoPorCliente(politicaPrecioRepository.findPoliticasPorTipoYFecha(
             TipoPolitica.DESCUENTO_CLIENTE, fechaReferencia
-        );
+        ), cliente, subtotal);
+    }
+
+    private static BigDecimal descuentoPorCliente(List<PoliticaPrecio> politicas, Cliente cliente, BigDecimal subtotal) {
+        NivelFidelizacion nivel = cliente.getNivelFidelizacion();
 
         BigDecimal descuentoTotal = BigDecimal.ZERO;
 
@@ -260,84 +304,89 @@ public class PoliticaPrecioService {
      * Aplica políticas de descuento por temporada/fecha
      */
     public BigDecimal calcularDescuentoPorTemporada(LocalDate fecha, BigDecimal subtotal) {
-        List<PoliticaPrecio> politicas = politicaPrecioRepository.findPoliticasPorTipoYFecha(
+        return sumarPorcentajes(politicaPrecioRepository.findPoliticasPorTipoYFecha(
             TipoPolitica.DESCUENTO_TEMPORADA, fecha
-        );
-
-        BigDecimal descuentoTotal = BigDecimal.ZERO;
-
-        for (PoliticaPrecio politica : politicas) {
-            BigDecimal descuento = subtotal
-                .multiply(politica.getPorcentaje())
-                .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-            descuentoTotal = descuentoTotal.add(descuento);
-        }
-
-        return descuentoTotal;
+        ), subtotal);
     }
 
     /**
      * Aplica recargos por fecha pico
      */
     public BigDecimal calcularRecargoPorFechaPico(LocalDate fecha, BigDecimal subtotal) {
-        List<PoliticaPrecio> politicas = politicaPrecioRepository.findPoliticasPorTipoYFecha(
+        return sumarPorcentajes(politicaPrecioRepository.findPoliticasPorTipoYFecha(
             TipoPolitica.RECARGO_FECHA_PICO, fecha
-        );
-
-        BigDecimal recargoTotal = BigDecimal.ZERO;
-
-        for (PoliticaPrecio politica : politicas) {
-            BigDecimal recargo = subtotal
-                .multiply(politica.getPorcentaje())
-                .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-            recargoTotal = recargoTotal.add(recargo);
-        }
-
-        return recargoTotal;
+        ), subtotal);
     }
 
     /**
      * Calcula los impuestos aplicables
      */
     public BigDecimal calcularImpuestos(LocalDate fecha, BigDecimal subtotal) {
-        List<PoliticaPrecio> politicas = politicaPrecioRepository.findPoliticasPorTipoYFecha(
+        return sumarPorcentajes(politicaPrecioRepository.findPoliticasPorTipoYFecha(
             TipoPolitica.IMPUESTO, fecha
-        );
+        ), subtotal);
+    }
 
-        BigDecimal impuestoTotal = BigDecimal.ZERO;
+    /**
+     * Temporada, fecha pico e impuestos: suma el porcentaje de cada política sobre el subtotal
+     */
+    private static BigDecimal sumarPorcentajes(List<PoliticaPrecio> politicas, BigDecimal subtotal) {
+        BigDecimal total = BigDecimal.ZERO;
 
         for (PoliticaPrecio politica : politicas) {
-            BigDecimal impuesto = subtotal
+            BigDecimal importe = subtotal
                 .multiply(politica.getPorcentaje())
                 .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-            impuestoTotal = impuestoTotal.add(impuesto);
+            total = total.add(importe);
         }
 
-        return impuestoTotal;
+        return total;
     }
 
     /**
      * Aplica todas las políticas activas a una reserva y calcula el total
      */
+    @Timed(value = "deportur.politicas.aplicar", description = "Cálculo de descuentos, recargos e impuestos de una reserva")
     public void aplicarPoliticasAReserva(Reserva reserva) {
+        aplicarPoliticas(reserva, politicaPrecioRepository::findPoliticasPorTipoYFecha);
+    }
+
+    /**
+     * Igual que aplicarPoliticasAReserva, pero con las políticas ya leídas en el tarifario:
+     * las reservas de un lote se tarifican sin consultar la base
+     */
+    public void aplicarPoliticasAReserva(Reserva reserva, Tarifario tarifario) {
+        aplicarPoliticas(reserva, tarifario::aplicables);
+    }
+
+    /**
+     * Lee de una vez las políticas activas para tarificar varias reservas con la misma foto
+     */
+    @Transactional(readOnly = true)
+    public Tarifario tarifario() {
+        return new Tarifario(politicaPrecioRepository.findByActivoTrue());
+    }
+
+    private void aplicarPoliticas(Reserva reserva, BiFunction<TipoPolitica, LocalDate, List<PoliticaPrecio>> politicas) {
         // Calcular subtotal
         BigDecimal subtotal = reserva.calcularSubtotal();
 
         // Calcular descuentos
-        BigDecimal descuentoDuracion = calcularDescuentoPorDuracion(
+        BigDecimal descuentoDuracion = descuentoPorDuracion(
+            politicas.apply(TipoPolitica.DESCUENTO_DURACION, reserva.getFechaInicio()),
             reserva.getFechaInicio(),
             reserva.getFechaFin(),
             subtotal
         );
 
-        BigDecimal descuentoCliente = calcularDescuentoPorCliente(
+        BigDecimal descuentoCliente = descuentoPorCliente(
+            politicas.apply(TipoPolitica.DESCUENTO_CLIENTE, reserva.getFechaInicio()),
             reserva.getCliente(),
-            reserva.getFechaInicio(),
             subtotal
         );
 
-        BigDecimal descuentoTemporada = calcularDescuentoPorTemporada(
-            reserva.getFechaInicio(),
+        BigDecimal descuentoTemporada = sumarPorcentajes(
+            politicas.apply(TipoPolitica.DESCUENTO_TEMPORADA, reserva.getFechaInicio()),
             subtotal
         );
 
@@ -351,8 +400,8 @@ public class PoliticaPrecioService {
         }
 
         // Calcular recargos (suman al total)
-        BigDecimal recargos = calcularRecargoPorFechaPico(
-            reserva.getFechaInicio(),
+        BigDecimal recargos = sumarPorcentajes(
+            politicas.apply(TipoPolitica.RECARGO_FECHA_PICO, reserva.getFechaInicio()),
             subtotal
         );
 
@@ -361,8 +410,8 @@ public class PoliticaPrecioService {
         }
 
         // Calcular impuestos sobre el subtotal (no sobre el total con descuento)
-        BigDecimal impuestos = calcularImpuestos(
-            reserva.getFechaInicio(),
+        BigDecimal impuestos = sumarPorcentajes(
+            politicas.apply(TipoPolitica.IMPUESTO, reserva.getFechaInicio()),
             subtotal
         );
 
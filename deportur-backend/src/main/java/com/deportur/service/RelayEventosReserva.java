@@ -0,0 +1,192 @@
+package com.deportur.service;
+
+import com.deportur.model.EventoReserva;
+import com.deportur.repository.EventoReservaRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Difunde la bandeja de salida de reservas (evento_reserva) a los oyentes en proceso.
+ *
+ * Los oyentes invalidan estado en memoria de cada instancia, así que todas leen todos los eventos:
+ * cada una sigue su propio cursor (último id_evento publicado) sin bloquear filas ni marcarlas.
+ * El cursor avanza solo cuando los oyentes terminan sin error; si uno falla, el evento se vuelve
+ * a publicar en la siguiente pasada (como mucho deportur.outbox.max-intentos veces). La entrega es
+ * al menos una vez: los oyentes deben ser idempotentes.
+ *
+ * Los id_evento se asignan al insertar y se confirman en otro orden: un id saltado puede ser de
+ * una transacción aún abierta. Esos huecos se vuelven a consultar durante
+ * deportur.outbox.espera-huecos-ms; después se dan por ids de transacciones deshechas.
+ */
+@Component
+public class RelayEventosReserva {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelayEventosReserva.class);
+
+    /** Huecos pendientes como máximo; por encima, los nuevos no se siguen */
+    private static final int MAX_HUECOS = 10_000;
+
+    @Autowired
+    private EventoReservaRepository eventoReservaRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${deportur.outbox.tamano-lote:100}")
+    private int tamanoLote = 100;
+
+    @Value("${deportur.outbox.retencion-horas:72}")
+    private long retencionHoras = 72;
+
+    @Value("${deportur.outbox.espera-huecos-ms:60000}")
+    private long esperaHuecosMs = 60_000;
+
+    @Value("${deportur.outbox.max-intentos:5}")
+    private int maxIntentos = 5;
+
+    private TransactionTemplate transaccion;
+
+    /** Último id_evento publicado por esta instancia; -1 hasta la primera pasada */
+    private long cursor = -1;
+
+    /** Ids saltados por el cursor, con el instante (ms) en que se vieron por primera vez */
+    private final Map<Long, Long> huecos = new TreeMap<>();
+
+    /** Publicaciones fallidas por evento */
+    private final Map<Long, Integer> intentos = new HashMap<>();
+
+    @PostConstruct
+    void iniciar() {
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Lee la bandeja lote a lote; termina con el primer lote incompleto o con un oyente fallido
+     */
+    @Scheduled(fixedDelayString = "${deportur.outbox.intervalo-ms:1000}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "despachar-eventos-reserva"})
+    public void despacharPendientes() {
+        int despachados;
+        do {
+            despachados = despacharLote();
+        } while (despachados == tamanoLote);
+    }
+
+    /**
+     * Publica los huecos que ya aparecieron y el siguiente lote tras el cursor. Devuelve cuántos
+     * eventos del lote se publicaron; se detiene en el primero cuyo oyente falla
+     */
+    synchronized int despacharLote() {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (cursor < 0) {
+            // Una instancia nueva no tiene nada en memoria que invalidar: empieza por los eventos
+            // de la ventana de huecos, por si alguna transacción anterior aún no había confirmado
+            Long anterior = eventoReservaRepository.findUltimoIdAntesDe(ahora.minus(Duration.ofMillis(esperaHuecosMs)));
+            cursor = anterior != null ? anterior : 0;
+        }
+        revisarHuecos(ahora);
+
+        List<EventoReserva> lote = eventoReservaRepository.findSiguientes(cursor, tamanoLote);
+        long vistoEn = System.currentTimeMillis();
+        int publicados = 0;
+        for (EventoReserva evento : lote) {
+            if (!publicar(evento, ahora)) {
+                break;
+            }
+            for (long id = cursor + 1; id < evento.getIdEvento() && huecos.size() < MAX_HUECOS; id++) {
+                huecos.putIfAbsent(id, vistoEn);
+            }
+            cursor = evento.getIdEvento();
+            publicados++;
+        }
+        if (publicados > 0) {
+            logger.debug("Publicados {} eventos de reserva (cursor {})", publicados, cursor);
+        }
+        return publicados;
+    }
+
+    /**
+     * Publica los huecos que ya tienen evento confirmado y olvida los que superan la espera
+     */
+    private void revisarHuecos(LocalDateTime ahora) {
+        if (huecos.isEmpty()) {
+            return;
+        }
+        List<EventoReserva> aparecidos = new ArrayList<>(eventoReservaRepository.findAllById(List.copyOf(huecos.keySet())));
+        aparecidos.sort(Comparator.comparing(EventoReserva::getIdEvento));
+        for (EventoReserva evento : aparecidos) {
+            if (publicar(evento, ahora)) {
+                huecos.remove(evento.getIdEvento());
+            }
+        }
+        long limite = System.currentTimeMillis() - esperaHuecosMs;
+        huecos.values().removeIf(vistoEn -> vistoEn < limite);
+    }
+
+    /**
+     * Publica el evento. Devuelve false si un oyente falló y hay que reintentarlo
+     */
+    private boolean publicar(EventoReserva evento, LocalDateTime ahora) {
+        try {
+            eventPublisher.publishEvent(ReservaModificadaEvent.de(evento));
+        } catch (RuntimeException e) {
+            int intento = intentos.merge(evento.getIdEvento(), 1, Integer::sum);
+            if (intento < maxIntentos) {
+                logger.warn("Oyente de eventos de reserva falló con el evento {} ({}), intento {} de {}: {}",
+                    evento.getIdEvento(), evento.getTipo(), intento, maxIntentos, e.getMessage());
+                return false;
+            }
+            // Un evento que nunca se procesa no puede detener la bandeja de esta instancia
+            logger.error("Se descarta el evento de reserva {} ({}) tras {} intentos fallidos",
+                evento.getIdEvento(), evento.getTipo(), intento, e);
+            meterRegistry.counter("deportur.outbox.descartados", "tipo", evento.getTipo().name()).increment();
+            intentos.remove(evento.getIdEvento());
+            return true;
+        }
+        intentos.remove(evento.getIdEvento());
+        meterRegistry.counter("deportur.outbox.despachados", "tipo", evento.getTipo().name()).increment();
+        if (evento.getFechaCreacion() != null) {
+            Timer.builder("deportur.outbox.retraso")
+                .description("Tiempo entre el commit del cambio y su despacho")
+                .register(meterRegistry)
+                .record(Duration.between(evento.getFechaCreacion(), ahora));
+        }
+        return true;
+    }
+
+    /**
+     * Elimina los eventos creados hace más de deportur.outbox.retencion-horas
+     */
+    @Scheduled(cron = "${deportur.outbox.purga-cron:0 30 3 * * *}")
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "purgar-eventos-reserva"})
+    public void purgarAntiguos() {
+        Integer eliminados = transaccion.execute(estado -> eventoReservaRepository
+            .eliminarCreadosAntesDe(LocalDateTime.now().minusHours(retencionHoras)));
+        logger.info("Purgados {} eventos de reserva antiguos", eliminados);
+    }
+}
@@ -0,0 +1,404 @@
+package com.deportur.service;
+
+import com.deportur.dto.request.CrearReservaRequest;
+import com.deportur.dto.response.ResultadoLoteReservasResponse;
+import com.deportur.model.BloqueoEquipo;
+import com.deportur.model.Cliente;
+import com.deportur.model.DestinoTuristico;
+import com.deportur.model.DetalleReserva;
+import com.deportur.model.EquipoDeportivo;
+import com.deportur.model.Reserva;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.model.enums.ModoLoteReserva;
+import com.deportur.model.enums.TipoEventoReserva;
+import com.deportur.repository.BloqueoEquipoRepository;
+import com.deportur.repository.ClienteRepository;
+import com.deportur.repository.DestinoTuristicoRepository;
+import com.deportur.repository.DetalleReservaRepository;
+import com.deportur.repository.EquipoDeportivoRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lotes de reservas para operadores turísticos: N reservas en una petición y una transacción.
+ *
+ * Clientes, destinos, equipos, reservas que ocupan esos equipos y bloqueos temporales se leen con
+ * una consulta por tabla para todo el lote; los solapes con otras reservas del mismo lote se comprueban
+ * en memoria. Todas se tarifican con la misma foto de las políticas (PoliticaPrecioService.Tarifario).
+ * Reservas, detalles y eventos se insertan con un INSERT de varias filas por tabla.
+ *
+ * Las validaciones y los mensajes son los de ReservaService.crearReserva. En TODO_O_NADA, si alguna
+ * reserva falla no se escribe nada; en MEJOR_ESFUERZO se crean las válidas.
+ */
+@Service
+public class ReservaLoteService {
+
+    private static final String INSERT_RESERVA = "INSERT INTO reserva (id_cliente, id_destino, fecha_creacion, "
+        + "fecha_inicio, fecha_fin, estado, subtotal, descuentos, recargos, impuestos, total, version) VALUES ";
+    private static final String FILA_RESERVA = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_DETALLE = "INSERT INTO detalle_reserva (id_reserva, id_equipo, precio_unitario) VALUES ";
+    private static final String FILA_DETALLE = "(?, ?, ?)";
+    private static final String INSERT_EVENTO = "INSERT INTO evento_reserva (id_reserva, id_cliente, id_destino, tipo, "
+        + "estado_nuevo, fecha_creacion) VALUES ";
+    private static final String FILA_EVENTO = "(?, ?, ?, ?, ?, ?)";
+
+    static final String MENSAJE_LOTE_RECHAZADO = "No se creó: el lote tiene reservas con errores";
+
+    /**
+     * Fechas que un equipo ya tiene ocupadas por una reserva del lote
+     */
+    private record Ocupacion(int indice, LocalDate fechaInicio, LocalDate fechaFin) {
+    }
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private DestinoTuristicoRepository destinoRepository;
+
+    @Autowired
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Autowired
+    private DetalleReservaRepository detalleReservaRepository;
+
+    @Autowired
+    private BloqueoEquipoRepository bloqueoEquipoRepository;
+
+    @Autowired
+    private BloqueoEquipoService bloqueoEquipoService;
+
+    @Autowired
+    private PoliticaPrecioService politicaPrecioService;
+
+    @Autowired
+    private ClienteEstadisticaService clienteEstadisticaService;
+
+    @Autowired
+    private EscritorHistorialReservas escritorHistorial;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${deportur.reservas.lote.max-reservas:100}")
+    private int maxReservas = 100;
+
+    @Timed(value = "deportur.reservas.lote", description = "Creación de un lote de reservas")
+    @Transactional
+    public ResultadoLoteReservasResponse crearLote(List<CrearReservaRequest> solicitudes, ModoLoteReserva modo) throws Exception {
+        if (solicitudes == null || solicitudes.isEmpty()) {
+            throw new Exception("El lote debe incluir al menos una reserva");
+        }
+        if (solicitudes.size() > maxReservas) {
+            throw new Exception("El lote admite como máximo " + maxReservas + " reservas");
+        }
+        ModoLoteReserva modoLote = modo != null ? modo : ModoLoteReserva.TODO_O_NADA;
+
+        Map<Long, Cliente> clientes = porId(clienteRepository.findAllById(ids(solicitudes, CrearReservaRequest::getIdCliente)),
+            Cliente::getIdCliente);
+        Map<Long, DestinoTuristico> destinos = porId(destinoRepository.findAllById(ids(solicitudes, CrearReservaRequest::getIdDestino)),
+            DestinoTuristico::getIdDestino);
+
+        // Bloquea las filas de todos los equipos del lote en orden de id, igual que crearReserva
+        List<Long> idsEquipos = solicitudes.stream()
+            .filter(solicitud -> solicitud.getIdsEquipos() != null)
+            .flatMap(solicitud -> solicitud.getIdsEquipos().stream())
+            .filter(Objects::nonNull)
+            .distinct()
+            .sorted()
+            .toList();
+        Map<Long, EquipoDeportivo> equipos = idsEquipos.isEmpty() ? Map.of()
+            : porId(equipoRepository.bloquearPorIds(idsEquipos), EquipoDeportivo::getIdEquipo);
+
+        // Reservas existentes y bloqueos vigentes de esos equipos en todo el rango del lote
+        Map<Long, List<DetalleReservaRepository.Ocupacion>> reservados = new HashMap<>();
+        Map<Long, List<BloqueoEquipo>> bloqueos = new HashMap<>();
+        LocalDate desde = solicitudes.stream().map(CrearReservaRequest::getFechaInicio)
+            .filter(Objects::nonNull).min(LocalDate::compareTo).orElse(null);
+        LocalDate hasta = solicitudes.stream().map(CrearReservaRequest::getFechaFin)
+            .filter(Objects::nonNull).max(LocalDate::compareTo).orElse(null);
+        if (!idsEquipos.isEmpty() && desde != null && hasta != null && !desde.isAfter(hasta)) {
+            reservados = detalleReservaRepository.findOcupacionesEnRango(idsEquipos, desde, hasta).stream()
+                .collect(Collectors.groupingBy(DetalleReservaRepository.Ocupacion::getIdEquipo));
+            bloqueos = bloqueoEquipoRepository.findVigentesEnRango(idsEquipos, desde, hasta, LocalDateTime.now()).stream()
+                .collect(Collectors.groupingBy(BloqueoEquipo::getIdEquipo));
+        }
+
+        PoliticaPrecioService.Tarifario tarifario = politicaPrecioService.tarifario();
+
+        Reserva[] reservas = new Reserva[solicitudes.size()];
+        String[] errores = new String[solicitudes.size()];
+        Map<Long, List<Ocupacion>> delLote = new HashMap<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            try {
+                reservas[i] = validar(i, solicitudes.get(i), clientes, destinos, equipos, reservados, bloqueos, delLote);
+                politicaPrecioService.aplicarPoliticasAReserva(reservas[i], tarifario);
+                for (DetalleReserva detalle : reservas[i].getDetalles()) {
+                    delLote.computeIfAbsent(detalle.getEquipo().getIdEquipo(), id -> new ArrayList<>())
+                        .add(new Ocupacion(i, reservas[i].getFechaInicio(), reservas[i].getFechaFin()));
+                }
+            } catch (Exception e) {
+                reservas[i] = null;
+                errores[i] = e.getMessage();
+            }
+        }
+
+        if (modoLote == ModoLoteReserva.TODO_O_NADA && hayErrores(errores)) {
+            return resultado(modoLote, reservas, errores, true);
+        }
+
+        // Al final de las validaciones, como en crearReserva: el bloqueo se consume en esta transacción
+        for (int i = 0; i < solicitudes.size(); i++) {
+            String tokenBloqueo = solicitudes.get(i).getTokenBloqueo();
+            if (reservas[i] == null || tokenBloqueo == null) {
+                continue;
+            }
+            try {
+                bloqueoEquipoService.convertir(tokenBloqueo, reservas[i].getCliente().getIdCliente(),
+                    solicitudes.get(i).getIdsEquipos(), reservas[i].getFechaInicio(), reservas[i].getFechaFin());
+            } catch (Exception e) {
+                reservas[i] = null;
+                errores[i] = e.getMessage();
+                if (modoLote == ModoLoteReserva.TODO_O_NADA) {
+                    // Deshace los bloqueos ya consumidos
+                    TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                    return resultado(modoLote, reservas, errores, true);
+                }
+            }
+        }
+
+        List<Reserva> validas = new ArrayList<>();
+        for (Reserva reserva : reservas) {
+            if (reserva != null) {
+                validas.add(reserva);
+            }
+        }
+        if (!validas.isEmpty()) {
+            insertar(validas);
+            registrarAltas(validas);
+        }
+        return resultado(modoLote, reservas, errores, false);
+    }
+
+    private Reserva validar(int indice, CrearReservaRequest solicitud, Map<Long, Cliente> clientes,
+                            Map<Long, DestinoTuristico> destinos, Map<Long, EquipoDeportivo> equipos,
+                            Map<Long, List<DetalleReservaRepository.Ocupacion>> reservados,
+                            Map<Long, List<BloqueoEquipo>> bloqueos,
+                            Map<Long, List<Ocupacion>> delLote) throws Exception {
+        Cliente cliente = solicitud.getIdCliente() != null ? clientes.get(solicitud.getIdCliente()) : null;
+        if (cliente == null) {
+            throw new Exception("El cliente seleccionado no existe");
+        }
+
+        DestinoTuristico destino = solicitud.getIdDestino() != null ? destinos.get(solicitud.getIdDestino()) : null;
+        if (destino == null) {
+            throw new Exception("El destino turístico seleccionado no existe");
+        }
+
+        LocalDate fechaInicio = solicitud.getFechaInicio();
+        LocalDate fechaFin = solicitud.getFechaFin();
+        if (fechaInicio == null || fechaFin == null) {
+            throw new Exception("Las fechas de inicio y fin son requeridas");
+        }
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new Exception("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        if (fechaInicio.isBefore(LocalDate.now())) {
+            throw new Exception("La fecha de inicio no puede ser anterior a la fecha actual");
+        }
+        if (solicitud.getIdsEquipos() == null || solicitud.getIdsEquipos().isEmpty()) {
+            throw new Exception("La reserva debe incluir al menos un equipo");
+        }
+
+        Reserva reserva = new Reserva();
+        reserva.setCliente(cliente);
+        reserva.setDestino(destino);
+        reserva.setFechaInicio(fechaInicio);
+        reserva.setFechaFin(fechaFin);
+        reserva.setEstado(EstadoReserva.PENDIENTE);
+
+        for (Long idEquipo : solicitud.getIdsEquipos().stream().distinct().toList()) {
+            EquipoDeportivo equipo = idEquipo != null ? equipos.get(idEquipo) : null;
+            if (equipo == null) {
+                throw new Exception("El equipo seleccionado no existe");
+            }
+            if (!equipo.getDisponible()) {
+                throw new Exception("El equipo " + equipo.getNombre() + " no está disponible");
+            }
+
+            boolean apartado = bloqueos.getOrDefault(idEquipo, List.of()).stream()
+                .anyMatch(bloqueo -> !bloqueo.getToken().equals(solicitud.getTokenBloqueo())
+                    && seSolapan(bloqueo.getFechaInicio(), bloqueo.getFechaFin(), fechaInicio, fechaFin));
+            if (apartado) {
+                throw new Exception("El equipo " + equipo.getNombre() + " está apartado por otra reserva en curso");
+            }
+
+            boolean reservado = reservados.getOrDefault(idEquipo, List.of()).stream()
+                .anyMatch(ocupacion -> seSolapan(ocupacion.getFechaInicio(), ocupacion.getFechaFin(), fechaInicio, fechaFin));
+            if (reservado) {
+                throw new Exception("El equipo " + equipo.getNombre() + " ya está reservado en las fechas seleccionadas");
+            }
+
+            for (Ocupacion ocupacion : delLote.getOrDefault(idEquipo, List.of())) {
+                if (seSolapan(ocupacion.fechaInicio(), ocupacion.fechaFin(), fechaInicio, fechaFin)) {
+                    throw new Exception("El equipo " + equipo.getNombre() + " ya está en la reserva "
+                        + ocupacion.indice() + " del lote para esas fechas");
+                }
+            }
+
+            DetalleReserva detalle = new DetalleReserva();
+            detalle.setEquipo(equipo);
+            detalle.setPrecioUnitario(equipo.getPrecioAlquiler());
+            reserva.agregarDetalle(detalle);
+        }
+        return reserva;
+    }
+
+    /**
+     * Inserta reservas, detalles y eventos con un INSERT de varias filas por tabla.
+     * Las claves generadas vuelven en el orden de las filas del VALUES
+     */
+    private void insertar(List<Reserva> reservas) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Object> parametros = new ArrayList<>(reservas.size() * 11);
+        for (Reserva reserva : reservas) {
+            reserva.setFechaCreacion(ahora);
+            reserva.setVersion(0L);
+            parametros.add(reserva.getCliente().getIdCliente());
+            parametros.add(reserva.getDestino().getIdDestino());
+            parametros.add(ahora);
+            parametros.add(reserva.getFechaInicio());
+            parametros.add(reserva.getFechaFin());
+            parametros.add(reserva.getEstado().name());
+            parametros.add(reserva.getSubtotal());
+            parametros.add(reserva.getDescuentos());
+            parametros.add(reserva.getRecargos());
+            parametros.add(reserva.getImpuestos());
+            parametros.add(reserva.getTotal());
+        }
+        String sql = INSERT_RESERVA + String.join(", ", Collections.nCopies(reservas.size(), FILA_RESERVA));
+        GeneratedKeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.update(conexion -> {
+            PreparedStatement sentencia = conexion.prepareStatement(sql, new String[] {"id_reserva"});
+            for (int i = 0; i < parametros.size(); i++) {
+                sentencia.setObject(i + 1, parametros.get(i));
+            }
+            return sentencia;
+        }, claves);
+        List<Map<String, Object>> filas = claves.getKeyList();
+        if (filas.size() != reservas.size()) {
+            throw new IllegalStateException("Se insertaron " + filas.size() + " reservas de " + reservas.size());
+        }
+        for (int i = 0; i < reservas.size(); i++) {
+            reservas.get(i).setIdReserva(((Number) filas.get(i).values().iterator().next()).longValue());
+        }
+
+        List<Object> detalles = new ArrayList<>();
+        int filasDetalle = 0;
+        for (Reserva reserva : reservas) {
+            for (DetalleReserva detalle : reserva.getDetalles()) {
+                detalles.add(reserva.getIdReserva());
+                detalles.add(detalle.getEquipo().getIdEquipo());
+                detalles.add(detalle.getPrecioUnitario());
+                filasDetalle++;
+            }
+        }
+        jdbcTemplate.update(INSERT_DETALLE + String.join(", ", Collections.nCopies(filasDetalle, FILA_DETALLE)),
+            detalles.toArray());
+
+        // Bandeja de salida: mismo evento CREADA que escribe crearReserva, en esta transacción
+        List<Object> eventos = new ArrayList<>(reservas.size() * 6);
+        for (Reserva reserva : reservas) {
+            eventos.add(reserva.getIdReserva());
+            eventos.add(reserva.getCliente().getIdCliente());
+            eventos.add(reserva.getDestino().getIdDestino());
+            eventos.add(TipoEventoReserva.CREADA.name());
+            eventos.add(reserva.getEstado().name());
+            eventos.add(ahora);
+        }
+        jdbcTemplate.update(INSERT_EVENTO + String.join(", ", Collections.nCopies(reservas.size(), FILA_EVENTO)),
+            eventos.toArray());
+    }
+
+    /**
+     * Contadores de clientes y equipos, estadísticas e historial de las reservas insertadas
+     */
+    private void registrarAltas(List<Reserva> reservas) {
+        List<ClienteEstadisticaService.ResumenReserva> resumenes = new ArrayList<>(reservas.size());
+        for (Reserva reserva : reservas) {
+            // Entidades gestionadas: Hibernate escribe un UPDATE por cliente y por equipo al confirmar
+            reserva.getCliente().incrementarReservas();
+            reserva.getDetalles().forEach(detalle -> detalle.getEquipo().incrementarUso());
+            resumenes.add(ClienteEstadisticaService.capturar(reserva));
+            escritorHistorial.registrar(new EscritorHistorialReservas.Registro(
+                reserva.getIdReserva(),
+                null,
+                reserva.getEstado(),
+                "SYSTEM",
+                LocalDateTime.now(),
+                TipoEventoReserva.CREADA.getDescripcion()
+            ));
+        }
+        clienteEstadisticaService.registrarAltas(resumenes);
+    }
+
+    private static ResultadoLoteReservasResponse resultado(ModoLoteReserva modo, Reserva[] reservas, String[] errores,
+                                                           boolean rechazado) {
+        ResultadoLoteReservasResponse respuesta = new ResultadoLoteReservasResponse(modo);
+        int creadas = 0;
+        for (int i = 0; i < reservas.length; i++) {
+            if (errores[i] != null) {
+                respuesta.getResultados().add(new ResultadoLoteReservasResponse.Resultado(i, false, null, null, errores[i]));
+            } else if (rechazado) {
+                respuesta.getResultados().add(new ResultadoLoteReservasResponse.Resultado(i, false, null, null,
+                    MENSAJE_LOTE_RECHAZADO));
+            } else {
+                respuesta.getResultados().add(new ResultadoLoteReservasResponse.Resultado(i, true,
+                    reservas[i].getIdReserva(), reservas[i].getTotal(), null));
+                creadas++;
+            }
+        }
+        respuesta.setCreadas(creadas);
+        respuesta.setRechazadas(reservas.length - creadas);
+        return respuesta;
+    }
+
+    private static boolean hayErrores(String[] errores) {
+        for (String error : errores) {
+            if (error != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean seSolapan(LocalDate inicioA, LocalDate finA, LocalDate inicioB, LocalDate finB) {
+        return !inicioA.isAfter(finB) && !finA.isBefore(inicioB);
+    }
+
+    private static List<Long> ids(List<CrearReservaRequest> solicitudes, Function<CrearReservaRequest, Long> id) {
+        return solicitudes.stream().map(id).filter(Objects::nonNull).distinct().toList();
+    }
+
+    private static <T> Map<Long, T> porId(Collection<T> entidades, Function<T, Long> id) {
+        return entidades.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
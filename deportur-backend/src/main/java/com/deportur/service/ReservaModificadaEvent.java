@@ -0,0 +1,21 @@
+package com.deportur.service;
+
+import com.deportur.model.EventoReserva;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.model.enums.TipoEventoReserva;
+
+/**
+ * Evento que RelayEventosReserva publica por cada fila confirmada de la bandeja de
+ * salida (evento_reserva). Llega después del commit del cambio, en todas las instancias
+ * y al menos una vez: un oyente que falla recibe el evento otra vez, así que debe ser
+ * idempotente. Los oyentes no deben hacer trabajo largo, porque se ejecutan en el hilo del relay.
+ */
+public record ReservaModificadaEvent(Long idEvento, Long idReserva, Long idCliente, Long idDestino,
+                                     TipoEventoReserva tipo, EstadoReserva estadoAnterior,
+                                     EstadoReserva estadoNuevo) {
+
+    public static ReservaModificadaEvent de(EventoReserva evento) {
+        return new ReservaModificadaEvent(evento.getIdEvento(), evento.getIdReserva(), evento.getIdCliente(),
+            evento.getIdDestino(), evento.getTipo(), evento.getEstadoAnterior(), evento.getEstadoNuevo());
+    }
+}
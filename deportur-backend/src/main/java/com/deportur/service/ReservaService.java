@@ -1,15 +1,22 @@
 package com.deportur.service;
 
+import com.deportur.config.EnrutadorReplicasDataSource;
 import com.deportur.dto.response.ReservaListResponse;
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.*;
 import com.deportur.model.enums.EstadoReserva;
+import com.deportur.model.enums.TipoEventoReserva;
 import com.deportur.repository.*;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.math.BigDecimal;
 
@@ -38,24 +45,52 @@ public class ReservaService {
     @Autowired
     private ReservaHistorialRepository reservaHistorialRepository;
 
+    @Autowired
+    private EscritorHistorialReservas escritorHistorial;
+
+    @Autowired
+    private ArchivoHistorialReservas archivoHistorial;
+
+    @Autowired
+    private EventoReservaRepository eventoReservaRepository;
+
     @Autowired
     private DisponibilidadService disponibilidadService;
 
+    @Autowired
+    private BloqueoEquipoService bloqueoEquipoService;
+
     @Autowired
     private PoliticaPrecioService politicaPrecioService;
 
+    @Autowired
+    private ClienteEstadisticaService clienteEstadisticaService;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
     /**
-     * Registra un cambio de estado en el historial
+     * Registra un cambio de estado en el historial y en la bandeja de salida de eventos.
+     * El historial se inserta por lotes después del commit (EscritorHistorialReservas)
      */
-    private void registrarCambioEstado(Reserva reserva, EstadoReserva estadoAnterior, String observaciones) {
-        ReservaHistorial historial = new ReservaHistorial(
-            reserva,
+    private void registrarCambioEstado(Reserva reserva, EstadoReserva estadoAnterior, TipoEventoReserva tipo) {
+        escritorHistorial.registrar(new EscritorHistorialReservas.Registro(
+            reserva.getIdReserva(),
             estadoAnterior,
             reserva.getEstado(),
             "SYSTEM",
-            observaciones
-        );
-        reservaHistorialRepository.save(historial);
+            LocalDateTime.now(),
+            tipo.getDescripcion()
+        ));
+        registrarEvento(reserva, tipo, estadoAnterior);
+    }
+
+    /**
+     * Inserta el evento en evento_reserva dentro de la transacción actual; RelayEventosReserva
+     * lo publica después del commit, así que un rollback también descarta el evento
+     */
+    private void registrarEvento(Reserva reserva, TipoEventoReserva tipo, EstadoReserva estadoAnterior) {
+        eventoReservaRepository.save(new EventoReserva(reserva, tipo, estadoAnterior));
     }
 
     /**
@@ -63,9 +98,21 @@ public class ReservaService {
      * Incluye todas las validaciones del sistema original
      * REFACTORIZADO para usar DisponibilidadService y PoliticaPrecioService
      */
+    @Timed(value = "deportur.reservas.crear", description = "Creación de reservas, validaciones y precios incluidos")
     @Transactional
     public Reserva crearReserva(Long idCliente, LocalDate fechaInicio, LocalDate fechaFin,
                                 Long idDestino, List<Long> idsEquipos) throws Exception {
+        return crearReserva(idCliente, fechaInicio, fechaFin, idDestino, idsEquipos, null);
+    }
+
+    /**
+     * Crea la reserva y, si se indica tokenBloqueo, consume en la misma transacción el bloqueo
+     * temporal que apartaba los equipos (BloqueoEquipoService)
+     */
+    @Timed(value = "deportur.reservas.crear", description = "Creación de reservas, validaciones y precios incluidos")
+    @Transactional
+    public Reserva crearReserva(Long idCliente, LocalDate fechaInicio, LocalDate fechaFin,
+                                Long idDestino, List<Long> idsEquipos, String tokenBloqueo) throws Exception {
 
         // Validar cliente
         Cliente cliente = clienteRepository.findById(idCliente)
@@ -94,6 +141,11 @@ public class ReservaService {
             throw new Exception("La reserva debe incluir al menos un equipo");
         }
 
+        // Bloquea las filas de los equipos: otra reserva o bloqueo temporal de los mismos equipos espera aquí
+        List<Long> idsOrdenados = idsEquipos.stream().distinct().sorted().toList();
+        equipoRepository.bloquearPorIds(idsOrdenados);
+        List<Long> apartados = bloqueoEquipoService.equiposBloqueados(idsOrdenados, fechaInicio, fechaFin, tokenBloqueo);
+
         // Crear reserva
         Reserva reserva = new Reserva();
         reserva.setCliente(cliente);
@@ -102,7 +154,12 @@ public class ReservaService {
         reserva.setFechaFin(fechaFin);
         reserva.setEstado(EstadoReserva.PENDIENTE);
 
-        // Verificar disponibilidad de cada equipo
+        // Verificar disponibilidad de cada equipo. Los solapes de todos los equipos salen de una sola
+        // consulta en esta transacción: con las filas de los equipos ya bloqueadas no se pide otra conexión
+        Set<Long> reservados = detalleReservaRepository.findOcupacionesEnRango(idsOrdenados, fechaInicio, fechaFin).stream()
+            .map(DetalleReservaRepository.Ocupacion::getIdEquipo)
+            .collect(Collectors.toSet());
+
         for (Long idEquipo : idsEquipos) {
             EquipoDeportivo equipo = equipoRepository.findById(idEquipo)
                 .orElseThrow(() -> new Exception("El equipo seleccionado no existe"));
@@ -111,8 +168,12 @@ public class ReservaService {
                 throw new Exception("El equipo " + equipo.getNombre() + " no está disponible");
             }
 
+            if (apartados.contains(idEquipo)) {
+                throw new Exception("El equipo " + equipo.getNombre() + " está apartado por otra reserva en curso");
+            }
+
             // Verificar si el equipo ya está reservado en esas fechas
-            if (detalleReservaRepository.existsReservaEnFechas(idEquipo, fechaInicio, fechaFin)) {
+            if (reservados.contains(idEquipo)) {
                 throw new Exception("El equipo " + equipo.getNombre() + " ya está reservado en las fechas seleccionadas");
             }
 
@@ -126,15 +187,24 @@ public class ReservaService {
         // Aplicar políticas de precio
         politicaPrecioService.aplicarPoliticasAReserva(reserva);
 
+        // Al final de las validaciones: una excepción comprobada no revierte la transacción
+        if (tokenBloqueo != null) {
+            bloqueoEquipoService.convertir(tokenBloqueo, idCliente, idsEquipos, fechaInicio, fechaFin);
+        }
+
         // Guardar reserva (cascade guardará los detalles)
         Reserva reservaGuardada = reservaRepository.save(reserva);
 
+        // Con Idempotency-Key, la reserva queda anotada con la clave en esta misma transacción
+        idempotenciaService.registrarReserva(reservaGuardada.getIdReserva());
+
         // Registrar creación en historial
-        registrarCambioEstado(reservaGuardada, null, "Reserva creada");
+        registrarCambioEstado(reservaGuardada, null, TipoEventoReserva.CREADA);
 
         // Actualizar métricas del cliente
         cliente.incrementarReservas();
         clienteRepository.save(cliente);
+        clienteEstadisticaService.registrarCambio(null, ClienteEstadisticaService.capturar(reservaGuardada));
 
         // Incrementar contador de uso de equipos
         for (DetalleReserva detalle : reservaGuardada.getDetalles()) {
@@ -153,11 +223,24 @@ public class ReservaService {
     @Transactional
     public Reserva modificarReserva(Long idReserva, Long idCliente, LocalDate fechaInicio,
                                     LocalDate fechaFin, Long idDestino, List<Long> idsEquipos) throws Exception {
+        return modificarReserva(idReserva, idCliente, fechaInicio, fechaFin, idDestino, idsEquipos, null);
+    }
+
+    /**
+     * Igual que modificarReserva, pero falla si la reserva ya no está en la versión
+     * que leyó el usuario (If-Match). versionEsperada = null omite la comprobación.
+     */
+    @Transactional
+    public Reserva modificarReserva(Long idReserva, Long idCliente, LocalDate fechaInicio,
+                                    LocalDate fechaFin, Long idDestino, List<Long> idsEquipos,
+                                    Long versionEsperada) throws Exception {
 
         // Verificar que la reserva exista
         Reserva reservaExistente = reservaRepository.findById(idReserva)
             .orElseThrow(() -> new Exception("La reserva que intenta modificar no existe"));
 
+        PrecondicionFallidaException.verificarVersion(versionEsperada, reservaExistente.getVersion());
+
         EstadoReserva estadoAnterior = reservaExistente.getEstado();
 
         // Verificar estado
@@ -166,6 +249,8 @@ public class ReservaService {
             throw new Exception("No se puede modificar una reserva finalizada o cancelada");
         }
 
+        ClienteEstadisticaService.ResumenReserva resumenAnterior = ClienteEstadisticaService.capturar(reservaExistente);
+
         // Validar cliente
         Cliente cliente = clienteRepository.findById(idCliente)
             .orElseThrow(() -> new Exception("El cliente seleccionado no existe"));
@@ -217,7 +302,8 @@ public class ReservaService {
         Reserva reservaActualizada = reservaRepository.save(reservaExistente);
 
         // Registrar modificación en historial (aunque no cambie el estado)
-        registrarCambioEstado(reservaActualizada, estadoAnterior, "Reserva modificada");
+        registrarCambioEstado(reservaActualizada, estadoAnterior, TipoEventoReserva.MODIFICADA);
+        clienteEstadisticaService.registrarCambio(resumenAnterior, ClienteEstadisticaService.capturar(reservaActualizada));
 
         inicializarRelacionesReserva(reservaActualizada);
         return reservaActualizada;
@@ -244,7 +330,10 @@ public class ReservaService {
         Reserva reservaActualizada = reservaRepository.save(reserva);
 
         // Registrar cambio en historial
-        registrarCambioEstado(reservaActualizada, estadoAnterior, "Reserva cancelada");
+        registrarCambioEstado(reservaActualizada, estadoAnterior, TipoEventoReserva.CANCELADA);
+        clienteEstadisticaService.registrarCambio(
+            ClienteEstadisticaService.capturar(reservaActualizada, estadoAnterior),
+            ClienteEstadisticaService.capturar(reservaActualizada));
 
         inicializarRelacionesReserva(reservaActualizada);
         return reservaActualizada;
@@ -323,11 +412,13 @@ public class ReservaService {
         EquipoDeportivo equipo = equipoRepository.findById(idEquipo)
             .orElseThrow(() -> new Exception("El equipo especificado no existe"));
 
-        if (!equipo.getDisponible()) {
+        if (!equipo.getDisponible() || bloqueoEquipoService.estaBloqueado(idEquipo, fechaInicio, fechaFin)) {
             return false;
         }
 
-        return !detalleReservaRepository.existsReservaEnFechas(idEquipo, fechaInicio, fechaFin);
+        // Solapes en el primario: la réplica puede no tener aún una reserva recién confirmada
+        return !EnrutadorReplicasDataSource.enPrimario(
+            () -> detalleReservaRepository.existsReservaEnFechas(idEquipo, fechaInicio, fechaFin));
     }
 
     /**
@@ -335,6 +426,7 @@ public class ReservaService {
      * Se ejecuta cada hora (3600000 ms)
      */
     @Scheduled(fixedRate = 3600000)
+    @Timed(value = "deportur.tareas", extraTags = {"tarea", "actualizar-estados"})
     @Transactional
     public void actualizarEstadosAutomaticamente() {
         LocalDate hoy = LocalDate.now();
@@ -344,6 +436,7 @@ public class ReservaService {
             // Solo procesar reservas CONFIRMADAS o EN_PROGRESO
             if (reserva.getEstado() == EstadoReserva.CONFIRMADA ||
                 reserva.getEstado() == EstadoReserva.EN_PROGRESO) {
+                EstadoReserva estadoInicial = reserva.getEstado();
 
                 // Si hoy es la fecha de inicio o posterior, cambiar a EN_PROGRESO
                 if (!hoy.isBefore(reserva.getFechaInicio()) && hoy.isBefore(reserva.getFechaFin())) {
@@ -358,6 +451,13 @@ public class ReservaService {
                     reserva.setEstado(EstadoReserva.FINALIZADA);
                     reservaRepository.save(reserva);
                 }
+
+                if (reserva.getEstado() != estadoInicial) {
+                    registrarEvento(reserva, TipoEventoReserva.ESTADO_AUTOMATICO, estadoInicial);
+                    clienteEstadisticaService.registrarCambio(
+                        ClienteEstadisticaService.capturar(reserva, estadoInicial),
+                        ClienteEstadisticaService.capturar(reserva));
+                }
             }
         }
     }
@@ -379,7 +479,10 @@ public class ReservaService {
         Reserva reservaActualizada = reservaRepository.save(reserva);
 
         // Registrar cambio en historial
-        registrarCambioEstado(reservaActualizada, estadoAnterior, "Reserva confirmada");
+        registrarCambioEstado(reservaActualizada, estadoAnterior, TipoEventoReserva.CONFIRMADA);
+        clienteEstadisticaService.registrarCambio(
+            ClienteEstadisticaService.capturar(reservaActualizada, estadoAnterior),
+            ClienteEstadisticaService.capturar(reservaActualizada));
 
         inicializarRelacionesReserva(reservaActualizada);
         return reservaActualizada;
@@ -390,10 +493,25 @@ public class ReservaService {
      */
     @Transactional(readOnly = true)
     public List<ReservaHistorial> obtenerHistorialReserva(Long idReserva) throws Exception {
+        return obtenerHistorialReserva(idReserva, false);
+    }
+
+    /**
+     * Obtiene el historial de cambios de una reserva, incluyendo si se pide los meses ya archivados en disco
+     */
+    @Transactional(readOnly = true)
+    public List<ReservaHistorial> obtenerHistorialReserva(Long idReserva, boolean incluirArchivado) throws Exception {
         if (!reservaRepository.existsById(idReserva)) {
             throw new Exception("La reserva no existe");
         }
-        return reservaHistorialRepository.findByReserva_IdReservaOrderByFechaCambioDesc(idReserva);
+        List<ReservaHistorial> historial = reservaHistorialRepository.findByReserva_IdReservaOrderByFechaCambioDesc(idReserva);
+        if (!incluirArchivado) {
+            return historial;
+        }
+        List<ReservaHistorial> completo = new ArrayList<>(historial);
+        completo.addAll(archivoHistorial.buscar(idReserva));
+        completo.sort((a, b) -> b.getFechaCambio().compareTo(a.getFechaCambio()));
+        return completo;
     }
 
     /**
@@ -439,7 +557,8 @@ public class ReservaService {
         }
     }
 
-    private ReservaListResponse mapearAReservaListResponse(Reserva reserva) {
+    // Visible en el paquete para los benchmarks JMH (src/jmh/java)
+    ReservaListResponse mapearAReservaListResponse(Reserva reserva) {
         ReservaListResponse dto = new ReservaListResponse();
         dto.setIdReserva(reserva.getIdReserva());
         dto.setFechaCreacion(reserva.getFechaCreacion());
@@ -0,0 +1,134 @@
+package com.deportur.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de temporización jerárquica: programa vencimientos y los entrega en O(1) por elemento,
+ * sin recorrer los pendientes.
+ *
+ * Cuatro niveles de 64 ranuras. El nivel 0 tiene una ranura por tick; cada nivel superior cubre
+ * 64 veces más tiempo por ranura. Al completar una vuelta de un nivel, la ranura siguiente del nivel
+ * superior se reparte en los inferiores. Con ticks de un segundo la rueda cubre unos 194 días; un
+ * vencimiento más lejano se reprograma en cada vuelta del último nivel.
+ *
+ * No es segura para hilos por sí sola: quien la usa la protege con su propio candado.
+ */
+public class RuedaTemporizadora<T> {
+
+    private static final int BITS = 6;
+    private static final int RANURAS = 1 << BITS;
+    private static final int MASCARA = RANURAS - 1;
+    private static final int NIVELES = 4;
+    private static final long ALCANCE = 1L << (BITS * NIVELES);
+
+    /**
+     * Elemento programado; cancelar() lo descarta sin buscarlo en la rueda
+     */
+    public static final class Entrada<T> {
+
+        private final T valor;
+        private final long tick;
+        private boolean cancelada;
+
+        private Entrada(T valor, long tick) {
+            this.valor = valor;
+            this.tick = tick;
+        }
+
+        public T getValor() {
+            return valor;
+        }
+
+        public void cancelar() {
+            cancelada = true;
+        }
+    }
+
+    private final long tickMs;
+    private final List<List<Entrada<T>>> ranuras = new ArrayList<>(NIVELES * RANURAS);
+    private long tickActual;
+
+    public RuedaTemporizadora(long tickMs, long ahoraMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("El tick debe ser positivo");
+        }
+        this.tickMs = tickMs;
+        this.tickActual = ahoraMs / tickMs;
+        for (int i = 0; i < NIVELES * RANURAS; i++) {
+            ranuras.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Programa el valor para venceMs. Un vencimiento ya pasado se entrega en el próximo tick
+     */
+    public Entrada<T> programar(T valor, long venceMs) {
+        long tick = Math.max(Math.floorDiv(venceMs + tickMs - 1, tickMs), tickActual + 1);
+        Entrada<T> entrada = new Entrada<>(valor, tick);
+        colocar(entrada);
+        return entrada;
+    }
+
+    /**
+     * Avanza la rueda hasta ahoraMs y devuelve los valores vencidos no cancelados
+     */
+    public List<T> avanzar(long ahoraMs) {
+        List<T> vencidos = new ArrayList<>();
+        long objetivo = ahoraMs / tickMs;
+        while (tickActual < objetivo) {
+            tickActual++;
+            // Al cerrar la vuelta de un nivel se baja la ranura que toca del nivel superior
+            for (int nivel = 1; nivel < NIVELES && (tickActual & ((1L << (BITS * nivel)) - 1)) == 0; nivel++) {
+                redistribuir(nivel, (int) ((tickActual >> (BITS * nivel)) & MASCARA));
+            }
+
+            List<Entrada<T>> ranura = ranura(0, (int) (tickActual & MASCARA));
+            if (ranura.isEmpty()) {
+                continue;
+            }
+            List<Entrada<T>> pendientes = new ArrayList<>(ranura);
+            ranura.clear();
+            for (Entrada<T> entrada : pendientes) {
+                if (entrada.cancelada) {
+                    continue;
+                }
+                if (entrada.tick <= tickActual) {
+                    vencidos.add(entrada.valor);
+                } else {
+                    colocar(entrada);
+                }
+            }
+        }
+        return vencidos;
+    }
+
+    private void redistribuir(int nivel, int indice) {
+        List<Entrada<T>> ranura = ranura(nivel, indice);
+        if (ranura.isEmpty()) {
+            return;
+        }
+        List<Entrada<T>> pendientes = new ArrayList<>(ranura);
+        ranura.clear();
+        for (Entrada<T> entrada : pendientes) {
+            if (!entrada.cancelada) {
+                colocar(entrada);
+            }
+        }
+    }
+
+    private void colocar(Entrada<T> entrada) {
+        // Más allá del alcance se deja en la última ranura posible y se vuelve a colocar al llegar a ella
+        long destino = Math.min(entrada.tick, tickActual + ALCANCE - 1);
+        long distancia = destino - tickActual;
+        int nivel = 0;
+        while (nivel < NIVELES - 1 && distancia >= (1L << (BITS * (nivel + 1)))) {
+            nivel++;
+        }
+        ranura(nivel, (int) ((destino >> (BITS * nivel)) & MASCARA)).add(entrada);
+    }
+
+    private List<Entrada<T>> ranura(int nivel, int indice) {
+        return ranuras.get(nivel * RANURAS + indice);
+    }
+}
@@ -0,0 +1,8 @@
+package com.deportur.service;
+
+/**
+ * Evento publicado por TipoEquipoService cada vez que se crea, actualiza o
+ * elimina un tipo de equipo.
+ */
+public record TipoEquipoModificadoEvent(Long idTipo) {
+}
@@ -1,10 +1,9 @@
 package com.deportur.service;
 
-import com.deportur.model.EquipoDeportivo;
 import com.deportur.model.TipoEquipo;
-import com.deportur.repository.EquipoDeportivoRepository;
 import com.deportur.repository.TipoEquipoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -19,7 +18,10 @@ public class TipoEquipoService {
     private TipoEquipoRepository tipoEquipoRepository;
 
     @Autowired
-    private EquipoDeportivoRepository equipoRepository;
+    private IntegridadReferencialService integridadReferencialService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * Migrado de GestionInventarioService.registrarTipoEquipo()
@@ -30,7 +32,9 @@ public class TipoEquipoService {
             throw new Exception("El nombre del tipo de equipo es requerido");
         }
 
-        return tipoEquipoRepository.save(tipoEquipo);
+        TipoEquipo tipoGuardado = tipoEquipoRepository.save(tipoEquipo);
+        eventPublisher.publishEvent(new TipoEquipoModificadoEvent(tipoGuardado.getIdTipo()));
+        return tipoGuardado;
     }
 
     /**
@@ -48,7 +52,9 @@ public class TipoEquipoService {
         tipo.setNombre(tipoEquipo.getNombre());
         tipo.setDescripcion(tipoEquipo.getDescripcion());
 
-        return tipoEquipoRepository.save(tipo);
+        TipoEquipo tipoActualizado = tipoEquipoRepository.save(tipo);
+        eventPublisher.publishEvent(new TipoEquipoModificadoEvent(idTipo));
+        return tipoActualizado;
     }
 
     /**
@@ -59,13 +65,20 @@ public class TipoEquipoService {
         TipoEquipo tipo = tipoEquipoRepository.findById(idTipo)
             .orElseThrow(() -> new Exception("El tipo de equipo no existe"));
 
-        // Verificar si tiene equipos asociados
-        List<EquipoDeportivo> equipos = equipoRepository.findByTipo(tipo);
-        if (equipos != null && !equipos.isEmpty()) {
-            throw new Exception("No se puede eliminar el tipo de equipo porque existen equipos asociados");
+        // Verificar si tiene equipos o políticas asociadas
+        IntegridadReferencialService.ReferenciasBloqueantes referencias =
+            integridadReferencialService.verificarTipoEquipo(idTipo);
+        if (referencias.tiene(IntegridadReferencialService.EQUIPOS)) {
+            throw new Exception("No se puede eliminar el tipo de equipo porque existen equipos asociados ("
+                + referencias.describir() + ")");
+        }
+        if (referencias.hayReferencias()) {
+            throw new Exception("No se puede eliminar el tipo de equipo porque tiene registros asociados ("
+                + referencias.describir() + ")");
         }
 
         tipoEquipoRepository.delete(tipo);
+        eventPublisher.publishEvent(new TipoEquipoModificadoEvent(idTipo));
     }
 
     /**
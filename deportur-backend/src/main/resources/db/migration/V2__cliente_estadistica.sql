@@ -0,0 +1,27 @@
+-- Modelo de lectura de estadísticas por cliente.
+-- Se actualiza de forma incremental desde ReservaService; las filas que falten
+-- se reconstruyen bajo demanda a partir de las reservas existentes.
+
+CREATE TABLE IF NOT EXISTS cliente_estadistica (
+    id_cliente           BIGINT PRIMARY KEY REFERENCES cliente(id_cliente) ON DELETE CASCADE,
+    total_gastado        DECIMAL(12,2) NOT NULL DEFAULT 0,
+    reservas_pendientes  INTEGER NOT NULL DEFAULT 0,
+    reservas_confirmadas INTEGER NOT NULL DEFAULT 0,
+    reservas_en_progreso INTEGER NOT NULL DEFAULT 0,
+    reservas_finalizadas INTEGER NOT NULL DEFAULT 0,
+    reservas_canceladas  INTEGER NOT NULL DEFAULT 0,
+    id_tipo_favorito     BIGINT REFERENCES tipo_equipo(id_tipo) ON DELETE SET NULL,
+    fecha_actualizacion  TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS cliente_tipo_equipo_uso (
+    id_uso     BIGSERIAL PRIMARY KEY,
+    id_cliente BIGINT NOT NULL REFERENCES cliente(id_cliente) ON DELETE CASCADE,
+    id_tipo    BIGINT NOT NULL REFERENCES tipo_equipo(id_tipo) ON DELETE CASCADE,
+    cantidad   INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT uk_cliente_tipo_equipo_uso UNIQUE (id_cliente, id_tipo)
+);
+
+-- Las reservas recientes se leen con LIMIT ordenando por fecha de creación
+CREATE INDEX IF NOT EXISTS idx_reserva_cliente_fecha_creacion
+    ON reserva (id_cliente, fecha_creacion DESC);
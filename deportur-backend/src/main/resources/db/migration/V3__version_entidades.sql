@@ -0,0 +1,7 @@
+-- Columnas de versión para bloqueo optimista (@Version) y ETags de las lecturas por id.
+-- Las filas existentes empiezan en 0; Hibernate incrementa el valor en cada actualización.
+
+ALTER TABLE cliente ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE reserva ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE equipo_deportivo ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE politica_precio ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,19 @@
+-- Bandeja de salida (outbox) de eventos de reservas.
+-- ReservaService inserta una fila en la misma transacción que cada cambio de la reserva.
+-- RelayEventosReserva difunde la bandeja: cada instancia lee todos los eventos en orden de id_evento
+-- con su propio cursor en memoria, así que no hay una marca de despacho compartida.
+
+CREATE TABLE IF NOT EXISTS evento_reserva (
+    id_evento       BIGSERIAL PRIMARY KEY,
+    id_reserva      BIGINT NOT NULL,
+    id_cliente      BIGINT,
+    id_destino      BIGINT,
+    tipo            VARCHAR(20) NOT NULL,
+    estado_anterior VARCHAR(20),
+    estado_nuevo    VARCHAR(20) NOT NULL,
+    fecha_creacion  TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Purga por antigüedad y punto de partida del cursor al arrancar
+CREATE INDEX IF NOT EXISTS idx_evento_reserva_fecha_creacion
+    ON evento_reserva (fecha_creacion);
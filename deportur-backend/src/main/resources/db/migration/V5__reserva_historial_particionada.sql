@@ -0,0 +1,74 @@
+-- reserva_historial particionada por mes (fecha_cambio).
+-- Cada mes vive en reserva_historial_AAAAMM; ArchivoHistorialReservas crea los meses siguientes
+-- y archiva en disco (NDJSON comprimido) los que superan la retención, quitándolos de la tabla.
+-- La clave primaria incluye fecha_cambio porque Postgres exige la clave de partición en ella.
+
+ALTER TABLE reserva_historial RENAME TO reserva_historial_legado;
+ALTER INDEX IF EXISTS reserva_historial_pkey RENAME TO reserva_historial_legado_pkey;
+
+CREATE SEQUENCE IF NOT EXISTS reserva_historial_particion_id_seq;
+
+CREATE TABLE reserva_historial (
+    id_historial         BIGINT NOT NULL DEFAULT nextval('reserva_historial_particion_id_seq'),
+    id_reserva           BIGINT NOT NULL REFERENCES reserva(id_reserva) ON DELETE CASCADE,
+    estado_anterior      VARCHAR(20),
+    estado_nuevo         VARCHAR(20) NOT NULL,
+    usuario_modificacion VARCHAR(100),
+    fecha_cambio         TIMESTAMP NOT NULL DEFAULT NOW(),
+    observaciones        TEXT,
+    PRIMARY KEY (id_historial, fecha_cambio)
+) PARTITION BY RANGE (fecha_cambio);
+
+ALTER SEQUENCE reserva_historial_particion_id_seq OWNED BY reserva_historial.id_historial;
+
+-- Recibe las filas de meses sin partición (p. ej. si el trabajo mensual no corrió a tiempo)
+CREATE TABLE reserva_historial_default PARTITION OF reserva_historial DEFAULT;
+
+-- El historial de una reserva se lee por id ordenado por fecha; el índice se crea en cada partición
+CREATE INDEX IF NOT EXISTS idx_reserva_historial_reserva_fecha
+    ON reserva_historial (id_reserva, fecha_cambio DESC);
+
+-- Si la partición DEFAULT ya tiene filas del mes, CREATE TABLE ... PARTITION OF falla: el mes se crea
+-- como tabla suelta, recibe esas filas (que salen de DEFAULT) y después se adjunta
+CREATE OR REPLACE FUNCTION crear_particion_historial(mes DATE) RETURNS VOID AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::date;
+    fin DATE := (date_trunc('month', mes) + INTERVAL '1 month')::date;
+    nombre TEXT := 'reserva_historial_' || to_char(inicio, 'YYYYMM');
+BEGIN
+    IF to_regclass(nombre) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE reserva_historial INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nombre);
+    EXECUTE format('WITH movidas AS (DELETE FROM reserva_historial_default '
+        || 'WHERE fecha_cambio >= %L AND fecha_cambio < %L RETURNING *) '
+        || 'INSERT INTO %I SELECT * FROM movidas', inicio, fin, nombre);
+    EXECUTE format('ALTER TABLE reserva_historial ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        nombre, inicio, fin);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Un mes por cada mes con historial, más el actual y los tres siguientes
+DO $$
+DECLARE
+    mes DATE;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(fecha_cambio))::date, date_trunc('month', NOW())::date)
+      INTO mes FROM reserva_historial_legado;
+    WHILE mes <= (date_trunc('month', NOW()) + INTERVAL '3 months')::date LOOP
+        PERFORM crear_particion_historial(mes);
+        mes := (mes + INTERVAL '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO reserva_historial (id_historial, id_reserva, estado_anterior, estado_nuevo,
+                               usuario_modificacion, fecha_cambio, observaciones)
+SELECT id_historial, id_reserva, estado_anterior, estado_nuevo,
+       usuario_modificacion, fecha_cambio, observaciones
+  FROM reserva_historial_legado;
+
+SELECT setval('reserva_historial_particion_id_seq',
+              COALESCE((SELECT MAX(id_historial) FROM reserva_historial), 0) + 1, false);
+
+DROP TABLE reserva_historial_legado;
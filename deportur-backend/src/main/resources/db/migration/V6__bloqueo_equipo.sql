@@ -0,0 +1,23 @@
+-- Bloqueos temporales de equipos (carrito de reserva).
+-- BloqueoEquipoService los guarda en memoria con su vencimiento y los copia aquí para que todas
+-- las instancias los vean. Una fila por equipo; las filas de un mismo bloqueo comparten token.
+-- Las consultas filtran expira_en > NOW(), así que una fila vencida sin borrar no bloquea nada.
+
+CREATE TABLE IF NOT EXISTS bloqueo_equipo (
+    id_bloqueo   BIGSERIAL PRIMARY KEY,
+    token        VARCHAR(36) NOT NULL,
+    id_equipo    BIGINT NOT NULL REFERENCES equipo_deportivo(id_equipo) ON DELETE CASCADE,
+    id_cliente   BIGINT NOT NULL REFERENCES cliente(id_cliente) ON DELETE CASCADE,
+    fecha_inicio DATE NOT NULL,
+    fecha_fin    DATE NOT NULL,
+    expira_en    TIMESTAMP NOT NULL
+);
+
+-- Comprobación de solapes por equipo al reservar o bloquear
+CREATE INDEX IF NOT EXISTS idx_bloqueo_equipo_equipo ON bloqueo_equipo (id_equipo, expira_en);
+
+-- Conversión y liberación por token
+CREATE INDEX IF NOT EXISTS idx_bloqueo_equipo_token ON bloqueo_equipo (token);
+
+-- Sincronización de vigentes y purga de vencidos
+CREATE INDEX IF NOT EXISTS idx_bloqueo_equipo_expira ON bloqueo_equipo (expira_en);
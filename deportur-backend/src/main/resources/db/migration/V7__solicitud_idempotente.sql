@@ -0,0 +1,17 @@
+-- Respuestas de POST /api/reservas con cabecera Idempotency-Key.
+-- IdempotenciaService reserva la clave con un INSERT antes de ejecutar (codigo_estado NULL = en curso)
+-- y guarda la respuesta al terminar. Una reserva en curso caduca sola si la instancia muere;
+-- una respuesta guardada caduca al final de la ventana y la purga horaria la borra.
+
+CREATE TABLE IF NOT EXISTS solicitud_idempotente (
+    clave          VARCHAR(512) PRIMARY KEY,
+    hash_peticion  VARCHAR(64) NOT NULL,
+    codigo_estado  INTEGER,
+    tipo_contenido VARCHAR(100),
+    cuerpo         TEXT,
+    fecha_creacion TIMESTAMP NOT NULL,
+    expira_en      TIMESTAMP NOT NULL
+);
+
+-- Purga de vencidas
+CREATE INDEX IF NOT EXISTS idx_solicitud_idempotente_expira ON solicitud_idempotente (expira_en);
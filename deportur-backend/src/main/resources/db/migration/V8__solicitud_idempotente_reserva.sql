@@ -0,0 +1,5 @@
+-- Reserva creada por la primera ejecución de cada Idempotency-Key. IdempotenciaService la anota en la
+-- misma transacción que crea la reserva: si la respuesta no llega a guardarse, el reintento la
+-- reconstruye a partir de esta reserva en vez de crear otra.
+
+ALTER TABLE solicitud_idempotente ADD COLUMN IF NOT EXISTS id_reserva BIGINT;
@@ -0,0 +1,313 @@
+package com.deportur.carga;
+
+import com.deportur.Application;
+import com.deportur.config.TestConfiguration;
+import com.deportur.model.*;
+import com.deportur.model.enums.*;
+import com.deportur.repository.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el throughput de GET /api/reservas y de la verificación de disponibilidad con
+ * hilos de plataforma (pool de Tomcat) y con hilos virtuales más LimitadorConexionesBd.
+ *
+ * Levanta la aplicación dos veces sobre H2, una por modo, y añade una latencia fija a cada
+ * ejecución JDBC para simular los viajes de ida y vuelta a Supabase. Con más usuarios que hilos
+ * de Tomcat, el modo de plataforma encola peticiones en el servidor; el virtual las encola en el
+ * limitador. Resultados en consola y en target/hilos-virtuales-resultado.json.
+ * Parámetros carga.hilos.* en application-carga.properties; se ejecuta con "mvn -Pcarga test".
+ */
+@Tag("carga")
+@DisplayName("Prueba de carga - hilos de plataforma vs. hilos virtuales con JDBC lento")
+class ComparativaHilosVirtualesTest {
+
+    private static final List<String> OPERACIONES = List.of("listado-reservas", "disponibilidad");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Retrasa cada ejecución de sentencia y cada commit carga.hilos.latencia-jdbc-ms milisegundos
+     */
+    @org.springframework.boot.test.context.TestConfiguration
+    static class LatenciaJdbc {
+
+        @Bean
+        static BeanPostProcessor latenciaJdbcPostProcessor(Environment environment) {
+            long latenciaMs = environment.getProperty("carga.hilos.latencia-jdbc-ms", Long.class, 0L);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && latenciaMs > 0
+                        ? conLatencia(DataSource.class, dataSource, latenciaMs) : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> T conLatencia(Class<T> tipo, T delegado, long latenciaMs) {
+            InvocationHandler manejador = (proxy, metodo, args) -> {
+                if (metodo.getName().equals("equals")) {
+                    return proxy == args[0];
+                }
+                if (metodo.getName().equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                String nombre = metodo.getName();
+                if (nombre.startsWith("execute") || nombre.equals("commit")) {
+                    Thread.sleep(latenciaMs);
+                }
+                Object resultado = invocar(delegado, metodo, args);
+                Class<?> retorno = metodo.getReturnType();
+                if (resultado instanceof Connection || resultado instanceof Statement) {
+                    return conLatencia((Class<Object>) retorno, resultado, latenciaMs);
+                }
+                return resultado;
+            };
+            return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] {tipo}, manejador);
+        }
+
+        private static Object invocar(Object delegado, Method metodo, Object[] args) throws Throwable {
+            try {
+                return metodo.invoke(delegado, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private record Medicion(String operacion, long nanos, int estado) {
+    }
+
+    private record Sembrado(List<Long> idsDestinos) {
+    }
+
+    @Test
+    @DisplayName("Debe atender la misma carga en ambos modos sin errores del servidor y reportar el throughput")
+    void compararModos() throws Exception {
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("fecha", LocalDateTime.now().toString());
+        StringBuilder tabla = new StringBuilder(String.format("%n%-11s %-17s %7s %6s %9s %9s %9s %9s%n",
+            "modo", "operación", "total", "5xx", "p50 ms", "p99 ms", "ops/s", "hilos"));
+
+        for (String modo : List.of("plataforma", "virtuales")) {
+            try (ConfigurableApplicationContext contexto = iniciar(modo)) {
+                Environment entorno = contexto.getEnvironment();
+                int usuarios = entorno.getRequiredProperty("carga.hilos.usuarios", Integer.class);
+                int operaciones = entorno.getRequiredProperty("carga.hilos.operaciones", Integer.class);
+                int calentamiento = entorno.getRequiredProperty("carga.hilos.calentamiento", Integer.class);
+                reporte.putIfAbsent("latenciaJdbcMs", entorno.getProperty("carga.hilos.latencia-jdbc-ms", Long.class));
+                reporte.putIfAbsent("usuarios", usuarios);
+                reporte.putIfAbsent("poolConexiones", entorno.getProperty("spring.datasource.hikari.maximum-pool-size"));
+
+                Sembrado datos = sembrar(contexto);
+                int puerto = entorno.getRequiredProperty("local.server.port", Integer.class);
+                HttpClient cliente = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+                ejecutar(cliente, puerto, datos, usuarios, calentamiento);
+
+                ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+                hilos.resetPeakThreadCount();
+                long inicio = System.nanoTime();
+                List<Medicion> mediciones = ejecutar(cliente, puerto, datos, usuarios, operaciones);
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                int hilosPico = hilos.getPeakThreadCount();
+
+                reporte.put(modo, resumir(modo, mediciones, segundos, hilosPico, tabla));
+
+                assertEquals(operaciones, mediciones.size());
+                long erroresServidor = mediciones.stream().filter(m -> m.estado() >= 500).count();
+                assertEquals(0, erroresServidor, "Respuestas 5xx en modo " + modo);
+            }
+        }
+
+        System.out.println(tabla);
+        Path destino = Path.of("target", "hilos-virtuales-resultado.json");
+        Files.createDirectories(destino.getParent());
+        Files.write(destino, objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(reporte));
+        System.out.println("Comparativa de hilos escrita en " + destino.toAbsolutePath());
+    }
+
+    /**
+     * Arranca la aplicación en un puerto libre con su propia base H2. Los argumentos de línea
+     * de comandos tienen prioridad sobre application-carga.properties.
+     */
+    private ConfigurableApplicationContext iniciar(String modo) {
+        return new SpringApplicationBuilder(Application.class, TestConfiguration.class, LatenciaJdbc.class)
+            .profiles("test", "carga")
+            .run("--server.port=0",
+                "--deportur.hilos-virtuales.habilitado=" + modo.equals("virtuales"),
+                "--spring.datasource.url=jdbc:h2:mem:hilos" + modo + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                // Con latencia artificial casi todas las sentencias superarían un umbral bajo
+                "--deportur.sql.lento.habilitado=false");
+    }
+
+    private List<Medicion> ejecutar(HttpClient cliente, int puerto, Sembrado datos, int usuarios, int total)
+            throws Exception {
+        List<Medicion> mediciones = Collections.synchronizedList(new ArrayList<>(total));
+        AtomicInteger restantes = new AtomicInteger(total);
+
+        // Modelo cerrado, igual que PruebaCargaTest: cada usuario espera su respuesta antes de seguir
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> usuariosVirtuales = new ArrayList<>();
+            for (int u = 0; u < usuarios; u++) {
+                usuariosVirtuales.add(hilos.submit(() -> {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    while (restantes.getAndDecrement() > 0) {
+                        String operacion = OPERACIONES.get(aleatorio.nextInt(OPERACIONES.size()));
+                        HttpRequest peticion = construirPeticion(operacion, puerto, datos, aleatorio);
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        mediciones.add(new Medicion(operacion, System.nanoTime() - t0, respuesta.statusCode()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> usuario : usuariosVirtuales) {
+                usuario.get();
+            }
+        }
+        return mediciones;
+    }
+
+    private HttpRequest construirPeticion(String operacion, int puerto, Sembrado datos, ThreadLocalRandom aleatorio) {
+        String ruta = switch (operacion) {
+            case "listado-reservas" -> "/api/reservas";
+            case "disponibilidad" -> {
+                Long idDestino = datos.idsDestinos().get(aleatorio.nextInt(datos.idsDestinos().size()));
+                LocalDate inicio = LocalDate.now().plusDays(aleatorio.nextInt(1, 60));
+                yield "/api/equipos/verificar-disponibilidad?destino=" + idDestino + "&inicio=" + inicio
+                    + "&fin=" + inicio.plusDays(aleatorio.nextInt(0, 7));
+            }
+            default -> throw new IllegalArgumentException("Operación desconocida: " + operacion);
+        };
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+            .header("Authorization", "Bearer token-carga")
+            .timeout(Duration.ofSeconds(120))
+            .GET()
+            .build();
+    }
+
+    private Sembrado sembrar(ConfigurableApplicationContext contexto) {
+        Environment entorno = contexto.getEnvironment();
+        int destinos = entorno.getRequiredProperty("carga.hilos.destinos", Integer.class);
+        int equiposPorDestino = entorno.getRequiredProperty("carga.hilos.equipos-por-destino", Integer.class);
+        int reservas = entorno.getRequiredProperty("carga.hilos.reservas", Integer.class);
+        LocalDate hoy = LocalDate.now();
+
+        TipoEquipo tipo = contexto.getBean(TipoEquipoRepository.class)
+            .save(new TipoEquipo(null, "Kayak", "Kayaks individuales y dobles"));
+
+        List<DestinoTuristico> destinosGuardar = new ArrayList<>();
+        for (int i = 0; i < destinos; i++) {
+            DestinoTuristico destino = new DestinoTuristico();
+            destino.setNombre("Destino " + i);
+            destino.setDepartamento("Departamento " + i);
+            destino.setCiudad("Ciudad " + i);
+            destino.setLatitud(BigDecimal.valueOf(4.0 + i));
+            destino.setLongitud(BigDecimal.valueOf(-74.0 + i));
+            destino.setCapacidadMaxima(200);
+            destino.setTipoDestino(TipoDestino.values()[i % TipoDestino.values().length]);
+            destino.setActivo(true);
+            destinosGuardar.add(destino);
+        }
+        List<DestinoTuristico> destinosGuardados = contexto.getBean(DestinoTuristicoRepository.class).saveAll(destinosGuardar);
+
+        List<EquipoDeportivo> equipos = new ArrayList<>();
+        for (DestinoTuristico destino : destinosGuardados) {
+            for (int j = 0; j < equiposPorDestino; j++) {
+                equipos.add(new EquipoDeportivo(null, "Equipo " + destino.getIdDestino() + "-" + j, tipo,
+                    "Marca", EstadoEquipo.BUENO, BigDecimal.valueOf(80_000), hoy.minusYears(1), destino, true));
+            }
+        }
+        equipos = contexto.getBean(EquipoDeportivoRepository.class).saveAll(equipos);
+
+        Cliente cliente = contexto.getBean(ClienteRepository.class).save(new Cliente(null, "Laura", "Gómez",
+            "1020304050", TipoDocumento.CC, "3001234567", "laura@example.com", "Calle 1"));
+
+        List<Reserva> reservasGuardar = new ArrayList<>();
+        for (int i = 0; i < reservas; i++) {
+            EquipoDeportivo equipo = equipos.get(i % equipos.size());
+            LocalDate inicio = hoy.plusDays(1 + 7L * (i / equipos.size()));
+            Reserva reserva = new Reserva();
+            reserva.setCliente(cliente);
+            reserva.setDestino(equipo.getDestino());
+            reserva.setFechaCreacion(LocalDateTime.now());
+            reserva.setFechaInicio(inicio);
+            reserva.setFechaFin(inicio.plusDays(3));
+            reserva.setEstado(EstadoReserva.CONFIRMADA);
+            reserva.agregarDetalle(new DetalleReserva(null, reserva, equipo, equipo.getPrecioAlquiler()));
+            reserva.actualizarCalculos(reserva.calcularSubtotal(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+            reservasGuardar.add(reserva);
+        }
+        contexto.getBean(ReservaRepository.class).saveAll(reservasGuardar);
+
+        return new Sembrado(destinosGuardados.stream().map(DestinoTuristico::getIdDestino).toList());
+    }
+
+    private Map<String, Object> resumir(String modo, List<Medicion> mediciones, double segundos, int hilosPico,
+                                        StringBuilder tabla) {
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("throughputTotal", Math.round(mediciones.size() / segundos * 100) / 100.0);
+        resumen.put("hilosPlataformaPico", hilosPico);
+        for (String operacion : OPERACIONES) {
+            List<Medicion> lista = mediciones.stream().filter(m -> m.operacion().equals(operacion)).toList();
+            long[] nanos = lista.stream().mapToLong(Medicion::nanos).sorted().toArray();
+            long errores5xx = lista.stream().filter(m -> m.estado() >= 500).count();
+            double throughput = Math.round(lista.size() / segundos * 100) / 100.0;
+
+            Map<String, Object> detalle = new LinkedHashMap<>();
+            detalle.put("total", lista.size());
+            detalle.put("respuestas5xx", errores5xx);
+            detalle.put("p50Ms", PruebaCargaTest.percentilMs(nanos, 50));
+            detalle.put("p99Ms", PruebaCargaTest.percentilMs(nanos, 99));
+            detalle.put("throughput", throughput);
+            resumen.put(operacion, detalle);
+
+            tabla.append(String.format("%-11s %-17s %7d %6d %9.2f %9.2f %9.1f %9d%n", modo, operacion, lista.size(),
+                errores5xx, PruebaCargaTest.percentilMs(nanos, 50), PruebaCargaTest.percentilMs(nanos, 99),
+                throughput, hilosPico));
+        }
+        return resumen;
+    }
+}
@@ -0,0 +1,359 @@
+package com.deportur.carga;
+
+import com.deportur.Application;
+import com.deportur.config.LimitadorConexionesBd;
+import com.deportur.config.TestConfiguration;
+import com.deportur.model.*;
+import com.deportur.model.enums.*;
+import com.deportur.repository.*;
+import com.deportur.sql.ContadorSentenciasSql;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la configuración base (prepareThreshold=0, pool de 10, sin batch fetch) con el perfil
+ * "production" (pool calculado, sentencias preparadas, lotes de INSERT reescritos, default_batch_fetch_size)
+ * en la creación de reservas y en los listados de reservas, equipos y políticas.
+ *
+ * Los ajustes son del driver de PostgreSQL, así que la base es un PostgreSQL en Docker (Testcontainers);
+ * sin Docker la prueba se omite. Como en ComparativaHilosVirtualesTest, cada ejecución JDBC y cada commit
+ * esperan carga.produccion.latencia-jdbc-ms para simular el viaje de ida y vuelta a Supabase.
+ * Resultados en consola y en target/produccion-resultado.json. Parámetros carga.produccion.* en
+ * application-carga.properties; se ejecuta con "mvn -Pcarga test -Dtest=ComparativaPerfilProduccionTest".
+ */
+@Tag("carga")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Prueba de carga - configuración base vs. perfil production sobre PostgreSQL")
+class ComparativaPerfilProduccionTest {
+
+    private static final List<String> OPERACIONES =
+        List.of("crear-reserva", "listado-reservas", "listado-equipos", "listado-politicas");
+
+    private static final String CALENTAMIENTO = "calentamiento";
+
+    // Misma versión mayor que Supabase
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    // Usuario declara activo como TINYINT, que PostgreSQL no tiene; en Supabase la tabla ya existe
+    private static final String CREAR_USUARIO = "CREATE TABLE IF NOT EXISTS usuario ("
+        + "id_usuario BIGSERIAL PRIMARY KEY, nombre_usuario VARCHAR(50) NOT NULL UNIQUE, "
+        + "contrasena VARCHAR(50) NOT NULL, rol VARCHAR(20) NOT NULL, nombre VARCHAR(100) NOT NULL, "
+        + "apellido VARCHAR(100) NOT NULL, email VARCHAR(100), activo BOOLEAN NOT NULL DEFAULT TRUE, "
+        + "fecha_creacion TIMESTAMP NOT NULL)";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private record Medicion(String operacion, long nanos, int estado) {
+    }
+
+    private record Sembrado(List<Long> idsClientes, Map<Long, List<Long>> equiposPorDestino) {
+    }
+
+    @Test
+    @DisplayName("Debe atender la misma carga con ambas configuraciones sin errores del servidor y reportar la diferencia")
+    void compararConfiguraciones() throws Exception {
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("fecha", LocalDateTime.now().toString());
+        reporte.put("postgres", POSTGRES.getDockerImageName());
+        StringBuilder tabla = new StringBuilder(String.format("%n%-11s %-18s %7s %6s %9s %9s %9s %9s%n",
+            "config", "operación", "total", "5xx", "p50 ms", "p99 ms", "ops/s", "SQL/pet"));
+
+        for (String configuracion : List.of("base", "produccion")) {
+            try (ConfigurableApplicationContext contexto = iniciar(configuracion)) {
+                Environment entorno = contexto.getEnvironment();
+                int usuarios = entorno.getRequiredProperty("carga.produccion.usuarios", Integer.class);
+                int operaciones = entorno.getRequiredProperty("carga.produccion.operaciones", Integer.class);
+                int calentamiento = entorno.getRequiredProperty("carga.produccion.calentamiento", Integer.class);
+                reporte.putIfAbsent("latenciaJdbcMs", entorno.getProperty("carga.produccion.latencia-jdbc-ms", Long.class));
+                reporte.putIfAbsent("usuarios", usuarios);
+
+                Sembrado datos = sembrar(contexto);
+                int puerto = entorno.getRequiredProperty("local.server.port", Integer.class);
+                HttpClient cliente = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+                // Calentamiento: JIT, pool de conexiones y, en "produccion", sentencias ya preparadas en el servidor
+                ejecutar(cliente, puerto, datos, usuarios, calentamiento, true);
+                ContadorSentenciasSql.limpiar();
+
+                long inicio = System.nanoTime();
+                List<Medicion> mediciones = ejecutar(cliente, puerto, datos, usuarios, operaciones, false);
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+
+                Map<String, Object> resumen = resumir(configuracion, mediciones, segundos, tabla);
+                resumen.put("poolConexiones", LimitadorConexionesBd.tamanoPool(contexto.getBean(DataSource.class)));
+                resumen.put("ajustes", ajustes(entorno));
+                reporte.put(configuracion, resumen);
+
+                assertEquals(operaciones, mediciones.size());
+                long erroresServidor = mediciones.stream().filter(m -> m.estado() >= 500).count();
+                assertEquals(0, erroresServidor, "Respuestas 5xx con la configuración " + configuracion);
+            }
+        }
+
+        System.out.println(tabla);
+        Path destino = Path.of("target", "produccion-resultado.json");
+        Files.createDirectories(destino.getParent());
+        Files.write(destino, objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(reporte));
+        System.out.println("Comparativa del perfil production escrita en " + destino.toAbsolutePath());
+    }
+
+    /**
+     * Arranca la aplicación contra el contenedor con el esquema creado por Hibernate. "base" usa la URL con
+     * prepareThreshold=0 y el pool por defecto de Hikari, como application.properties; "produccion" añade el
+     * perfil y deja el tamaño del pool a PoolConexionesConfig, con la latencia simulada como latencia-ms.
+     */
+    private ConfigurableApplicationContext iniciar(String configuracion) {
+        boolean produccion = configuracion.equals("produccion");
+        String url = POSTGRES.getJdbcUrl();
+        if (!produccion) {
+            url += (url.contains("?") ? "&" : "?") + "prepareThreshold=0";
+        }
+        List<String> perfiles = new ArrayList<>(List.of("test", "carga"));
+        if (produccion) {
+            perfiles.add("production");
+        }
+
+        return new SpringApplicationBuilder(Application.class, TestConfiguration.class,
+                PruebaCargaTest.ConfiguracionCarga.class, ComparativaHilosVirtualesTest.LatenciaJdbc.class)
+            .profiles(perfiles.toArray(String[]::new))
+            .run("--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + POSTGRES.getUsername(),
+                "--spring.datasource.password=" + POSTGRES.getPassword(),
+                "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+                "--spring.h2.console.enabled=false",
+                "--spring.datasource.hikari.maximum-pool-size=" + (produccion ? 0 : 10),
+                "--carga.hilos.latencia-jdbc-ms=${carga.produccion.latencia-jdbc-ms}",
+                "--deportur.bd.pool.latencia-ms=${carga.produccion.latencia-jdbc-ms}",
+                // Con latencia artificial casi todas las sentencias superarían un umbral bajo
+                "--deportur.sql.lento.habilitado=false");
+    }
+
+    private static Map<String, Object> ajustes(Environment entorno) {
+        Map<String, Object> ajustes = new LinkedHashMap<>();
+        ajustes.put("url", entorno.getProperty("spring.datasource.url"));
+        ajustes.put("prepareThreshold", entorno.getProperty("spring.datasource.hikari.data-source-properties.prepareThreshold"));
+        ajustes.put("reWriteBatchedInserts",
+            entorno.getProperty("spring.datasource.hikari.data-source-properties.reWriteBatchedInserts"));
+        ajustes.put("batchSize", entorno.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size"));
+        ajustes.put("orderInserts", entorno.getProperty("spring.jpa.properties.hibernate.order_inserts"));
+        ajustes.put("defaultBatchFetchSize", entorno.getProperty("spring.jpa.properties.hibernate.default_batch_fetch_size"));
+        return ajustes;
+    }
+
+    private List<Medicion> ejecutar(HttpClient cliente, int puerto, Sembrado datos, int usuarios, int total,
+                                    boolean calentando) throws Exception {
+        List<Medicion> mediciones = Collections.synchronizedList(new ArrayList<>(total));
+        AtomicInteger restantes = new AtomicInteger(total);
+
+        // Modelo cerrado, igual que PruebaCargaTest: cada usuario espera su respuesta antes de seguir
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> usuariosVirtuales = new ArrayList<>();
+            for (int u = 0; u < usuarios; u++) {
+                usuariosVirtuales.add(hilos.submit(() -> {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    while (restantes.getAndDecrement() > 0) {
+                        String operacion = OPERACIONES.get(aleatorio.nextInt(OPERACIONES.size()));
+                        HttpRequest peticion = construirPeticion(operacion, puerto, datos, aleatorio,
+                            calentando ? CALENTAMIENTO : operacion);
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        mediciones.add(new Medicion(operacion, System.nanoTime() - t0, respuesta.statusCode()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> usuario : usuariosVirtuales) {
+                usuario.get();
+            }
+        }
+        return mediciones;
+    }
+
+    private HttpRequest construirPeticion(String operacion, int puerto, Sembrado datos, ThreadLocalRandom aleatorio,
+                                          String etiqueta) throws Exception {
+        HttpRequest.Builder peticion = switch (operacion) {
+            case "crear-reserva" -> {
+                List<Long> destinos = new ArrayList<>(datos.equiposPorDestino().keySet());
+                Long idDestino = destinos.get(aleatorio.nextInt(destinos.size()));
+                List<Long> equipos = datos.equiposPorDestino().get(idDestino);
+                LocalDate inicio = LocalDate.now().plusDays(aleatorio.nextInt(1, 365));
+                Map<String, Object> cuerpo = new LinkedHashMap<>();
+                cuerpo.put("idCliente", datos.idsClientes().get(aleatorio.nextInt(datos.idsClientes().size())));
+                cuerpo.put("idDestino", idDestino);
+                cuerpo.put("fechaInicio", inicio.toString());
+                cuerpo.put("fechaFin", inicio.plusDays(aleatorio.nextInt(0, 4)).toString());
+                cuerpo.put("idsEquipos", List.of(equipos.get(aleatorio.nextInt(equipos.size()))));
+                yield HttpRequest.newBuilder(uri(puerto, "/api/reservas"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(cuerpo)));
+            }
+            case "listado-reservas" -> HttpRequest.newBuilder(uri(puerto, "/api/reservas")).GET();
+            case "listado-equipos" -> HttpRequest.newBuilder(uri(puerto, "/api/equipos")).GET();
+            case "listado-politicas" -> HttpRequest.newBuilder(uri(puerto, "/api/politicas-precio")).GET();
+            default -> throw new IllegalArgumentException("Operación desconocida: " + operacion);
+        };
+        return peticion
+            .header("Authorization", "Bearer token-carga")
+            .header(PruebaCargaTest.CABECERA_OPERACION, etiqueta)
+            .timeout(Duration.ofSeconds(120))
+            .build();
+    }
+
+    private static URI uri(int puerto, String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private Sembrado sembrar(ConfigurableApplicationContext contexto) {
+        Environment entorno = contexto.getEnvironment();
+        int destinos = entorno.getRequiredProperty("carga.produccion.destinos", Integer.class);
+        int equiposPorDestino = entorno.getRequiredProperty("carga.produccion.equipos-por-destino", Integer.class);
+        int clientes = entorno.getRequiredProperty("carga.produccion.clientes", Integer.class);
+        int reservas = entorno.getRequiredProperty("carga.produccion.reservas", Integer.class);
+        int politicas = entorno.getRequiredProperty("carga.produccion.politicas", Integer.class);
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        LocalDate hoy = LocalDate.now();
+
+        contexto.getBean(JdbcTemplate.class).execute(CREAR_USUARIO);
+
+        List<TipoEquipo> tipos = contexto.getBean(TipoEquipoRepository.class).saveAll(List.of(
+            new TipoEquipo(null, "Bicicleta", "Bicicletas de montaña"),
+            new TipoEquipo(null, "Kayak", "Kayaks individuales y dobles"),
+            new TipoEquipo(null, "Parapente", "Equipos de vuelo libre")));
+
+        List<DestinoTuristico> destinosGuardar = new ArrayList<>();
+        for (int i = 0; i < destinos; i++) {
+            DestinoTuristico destino = new DestinoTuristico();
+            destino.setNombre("Destino " + i);
+            destino.setDepartamento("Departamento " + i);
+            destino.setCiudad("Ciudad " + i);
+            destino.setLatitud(BigDecimal.valueOf(4.0 + i));
+            destino.setLongitud(BigDecimal.valueOf(-74.0 + i));
+            destino.setCapacidadMaxima(500);
+            destino.setTipoDestino(TipoDestino.values()[i % TipoDestino.values().length]);
+            destino.setActivo(true);
+            destinosGuardar.add(destino);
+        }
+        List<DestinoTuristico> destinosGuardados = contexto.getBean(DestinoTuristicoRepository.class).saveAll(destinosGuardar);
+
+        List<EquipoDeportivo> equipos = new ArrayList<>();
+        for (DestinoTuristico destino : destinosGuardados) {
+            for (int j = 0; j < equiposPorDestino; j++) {
+                equipos.add(new EquipoDeportivo(null, "Equipo " + destino.getIdDestino() + "-" + j,
+                    tipos.get(j % tipos.size()), "Marca " + (j % 5), EstadoEquipo.BUENO,
+                    BigDecimal.valueOf(aleatorio.nextLong(30_000, 250_000)), hoy.minusYears(1), destino, true));
+            }
+        }
+        equipos = contexto.getBean(EquipoDeportivoRepository.class).saveAll(equipos);
+
+        List<Cliente> clientesGuardar = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            clientesGuardar.add(new Cliente(null, "Cliente" + i, "Apellido" + i, String.valueOf(10_000_000L + i),
+                TipoDocumento.CC, "300" + (1_000_000 + i), "cliente" + i + "@example.com", "Calle " + i));
+        }
+        List<Cliente> clientesGuardados = contexto.getBean(ClienteRepository.class).saveAll(clientesGuardar);
+
+        // Reservas en el pasado: los listados las devuelven pero no chocan con las que crea la carga
+        List<Reserva> reservasGuardar = new ArrayList<>();
+        for (int i = 0; i < reservas; i++) {
+            EquipoDeportivo equipo = equipos.get(i % equipos.size());
+            LocalDate inicio = hoy.minusDays(7L * (1 + i / equipos.size()));
+            Reserva reserva = new Reserva();
+            reserva.setCliente(clientesGuardados.get(aleatorio.nextInt(clientesGuardados.size())));
+            reserva.setDestino(equipo.getDestino());
+            reserva.setFechaCreacion(LocalDateTime.now().minusDays(30));
+            reserva.setFechaInicio(inicio);
+            reserva.setFechaFin(inicio.plusDays(3));
+            reserva.setEstado(EstadoReserva.FINALIZADA);
+            reserva.agregarDetalle(new DetalleReserva(null, reserva, equipo, equipo.getPrecioAlquiler()));
+            reserva.actualizarCalculos(reserva.calcularSubtotal(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+            reservasGuardar.add(reserva);
+        }
+        contexto.getBean(ReservaRepository.class).saveAll(reservasGuardar);
+
+        // Un tercio de las políticas por destino, otro por tipo de equipo y otro por equipo
+        TipoPolitica[] tiposPolitica = TipoPolitica.values();
+        List<PoliticaPrecio> politicasGuardar = new ArrayList<>();
+        for (int i = 0; i < politicas; i++) {
+            politicasGuardar.add(new PoliticaPrecio("Política " + i, null, tiposPolitica[i % tiposPolitica.length],
+                BigDecimal.valueOf(aleatorio.nextInt(1, 10)), hoy.minusMonths(1), hoy.plusYears(1), true,
+                null, null, null,
+                i % 3 == 0 ? destinosGuardados.get(i % destinosGuardados.size()) : null,
+                i % 3 == 1 ? tipos.get(i % tipos.size()) : null,
+                i % 3 == 2 ? equipos.get(i % equipos.size()) : null));
+        }
+        contexto.getBean(PoliticaPrecioRepository.class).saveAll(politicasGuardar);
+
+        Map<Long, List<Long>> equiposPorDestinoId = new HashMap<>();
+        for (EquipoDeportivo equipo : equipos) {
+            equiposPorDestinoId.computeIfAbsent(equipo.getDestino().getIdDestino(), id -> new ArrayList<>())
+                .add(equipo.getIdEquipo());
+        }
+        return new Sembrado(clientesGuardados.stream().map(Cliente::getIdCliente).toList(), equiposPorDestinoId);
+    }
+
+    private Map<String, Object> resumir(String configuracion, List<Medicion> mediciones, double segundos,
+                                        StringBuilder tabla) {
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("throughputTotal", Math.round(mediciones.size() / segundos * 100) / 100.0);
+        for (String operacion : OPERACIONES) {
+            List<Medicion> lista = mediciones.stream().filter(m -> m.operacion().equals(operacion)).toList();
+            long[] nanos = lista.stream().mapToLong(Medicion::nanos).sorted().toArray();
+            long errores4xx = lista.stream().filter(m -> m.estado() >= 400 && m.estado() < 500).count();
+            long errores5xx = lista.stream().filter(m -> m.estado() >= 500).count();
+            double throughput = Math.round(lista.size() / segundos * 100) / 100.0;
+            double sentenciasPorPeticion = lista.isEmpty() ? 0
+                : Math.round((double) ContadorSentenciasSql.total(operacion) / lista.size() * 100) / 100.0;
+
+            Map<String, Object> detalle = new LinkedHashMap<>();
+            detalle.put("total", lista.size());
+            detalle.put("respuestas4xx", errores4xx);
+            detalle.put("respuestas5xx", errores5xx);
+            detalle.put("p50Ms", PruebaCargaTest.percentilMs(nanos, 50));
+            detalle.put("p99Ms", PruebaCargaTest.percentilMs(nanos, 99));
+            detalle.put("throughput", throughput);
+            detalle.put("sentenciasSqlPorPeticion", sentenciasPorPeticion);
+            resumen.put(operacion, detalle);
+
+            tabla.append(String.format("%-11s %-18s %7d %6d %9.2f %9.2f %9.1f %9.1f%n", configuracion, operacion,
+                lista.size(), errores5xx, PruebaCargaTest.percentilMs(nanos, 50), PruebaCargaTest.percentilMs(nanos, 99),
+                throughput, sentenciasPorPeticion));
+        }
+        return resumen;
+    }
+}
@@ -0,0 +1,425 @@
+package com.deportur.carga;
+
+import com.deportur.Application;
+import com.deportur.config.TestConfiguration;
+import com.deportur.model.*;
+import com.deportur.model.enums.*;
+import com.deportur.repository.*;
+import com.deportur.sql.ContadorSentenciasSql;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de carga de extremo a extremo: levanta la aplicación completa sobre H2
+ * (modo PostgreSQL) con el JwtDecoder simulado, siembra un volumen configurable
+ * de datos y lanza una mezcla concurrente de operaciones por HTTP desde hilos virtuales.
+ *
+ * Reporta por operación latencias p50/p95/p99, throughput y sentencias SQL por petición,
+ * en consola y en target/carga-resultado.json. No se ejecuta con "mvn test";
+ * usar "mvn -Pcarga test". Los parámetros están en application-carga.properties.
+ */
+@Tag("carga")
+@SpringBootTest(
+    classes = {Application.class, TestConfiguration.class, PruebaCargaTest.ConfiguracionCarga.class},
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "carga"})
+@DisplayName("Prueba de carga - mezcla concurrente de operaciones")
+class PruebaCargaTest {
+
+    static final String CABECERA_OPERACION = "X-Operacion-Carga";
+
+    private static final String CALENTAMIENTO = "calentamiento";
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private TipoEquipoRepository tipoEquipoRepository;
+
+    @Autowired
+    private DestinoTuristicoRepository destinoRepository;
+
+    @Autowired
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private PoliticaPrecioRepository politicaPrecioRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${carga.destinos}")
+    private int destinos;
+
+    @Value("${carga.equipos-por-destino}")
+    private int equiposPorDestino;
+
+    @Value("${carga.clientes}")
+    private int clientes;
+
+    @Value("${carga.reservas}")
+    private int reservas;
+
+    @Value("${carga.politicas}")
+    private int politicas;
+
+    @Value("${carga.usuarios}")
+    private int usuarios;
+
+    @Value("${carga.operaciones}")
+    private int operaciones;
+
+    @Value("${carga.calentamiento}")
+    private int calentamiento;
+
+    @Value("${carga.mezcla}")
+    private String mezcla;
+
+    /**
+     * Filtro que atribuye a cada operación las sentencias SQL de su petición
+     */
+    @org.springframework.boot.test.context.TestConfiguration
+    static class ConfiguracionCarga {
+
+        @Bean
+        FilterRegistrationBean<OncePerRequestFilter> filtroSentenciasSql() {
+            OncePerRequestFilter filtro = new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                                FilterChain chain) throws ServletException, IOException {
+                    String operacion = request.getHeader(CABECERA_OPERACION);
+                    ContadorSentenciasSql.reiniciar();
+                    try {
+                        chain.doFilter(request, response);
+                    } finally {
+                        if (operacion != null) {
+                            ContadorSentenciasSql.acumular(operacion);
+                        }
+                    }
+                }
+            };
+            FilterRegistrationBean<OncePerRequestFilter> registro = new FilterRegistrationBean<>(filtro);
+            registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registro;
+        }
+    }
+
+    /**
+     * Ids sembrados que usan los generadores de peticiones
+     */
+    private record DatosSembrados(List<Long> idsClientes, List<Long> idsDestinos, Map<Long, List<Long>> equiposPorDestino) {
+    }
+
+    private record Medicion(String operacion, long nanos, int estado) {
+    }
+
+    @Test
+    @DisplayName("Debe atender la mezcla de operaciones sin errores del servidor y reportar métricas")
+    void cargaMixta() throws Exception {
+        DatosSembrados datos = sembrar();
+        Map<String, Integer> pesos = leerMezcla(mezcla);
+        HttpClient cliente = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+        // Calentamiento: JIT, caché de sentencias y pool de conexiones; no se mide
+        ejecutar(cliente, datos, pesos, calentamiento, true);
+        ContadorSentenciasSql.limpiar();
+
+        long inicio = System.nanoTime();
+        List<Medicion> mediciones = ejecutar(cliente, datos, pesos, operaciones, false);
+        long duracionNanos = System.nanoTime() - inicio;
+
+        Map<String, Object> reporte = reportar(mediciones, duracionNanos);
+        escribirReporte(reporte);
+
+        assertEquals(operaciones, mediciones.size());
+        List<Medicion> erroresServidor = mediciones.stream().filter(m -> m.estado() >= 500).toList();
+        assertTrue(erroresServidor.isEmpty(), "Respuestas 5xx: " + erroresServidor.size());
+    }
+
+    private List<Medicion> ejecutar(HttpClient cliente, DatosSembrados datos, Map<String, Integer> pesos,
+                                    int total, boolean calentando) throws Exception {
+        List<Medicion> mediciones = Collections.synchronizedList(new ArrayList<>(total));
+        AtomicInteger restantes = new AtomicInteger(total);
+        List<String> ruleta = construirRuleta(pesos);
+
+        // Modelo cerrado: cada usuario virtual lanza su siguiente petición al recibir la respuesta
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> usuariosVirtuales = new ArrayList<>();
+            for (int u = 0; u < usuarios; u++) {
+                usuariosVirtuales.add(hilos.submit(() -> {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    while (restantes.getAndDecrement() > 0) {
+                        String operacion = ruleta.get(aleatorio.nextInt(ruleta.size()));
+                        HttpRequest peticion = construirPeticion(operacion, datos, aleatorio,
+                            calentando ? CALENTAMIENTO : operacion);
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                        mediciones.add(new Medicion(operacion, System.nanoTime() - t0, respuesta.statusCode()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> usuario : usuariosVirtuales) {
+                usuario.get();
+            }
+        }
+        return mediciones;
+    }
+
+    private HttpRequest construirPeticion(String operacion, DatosSembrados datos, ThreadLocalRandom aleatorio,
+                                          String etiqueta) throws Exception {
+        LocalDate hoy = LocalDate.now();
+        Long idDestino = datos.idsDestinos().get(aleatorio.nextInt(datos.idsDestinos().size()));
+        LocalDate inicio = hoy.plusDays(aleatorio.nextInt(1, 120));
+        LocalDate fin = inicio.plusDays(aleatorio.nextInt(0, 7));
+
+        HttpRequest.Builder peticion = switch (operacion) {
+            case "crear-reserva" -> {
+                List<Long> equipos = datos.equiposPorDestino().get(idDestino);
+                Map<String, Object> cuerpo = new LinkedHashMap<>();
+                cuerpo.put("idCliente", datos.idsClientes().get(aleatorio.nextInt(datos.idsClientes().size())));
+                cuerpo.put("idDestino", idDestino);
+                cuerpo.put("fechaInicio", inicio.toString());
+                cuerpo.put("fechaFin", fin.toString());
+                cuerpo.put("idsEquipos", List.of(equipos.get(aleatorio.nextInt(equipos.size()))));
+                yield HttpRequest.newBuilder(uri("/api/reservas"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(cuerpo)));
+            }
+            case "disponibilidad" -> HttpRequest.newBuilder(uri("/api/equipos/verificar-disponibilidad?destino="
+                + idDestino + "&inicio=" + inicio + "&fin=" + fin)).GET();
+            case "listado-reservas" -> HttpRequest.newBuilder(uri("/api/reservas")).GET();
+            case "dashboard" -> HttpRequest.newBuilder(uri("/api/dashboard/metricas")).GET();
+            case "listado-destinos" -> HttpRequest.newBuilder(uri("/api/destinos")).GET();
+            default -> throw new IllegalArgumentException("Operación de carga desconocida: " + operacion);
+        };
+
+        return peticion
+            .header("Authorization", "Bearer token-carga")
+            .header(CABECERA_OPERACION, etiqueta)
+            .timeout(Duration.ofSeconds(60))
+            .build();
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private DatosSembrados sembrar() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        LocalDate hoy = LocalDate.now();
+
+        List<TipoEquipo> tipos = tipoEquipoRepository.saveAll(List.of(
+            new TipoEquipo(null, "Bicicleta", "Bicicletas de montaña"),
+            new TipoEquipo(null, "Kayak", "Kayaks individuales y dobles"),
+            new TipoEquipo(null, "Parapente", "Equipos de vuelo libre"),
+            new TipoEquipo(null, "Camping", "Carpas y equipo de acampada")));
+
+        List<DestinoTuristico> destinosGuardados = new ArrayList<>();
+        for (int i = 0; i < destinos; i++) {
+            DestinoTuristico destino = new DestinoTuristico();
+            destino.setNombre("Destino " + i);
+            destino.setDepartamento("Departamento " + (i % 32));
+            destino.setCiudad("Ciudad " + i);
+            destino.setLatitud(BigDecimal.valueOf(aleatorio.nextDouble(-4.0, 12.0)).setScale(6, java.math.RoundingMode.HALF_UP));
+            destino.setLongitud(BigDecimal.valueOf(aleatorio.nextDouble(-79.0, -67.0)).setScale(6, java.math.RoundingMode.HALF_UP));
+            destino.setCapacidadMaxima(200);
+            destino.setTipoDestino(TipoDestino.values()[i % TipoDestino.values().length]);
+            destino.setActivo(true);
+            destinosGuardados.add(destino);
+        }
+        destinosGuardados = destinoRepository.saveAll(destinosGuardados);
+
+        List<EquipoDeportivo> equipos = new ArrayList<>();
+        for (DestinoTuristico destino : destinosGuardados) {
+            for (int j = 0; j < equiposPorDestino; j++) {
+                equipos.add(new EquipoDeportivo(null, "Equipo " + destino.getIdDestino() + "-" + j,
+                    tipos.get(j % tipos.size()), "Marca " + (j % 7), EstadoEquipo.BUENO,
+                    BigDecimal.valueOf(aleatorio.nextLong(30_000, 250_000)), hoy.minusYears(1), destino, true));
+            }
+        }
+        equipos = equipoRepository.saveAll(equipos);
+
+        List<Cliente> clientesGuardados = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            clientesGuardados.add(new Cliente(null, "Cliente" + i, "Apellido" + i, String.valueOf(10_000_000L + i),
+                TipoDocumento.CC, "300" + (1_000_000 + i), "cliente" + i + "@example.com", "Calle " + i));
+        }
+        clientesGuardados = clienteRepository.saveAll(clientesGuardados);
+
+        // Cada equipo recibe reservas en ventanas semanales consecutivas, sin solapes
+        EstadoReserva[] estados = {EstadoReserva.PENDIENTE, EstadoReserva.CONFIRMADA, EstadoReserva.CONFIRMADA,
+            EstadoReserva.CANCELADA};
+        List<Reserva> reservasGuardar = new ArrayList<>();
+        for (int i = 0; i < reservas; i++) {
+            EquipoDeportivo equipo = equipos.get(i % equipos.size());
+            LocalDate inicio = hoy.plusDays(1 + 7L * (i / equipos.size()));
+
+            Reserva reserva = new Reserva();
+            reserva.setCliente(clientesGuardados.get(aleatorio.nextInt(clientesGuardados.size())));
+            reserva.setDestino(equipo.getDestino());
+            reserva.setFechaCreacion(LocalDateTime.now().minusDays(aleatorio.nextInt(1, 90)));
+            reserva.setFechaInicio(inicio);
+            reserva.setFechaFin(inicio.plusDays(aleatorio.nextInt(0, 6)));
+            reserva.setEstado(estados[i % estados.length]);
+            reserva.agregarDetalle(new DetalleReserva(null, reserva, equipo, equipo.getPrecioAlquiler()));
+            reserva.actualizarCalculos(reserva.calcularSubtotal(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+            reservasGuardar.add(reserva);
+        }
+        reservaRepository.saveAll(reservasGuardar);
+
+        TipoPolitica[] tiposPolitica = TipoPolitica.values();
+        List<PoliticaPrecio> politicasGuardar = new ArrayList<>();
+        for (int i = 0; i < politicas; i++) {
+            politicasGuardar.add(new PoliticaPrecio("Política " + i, null, tiposPolitica[i % tiposPolitica.length],
+                BigDecimal.valueOf(aleatorio.nextInt(1, 10)), hoy.minusMonths(1), hoy.plusYears(1), true,
+                null, null, null));
+        }
+        politicaPrecioRepository.saveAll(politicasGuardar);
+
+        Map<Long, List<Long>> equiposPorDestinoId = new HashMap<>();
+        for (EquipoDeportivo equipo : equipos) {
+            equiposPorDestinoId.computeIfAbsent(equipo.getDestino().getIdDestino(), id -> new ArrayList<>())
+                .add(equipo.getIdEquipo());
+        }
+
+        return new DatosSembrados(
+            clientesGuardados.stream().map(Cliente::getIdCliente).toList(),
+            destinosGuardados.stream().map(DestinoTuristico::getIdDestino).toList(),
+            equiposPorDestinoId);
+    }
+
+    private Map<String, Object> reportar(List<Medicion> mediciones, long duracionNanos) {
+        Map<String, List<Medicion>> porOperacion = new TreeMap<>();
+        for (Medicion medicion : mediciones) {
+            porOperacion.computeIfAbsent(medicion.operacion(), clave -> new ArrayList<>()).add(medicion);
+        }
+
+        double segundos = duracionNanos / 1e9;
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("fecha", LocalDateTime.now().toString());
+        reporte.put("usuarios", usuarios);
+        reporte.put("operaciones", mediciones.size());
+        reporte.put("duracionSegundos", redondear(segundos));
+        reporte.put("throughputTotal", redondear(mediciones.size() / segundos));
+        reporte.put("datos", Map.of("destinos", destinos, "equiposPorDestino", equiposPorDestino,
+            "clientes", clientes, "reservas", reservas, "politicas", politicas));
+
+        StringBuilder tabla = new StringBuilder(String.format("%n%-18s %7s %6s %6s %9s %9s %9s %9s %10s%n",
+            "operación", "total", "4xx", "5xx", "p50 ms", "p95 ms", "p99 ms", "ops/s", "SQL/pet"));
+        Map<String, Object> operacionesReporte = new LinkedHashMap<>();
+        porOperacion.forEach((operacion, lista) -> {
+            long[] nanos = lista.stream().mapToLong(Medicion::nanos).sorted().toArray();
+            long errores4xx = lista.stream().filter(m -> m.estado() >= 400 && m.estado() < 500).count();
+            long errores5xx = lista.stream().filter(m -> m.estado() >= 500).count();
+            double sentenciasPorPeticion = (double) ContadorSentenciasSql.total(operacion) / lista.size();
+
+            Map<String, Object> detalle = new LinkedHashMap<>();
+            detalle.put("total", lista.size());
+            detalle.put("respuestas4xx", errores4xx);
+            detalle.put("respuestas5xx", errores5xx);
+            detalle.put("p50Ms", percentilMs(nanos, 50));
+            detalle.put("p95Ms", percentilMs(nanos, 95));
+            detalle.put("p99Ms", percentilMs(nanos, 99));
+            detalle.put("throughput", redondear(lista.size() / segundos));
+            detalle.put("sentenciasSqlPorPeticion", redondear(sentenciasPorPeticion));
+            operacionesReporte.put(operacion, detalle);
+
+            tabla.append(String.format("%-18s %7d %6d %6d %9.2f %9.2f %9.2f %9.1f %10.1f%n", operacion, lista.size(),
+                errores4xx, errores5xx, percentilMs(nanos, 50), percentilMs(nanos, 95), percentilMs(nanos, 99),
+                lista.size() / segundos, sentenciasPorPeticion));
+        });
+        reporte.put("porOperacion", operacionesReporte);
+
+        System.out.println(tabla);
+        return reporte;
+    }
+
+    private void escribirReporte(Map<String, Object> reporte) throws IOException {
+        Path destino = Path.of("target", "carga-resultado.json");
+        Files.createDirectories(destino.getParent());
+        Files.write(destino, objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(reporte));
+        System.out.println("Reporte de carga escrito en " + destino.toAbsolutePath());
+    }
+
+    /**
+     * Percentil por rango más cercano sobre latencias ordenadas
+     */
+    static double percentilMs(long[] nanosOrdenados, int percentil) {
+        if (nanosOrdenados.length == 0) {
+            return 0;
+        }
+        int rango = (int) Math.ceil(percentil / 100.0 * nanosOrdenados.length);
+        return redondear(nanosOrdenados[Math.max(0, rango - 1)] / 1e6);
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    static Map<String, Integer> leerMezcla(String mezcla) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String parte : mezcla.split(",")) {
+            String[] claveValor = parte.trim().split(":");
+            int peso = Integer.parseInt(claveValor[1].trim());
+            if (peso > 0) {
+                pesos.put(claveValor[0].trim(), peso);
+            }
+        }
+        if (pesos.isEmpty()) {
+            throw new IllegalArgumentException("carga.mezcla no define ninguna operación");
+        }
+        return pesos;
+    }
+
+    private static List<String> construirRuleta(Map<String, Integer> pesos) {
+        List<String> ruleta = new ArrayList<>();
+        pesos.forEach((operacion, peso) -> ruleta.addAll(Collections.nCopies(peso, operacion)));
+        return ruleta;
+    }
+}
@@ -0,0 +1,59 @@
+package com.deportur.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ArranqueConfig
+ */
+@DisplayName("ArranqueConfig - Pruebas Unitarias")
+class ArranqueConfigTest {
+
+    static class ConfiguracionDiferible {
+    }
+
+    static class ServicioCritico {
+    }
+
+    @Test
+    @DisplayName("Debe diferir solo los beans de los prefijos, también los de métodos @Bean")
+    void testDiferirBeansNoCriticos() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("configuracion", new RootBeanDefinition(ConfiguracionDiferible.class));
+        RootBeanDefinition deMetodo = new RootBeanDefinition();
+        deMetodo.setFactoryBeanName("configuracion");
+        deMetodo.setFactoryMethodName("recurso");
+        beanFactory.registerBeanDefinition("recurso", deMetodo);
+        RootBeanDefinition explicito = new RootBeanDefinition(ConfiguracionDiferible.class);
+        explicito.setLazyInit(false);
+        beanFactory.registerBeanDefinition("explicito", explicito);
+        beanFactory.registerBeanDefinition("critico", new RootBeanDefinition(ServicioCritico.class));
+
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("deportur.arranque.diferir", ConfiguracionDiferible.class.getName() + ",org.springdoc");
+        ArranqueConfig.diferirBeansNoCriticos(environment).postProcessBeanFactory(beanFactory);
+
+        assertTrue(beanFactory.getBeanDefinition("configuracion").isLazyInit());
+        assertTrue(beanFactory.getBeanDefinition("recurso").isLazyInit());
+        // Un @Lazy(false) explícito se respeta
+        assertFalse(beanFactory.getBeanDefinition("explicito").isLazyInit());
+        assertFalse(beanFactory.getBeanDefinition("critico").isLazyInit());
+    }
+
+    @Test
+    @DisplayName("Sin prefijos no debe cambiar ningún bean")
+    void testDiferirBeansNoCriticos_SinPrefijos() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("critico", new RootBeanDefinition(ServicioCritico.class));
+
+        ArranqueConfig.diferirBeansNoCriticos(new MockEnvironment().withProperty("deportur.arranque.diferir", ""))
+            .postProcessBeanFactory(beanFactory);
+
+        assertFalse(beanFactory.getBeanDefinition("critico").isLazyInit());
+    }
+}
@@ -0,0 +1,108 @@
+package com.deportur.config;
+
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ClavesJwks
+ */
+@DisplayName("ClavesJwks - Pruebas Unitarias")
+class ClavesJwksTest {
+
+    @TempDir
+    Path directorio;
+
+    private HttpServer auth0;
+
+    @AfterEach
+    void tearDown() {
+        if (auth0 != null) {
+            auth0.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe arrancar con las claves del archivo local sin descargar nada")
+    void testIniciar_ArchivoLocal() throws Exception {
+        RSAKey clave = new RSAKeyGenerator(2048).keyID("k1").generate();
+        Path archivo = directorio.resolve("jwks.json");
+        Files.writeString(archivo, new JWKSet(clave).toString(true));
+
+        ClavesJwks claves = nuevas(archivo, "");
+
+        assertEquals(1, claves.get(new JWKSelector(new JWKMatcher.Builder().keyID("k1").build()), null).size());
+        assertTrue(claves.get(new JWKSelector(new JWKMatcher.Builder().keyID("otra").build()), null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Si la descarga falla debe conservar las claves que ya tenía")
+    void testRefrescar_FalloConservaClaves() throws Exception {
+        RSAKey clave = new RSAKeyGenerator(2048).keyID("k1").generate();
+        Path archivo = directorio.resolve("jwks.json");
+        Files.writeString(archivo, new JWKSet(clave).toString(true));
+        ClavesJwks claves = nuevas(archivo, servir(503, "caído"));
+
+        claves.refrescar();
+
+        assertEquals(1, claves.get(new JWKSelector(new JWKMatcher.Builder().keyID("k1").build()), null).size());
+        assertEquals(new JWKSet(clave).toString(true), Files.readString(archivo));
+    }
+
+    @Test
+    @DisplayName("Debe descargar el JWKS y dejarlo en el archivo local para el siguiente arranque")
+    void testRefrescar_GuardaArchivo() throws Exception {
+        RSAKey clave = new RSAKeyGenerator(2048).keyID("k2").generate();
+        Path archivo = directorio.resolve("local/jwks.json");
+        ClavesJwks claves = nuevas(archivo, servir(200, new JWKSet(clave).toString(false)));
+
+        claves.refrescar();
+
+        assertEquals(1, claves.get(new JWKSelector(new JWKMatcher.Builder().keyID("k2").build()), null).size());
+        JWKSet guardado = JWKSet.load(archivo.toFile());
+        assertEquals("k2", guardado.getKeys().get(0).getKeyID());
+        // Solo la parte pública
+        assertFalse(guardado.getKeys().get(0).isPrivate());
+    }
+
+    /**
+     * Servidor HTTP local que responde siempre el mismo JWKS (o error)
+     */
+    private String servir(int estado, String cuerpo) throws Exception {
+        auth0 = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        auth0.createContext("/.well-known/jwks.json", intercambio -> {
+            byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(estado, bytes.length);
+            intercambio.getResponseBody().write(bytes);
+            intercambio.close();
+        });
+        auth0.start();
+        return "http://127.0.0.1:" + auth0.getAddress().getPort() + "/.well-known/jwks.json";
+    }
+
+    private static ClavesJwks nuevas(Path archivo, String uri) {
+        ClavesJwks claves = new ClavesJwks();
+        ReflectionTestUtils.setField(claves, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(claves, "archivo", archivo.toString());
+        ReflectionTestUtils.setField(claves, "uri", uri);
+        claves.iniciar();
+        return claves;
+    }
+}
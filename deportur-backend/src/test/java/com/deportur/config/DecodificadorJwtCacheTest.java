@@ -0,0 +1,105 @@
+package com.deportur.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para DecodificadorJwtCache
+ */
+@DisplayName("DecodificadorJwtCache - Pruebas Unitarias")
+class DecodificadorJwtCacheTest {
+
+    private final Instant ahora = Instant.parse("2026-01-10T12:00:00Z");
+
+    private JwtDecoder delegado;
+    private Clock reloj;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        delegado = mock(JwtDecoder.class);
+        reloj = mock(Clock.class);
+        when(reloj.instant()).thenReturn(ahora);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Un token ya validado no debe volver a pasar por el delegado")
+    void testDecode_TokenRepetido() {
+        when(delegado.decode("t1")).thenReturn(jwt("t1", ahora.plusSeconds(600)));
+        DecodificadorJwtCache decodificador = new DecodificadorJwtCache(delegado, 100, reloj, meterRegistry);
+
+        Jwt primero = decodificador.decode("t1");
+        Jwt segundo = decodificador.decode("t1");
+
+        assertSame(primero, segundo);
+        verify(delegado, times(1)).decode("t1");
+        assertEquals(1.0, meterRegistry.counter("deportur.jwt.cache", "resultado", "acierto").count());
+    }
+
+    @Test
+    @DisplayName("Vencido el exp, el token debe validarse otra vez")
+    void testDecode_TokenVencido() {
+        when(delegado.decode("t1")).thenReturn(jwt("t1", ahora.plusSeconds(60)));
+        DecodificadorJwtCache decodificador = new DecodificadorJwtCache(delegado, 100, reloj, meterRegistry);
+        decodificador.decode("t1");
+
+        when(reloj.instant()).thenReturn(ahora.plusSeconds(61));
+        when(delegado.decode("t1")).thenThrow(new BadJwtException("Jwt expired"));
+
+        assertThrows(BadJwtException.class, () -> decodificador.decode("t1"));
+        verify(delegado, times(2)).decode("t1");
+    }
+
+    @Test
+    @DisplayName("Un token inválido no debe guardarse")
+    void testDecode_TokenInvalido() {
+        when(delegado.decode("malo")).thenThrow(new BadJwtException("Signed JWT rejected"));
+        DecodificadorJwtCache decodificador = new DecodificadorJwtCache(delegado, 100, reloj, meterRegistry);
+
+        assertThrows(BadJwtException.class, () -> decodificador.decode("malo"));
+        assertThrows(BadJwtException.class, () -> decodificador.decode("malo"));
+        verify(delegado, times(2)).decode("malo");
+    }
+
+    @Test
+    @DisplayName("Con la caché llena debe descartar el token usado hace más tiempo")
+    void testDecode_Capacidad() {
+        for (String token : new String[] {"a", "b", "c"}) {
+            when(delegado.decode(token)).thenReturn(jwt(token, ahora.plusSeconds(600)));
+        }
+        DecodificadorJwtCache decodificador = new DecodificadorJwtCache(delegado, 2, reloj, meterRegistry);
+
+        decodificador.decode("a");
+        decodificador.decode("b");
+        decodificador.decode("a");
+        decodificador.decode("c");
+        decodificador.decode("a");
+        decodificador.decode("b");
+
+        verify(delegado, times(1)).decode("a");
+        verify(delegado, times(2)).decode("b");
+        verify(delegado, times(1)).decode("c");
+    }
+
+    private Jwt jwt(String token, Instant expira) {
+        return Jwt.withTokenValue(token)
+            .header("alg", "RS256")
+            .subject("auth0|usuario")
+            .issuedAt(ahora.minusSeconds(60))
+            .expiresAt(expira)
+            .build();
+    }
+}
@@ -0,0 +1,204 @@
+package com.deportur.config;
+
+import com.deportur.Application;
+import com.deportur.model.Cliente;
+import com.deportur.model.enums.TipoDocumento;
+import com.deportur.repository.ClienteRepository;
+import com.deportur.service.BloqueoEquipoService;
+import com.deportur.service.ClienteService;
+import com.deportur.service.LecturasParalelas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enrutamiento a réplicas de lectura con dos bases H2: "primario" y "replica".
+ * La réplica solo recibe datos cuando la prueba llama a replicar(), así cada lectura
+ * muestra de qué base salió.
+ */
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles({"test", "replicas"})
+@DisplayName("Réplicas de lectura - enrutamiento con dos H2")
+class EnrutamientoReplicasTest {
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private BloqueoEquipoService bloqueoEquipoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LecturasParalelas lecturasParalelas;
+
+    private EnrutadorReplicasDataSource enrutador;
+
+    private Cliente sinReplicar;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        enrutador = dataSource.unwrap(EnrutadorReplicasDataSource.class);
+        SecurityContextHolder.clearContext();
+
+        clienteRepository.deleteAll();
+        clienteRepository.save(cliente("1000000001"));
+        replicar();
+
+        // Escritura que la réplica todavía no tiene
+        sinReplicar = clienteRepository.save(cliente("1000000002"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Debe leer de la réplica en transacciones de solo lectura")
+    void testSoloLectura_VaALaReplica() {
+        assertEquals(1, clienteService.listarTodosLosClientes().size());
+        assertEquals(1, clienteRepository.count());
+    }
+
+    @Test
+    @DisplayName("Debe leer del primario en transacciones de escritura")
+    void testEscritura_VaAlPrimario() {
+        TransactionTemplate escritura = new TransactionTemplate(transactionManager);
+
+        Long total = escritura.execute(estado -> clienteRepository.count());
+
+        assertEquals(2L, total);
+    }
+
+    @Test
+    @DisplayName("Debe mandar al primario las lecturas del usuario que acaba de escribir")
+    void testGuardaRetraso_MismoUsuarioLeeDelPrimario() {
+        autenticar("ana");
+        clienteRepository.save(cliente("1000000003"));
+
+        assertEquals(3, clienteService.listarTodosLosClientes().size());
+
+        // Otro usuario no escribió nada: sigue leyendo de la réplica, que no se ha puesto al día
+        autenticar("luis");
+        assertEquals(1, clienteService.listarTodosLosClientes().size());
+    }
+
+    @Test
+    @DisplayName("Debe leer del primario con enPrimario aunque la transacción sea de solo lectura")
+    void testEnPrimario_FilaQueLaReplicaNoTiene() throws Exception {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        Boolean enReplica = lectura.execute(estado -> clienteRepository.existsById(sinReplicar.getIdCliente()));
+        Boolean enPrimario = EnrutadorReplicasDataSource.enPrimario(
+            () -> lectura.execute(estado -> clienteRepository.existsById(sinReplicar.getIdCliente())));
+
+        assertEquals(Boolean.FALSE, enReplica);
+        assertEquals(Boolean.TRUE, enPrimario);
+    }
+
+    @Test
+    @DisplayName("enPrimario no cambia de pool una transacción que ya leyó; sí alrededor de la tarea de LecturasParalelas")
+    void testEnPrimario_SoloEnElLimiteDeLaTransaccion() throws Exception {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        Boolean dentro = lectura.execute(estado -> {
+            clienteRepository.count();
+            try {
+                return EnrutadorReplicasDataSource.enPrimario(
+                    () -> clienteRepository.existsById(sinReplicar.getIdCliente()));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(Boolean.FALSE, dentro);
+
+        Boolean enTarea;
+        try (LecturasParalelas.Grupo grupo = lecturasParalelas.grupo()) {
+            LecturasParalelas.Lectura<Boolean> existe = grupo.leer(() -> EnrutadorReplicasDataSource.enPrimario(
+                () -> clienteRepository.count() > 0 && clienteRepository.existsById(sinReplicar.getIdCliente())));
+            grupo.esperar();
+            enTarea = existe.obtener();
+        }
+        assertEquals(Boolean.TRUE, enTarea);
+    }
+
+    @Test
+    @DisplayName("Las comprobaciones de un bloqueo deben ver en el primario una fila que la réplica no tiene")
+    void testBloquear_CompruebaEnElPrimario() {
+        LocalDate inicio = LocalDate.now().plusDays(10);
+
+        // Si el cliente se buscara en la réplica fallaría con "El cliente seleccionado no existe"
+        Exception exception = assertThrows(Exception.class, () -> bloqueoEquipoService.bloquear(
+            sinReplicar.getIdCliente(), inicio, inicio.plusDays(2), List.of(999_999L)));
+
+        assertEquals("El equipo seleccionado no existe", exception.getMessage());
+    }
+
+    /**
+     * Copia el primario a la réplica, como si la replicación se hubiera puesto al día
+     */
+    private void replicar() throws Exception {
+        Path script = Files.createTempFile("replica", ".sql");
+        String ruta = script.toAbsolutePath().toString().replace('\\', '/');
+        try (Connection primario = enrutador.getPrimario().getConnection();
+             Statement sentencia = primario.createStatement()) {
+            sentencia.execute("SCRIPT TO '" + ruta + "'");
+        }
+        try (Connection replica = enrutador.getReplicas().get(0).getConnection();
+             Statement sentencia = replica.createStatement()) {
+            sentencia.execute("DROP ALL OBJECTS");
+            sentencia.execute("RUNSCRIPT FROM '" + ruta + "'");
+        } finally {
+            Files.deleteIfExists(script);
+        }
+        try (Connection replica = enrutador.getReplicas().get(0).getConnection();
+             Statement sentencia = replica.createStatement();
+             ResultSet filas = sentencia.executeQuery("SELECT COUNT(*) FROM cliente")) {
+            assertTrue(filas.next());
+        }
+    }
+
+    private static void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new TestingAuthenticationToken(usuario, null, "ROLE_ADMIN"));
+    }
+
+    private static Cliente cliente(String documento) {
+        return new Cliente(null, "Cliente", "Réplica", documento, TipoDocumento.CC,
+            "3000000000", documento + "@example.com", "Calle 1");
+    }
+}
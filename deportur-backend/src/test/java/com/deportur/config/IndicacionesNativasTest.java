@@ -0,0 +1,50 @@
+package com.deportur.config;
+
+import com.deportur.dto.request.CrearReservaRequest;
+import com.deportur.dto.response.DisponibilidadResponse;
+import com.deportur.model.Reserva;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.service.EscritorHistorialReservas;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para IndicacionesNativas
+ */
+@DisplayName("IndicacionesNativas - Pruebas Unitarias")
+class IndicacionesNativasTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    @DisplayName("Debe registrar entidades, enums, DTOs y registros del historial")
+    void testRegisterHints() {
+        new IndicacionesNativas().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Reserva.class)
+            .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+            .test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(EstadoReserva.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(CrearReservaRequest.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(DisponibilidadResponse.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(EscritorHistorialReservas.Registro.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource()
+            .forResource("META-INF/resources/webjars/swagger-ui/4.18.2/index.html").test(hints));
+    }
+
+    @Test
+    @DisplayName("Debe encontrar las clases del paquete y sus subpaquetes")
+    void testClases() {
+        List<Class<?>> clases = IndicacionesNativas.clases(IndicacionesNativas.PAQUETE_MODELO, getClass().getClassLoader());
+
+        assertTrue(clases.contains(Reserva.class));
+        assertTrue(clases.contains(EstadoReserva.class));
+    }
+}
@@ -0,0 +1,114 @@
+package com.deportur.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para LimitadorConexionesBd
+ */
+@DisplayName("LimitadorConexionesBd - Pruebas Unitarias")
+class LimitadorConexionesBdTest {
+
+    @Test
+    @DisplayName("Debe ocupar un permiso por conexión abierta y devolverlo una sola vez al cerrar")
+    void testPermisos_AbrirYCerrar() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocacion -> mock(Connection.class));
+        LimitadorConexionesBd limitador = new LimitadorConexionesBd(2, 50);
+        DataSource envuelto = limitador.envolver(dataSource);
+
+        Connection primera = envuelto.getConnection();
+        Connection segunda = envuelto.getConnection();
+        assertEquals(0, limitador.permisosDisponibles());
+
+        primera.close();
+        primera.close();
+        assertEquals(1, limitador.permisosDisponibles());
+
+        segunda.close();
+        assertEquals(2, limitador.permisosDisponibles());
+    }
+
+    @Test
+    @DisplayName("Debe fallar con SQLTransientConnectionException cuando no hay permisos en el tiempo de espera")
+    void testPermisos_EsperaAgotada() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocacion -> mock(Connection.class));
+        LimitadorConexionesBd limitador = new LimitadorConexionesBd(1, 20);
+        DataSource envuelto = limitador.envolver(dataSource);
+
+        try (Connection ocupada = envuelto.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, envuelto::getConnection);
+        }
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    @DisplayName("Debe devolver el permiso si el pool no entrega la conexión")
+    void testPermisos_ErrorDelPool() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("pool agotado"));
+        LimitadorConexionesBd limitador = new LimitadorConexionesBd(1, 20);
+        DataSource envuelto = limitador.envolver(dataSource);
+
+        SQLException error = assertThrows(SQLException.class, envuelto::getConnection);
+
+        assertEquals("pool agotado", error.getMessage());
+        assertEquals(1, limitador.permisosDisponibles());
+    }
+
+    @Test
+    @DisplayName("Debe poder recuperarse desde el DataSource envuelto y contar los hilos en espera")
+    void testDe_HilosEnEspera() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocacion -> mock(Connection.class));
+        LimitadorConexionesBd limitador = new LimitadorConexionesBd(1, 5_000);
+        DataSource envuelto = limitador.envolver(dataSource);
+
+        assertSame(limitador, LimitadorConexionesBd.de(envuelto).orElseThrow());
+        assertTrue(LimitadorConexionesBd.de(dataSource).isEmpty());
+
+        try (Connection ocupada = envuelto.getConnection()) {
+            Thread esperando = Thread.ofVirtual().start(() -> {
+                try (Connection conexion = envuelto.getConnection()) {
+                    // Solo espera su turno
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            while (limitador.hilosEnEspera() == 0) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, limitador.hilosEnEspera());
+            ocupada.close();
+            esperando.join();
+        }
+        assertEquals(0, limitador.hilosEnEspera());
+    }
+
+    @Test
+    @DisplayName("Debe usar el tamaño por defecto de Hikari si el DataSource no es Hikari")
+    void testTamanoPool_SinHikari() {
+        assertEquals(LimitadorConexionesBd.POOL_POR_DEFECTO, LimitadorConexionesBd.tamanoPool(mock(DataSource.class)));
+    }
+
+    @Test
+    @DisplayName("Debe usar el tamaño por defecto de Hikari si el pool no tiene tamaño todavía")
+    void testTamanoPool_SinInicializar() {
+        try (HikariDataSource pool = new HikariDataSource()) {
+            assertEquals(LimitadorConexionesBd.POOL_POR_DEFECTO, LimitadorConexionesBd.tamanoPool(pool));
+
+            pool.setMaximumPoolSize(4);
+            assertEquals(4, LimitadorConexionesBd.tamanoPool(pool));
+        }
+    }
+}
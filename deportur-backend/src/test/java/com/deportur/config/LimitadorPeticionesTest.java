@@ -0,0 +1,185 @@
+package com.deportur.config;
+
+import com.deportur.config.LimitadorPeticiones.Decision;
+import com.deportur.config.LimitadorPeticiones.Grupo;
+import com.deportur.config.LimitadorPeticiones.NivelCarga;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para LimitadorPeticiones
+ */
+@DisplayName("LimitadorPeticiones - Pruebas Unitarias")
+class LimitadorPeticionesTest {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    private MeterRegistry meterRegistry;
+    private LimitadorPeticiones limitador;
+    private final AtomicInteger enEspera = new AtomicInteger();
+    private final AtomicInteger enEsperaLimitador = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Gauge.builder("hikaricp.connections.pending", enEspera, AtomicInteger::get)
+            .tags(Tags.of("pool", "deportur-primario"))
+            .register(meterRegistry);
+        Gauge.builder("deportur.bd.hilos-en-espera", enEsperaLimitador, AtomicInteger::get)
+            .register(meterRegistry);
+
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("deportur.limites.reservas.por-segundo", "2")
+            .withProperty("deportur.limites.reservas.rafaga", "4");
+        limitador = new LimitadorPeticiones();
+        ReflectionTestUtils.setField(limitador, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(limitador, "environment", environment);
+        limitador.iniciar();
+    }
+
+    @Test
+    @DisplayName("Pasada la ráfaga debe responder 429 solo a ese usuario")
+    void testEvaluar_Rafaga() {
+        long ahora = 0;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limitador.evaluar("auth0|a", Grupo.RESERVAS, ahora).permitida());
+        }
+
+        Decision rechazo = limitador.evaluar("auth0|a", Grupo.RESERVAS, ahora);
+        assertFalse(rechazo.permitida());
+        assertEquals(429, rechazo.codigo());
+        assertEquals(1, rechazo.reintentarSegundos());
+
+        assertTrue(limitador.evaluar("auth0|b", Grupo.RESERVAS, ahora).permitida());
+        // Otro grupo del mismo usuario tiene su propio cubo
+        assertTrue(limitador.evaluar("auth0|a", Grupo.GENERAL, ahora).permitida());
+        assertEquals(1.0, meterRegistry.counter("deportur.limites.rechazos",
+            "grupo", "reservas", "motivo", "limite").count());
+    }
+
+    @Test
+    @DisplayName("El cubo debe recuperar un token cada 1/por-segundo")
+    void testEvaluar_Recarga() {
+        for (int i = 0; i < 4; i++) {
+            limitador.evaluar("auth0|a", Grupo.RESERVAS, 0);
+        }
+        assertFalse(limitador.evaluar("auth0|a", Grupo.RESERVAS, SEGUNDO / 4).permitida());
+
+        assertTrue(limitador.evaluar("auth0|a", Grupo.RESERVAS, SEGUNDO / 2).permitida());
+        assertFalse(limitador.evaluar("auth0|a", Grupo.RESERVAS, SEGUNDO / 2).permitida());
+        // Dos segundos sin peticiones llenan el cubo otra vez
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limitador.evaluar("auth0|a", Grupo.RESERVAS, 3 * SEGUNDO).permitida());
+        }
+    }
+
+    @Test
+    @DisplayName("Con peticiones concurrentes no debe dejar pasar más que la ráfaga")
+    void testEvaluar_Concurrente() throws Exception {
+        AtomicInteger permitidas = new AtomicInteger();
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Void>> tareas = new ArrayList<>();
+            for (int h = 0; h < 8; h++) {
+                tareas.add(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (limitador.evaluar("auth0|a", Grupo.RESERVAS, 0).permitida()) {
+                            permitidas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> tarea : hilos.invokeAll(tareas)) {
+                tarea.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        assertEquals(4, permitidas.get());
+    }
+
+    @Test
+    @DisplayName("Al llegar a max-cubos debe descartar los cubos llenos")
+    void testEvaluar_MaxCubos() {
+        ReflectionTestUtils.setField(limitador, "maxCubos", 2);
+        limitador.evaluar("auth0|a", Grupo.RESERVAS, 0);
+        limitador.evaluar("auth0|b", Grupo.RESERVAS, 0);
+
+        limitador.evaluar("auth0|c", Grupo.RESERVAS, 10 * SEGUNDO);
+
+        Map<?, ?> cubos = (Map<?, ?>) ReflectionTestUtils.getField(limitador, "cubos");
+        assertEquals(1, cubos.size());
+        assertTrue(cubos.containsKey("reservas:auth0|c"));
+    }
+
+    @Test
+    @DisplayName("Con el pool saturado debe rechazar con 503 primero lo que no son reservas")
+    void testEvaluarCarga_Descarte() {
+        enEspera.set(25);
+        limitador.evaluarCarga();
+
+        assertEquals(NivelCarga.ALTA, limitador.getNivel());
+        Decision disponibilidad = limitador.evaluar("auth0|a", Grupo.DISPONIBILIDAD, 0);
+        assertEquals(503, disponibilidad.codigo());
+        assertTrue(limitador.evaluar("auth0|a", Grupo.RESERVAS, 0).permitida());
+
+        enEspera.set(45);
+        limitador.evaluarCarga();
+        assertEquals(NivelCarga.CRITICA, limitador.getNivel());
+        assertEquals(503, limitador.evaluar("auth0|a", Grupo.RESERVAS, 0).codigo());
+
+        // Histéresis: baja de nivel solo por debajo del 80 % del umbral
+        enEspera.set(35);
+        limitador.evaluarCarga();
+        assertEquals(NivelCarga.CRITICA, limitador.getNivel());
+        enEspera.set(18);
+        limitador.evaluarCarga();
+        assertEquals(NivelCarga.ALTA, limitador.getNivel());
+        enEspera.set(5);
+        limitador.evaluarCarga();
+        assertEquals(NivelCarga.NORMAL, limitador.getNivel());
+        assertEquals(0.0, meterRegistry.get("deportur.carga.nivel").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Debe sumar a la cola de Hikari los hilos que esperan en LimitadorConexionesBd")
+    void testEvaluarCarga_EsperaEnLimitador() {
+        // Con hilos virtuales la cola se forma en el semáforo y Hikari casi no tiene pendientes
+        enEspera.set(1);
+        enEsperaLimitador.set(24);
+        limitador.evaluarCarga();
+
+        assertEquals(NivelCarga.ALTA, limitador.getNivel());
+        assertEquals(25.0, meterRegistry.get("deportur.carga.conexiones-en-espera").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Debe clasificar las rutas en su grupo")
+    void testGrupo() {
+        assertEquals(Grupo.RESERVAS, Grupo.de("/api/reservas/lote"));
+        assertEquals(Grupo.DISPONIBILIDAD, Grupo.de("/api/equipos/disponibles"));
+        assertEquals(Grupo.DISPONIBILIDAD, Grupo.de("/api/equipos/verificar-disponibilidad"));
+        assertEquals(Grupo.GENERAL, Grupo.de("/api/equipos/3"));
+    }
+}
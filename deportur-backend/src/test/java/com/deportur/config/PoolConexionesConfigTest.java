@@ -0,0 +1,61 @@
+package com.deportur.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para PoolConexionesConfig
+ */
+@DisplayName("PoolConexionesConfig - Pruebas Unitarias")
+class PoolConexionesConfigTest {
+
+    @Test
+    @DisplayName("Debe crecer con los núcleos y con la latencia, dentro de mínimo y máximo")
+    void testTamano() {
+        assertEquals(14, PoolConexionesConfig.tamano(2, 30, 5, 4, 40));
+        assertEquals(28, PoolConexionesConfig.tamano(4, 30, 5, 4, 40));
+        // Base local: casi sin espera de red, una conexión por núcleo
+        assertEquals(4, PoolConexionesConfig.tamano(2, 0, 5, 4, 40));
+        assertEquals(40, PoolConexionesConfig.tamano(16, 30, 5, 4, 40));
+    }
+
+    @Test
+    @DisplayName("Debe calcular el tamaño solo si está activado y maximum-pool-size no es mayor que 0")
+    void testTamanoCalculado() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("deportur.bd.pool.automatico", "true")
+            .withProperty("deportur.bd.pool.nucleos", "2")
+            .withProperty("deportur.bd.pool.latencia-ms", "30")
+            .withProperty("deportur.bd.pool.consulta-ms", "5");
+        assertEquals(14, PoolConexionesConfig.tamanoCalculado(environment));
+
+        environment.setProperty("spring.datasource.hikari.maximum-pool-size", "0");
+        assertEquals(14, PoolConexionesConfig.tamanoCalculado(environment));
+
+        environment.setProperty("spring.datasource.hikari.maximum-pool-size", "10");
+        assertEquals(0, PoolConexionesConfig.tamanoCalculado(environment));
+
+        assertEquals(0, PoolConexionesConfig.tamanoCalculado(new MockEnvironment()));
+    }
+
+    @Test
+    @DisplayName("Debe aplicar el tamaño al pool de Hikari antes de inicializarlo")
+    void testDimensionarPool() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("deportur.bd.pool.automatico", "true")
+            .withProperty("deportur.bd.pool.nucleos", "3")
+            .withProperty("deportur.bd.pool.latencia-ms", "20")
+            .withProperty("deportur.bd.pool.consulta-ms", "5");
+        try (HikariDataSource pool = new HikariDataSource()) {
+            Object resultado = PoolConexionesConfig.dimensionarPoolPostProcessor(environment)
+                .postProcessBeforeInitialization(pool, "dataSource");
+
+            assertSame(pool, resultado);
+            assertEquals(15, pool.getMaximumPoolSize());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.deportur.config;
+
+import com.deportur.Application;
+import com.deportur.repository.ClienteRepository;
+import com.deportur.service.LecturasParalelas;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arranque sin spring.datasource.hikari.maximum-pool-size ni pool automático (perfiles por defecto,
+ * dev y test): el límite de conexiones y las lecturas paralelas usan el tamaño por defecto de Hikari
+ */
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("test")
+@DisplayName("Pool sin tamaño configurado - arranque")
+class PoolSinTamanoTest {
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private LecturasParalelas lecturasParalelas;
+
+    @Test
+    @DisplayName("Debe limitar las conexiones al tamaño por defecto y poder abrirlas")
+    void testArranque_SinTamanoDePool() throws Exception {
+        assertEquals(LimitadorConexionesBd.POOL_POR_DEFECTO, LimitadorConexionesBd.tamanoPool(dataSource));
+
+        try (Connection conexion = dataSource.getConnection()) {
+            assertTrue(conexion.isValid(1));
+        }
+        assertTrue(clienteRepository.count() >= 0);
+
+        Semaphore cupos = (Semaphore) ReflectionTestUtils.getField(lecturasParalelas, "cupos");
+        assertEquals(LimitadorConexionesBd.POOL_POR_DEFECTO / 2, cupos.availablePermits());
+    }
+}
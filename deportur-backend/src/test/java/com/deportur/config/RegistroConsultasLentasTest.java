@@ -0,0 +1,94 @@
+package com.deportur.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para RegistroConsultasLentas
+ * Verifica el enmascarado de parámetros y que los proxies JDBC deleguen sin alterar resultados
+ */
+@DisplayName("RegistroConsultasLentas - Pruebas Unitarias")
+class RegistroConsultasLentasTest {
+
+    @Test
+    @DisplayName("Debe enmascarar las columnas de cliente en un insert y conservar números y fechas")
+    void testParametros_InsertCliente() {
+        String sql = "insert into cliente (apellido,documento,fecha_registro,numero_reservas,version) values (?,?,?,?,?)";
+        Object[] parametros = {"Gómez", "111222333", LocalDate.of(2025, 1, 10), 3, 0L};
+
+        List<Object> valores = RegistroConsultasLentas.parametrosParaLog(sql, parametros, 5);
+
+        assertEquals(List.of(RegistroConsultasLentas.ENMASCARADO, RegistroConsultasLentas.ENMASCARADO,
+            "2025-01-10", 3, 0L), valores);
+    }
+
+    @Test
+    @DisplayName("Debe enmascarar los textos sin columna reconocible cuando la sentencia toca cliente")
+    void testParametros_ConsultaCliente() {
+        String sql = "select c1_0.id_cliente from cliente c1_0 where c1_0.documento=? or lower(c1_0.nombre) like ?"
+            + " and c1_0.tipo_documento=?";
+        Object[] parametros = {"111222333", "%laura%", "CC"};
+
+        List<Object> valores = RegistroConsultasLentas.parametrosParaLog(sql, parametros, 3);
+
+        assertEquals(List.of(RegistroConsultasLentas.ENMASCARADO, RegistroConsultasLentas.ENMASCARADO, "CC"), valores);
+    }
+
+    @Test
+    @DisplayName("No debe enmascarar sentencias que no tocan la tabla cliente")
+    void testParametros_SinCliente() {
+        String sql = "select d1_0.id_destino from destino_turistico d1_0 where d1_0.nombre like ?";
+
+        List<Object> valores = RegistroConsultasLentas.parametrosParaLog(sql, new Object[] {"%playa%"}, 1);
+
+        assertEquals(List.of("%playa%"), valores);
+    }
+
+    @Test
+    @DisplayName("Debe delegar las ejecuciones y conservar la identidad de los proxies")
+    void testEnvolver_Delegacion() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection conexion = mock(Connection.class);
+        PreparedStatement sentencia = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(conexion);
+        when(conexion.prepareStatement("update reserva set estado=? where id_reserva=?")).thenReturn(sentencia);
+        when(sentencia.executeUpdate()).thenReturn(1);
+
+        // Umbral cero: toda ejecución se registra, así se recorre también la ruta del log
+        RegistroConsultasLentas registro = new RegistroConsultasLentas(0, 0);
+        DataSource envuelto = registro.envolver(dataSource);
+
+        try (Connection c = envuelto.getConnection();
+             PreparedStatement ps = c.prepareStatement("update reserva set estado=? where id_reserva=?")) {
+            ps.setString(1, "CANCELADA");
+            ps.setLong(2, 7L);
+            assertEquals(1, ps.executeUpdate());
+        }
+
+        assertEquals(envuelto, envuelto);
+        assertEquals(System.identityHashCode(envuelto), envuelto.hashCode());
+        verify(sentencia).setString(1, "CANCELADA");
+        verify(sentencia).setLong(2, 7L);
+        verify(sentencia).close();
+        verify(conexion).close();
+    }
+
+    @Test
+    @DisplayName("Solo debe registrar por umbral cuando el muestreo está apagado")
+    void testDebeRegistrar_Umbral() {
+        RegistroConsultasLentas registro = new RegistroConsultasLentas(100, 0);
+
+        assertTrue(registro.debeRegistrar(TimeUnit.MILLISECONDS.toNanos(150)));
+        assertFalse(registro.debeRegistrar(TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.deportur.controller;
 
 import com.deportur.dto.request.CrearClienteRequest;
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.Cliente;
 import com.deportur.model.enums.TipoDocumento;
 import com.deportur.service.ClienteService;
@@ -17,11 +18,14 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -29,6 +33,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -139,6 +144,44 @@ class ClienteControllerTest {
         verify(clienteService).actualizarCliente(eq(1L), any(Cliente.class));
     }
 
+    @Test
+    @DisplayName("GET /api/clientes/{id} debe incluir el ETag de la versión")
+    void buscarClientePorId_incluyeEtag() throws Exception {
+        clienteRegistrado.setVersion(3L);
+        when(clienteService.buscarClientePorId(1L)).thenReturn(clienteRegistrado);
+
+        mockMvc.perform(get("/api/clientes/{id}", 1L))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    @DisplayName("GET /api/clientes/{id} debe retornar 304 sin cargar el cliente si el ETag sigue vigente")
+    void buscarClientePorId_etagVigenteDevuelve304() throws Exception {
+        when(clienteService.buscarVersion(1L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(get("/api/clientes/{id}", 1L).header("If-None-Match", "\"3\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", "\"3\""));
+
+        verify(clienteService, never()).buscarClientePorId(any());
+    }
+
+    @Test
+    @DisplayName("PUT /api/clientes/{id} debe enviar la versión de If-Match y retornar 412 si cambió")
+    void actualizarCliente_versionObsoletaDevuelve412() throws Exception {
+        when(clienteService.actualizarCliente(eq(1L), any(Cliente.class)))
+            .thenThrow(new PrecondicionFallidaException("El registro fue modificado por otro usuario"));
+
+        mockMvc.perform(put("/api/clientes/{id}", 1L)
+                .header("If-Match", "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(crearClienteRequest)))
+            .andExpect(status().isPreconditionFailed());
+
+        verify(clienteService).actualizarCliente(eq(1L), argThat(cliente -> Long.valueOf(2L).equals(cliente.getVersion())));
+    }
+
     @Test
     @DisplayName("DELETE /api/clientes/{id} debe retornar 204 cuando el servicio elimina el recurso")
     void eliminarCliente_devuelve204() throws Exception {
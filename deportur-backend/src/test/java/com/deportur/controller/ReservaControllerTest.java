@@ -1,11 +1,17 @@
 package com.deportur.controller;
 
+import com.deportur.dto.request.CrearBloqueoRequest;
 import com.deportur.dto.request.CrearReservaRequest;
 import com.deportur.dto.response.ReservaListResponse;
+import com.deportur.dto.response.ResultadoLoteReservasResponse;
 import com.deportur.model.Cliente;
 import com.deportur.model.Reserva;
 import com.deportur.model.enums.EstadoReserva;
+import com.deportur.model.enums.ModoLoteReserva;
 import com.deportur.model.enums.TipoDocumento;
+import com.deportur.service.BloqueoEquipoService;
+import com.deportur.service.IdempotenciaService;
+import com.deportur.service.ReservaLoteService;
 import com.deportur.service.ReservaService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -23,16 +30,24 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -50,6 +65,15 @@ class ReservaControllerTest {
     @MockBean
     private ReservaService reservaService;
 
+    @MockBean
+    private BloqueoEquipoService bloqueoEquipoService;
+
+    @MockBean
+    private IdempotenciaService idempotenciaService;
+
+    @MockBean
+    private ReservaLoteService reservaLoteService;
+
     @MockBean
     private JwtDecoder jwtDecoder;
 
@@ -109,7 +133,8 @@ class ReservaControllerTest {
             eq(LocalDate.of(2025, 10, 15)),
             eq(LocalDate.of(2025, 10, 18)),
             eq(2L),
-            eq(List.of(5L, 6L))
+            eq(List.of(5L, 6L)),
+            isNull()
         )).thenReturn(reservaCreada);
 
         mockMvc.perform(post("/api/reservas")
@@ -124,14 +149,15 @@ class ReservaControllerTest {
             eq(LocalDate.of(2025, 10, 15)),
             eq(LocalDate.of(2025, 10, 18)),
             eq(2L),
-            eq(List.of(5L, 6L))
+            eq(List.of(5L, 6L)),
+            isNull()
         );
     }
 
     @Test
     @DisplayName("POST /api/reservas debe retornar 400 cuando el servicio arroja una excepción")
     void crearReserva_errorDevuelve400() throws Exception {
-        when(reservaService.crearReserva(any(), any(), any(), any(), any()))
+        when(reservaService.crearReserva(any(), any(), any(), any(), any(), any()))
             .thenThrow(new Exception("Rango de fechas inválido"));
 
         mockMvc.perform(post("/api/reservas")
@@ -163,6 +189,45 @@ class ReservaControllerTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("GET /api/reservas/{id} debe cambiar el ETag cuando cambia el cliente aunque la reserva conserve su versión")
+    void consultarReserva_etagIncluyeRelaciones() throws Exception {
+        reservaCreada.setVersion(3L);
+        when(reservaService.consultarReserva(10L)).thenReturn(reservaCreada);
+
+        String etag = mockMvc.perform(get("/api/reservas/{id}", 10L))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", containsString("\"3-")))
+            .andExpect(jsonPath("$.cliente.nombre").value("Laura"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/reservas/{id}", 10L).header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+
+        reservaCreada.getCliente().setNombre("Lorena");
+
+        mockMvc.perform(get("/api/reservas/{id}", 10L).header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cliente.nombre").value("Lorena"));
+    }
+
+    @Test
+    @DisplayName("PUT /api/reservas/{id} debe aceptar en If-Match el ETag con hash devuelto por el GET")
+    void modificarReserva_ifMatchConHash() throws Exception {
+        reservaCreada.setVersion(4L);
+        when(reservaService.modificarReserva(eq(10L), any(), any(), any(), any(), any(), eq(3L)))
+            .thenReturn(reservaCreada);
+
+        mockMvc.perform(put("/api/reservas/{id}", 10L)
+                .header("If-Match", "\"3-0123456789abcdef\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(crearReservaRequest)))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", containsString("\"4-")));
+
+        verify(reservaService).modificarReserva(eq(10L), any(), any(), any(), any(), any(), eq(3L));
+    }
+
     @Test
     @DisplayName("PATCH /api/reservas/{id}/cancelar debe retornar 200 cuando el servicio cancela la reserva")
     void cancelarReserva_devuelve200() throws Exception {
@@ -174,4 +239,125 @@ class ReservaControllerTest {
 
         verify(reservaService).cancelarReserva(10L);
     }
+
+    @Test
+    @DisplayName("POST /api/reservas/bloqueos debe retornar 201 con el token del bloqueo")
+    void crearBloqueo_devuelve201() throws Exception {
+        CrearBloqueoRequest request = new CrearBloqueoRequest();
+        request.setIdCliente(1L);
+        request.setFechaInicio(LocalDate.of(2025, 10, 15));
+        request.setFechaFin(LocalDate.of(2025, 10, 18));
+        request.setIdsEquipos(List.of(5L, 6L));
+        when(bloqueoEquipoService.bloquear(1L, LocalDate.of(2025, 10, 15), LocalDate.of(2025, 10, 18), List.of(5L, 6L)))
+            .thenReturn(new BloqueoEquipoService.Bloqueo("abc", 1L, List.of(5L, 6L),
+                LocalDate.of(2025, 10, 15), LocalDate.of(2025, 10, 18), LocalDateTime.of(2025, 10, 1, 12, 10)));
+
+        mockMvc.perform(post("/api/reservas/bloqueos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.token").value("abc"))
+            .andExpect(jsonPath("$.idsEquipos[1]").value(6L));
+    }
+
+    @Test
+    @DisplayName("POST /api/reservas debe pasar el token del bloqueo al servicio")
+    void crearReserva_conBloqueo() throws Exception {
+        crearReservaRequest.setTokenBloqueo("abc");
+        when(reservaService.crearReserva(any(), any(), any(), any(), any(), eq("abc"))).thenReturn(reservaCreada);
+
+        mockMvc.perform(post("/api/reservas")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(crearReservaRequest)))
+            .andExpect(status().isCreated());
+
+        verify(reservaService).crearReserva(any(), any(), any(), any(), any(), eq("abc"));
+    }
+
+    @Test
+    @DisplayName("DELETE /api/reservas/bloqueos/{token} debe retornar 204")
+    void liberarBloqueo_devuelve204() throws Exception {
+        mockMvc.perform(delete("/api/reservas/bloqueos/{token}", "abc"))
+            .andExpect(status().isNoContent());
+
+        verify(bloqueoEquipoService).liberar("abc");
+    }
+
+    @Test
+    @DisplayName("POST /api/reservas con Idempotency-Key debe crear la reserva a través de IdempotenciaService")
+    @SuppressWarnings("unchecked")
+    void crearReserva_conIdempotencyKey() throws Exception {
+        when(reservaService.crearReserva(any(), any(), any(), any(), any(), any())).thenReturn(reservaCreada);
+        when(idempotenciaService.ejecutar(eq("k1"), any(), any(), any())).thenAnswer(invocacion ->
+            ((Supplier<ResponseEntity<?>>) invocacion.getArgument(2)).get());
+
+        mockMvc.perform(post("/api/reservas")
+                .header("Idempotency-Key", "k1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(crearReservaRequest)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.idReserva").value(10L));
+
+        verify(idempotenciaService).ejecutar(eq("k1"), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/reservas repetida debe reconstruir la respuesta con la reserva anotada en la clave")
+    @SuppressWarnings("unchecked")
+    void crearReserva_repetidaDesdeReservaAnotada() throws Exception {
+        when(reservaService.consultarReserva(10L)).thenReturn(reservaCreada);
+        when(idempotenciaService.ejecutar(eq("k1"), any(), any(), any())).thenAnswer(invocacion ->
+            ((Function<Long, ResponseEntity<?>>) invocacion.getArgument(3)).apply(10L));
+
+        mockMvc.perform(post("/api/reservas")
+                .header("Idempotency-Key", "k1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(crearReservaRequest)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.idReserva").value(10L));
+
+        verify(reservaService, never()).crearReserva(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/reservas repetida debe devolver la respuesta guardada sin crear otra reserva")
+    void crearReserva_repetidaNoCreaOtra() throws Exception {
+        when(idempotenciaService.ejecutar(eq("k1"), any(), any(), any())).thenAnswer(invocacion ->
+            ResponseEntity.status(201)
+                .header(IdempotenciaService.CABECERA_REPETIDA, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"idReserva\":10}"));
+
+        mockMvc.perform(post("/api/reservas")
+                .header("Idempotency-Key", "k1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(crearReservaRequest)))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(IdempotenciaService.CABECERA_REPETIDA, "true"))
+            .andExpect(jsonPath("$.idReserva").value(10L));
+
+        verify(reservaService, never()).crearReserva(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/reservas/lote debe retornar 207 cuando solo se crea parte del lote")
+    void crearLote_parcial() throws Exception {
+        ResultadoLoteReservasResponse resultado = new ResultadoLoteReservasResponse(ModoLoteReserva.MEJOR_ESFUERZO);
+        resultado.getResultados().add(new ResultadoLoteReservasResponse.Resultado(0, true, 10L, new BigDecimal("50000"), null));
+        resultado.getResultados().add(new ResultadoLoteReservasResponse.Resultado(1, false, null, null,
+            "El cliente seleccionado no existe"));
+        resultado.setCreadas(1);
+        resultado.setRechazadas(1);
+        when(reservaLoteService.crearLote(any(), eq(ModoLoteReserva.MEJOR_ESFUERZO))).thenReturn(resultado);
+
+        mockMvc.perform(post("/api/reservas/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "modo", "MEJOR_ESFUERZO",
+                    "reservas", List.of(crearReservaRequest, crearReservaRequest)))))
+            .andExpect(status().isMultiStatus())
+            .andExpect(jsonPath("$.creadas").value(1))
+            .andExpect(jsonPath("$.resultados[0].idReserva").value(10L))
+            .andExpect(jsonPath("$.resultados[1].error").value("El cliente seleccionado no existe"));
+    }
 }
@@ -0,0 +1,167 @@
+package com.deportur.nativo;
+
+import com.deportur.Application;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de humo de la imagen nativa: levantan la aplicación completa sobre H2 y recorren por HTTP
+ * seguridad, Jackson (entidades y DTOs), Hibernate, el catálogo y springdoc, que es donde falta
+ * reflexión si IndicacionesNativas se queda corto.
+ *
+ * No usan Mockito (no funciona en la imagen nativa): el JWT se firma con una clave RSA generada aquí.
+ * No se ejecutan con "mvn test"; usar "mvn -PnativeTest test".
+ */
+@Tag("nativo")
+@SpringBootTest(
+    classes = {Application.class, HumoNativoTest.ConfiguracionNativa.class},
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "nativo"})
+@DisplayName("Imagen nativa - pruebas de humo")
+class HumoNativoTest {
+
+    private static final KeyPair CLAVES = generarClaves();
+
+    private static final Pattern ID_DESTINO = Pattern.compile("\"idDestino\"\\s*:\\s*(\\d+)");
+
+    /**
+     * Decodificador con la clave pública de la prueba en lugar de ClavesJwks
+     */
+    static class ConfiguracionNativa {
+
+        @Bean
+        @Primary
+        JwtDecoder jwtDecoderNativo() {
+            return NimbusJwtDecoder.withPublicKey((RSAPublicKey) CLAVES.getPublic()).build();
+        }
+    }
+
+    @LocalServerPort
+    private int puerto;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("La sonda de salud debe responder UP")
+    void testSalud() throws Exception {
+        HttpResponse<String> respuesta = enviar(HttpRequest.newBuilder(uri("/actuator/health")).GET(), false);
+
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.body().contains("UP"));
+    }
+
+    @Test
+    @DisplayName("Sin token /api y las métricas de Prometheus deben responder 401")
+    void testSinToken() throws Exception {
+        HttpResponse<String> respuesta = enviar(HttpRequest.newBuilder(uri("/api/destinos")).GET(), false);
+        HttpResponse<String> metricas = enviar(HttpRequest.newBuilder(uri("/actuator/prometheus")).GET(), false);
+
+        assertEquals(401, respuesta.statusCode());
+        assertEquals(401, metricas.statusCode());
+    }
+
+    @Test
+    @DisplayName("Debe registrar un destino y devolverlo por id y en el catálogo")
+    void testDestino() throws Exception {
+        String cuerpo = """
+            {"nombre": "Playa Humo", "departamento": "Magdalena", "ciudad": "Santa Marta",
+             "latitud": 11.24, "longitud": -74.2, "capacidadMaxima": 40, "tipoDestino": "PLAYA"}
+            """;
+        HttpResponse<String> creado = enviar(HttpRequest.newBuilder(uri("/api/destinos"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(cuerpo)), true);
+        assertEquals(201, creado.statusCode(), creado.body());
+
+        Matcher id = ID_DESTINO.matcher(creado.body());
+        assertTrue(id.find(), creado.body());
+        HttpResponse<String> porId = enviar(HttpRequest.newBuilder(uri("/api/destinos/" + id.group(1))).GET(), true);
+        assertEquals(200, porId.statusCode());
+        assertTrue(porId.body().contains("Playa Humo"));
+
+        HttpResponse<String> catalogo = enviar(HttpRequest.newBuilder(uri("/api/catalogo")).GET(), true);
+        assertEquals(200, catalogo.statusCode());
+        assertTrue(catalogo.headers().firstValue("ETag").isPresent());
+    }
+
+    @Test
+    @DisplayName("Debe listar las políticas de precio como DTO")
+    void testPoliticas() throws Exception {
+        HttpResponse<String> respuesta = enviar(HttpRequest.newBuilder(uri("/api/politicas-precio")).GET(), true);
+
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.body().startsWith("["));
+    }
+
+    @Test
+    @DisplayName("springdoc debe generar el documento OpenAPI")
+    void testOpenApi() throws Exception {
+        HttpResponse<String> respuesta = enviar(HttpRequest.newBuilder(uri("/v3/api-docs")).GET(), false);
+
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.body().contains("/api/destinos"));
+    }
+
+    private HttpResponse<String> enviar(HttpRequest.Builder peticion, boolean conToken)
+            throws IOException, InterruptedException, JOSEException {
+        if (conToken) {
+            peticion.header("Authorization", "Bearer " + token());
+        }
+        return cliente.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+
+    private static String token() throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject("auth0|humo")
+            .claim("email", "humo@deportur.com")
+            .issueTime(new Date())
+            .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+        jwt.sign(new RSASSASigner(CLAVES.getPrivate()));
+        return jwt.serialize();
+    }
+
+    private static KeyPair generarClaves() {
+        try {
+            KeyPairGenerator generador = KeyPairGenerator.getInstance("RSA");
+            generador.initialize(2048);
+            return generador.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.deportur.service;
+
+import com.deportur.model.ReservaHistorial;
+import com.deportur.model.enums.EstadoReserva;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de los segmentos de historial archivado que escribe y lee ArchivoHistorialReservas
+ */
+@DisplayName("ArchivoHistorialReservas - Segmentos en disco")
+class ArchivoHistorialReservasTest {
+
+    @TempDir
+    Path directorio;
+
+    private ArchivoHistorialReservas archivo;
+
+    @BeforeEach
+    void setUp() {
+        archivo = new ArchivoHistorialReservas();
+        ReflectionTestUtils.setField(archivo, "objectMapper", JsonMapper.builder().findAndAddModules().build());
+        ReflectionTestUtils.setField(archivo, "directorioArchivo", directorio.toString());
+    }
+
+    @Test
+    @DisplayName("Debe encontrar las filas de una reserva leyendo solo su bloque")
+    void testSegmento_BusquedaPorBloque() throws IOException {
+        // 3 filas por bloque y 2 por reserva: los bloques empiezan en las reservas 1, 3 y 5
+        escribirSegmento("historial-202401", 3, 1, 6);
+
+        List<String> indice = Files.readAllLines(directorio.resolve("historial-202401.idx"));
+        assertEquals("# filas=12", indice.get(0));
+        assertEquals(List.of("1", "3", "5"), indice.stream().skip(1).map(linea -> linea.split("\t")[0]).toList());
+
+        for (long idReserva = 1; idReserva <= 6; idReserva++) {
+            List<ArchivoHistorialReservas.Registro> registros =
+                archivo.leer(directorio, "historial-202401", idReserva);
+            assertEquals(2, registros.size(), "reserva " + idReserva);
+            long esperado = idReserva;
+            assertTrue(registros.stream().allMatch(registro -> registro.idReserva() == esperado));
+        }
+        assertTrue(archivo.leer(directorio, "historial-202401", 0L).isEmpty());
+        assertTrue(archivo.leer(directorio, "historial-202401", 99L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("El segmento debe poder leerse completo como un gzip normal")
+    void testSegmento_GzipDeVariosMiembros() throws IOException {
+        escribirSegmento("historial-202401", 3, 1, 6);
+
+        try (InputStream entrada = new GZIPInputStream(Files.newInputStream(directorio.resolve("historial-202401.ndjson.gz")))) {
+            String contenido = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(12, contenido.lines().count());
+        }
+    }
+
+    @Test
+    @DisplayName("Debe unir los segmentos de varios meses del más reciente al más antiguo")
+    void testBuscar_VariosSegmentos() throws IOException {
+        escribirSegmento("historial-202401", 2, 1, 4);
+        escribirSegmento("historial-202402", 2, 3, 8);
+
+        List<ReservaHistorial> historial = archivo.buscar(3L);
+
+        assertEquals(4, historial.size());
+        assertTrue(historial.stream().allMatch(entrada -> entrada.getIdReserva() == 3L));
+        for (int i = 1; i < historial.size(); i++) {
+            assertFalse(historial.get(i).getFechaCambio().isAfter(historial.get(i - 1).getFechaCambio()));
+        }
+        assertTrue(archivo.buscar(42L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un segmento sin completar no debe quedar visible")
+    void testSegmento_SinCompletar() throws IOException {
+        try (ArchivoHistorialReservas.Escritor escritor = archivo.new Escritor(directorio, "historial-202401", 2)) {
+            escritor.agregar(registro(1L, 1));
+        }
+
+        try (var archivos = Files.list(directorio)) {
+            assertEquals(0, archivos.count());
+        }
+        assertTrue(archivo.buscar(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Fuera de Postgres el mantenimiento no debe tocar la base")
+    void testMantenerParticiones_SinPostgres() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        ReflectionTestUtils.setField(archivo, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(archivo, "habilitado", true);
+
+        assertDoesNotThrow(archivo::mantenerParticiones);
+    }
+
+    @Test
+    @DisplayName("Sin el candado consultivo otra instancia mantiene las particiones y esta no hace nada")
+    void testMantenerParticiones_OtraInstanciaTieneElCandado() {
+        JdbcTemplate jdbcTemplate = enPostgres();
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class)))
+            .thenReturn(false);
+
+        archivo.mantenerParticiones();
+
+        verify(jdbcTemplate, never()).queryForList(eq("SELECT crear_particion_historial(?)"), any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Un mes que no se puede crear no debe detener los demás")
+    void testMantenerParticiones_FalloDeUnMes() {
+        JdbcTemplate jdbcTemplate = enPostgres();
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class)))
+            .thenReturn(true);
+        when(jdbcTemplate.queryForList(eq("SELECT crear_particion_historial(?)"), any(LocalDate.class)))
+            .thenThrow(new IllegalStateException("fallo"))
+            .thenReturn(List.of());
+
+        assertDoesNotThrow(archivo::mantenerParticiones);
+
+        verify(jdbcTemplate, times(4)).queryForList(eq("SELECT crear_particion_historial(?)"), any(LocalDate.class));
+    }
+
+    private JdbcTemplate enPostgres() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(archivo, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(archivo, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(archivo, "postgres", Boolean.TRUE);
+        return jdbcTemplate;
+    }
+
+    @Test
+    @DisplayName("Debe reconocer solo las particiones mensuales")
+    void testMesDeParticion() {
+        assertEquals(YearMonth.of(2024, 3), ArchivoHistorialReservas.mesDeParticion("reserva_historial_202403"));
+        assertNull(ArchivoHistorialReservas.mesDeParticion("reserva_historial_default"));
+        assertNull(ArchivoHistorialReservas.mesDeParticion("reserva_historial_legado"));
+    }
+
+    /**
+     * Dos filas por reserva, de la más reciente a la más antigua, como las ordena archivar()
+     */
+    private void escribirSegmento(String segmento, int filasPorBloque, long desde, long hasta) throws IOException {
+        try (ArchivoHistorialReservas.Escritor escritor = archivo.new Escritor(directorio, segmento, filasPorBloque)) {
+            for (long idReserva = desde; idReserva <= hasta; idReserva++) {
+                escritor.agregar(registro(idReserva, 0));
+                escritor.agregar(registro(idReserva, 1));
+            }
+            escritor.completar();
+        }
+    }
+
+    private static ArchivoHistorialReservas.Registro registro(long idReserva, int diasAtras) {
+        return new ArchivoHistorialReservas.Registro(idReserva * 10 + diasAtras, idReserva,
+            diasAtras == 0 ? EstadoReserva.PENDIENTE : null,
+            diasAtras == 0 ? EstadoReserva.CONFIRMADA : EstadoReserva.PENDIENTE,
+            "SYSTEM", LocalDateTime.now().minusDays(diasAtras + idReserva), "Reserva confirmada");
+    }
+}
@@ -0,0 +1,200 @@
+package com.deportur.service;
+
+import com.deportur.model.BloqueoEquipo;
+import com.deportur.model.EquipoDeportivo;
+import com.deportur.repository.BloqueoEquipoRepository;
+import com.deportur.repository.ClienteRepository;
+import com.deportur.repository.DetalleReservaRepository;
+import com.deportur.repository.EquipoDeportivoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para BloqueoEquipoService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BloqueoEquipoService - Pruebas Unitarias")
+class BloqueoEquipoServiceTest {
+
+    @Mock
+    private BloqueoEquipoRepository bloqueoEquipoRepository;
+
+    @Mock
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Mock
+    private DetalleReservaRepository detalleReservaRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private BloqueoEquipoService bloqueoEquipoService;
+
+    private final LocalDate inicio = LocalDate.now().plusDays(10);
+    private final LocalDate fin = LocalDate.now().plusDays(12);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bloqueoEquipoService, "tickMs", 10L);
+        bloqueoEquipoService.iniciar();
+    }
+
+    @Test
+    @DisplayName("Debe apartar los equipos en la base y en memoria")
+    void testBloquear_Exitoso() throws Exception {
+        when(clienteRepository.existsById(1L)).thenReturn(true);
+        when(equipoRepository.bloquearPorIds(List.of(5L, 6L))).thenReturn(List.of(equipo(5L), equipo(6L)));
+        when(bloqueoEquipoRepository.findEquiposBloqueados(eq(List.of(5L, 6L)), eq(inicio), eq(fin), any(), eq("")))
+            .thenReturn(List.of());
+
+        BloqueoEquipoService.Bloqueo bloqueo = bloqueoEquipoService.bloquear(1L, inicio, fin, List.of(6L, 5L, 6L));
+
+        assertNotNull(bloqueo.token());
+        assertEquals(List.of(5L, 6L), bloqueo.idsEquipos());
+        verify(bloqueoEquipoRepository).saveAll(anyList());
+        assertTrue(bloqueoEquipoService.estaBloqueado(5L, fin, fin.plusDays(3)));
+        assertFalse(bloqueoEquipoService.estaBloqueado(5L, fin.plusDays(1), fin.plusDays(3)));
+        assertFalse(bloqueoEquipoService.estaBloqueado(7L, inicio, fin));
+    }
+
+    @Test
+    @DisplayName("No debe apartar un equipo que otro bloqueo vigente ya aparta")
+    void testBloquear_EquipoApartado() {
+        when(clienteRepository.existsById(1L)).thenReturn(true);
+        when(equipoRepository.bloquearPorIds(List.of(5L))).thenReturn(List.of(equipo(5L)));
+        when(bloqueoEquipoRepository.findEquiposBloqueados(anyCollection(), any(), any(), any(), eq("")))
+            .thenReturn(List.of(5L));
+
+        Exception exception = assertThrows(Exception.class,
+            () -> bloqueoEquipoService.bloquear(1L, inicio, fin, List.of(5L)));
+
+        assertTrue(exception.getMessage().contains("apartado"));
+        verify(bloqueoEquipoRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("No debe apartar un equipo ya reservado en las fechas")
+    void testBloquear_EquipoReservado() {
+        DetalleReservaRepository.Ocupacion ocupacion = mock(DetalleReservaRepository.Ocupacion.class);
+        when(ocupacion.getIdEquipo()).thenReturn(6L);
+        when(clienteRepository.existsById(1L)).thenReturn(true);
+        when(equipoRepository.bloquearPorIds(List.of(5L, 6L))).thenReturn(List.of(equipo(5L), equipo(6L)));
+        when(bloqueoEquipoRepository.findEquiposBloqueados(anyCollection(), any(), any(), any(), eq("")))
+            .thenReturn(List.of());
+        when(detalleReservaRepository.findOcupacionesEnRango(List.of(5L, 6L), inicio, fin)).thenReturn(List.of(ocupacion));
+
+        Exception exception = assertThrows(Exception.class,
+            () -> bloqueoEquipoService.bloquear(1L, inicio, fin, List.of(5L, 6L)));
+
+        assertTrue(exception.getMessage().contains("ya está reservado"));
+        verify(bloqueoEquipoRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Debe sacar de memoria los bloqueos al vencer y borrarlos de la base")
+    void testVencer() throws Exception {
+        ReflectionTestUtils.setField(bloqueoEquipoService, "ttlSegundos", 0L);
+        when(clienteRepository.existsById(1L)).thenReturn(true);
+        when(equipoRepository.bloquearPorIds(List.of(5L))).thenReturn(List.of(equipo(5L)));
+        when(bloqueoEquipoRepository.findEquiposBloqueados(anyCollection(), any(), any(), any(), any()))
+            .thenReturn(List.of());
+        bloqueoEquipoService.bloquear(1L, inicio, fin, List.of(5L));
+
+        Thread.sleep(30);
+        bloqueoEquipoService.vencer();
+
+        assertFalse(bloqueoEquipoService.estaBloqueado(5L, inicio, fin));
+        verify(bloqueoEquipoRepository).eliminarVencidos(any(LocalDateTime.class));
+        assertEquals(1.0, meterRegistry.counter("deportur.bloqueos", "resultado", "vencido").count());
+    }
+
+    @Test
+    @DisplayName("Debe convertir un bloqueo vigente que cubre cliente, fechas y equipos")
+    void testConvertir_Exitoso() throws Exception {
+        when(bloqueoEquipoRepository.findByToken("abc")).thenReturn(List.of(fila(5L), fila(6L)));
+        when(bloqueoEquipoRepository.consumir(eq("abc"), any())).thenReturn(2);
+
+        bloqueoEquipoService.convertir("abc", 1L, List.of(6L, 5L), inicio, fin);
+
+        verify(bloqueoEquipoRepository).consumir(eq("abc"), any());
+    }
+
+    @Test
+    @DisplayName("No debe convertir un bloqueo con otros equipos ni uno ya vencido")
+    void testConvertir_Rechazos() {
+        when(bloqueoEquipoRepository.findByToken("abc")).thenReturn(List.of(fila(5L), fila(6L)));
+
+        Exception distintos = assertThrows(Exception.class,
+            () -> bloqueoEquipoService.convertir("abc", 1L, List.of(5L), inicio, fin));
+        assertEquals("Los equipos no coinciden con los del bloqueo", distintos.getMessage());
+        verify(bloqueoEquipoRepository, never()).consumir(any(), any());
+
+    }
+
+    @Test
+    @DisplayName("No debe borrar ninguna fila de un bloqueo con alguna fila vencida")
+    void testConvertir_VencidoNoBorra() {
+        BloqueoEquipo vencida = new BloqueoEquipo("abc", 6L, 1L, inicio, fin, LocalDateTime.now().minusSeconds(1));
+        when(bloqueoEquipoRepository.findByToken("abc")).thenReturn(List.of(fila(5L), vencida));
+
+        Exception vencido = assertThrows(Exception.class,
+            () -> bloqueoEquipoService.convertir("abc", 1L, List.of(5L, 6L), inicio, fin));
+
+        assertEquals("El bloqueo no existe o ya venció", vencido.getMessage());
+        verify(bloqueoEquipoRepository, never()).consumir(any(), any());
+    }
+
+    @Test
+    @DisplayName("La sincronización debe traer los bloqueos de otras instancias y quitar los desaparecidos")
+    void testSincronizar() throws Exception {
+        when(bloqueoEquipoRepository.findByExpiraEnAfter(any())).thenReturn(List.of(fila(5L)));
+
+        bloqueoEquipoService.sincronizar();
+        assertTrue(bloqueoEquipoService.estaBloqueado(5L, inicio, fin));
+
+        when(bloqueoEquipoRepository.findByExpiraEnAfter(any())).thenReturn(List.of());
+        Thread.sleep(5);
+        bloqueoEquipoService.sincronizar();
+        assertFalse(bloqueoEquipoService.estaBloqueado(5L, inicio, fin));
+    }
+
+    private BloqueoEquipo fila(Long idEquipo) {
+        return new BloqueoEquipo("abc", idEquipo, 1L, inicio, fin, LocalDateTime.now().plusMinutes(10));
+    }
+
+    private static EquipoDeportivo equipo(Long id) {
+        EquipoDeportivo equipo = new EquipoDeportivo();
+        equipo.setIdEquipo(id);
+        equipo.setNombre("Kayak " + id);
+        equipo.setDisponible(true);
+        return equipo;
+    }
+}
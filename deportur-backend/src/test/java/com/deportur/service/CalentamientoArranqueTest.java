@@ -0,0 +1,52 @@
+package com.deportur.service;
+
+import com.deportur.service.CatalogoService.Recurso;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CalentamientoArranque
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CalentamientoArranque - Pruebas Unitarias")
+class CalentamientoArranqueTest {
+
+    @Mock
+    private CatalogoService catalogoService;
+
+    @Mock
+    private PoliticaPrecioService politicaPrecioService;
+
+    @InjectMocks
+    private CalentamientoArranque calentamientoArranque;
+
+    @Test
+    @DisplayName("Un paso que falla no debe impedir calentar los demás")
+    void testCalentar_PasoFallido() throws Exception {
+        when(catalogoService.obtener(Recurso.DESTINOS)).thenThrow(new RuntimeException("sin conexión"));
+
+        calentamientoArranque.calentar();
+
+        for (Recurso recurso : Recurso.values()) {
+            verify(catalogoService).obtener(recurso);
+        }
+        verify(politicaPrecioService).tarifario();
+    }
+
+    @Test
+    @DisplayName("Deshabilitado no debe tocar la base al iniciar")
+    void testAlIniciar_Deshabilitado() {
+        ReflectionTestUtils.setField(calentamientoArranque, "calentar", false);
+
+        calentamientoArranque.alIniciar();
+
+        verifyNoInteractions(catalogoService, politicaPrecioService);
+    }
+}
@@ -0,0 +1,89 @@
+package com.deportur.service;
+
+import com.deportur.model.TipoEquipo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CatalogoService
+ * Verifica la reutilización e invalidación de las instantáneas del catálogo
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogoService - Pruebas Unitarias")
+class CatalogoServiceTest {
+
+    @Mock
+    private DestinoService destinoService;
+
+    @Mock
+    private TipoEquipoService tipoEquipoService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private CatalogoService catalogoService;
+
+    @Test
+    @DisplayName("Debe reutilizar la instantánea mientras no haya cambios")
+    void testObtener_ReutilizaInstantanea() throws Exception {
+        // Arrange
+        when(tipoEquipoService.listarTodosLosTiposEquipo())
+            .thenReturn(List.of(new TipoEquipo(1L, "Kayak", "Kayaks individuales")));
+
+        // Act
+        CatalogoService.Instantanea primera = catalogoService.obtener(CatalogoService.Recurso.TIPOS_EQUIPO);
+        CatalogoService.Instantanea segunda = catalogoService.obtener(CatalogoService.Recurso.TIPOS_EQUIPO);
+
+        // Assert
+        assertSame(primera, segunda);
+        assertTrue(new String(primera.contenido(), StandardCharsets.UTF_8).contains("Kayak"));
+        assertTrue(primera.etag().startsWith("\"") && primera.etag().endsWith("\""));
+        verify(tipoEquipoService, times(1)).listarTodosLosTiposEquipo();
+    }
+
+    @Test
+    @DisplayName("Debe regenerar la instantánea y cambiar el ETag al modificarse un tipo de equipo")
+    void testObtener_InvalidaAlModificarTipoEquipo() throws Exception {
+        // Arrange
+        when(tipoEquipoService.listarTodosLosTiposEquipo())
+            .thenReturn(List.of(new TipoEquipo(1L, "Kayak", "Kayaks individuales")))
+            .thenReturn(List.of(new TipoEquipo(1L, "Kayak doble", "Kayaks para dos personas")));
+        when(destinoService.listarTodosLosDestinos()).thenReturn(Collections.emptyList());
+
+        CatalogoService.Instantanea antes = catalogoService.obtener(CatalogoService.Recurso.TIPOS_EQUIPO);
+        CatalogoService.Instantanea destinosAntes = catalogoService.obtener(CatalogoService.Recurso.DESTINOS);
+
+        // Act
+        catalogoService.alModificarTipoEquipo(new TipoEquipoModificadoEvent(1L));
+        CatalogoService.Instantanea despues = catalogoService.obtener(CatalogoService.Recurso.TIPOS_EQUIPO);
+
+        // Assert: solo se regenera el recurso afectado
+        assertNotEquals(antes.etag(), despues.etag());
+        assertSame(destinosAntes, catalogoService.obtener(CatalogoService.Recurso.DESTINOS));
+        verify(destinoService, times(1)).listarTodosLosDestinos();
+    }
+
+    @Test
+    @DisplayName("Debe calcular el mismo ETag para el mismo contenido")
+    void testCalcularEtag_Estable() {
+        byte[] contenido = "[{\"idTipo\":1}]".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(CatalogoService.calcularEtag(contenido), CatalogoService.calcularEtag(contenido.clone()));
+        assertNotEquals(CatalogoService.calcularEtag(contenido),
+            CatalogoService.calcularEtag("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,199 @@
+package com.deportur.service;
+
+import com.deportur.model.*;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.repository.ClienteEstadisticaRepository;
+import com.deportur.repository.ClienteTipoEquipoUsoRepository;
+import com.deportur.repository.ReservaRepository;
+import com.deportur.repository.TipoEquipoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ClienteEstadisticaService
+ * Verifica la actualización incremental de las estadísticas del cliente
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClienteEstadisticaService - Pruebas Unitarias")
+class ClienteEstadisticaServiceTest {
+
+    @Mock
+    private ClienteEstadisticaRepository clienteEstadisticaRepository;
+
+    @Mock
+    private ClienteTipoEquipoUsoRepository clienteTipoEquipoUsoRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private TipoEquipoRepository tipoEquipoRepository;
+
+    @InjectMocks
+    private ClienteEstadisticaService clienteEstadisticaService;
+
+    private TipoEquipo tipoBicicleta;
+    private Reserva reservaTest;
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = new Cliente();
+        cliente.setIdCliente(1L);
+
+        tipoBicicleta = new TipoEquipo(3L, "Bicicleta", "Bicicletas de montaña");
+
+        EquipoDeportivo equipo = new EquipoDeportivo();
+        equipo.setIdEquipo(1L);
+        equipo.setTipo(tipoBicicleta);
+
+        DetalleReserva detalle = new DetalleReserva();
+        detalle.setEquipo(equipo);
+
+        reservaTest = new Reserva();
+        reservaTest.setIdReserva(10L);
+        reservaTest.setCliente(cliente);
+        reservaTest.setEstado(EstadoReserva.PENDIENTE);
+        reservaTest.setTotal(new BigDecimal("50000"));
+        reservaTest.agregarDetalle(detalle);
+    }
+
+    @Test
+    @DisplayName("Debe sumar una reserva nueva a las estadísticas existentes")
+    void testRegistrarCambio_Alta() {
+        // Arrange
+        ClienteEstadistica estadistica = new ClienteEstadistica(1L);
+        when(clienteEstadisticaRepository.bloquearPorCliente(1L)).thenReturn(Optional.of(estadistica));
+        when(clienteTipoEquipoUsoRepository.findByIdCliente(1L)).thenReturn(new ArrayList<>());
+        when(tipoEquipoRepository.findById(3L)).thenReturn(Optional.of(tipoBicicleta));
+
+        // Act
+        clienteEstadisticaService.registrarCambio(null, ClienteEstadisticaService.capturar(reservaTest));
+
+        // Assert
+        assertEquals(1, estadistica.getReservasPendientes());
+        assertEquals(1, estadistica.getTotalReservasActivas());
+        assertEquals(0, new BigDecimal("50000").compareTo(estadistica.getTotalGastado()));
+        assertEquals(tipoBicicleta, estadistica.getTipoEquipoFavorito());
+        verify(clienteEstadisticaRepository).save(estadistica);
+        verify(reservaRepository, never()).resumirReservasPorEstado(any());
+    }
+
+    @Test
+    @DisplayName("Debe descontar gasto y uso de equipos al cancelar una reserva")
+    void testRegistrarCambio_Cancelacion() {
+        // Arrange
+        ClienteEstadistica estadistica = new ClienteEstadistica(1L);
+        estadistica.ajustarConteo(EstadoReserva.CONFIRMADA, 1);
+        estadistica.ajustarTotalGastado(new BigDecimal("50000"));
+        estadistica.setTipoEquipoFavorito(tipoBicicleta);
+
+        ClienteTipoEquipoUso uso = new ClienteTipoEquipoUso(1L, 3L);
+        uso.setCantidad(1);
+
+        when(clienteEstadisticaRepository.bloquearPorCliente(1L)).thenReturn(Optional.of(estadistica));
+        when(clienteTipoEquipoUsoRepository.findByIdCliente(1L)).thenReturn(new ArrayList<>(List.of(uso)));
+
+        reservaTest.setEstado(EstadoReserva.CANCELADA);
+
+        // Act
+        clienteEstadisticaService.registrarCambio(
+            ClienteEstadisticaService.capturar(reservaTest, EstadoReserva.CONFIRMADA),
+            ClienteEstadisticaService.capturar(reservaTest));
+
+        // Assert
+        assertEquals(0, estadistica.getReservasConfirmadas());
+        assertEquals(1, estadistica.getReservasCanceladas());
+        assertEquals(0, estadistica.getTotalReservasActivas());
+        assertEquals(0, BigDecimal.ZERO.compareTo(estadistica.getTotalGastado()));
+        assertEquals(0, uso.getCantidad());
+        assertNull(estadistica.getTipoEquipoFavorito());
+    }
+
+    @Test
+    @DisplayName("Debe reconstruir las estadísticas cuando el cliente aún no tiene fila")
+    void testRegistrarCambio_SinEstadisticaReconstruye() {
+        // Arrange
+        ReservaRepository.EstadoReservaResumen pendientes = mock(ReservaRepository.EstadoReservaResumen.class);
+        when(pendientes.getEstado()).thenReturn(EstadoReserva.PENDIENTE);
+        when(pendientes.getCantidad()).thenReturn(2L);
+        when(pendientes.getTotal()).thenReturn(new BigDecimal("80000"));
+
+        when(clienteEstadisticaRepository.bloquearPorCliente(1L)).thenReturn(Optional.empty());
+        when(clienteEstadisticaRepository.crearSiNoExiste(1L)).thenReturn(1);
+        when(reservaRepository.resumirReservasPorEstado(1L)).thenReturn(List.of(pendientes));
+        when(reservaRepository.resumirUsoTiposEquipo(1L)).thenReturn(Collections.emptyList());
+        when(clienteEstadisticaRepository.save(any(ClienteEstadistica.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        clienteEstadisticaService.registrarCambio(null, ClienteEstadisticaService.capturar(reservaTest));
+
+        // Assert: la reserva nueva ya está incluida en la reconstrucción, no se suma dos veces
+        verify(clienteEstadisticaRepository).save(argThat(estadistica ->
+            estadistica.getReservasPendientes() == 2
+                && new BigDecimal("80000").compareTo(estadistica.getTotalGastado()) == 0));
+        verify(clienteTipoEquipoUsoRepository).deleteByIdCliente(1L);
+    }
+
+    @Test
+    @DisplayName("Debe sumar la reserva a la fila que otra transacción acaba de crear en lugar de insertar otra")
+    void testRegistrarCambio_FilaCreadaAlMismoTiempo() {
+        // Arrange: la fila no existía al bloquear, pero otra primera reserva la insertó antes
+        ClienteEstadistica creadaPorOtra = new ClienteEstadistica(1L);
+        creadaPorOtra.ajustarConteo(EstadoReserva.PENDIENTE, 1);
+        when(clienteEstadisticaRepository.bloquearPorCliente(1L))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(creadaPorOtra));
+        when(clienteEstadisticaRepository.crearSiNoExiste(1L)).thenReturn(0);
+        when(clienteTipoEquipoUsoRepository.findByIdCliente(1L)).thenReturn(new ArrayList<>());
+        when(tipoEquipoRepository.findById(3L)).thenReturn(Optional.of(tipoBicicleta));
+
+        // Act
+        clienteEstadisticaService.registrarCambio(null, ClienteEstadisticaService.capturar(reservaTest));
+
+        // Assert
+        assertEquals(2, creadaPorOtra.getReservasPendientes());
+        verify(clienteEstadisticaRepository).save(creadaPorOtra);
+        verify(reservaRepository, never()).resumirReservasPorEstado(anyLong());
+        verify(clienteTipoEquipoUsoRepository, never()).deleteByIdCliente(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debe calcular sin guardar las estadísticas de un cliente sin fila al consultarlas")
+    void testObtenerEstadistica_SinFilaNoEscribe() {
+        // Arrange
+        ReservaRepository.EstadoReservaResumen confirmadas = mock(ReservaRepository.EstadoReservaResumen.class);
+        when(confirmadas.getEstado()).thenReturn(EstadoReserva.CONFIRMADA);
+        when(confirmadas.getCantidad()).thenReturn(3L);
+        when(confirmadas.getTotal()).thenReturn(new BigDecimal("120000"));
+        when(clienteEstadisticaRepository.findById(1L)).thenReturn(Optional.empty());
+        when(reservaRepository.resumirReservasPorEstado(1L)).thenReturn(List.of(confirmadas));
+        when(reservaRepository.resumirUsoTiposEquipo(1L)).thenReturn(Collections.emptyList());
+
+        // Act
+        ClienteEstadistica estadistica = clienteEstadisticaService.obtenerEstadistica(1L);
+
+        // Assert
+        assertEquals(3, estadistica.getReservasConfirmadas());
+        assertEquals(0, new BigDecimal("120000").compareTo(estadistica.getTotalGastado()));
+        verify(clienteEstadisticaRepository, never()).save(any());
+        verify(clienteEstadisticaRepository, never()).crearSiNoExiste(anyLong());
+        verifyNoInteractions(clienteTipoEquipoUsoRepository);
+    }
+}
@@ -1,5 +1,6 @@
 package com.deportur.service;
 
+import com.deportur.exception.PrecondicionFallidaException;
 import com.deportur.model.Cliente;
 import com.deportur.model.enums.TipoDocumento;
 import com.deportur.repository.ClienteRepository;
@@ -14,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +37,9 @@ class ClienteServiceTest {
     @Mock
     private ReservaRepository reservaRepository;
 
+    @Mock
+    private IntegridadReferencialService integridadReferencialService;
+
     @InjectMocks
     private ClienteService clienteService;
 
@@ -203,19 +208,41 @@ class ClienteServiceTest {
         verify(clienteRepository, never()).save(any(Cliente.class));
     }
 
+    @Test
+    @DisplayName("Debe rechazar la actualización si el cliente cambió desde que se leyó")
+    void testActualizarCliente_VersionObsoleta() {
+        // Arrange
+        clienteValido.setVersion(4L);
+        Cliente cambios = new Cliente();
+        cambios.setNombre("Juan Carlos");
+        cambios.setVersion(3L);
+
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteValido));
+
+        // Act & Assert
+        assertThrows(PrecondicionFallidaException.class, () -> {
+            clienteService.actualizarCliente(1L, cambios);
+        });
+
+        assertEquals("Juan", clienteValido.getNombre());
+        verify(clienteRepository, never()).save(any(Cliente.class));
+    }
+
     @Test
     @DisplayName("Debe eliminar un cliente sin reservas")
     void testEliminarCliente_Exitoso() throws Exception {
         // Arrange
         when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteValido));
-        when(reservaRepository.findByClienteOrderByFechaCreacionDesc(any())).thenReturn(Arrays.asList());
+        when(integridadReferencialService.verificarCliente(1L)).thenReturn(
+            new IntegridadReferencialService.ReferenciasBloqueantes(Map.of(IntegridadReferencialService.RESERVAS, 0L)));
 
         // Act
         clienteService.eliminarCliente(1L);
 
         // Assert
         verify(clienteRepository).findById(1L);
-        verify(reservaRepository).findByClienteOrderByFechaCreacionDesc(clienteValido);
+        verify(integridadReferencialService).verificarCliente(1L);
+        verify(reservaRepository, never()).findByClienteOrderByFechaCreacionDesc(any());
         verify(clienteRepository).delete(clienteValido);
     }
 
@@ -224,8 +251,8 @@ class ClienteServiceTest {
     void testEliminarCliente_ConReservas() {
         // Arrange
         when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteValido));
-        when(reservaRepository.findByClienteOrderByFechaCreacionDesc(any()))
-            .thenReturn(Arrays.asList(mock(com.deportur.model.Reserva.class)));
+        when(integridadReferencialService.verificarCliente(1L)).thenReturn(
+            new IntegridadReferencialService.ReferenciasBloqueantes(Map.of(IntegridadReferencialService.RESERVAS, 3L)));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -233,6 +260,7 @@ class ClienteServiceTest {
         });
 
         assertTrue(exception.getMessage().contains("tiene reservas asociadas"));
+        assertTrue(exception.getMessage().contains("3 reservas"));
         verify(clienteRepository, never()).delete(any(Cliente.class));
     }
 
@@ -1,10 +1,8 @@
 package com.deportur.service;
 
 import com.deportur.model.DestinoTuristico;
-import com.deportur.model.EquipoDeportivo;
 import com.deportur.model.enums.TipoDestino;
 import com.deportur.repository.DestinoTuristicoRepository;
-import com.deportur.repository.EquipoDeportivoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -12,10 +10,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,7 +35,10 @@ class DestinoServiceTest {
     private DestinoTuristicoRepository destinoRepository;
 
     @Mock
-    private EquipoDeportivoRepository equipoRepository;
+    private IntegridadReferencialService integridadReferencialService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private DestinoService destinoService;
@@ -251,27 +255,24 @@ class DestinoServiceTest {
     void testEliminarDestino_Exitoso() throws Exception {
         // Arrange
         when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoValido));
-        when(equipoRepository.findByDestino(destinoValido)).thenReturn(Arrays.asList());
+        when(integridadReferencialService.verificarDestino(1L)).thenReturn(referencias(0L, 0L, 0L));
 
         // Act
         destinoService.eliminarDestino(1L);
 
         // Assert
         verify(destinoRepository).findById(1L);
-        verify(equipoRepository).findByDestino(destinoValido);
+        verify(integridadReferencialService).verificarDestino(1L);
         verify(destinoRepository).delete(destinoValido);
+        verify(eventPublisher).publishEvent(any(DestinoModificadoEvent.class));
     }
 
     @Test
     @DisplayName("Debe lanzar excepción al eliminar destino con equipos asociados")
     void testEliminarDestino_ConEquipos() {
         // Arrange
-        EquipoDeportivo equipo = new EquipoDeportivo();
-        equipo.setIdEquipo(1L);
-        equipo.setNombre("Bicicleta");
-
         when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoValido));
-        when(equipoRepository.findByDestino(destinoValido)).thenReturn(Arrays.asList(equipo));
+        when(integridadReferencialService.verificarDestino(1L)).thenReturn(referencias(2L, 0L, 0L));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -279,9 +280,34 @@ class DestinoServiceTest {
         });
 
         assertTrue(exception.getMessage().contains("equipos asociados"));
+        assertTrue(exception.getMessage().contains("2 equipos"));
         verify(destinoRepository, never()).delete(any());
     }
 
+    @Test
+    @DisplayName("Debe lanzar excepción al eliminar destino con reservas o políticas asociadas")
+    void testEliminarDestino_ConReservas() {
+        // Arrange
+        when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoValido));
+        when(integridadReferencialService.verificarDestino(1L)).thenReturn(referencias(0L, 4L, 1L));
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () -> {
+            destinoService.eliminarDestino(1L);
+        });
+
+        assertTrue(exception.getMessage().contains("4 reservas, 1 políticas de precio"));
+        verify(destinoRepository, never()).delete(any());
+    }
+
+    private IntegridadReferencialService.ReferenciasBloqueantes referencias(long equipos, long reservas, long politicas) {
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        conteos.put(IntegridadReferencialService.EQUIPOS, equipos);
+        conteos.put(IntegridadReferencialService.RESERVAS, reservas);
+        conteos.put(IntegridadReferencialService.POLITICAS_PRECIO, politicas);
+        return new IntegridadReferencialService.ReferenciasBloqueantes(conteos);
+    }
+
     @Test
     @DisplayName("Debe buscar y retornar un destino por su ID")
     void testBuscarDestinoPorId_Encontrado() throws Exception {
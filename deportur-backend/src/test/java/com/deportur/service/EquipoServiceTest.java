@@ -4,7 +4,6 @@ import com.deportur.model.DestinoTuristico;
 import com.deportur.model.EquipoDeportivo;
 import com.deportur.model.TipoEquipo;
 import com.deportur.model.enums.EstadoEquipo;
-import com.deportur.repository.DetalleReservaRepository;
 import com.deportur.repository.DestinoTuristicoRepository;
 import com.deportur.repository.EquipoDeportivoRepository;
 import com.deportur.repository.TipoEquipoRepository;
@@ -20,6 +19,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,7 +45,10 @@ class EquipoServiceTest {
     private DestinoTuristicoRepository destinoRepository;
 
     @Mock
-    private DetalleReservaRepository detalleReservaRepository;
+    private IntegridadReferencialService integridadReferencialService;
+
+    @Mock
+    private BloqueoEquipoService bloqueoEquipoService;
 
     @InjectMocks
     private EquipoService equipoService;
@@ -245,14 +248,15 @@ class EquipoServiceTest {
     void testEliminarEquipo_Exitoso() throws Exception {
         // Arrange
         when(equipoRepository.findById(1L)).thenReturn(Optional.of(equipoValido));
-        when(detalleReservaRepository.existsReservasActivasPorEquipo(1L)).thenReturn(false);
+        when(integridadReferencialService.verificarEquipo(1L)).thenReturn(
+            new IntegridadReferencialService.ReferenciasBloqueantes(Map.of(IntegridadReferencialService.RESERVAS_ACTIVAS, 0L)));
 
         // Act
         equipoService.eliminarEquipo(1L);
 
         // Assert
         verify(equipoRepository).findById(1L);
-        verify(detalleReservaRepository).existsReservasActivasPorEquipo(1L);
+        verify(integridadReferencialService).verificarEquipo(1L);
         verify(equipoRepository).delete(equipoValido);
     }
 
@@ -261,7 +265,8 @@ class EquipoServiceTest {
     void testEliminarEquipo_ConReservasActivas() {
         // Arrange
         when(equipoRepository.findById(1L)).thenReturn(Optional.of(equipoValido));
-        when(detalleReservaRepository.existsReservasActivasPorEquipo(1L)).thenReturn(true);
+        when(integridadReferencialService.verificarEquipo(1L)).thenReturn(
+            new IntegridadReferencialService.ReferenciasBloqueantes(Map.of(IntegridadReferencialService.RESERVAS_ACTIVAS, 2L)));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -378,6 +383,27 @@ class EquipoServiceTest {
         verify(equipoRepository).findDisponiblesPorDestinoYFechas(1L, fechaInicio, fechaFin);
     }
 
+    @Test
+    @DisplayName("No debe devolver equipos apartados por un bloqueo temporal")
+    void testBuscarEquiposDisponibles_SinApartados() throws Exception {
+        // Arrange
+        LocalDate fechaInicio = LocalDate.now().plusDays(5);
+        LocalDate fechaFin = LocalDate.now().plusDays(10);
+
+        when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoValido));
+        when(equipoRepository.findDisponiblesPorDestinoYFechas(1L, fechaInicio, fechaFin))
+            .thenReturn(Arrays.asList(equipoValido));
+        when(bloqueoEquipoService.estaBloqueado(equipoValido.getIdEquipo(), fechaInicio, fechaFin)).thenReturn(true);
+
+        // Act
+        List<EquipoDeportivo> resultado = equipoService.buscarEquiposDisponiblesPorDestinoYFechas(
+            1L, fechaInicio, fechaFin
+        );
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+    }
+
     @Test
     @DisplayName("Debe lanzar excepción cuando fecha inicio es posterior a fecha fin")
     void testBuscarEquiposDisponibles_FechasInvalidas() {
@@ -0,0 +1,191 @@
+package com.deportur.service;
+
+import com.deportur.model.enums.EstadoReserva;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de EscritorHistorialReservas contra una base H2 en memoria
+ */
+@DisplayName("EscritorHistorialReservas - Pruebas con H2")
+class EscritorHistorialReservasTest {
+
+    private static final String TABLA = "CREATE TABLE reserva_historial (" +
+        "id_historial BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, id_reserva BIGINT NOT NULL, " +
+        "estado_anterior VARCHAR(20), estado_nuevo VARCHAR(20) NOT NULL, usuario_modificacion VARCHAR(100), " +
+        "fecha_cambio TIMESTAMP NOT NULL, observaciones TEXT)";
+
+    @TempDir
+    Path respaldo;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private EscritorHistorialReservas escritor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (escritor != null) {
+            escritor.detener();
+        }
+    }
+
+    @Test
+    @DisplayName("Debe insertar el lote al reunir tamano-lote registros")
+    void testLote_PorTamano() throws Exception {
+        iniciar(true, 3, 60_000);
+
+        for (long id = 1; id <= 3; id++) {
+            escritor.registrar(registro(id));
+        }
+
+        esperar(() -> filas() == 3);
+        assertEquals(3, filas());
+    }
+
+    @Test
+    @DisplayName("Debe insertar un lote incompleto al cumplirse el intervalo")
+    void testLote_PorIntervalo() throws Exception {
+        iniciar(true, 100, 100);
+
+        escritor.registrar(registro(1L));
+
+        esperar(() -> filas() == 1);
+        assertEquals("Reserva confirmada",
+            jdbcTemplate.queryForObject("SELECT observaciones FROM reserva_historial", String.class));
+    }
+
+    @Test
+    @DisplayName("Debe escribir solo el historial de transacciones confirmadas")
+    void testRegistrar_DespuesDelCommit() throws Exception {
+        iniciar(true, 1, 50);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        transaccion.executeWithoutResult(estado -> {
+            escritor.registrar(registro(1L));
+            estado.setRollbackOnly();
+        });
+        transaccion.executeWithoutResult(estado -> escritor.registrar(registro(2L)));
+
+        esperar(() -> filas() == 1);
+        Thread.sleep(200);
+        assertEquals(1, filas());
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT id_reserva FROM reserva_historial", Long.class));
+    }
+
+    @Test
+    @DisplayName("Debe guardar en disco lo que no pudo insertar y recuperarlo después")
+    void testRespaldo_FalloDeLaBase() throws Exception {
+        iniciar(false, 2, 50);
+        ReflectionTestUtils.setField(escritor, "pausaRecuperacionMs", 100L);
+
+        escritor.registrar(registro(1L));
+        escritor.registrar(registro(2L));
+        esperar(() -> archivosRespaldo() > 0);
+        assertEquals(0, contarTablas());
+
+        // La base vuelve: el escritor reinserta el respaldo y lo borra
+        jdbcTemplate.execute(TABLA);
+        esperar(() -> filas() == 2 && archivosRespaldo() == 0);
+        assertEquals(2, filas());
+    }
+
+    @Test
+    @DisplayName("Debe apartar un respaldo que no se puede insertar y seguir con los siguientes")
+    void testRespaldo_ArchivoFallidoNoBloquea() throws Exception {
+        String valido = JsonMapper.builder().findAndAddModules().build().writeValueAsString(registro(2L));
+        Files.writeString(respaldo.resolve("recuperar-0001.ndjson"), "{no es json\n");
+        Files.writeString(respaldo.resolve("recuperar-0002.ndjson"), valido + "\n");
+
+        iniciar(true, 1, 50);
+
+        esperar(() -> filas() == 1 && Files.exists(respaldo.resolve("fallido-0001.ndjson")));
+        assertFalse(Files.exists(respaldo.resolve("recuperar-0001.ndjson")));
+        assertFalse(Files.exists(respaldo.resolve("recuperar-0002.ndjson")));
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT id_reserva FROM reserva_historial", Long.class));
+    }
+
+    @Test
+    @DisplayName("No debe arrancar sin deportur.historial.respaldo-dir")
+    void testIniciar_SinDirectorioDeRespaldo() {
+        EscritorHistorialReservas sinDirectorio = new EscritorHistorialReservas();
+        ReflectionTestUtils.setField(sinDirectorio, "respaldoDir", "");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, sinDirectorio::iniciar);
+        assertTrue(exception.getMessage().contains("deportur.historial.respaldo-dir"));
+    }
+
+    private void iniciar(boolean conTabla, int tamanoLote, long intervaloMs) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        if (conTabla) {
+            jdbcTemplate.execute(TABLA);
+        }
+
+        escritor = new EscritorHistorialReservas();
+        ReflectionTestUtils.setField(escritor, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(escritor, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(escritor, "objectMapper", JsonMapper.builder().findAndAddModules().build());
+        ReflectionTestUtils.setField(escritor, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(escritor, "tamanoLote", tamanoLote);
+        ReflectionTestUtils.setField(escritor, "intervaloMs", intervaloMs);
+        ReflectionTestUtils.setField(escritor, "respaldoDir", respaldo.toString());
+        escritor.iniciar();
+    }
+
+    private int filas() {
+        try {
+            return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reserva_historial", Integer.class);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private int contarTablas() {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'RESERVA_HISTORIAL'", Integer.class);
+    }
+
+    private long archivosRespaldo() {
+        try (Stream<Path> archivos = Files.list(respaldo)) {
+            return archivos.filter(archivo -> archivo.toString().endsWith(".ndjson")).count();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                fail("La condición no se cumplió en 10 s");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static EscritorHistorialReservas.Registro registro(Long idReserva) {
+        return new EscritorHistorialReservas.Registro(idReserva, EstadoReserva.PENDIENTE, EstadoReserva.CONFIRMADA,
+            "SYSTEM", LocalDateTime.now(), "Reserva confirmada");
+    }
+}
@@ -0,0 +1,285 @@
+package com.deportur.service;
+
+import com.deportur.model.SolicitudIdempotente;
+import com.deportur.repository.SolicitudIdempotenteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IdempotenciaService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotenciaService - Pruebas Unitarias")
+class IdempotenciaServiceTest {
+
+    @Mock
+    private SolicitudIdempotenteRepository solicitudRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private IdempotenciaService idempotenciaService;
+
+    private final Map<String, Object> peticion = Map.of("idCliente", 1, "idsEquipos", List.of(5, 6));
+
+    @BeforeEach
+    void setUp() {
+        idempotenciaService.iniciar();
+    }
+
+    @Test
+    @DisplayName("Un reintento con la misma clave debe recibir la respuesta guardada sin ejecutar otra vez")
+    void testEjecutar_RepiteRespuesta() {
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        ResponseEntity<?> primera = idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones));
+        ResponseEntity<?> repetida = idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones));
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals(HttpStatus.CREATED, primera.getStatusCode());
+        assertNull(primera.getHeaders().getFirst(IdempotenciaService.CABECERA_REPETIDA));
+        assertEquals(HttpStatus.CREATED, repetida.getStatusCode());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.CABECERA_REPETIDA));
+        assertEquals(primera.getBody(), repetida.getBody());
+        verify(solicitudRepository).completar(eq("anonimo:k1"), eq(201), eq("application/json"),
+            eq("{\"idReserva\":7}"), any());
+    }
+
+    @Test
+    @DisplayName("La misma clave con otro cuerpo debe rechazarse con 422")
+    void testEjecutar_OtraPeticion() {
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones));
+
+        ResponseEntity<?> respuesta = idempotenciaService.ejecutar("k1", Map.of("idCliente", 2), () -> creada(ejecuciones));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, respuesta.getStatusCode());
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    @DisplayName("Una respuesta de error no debe guardarse: el reintento vuelve a ejecutar")
+    void testEjecutar_ErrorNoSeGuarda() {
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<?> respuesta = idempotenciaService.ejecutar("k1", peticion, () -> {
+                ejecuciones.incrementAndGet();
+                return ResponseEntity.badRequest().body("El equipo no está disponible");
+            });
+            assertEquals(HttpStatus.BAD_REQUEST, respuesta.getStatusCode());
+            assertEquals("El equipo no está disponible", respuesta.getBody());
+        }
+
+        assertEquals(2, ejecuciones.get());
+        verify(solicitudRepository, times(2)).liberar("anonimo:k1");
+        verify(solicitudRepository, never()).completar(anyString(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Sin la respuesta en memoria debe repetir la guardada en la base")
+    void testEjecutar_RespuestaEnBase() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        // La huella se toma de una ejecución en otra clave, con el mismo cuerpo
+        when(solicitudRepository.reservar(eq("anonimo:otra"), anyString(), any(), any())).thenReturn(1);
+        idempotenciaService.ejecutar("otra", peticion, () -> creada(ejecuciones));
+        String hash = hashReservado("anonimo:otra");
+
+        SolicitudIdempotente fila = new SolicitudIdempotente();
+        fila.setClave("anonimo:k1");
+        fila.setHashPeticion(hash);
+        fila.setCodigoEstado(201);
+        fila.setTipoContenido("application/json");
+        fila.setCuerpo("{\"idReserva\":3}");
+        fila.setExpiraEn(LocalDateTime.now().plusHours(1));
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(0);
+        when(solicitudRepository.findById("anonimo:k1")).thenReturn(Optional.of(fila));
+
+        ResponseEntity<?> respuesta = idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones));
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals(HttpStatus.CREATED, respuesta.getStatusCode());
+        assertEquals("{\"idReserva\":3}", respuesta.getBody());
+        assertEquals("true", respuesta.getHeaders().getFirst(IdempotenciaService.CABECERA_REPETIDA));
+    }
+
+    @Test
+    @DisplayName("Debe reconstruir la respuesta con la reserva anotada si la respuesta no llegó a guardarse")
+    void testEjecutar_ReservaAnotadaSinRespuesta() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        when(solicitudRepository.reservar(eq("anonimo:otra"), anyString(), any(), any())).thenReturn(1);
+        idempotenciaService.ejecutar("otra", peticion, () -> creada(ejecuciones));
+        String hash = hashReservado("anonimo:otra");
+
+        SolicitudIdempotente fila = new SolicitudIdempotente();
+        fila.setClave("anonimo:k1");
+        fila.setHashPeticion(hash);
+        fila.setIdReserva(3L);
+        fila.setExpiraEn(LocalDateTime.now().plusHours(1));
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(0);
+        when(solicitudRepository.findById("anonimo:k1")).thenReturn(Optional.of(fila));
+
+        ResponseEntity<?> respuesta = idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones),
+            idReserva -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("idReserva", idReserva)));
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals(HttpStatus.CREATED, respuesta.getStatusCode());
+        assertEquals("{\"idReserva\":3}", respuesta.getBody());
+        assertEquals("true", respuesta.getHeaders().getFirst(IdempotenciaService.CABECERA_REPETIDA));
+        verify(solicitudRepository).completar(eq("anonimo:k1"), eq(201), eq("application/json"),
+            eq("{\"idReserva\":3}"), any());
+    }
+
+    @Test
+    @DisplayName("Debe anotar la reserva solo con la clave que se está ejecutando")
+    void testRegistrarReserva() {
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(1);
+        when(solicitudRepository.registrarReserva(eq("anonimo:k1"), eq(7L), any())).thenReturn(1);
+
+        idempotenciaService.registrarReserva(6L);
+        idempotenciaService.ejecutar("k1", peticion, () -> {
+            idempotenciaService.registrarReserva(7L);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("idReserva", 7));
+        });
+        idempotenciaService.registrarReserva(8L);
+
+        verify(solicitudRepository, times(1)).registrarReserva(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Debe deshacer la reserva si la clave ya tiene otra anotada")
+    void testRegistrarReserva_ClaveConOtraReserva() {
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(1);
+        when(solicitudRepository.registrarReserva(eq("anonimo:k1"), eq(7L), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> idempotenciaService.ejecutar("k1", peticion, () -> {
+            idempotenciaService.registrarReserva(7L);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("idReserva", 7));
+        }));
+
+        verify(solicitudRepository).liberar("anonimo:k1");
+    }
+
+    @Test
+    @DisplayName("Los duplicados concurrentes deben esperar a la primera ejecución")
+    void testEjecutar_DuplicadosConcurrentes() throws Exception {
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenReturn(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch enEjecucion = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            Future<ResponseEntity<?>> primera = hilos.submit(() -> idempotenciaService.ejecutar("k1", peticion, () -> {
+                enEjecucion.countDown();
+                try {
+                    terminar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return creada(ejecuciones);
+            }));
+            assertTrue(enEjecucion.await(5, TimeUnit.SECONDS));
+
+            Future<ResponseEntity<?>> segunda = hilos.submit(() -> idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones)));
+            Future<ResponseEntity<?>> tercera = hilos.submit(() -> idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones)));
+            Thread.sleep(100);
+            assertFalse(segunda.isDone());
+            terminar.countDown();
+
+            assertEquals(HttpStatus.CREATED, primera.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(primera.get().getBody(), segunda.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals(primera.get().getBody(), tercera.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals(1, ejecuciones.get());
+            verify(solicitudRepository, times(1)).reservar(eq("anonimo:k1"), anyString(), any(), any());
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Si otra instancia no termina a tiempo debe responder 409 sin ejecutar")
+    void testEjecutar_EnCursoEnOtraInstancia() {
+        ReflectionTestUtils.setField(idempotenciaService, "esperaMaxMs", 150L);
+        SolicitudIdempotente fila = new SolicitudIdempotente();
+        fila.setClave("anonimo:k1");
+        when(solicitudRepository.reservar(eq("anonimo:k1"), anyString(), any(), any())).thenAnswer(invocacion -> {
+            fila.setHashPeticion(invocacion.getArgument(1));
+            return 0;
+        });
+        when(solicitudRepository.findById("anonimo:k1")).thenReturn(Optional.of(fila));
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        ResponseEntity<?> respuesta = idempotenciaService.ejecutar("k1", peticion, () -> creada(ejecuciones));
+
+        assertEquals(HttpStatus.CONFLICT, respuesta.getStatusCode());
+        assertEquals(0, ejecuciones.get());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una clave vacía o demasiado larga")
+    void testEjecutar_ClaveInvalida() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+            idempotenciaService.ejecutar(" ", peticion, () -> creada(ejecuciones)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+            idempotenciaService.ejecutar("x".repeat(256), peticion, () -> creada(ejecuciones)).getStatusCode());
+        assertEquals(0, ejecuciones.get());
+        verifyNoInteractions(solicitudRepository);
+    }
+
+    private static ResponseEntity<?> creada(AtomicInteger ejecuciones) {
+        ejecuciones.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("idReserva", 7));
+    }
+
+    private String hashReservado(String clave) {
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(solicitudRepository).reservar(eq(clave), captor.capture(), any(), any());
+        return captor.getValue();
+    }
+}
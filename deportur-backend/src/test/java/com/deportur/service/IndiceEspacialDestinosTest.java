@@ -0,0 +1,111 @@
+package com.deportur.service;
+
+import com.deportur.model.DestinoTuristico;
+import com.deportur.repository.DestinoTuristicoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IndiceEspacialDestinos
+ * Compara el k-d tree contra una búsqueda exhaustiva y verifica la invalidación
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IndiceEspacialDestinos - Pruebas Unitarias")
+class IndiceEspacialDestinosTest {
+
+    @Mock
+    private DestinoTuristicoRepository destinoRepository;
+
+    @InjectMocks
+    private IndiceEspacialDestinos indiceEspacialDestinos;
+
+    @Test
+    @DisplayName("Debe devolver los mismos vecinos que una búsqueda exhaustiva")
+    void testBuscarMasCercanos_IgualQueFuerzaBruta() {
+        // Arrange
+        Random random = new Random(42);
+        List<DestinoTuristico> destinos = new ArrayList<>();
+        for (long i = 1; i <= 500; i++) {
+            destinos.add(destino(i, -4 + random.nextDouble() * 16, -79 + random.nextDouble() * 12));
+        }
+        IndiceEspacialDestinos.Arbol arbol = IndiceEspacialDestinos.Arbol.construir(destinos);
+
+        for (int consulta = 0; consulta < 50; consulta++) {
+            double lat = -4 + random.nextDouble() * 16;
+            double lon = -79 + random.nextDouble() * 12;
+
+            // Act
+            List<IndiceEspacialDestinos.Vecino> vecinos = arbol.buscarMasCercanos(lat, lon, 7, null);
+
+            // Assert
+            double[] punto = IndiceEspacialDestinos.aVector(lat, lon);
+            List<DestinoTuristico> esperados = destinos.stream()
+                .sorted(Comparator.comparingDouble(d -> IndiceEspacialDestinos.distanciaCuadrada(punto,
+                    IndiceEspacialDestinos.aVector(d.getLatitud().doubleValue(), d.getLongitud().doubleValue()))))
+                .limit(7)
+                .toList();
+            assertEquals(esperados, vecinos.stream().map(IndiceEspacialDestinos.Vecino::destino).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Debe respetar el radio de búsqueda y calcular la distancia en kilómetros")
+    void testBuscarMasCercanos_ConRadio() {
+        // Arrange: Bogotá, Medellín y Cartagena
+        DestinoTuristico bogota = destino(1L, 4.7110, -74.0721);
+        DestinoTuristico medellin = destino(2L, 6.2442, -75.5812);
+        DestinoTuristico cartagena = destino(3L, 10.3910, -75.4794);
+        IndiceEspacialDestinos.Arbol arbol = IndiceEspacialDestinos.Arbol.construir(List.of(bogota, medellin, cartagena));
+
+        // Act
+        List<IndiceEspacialDestinos.Vecino> vecinos = arbol.buscarMasCercanos(4.7110, -74.0721, 3, 300.0);
+
+        // Assert
+        assertEquals(2, vecinos.size());
+        assertEquals(bogota, vecinos.get(0).destino());
+        assertEquals(0.0, vecinos.get(0).distanciaKm(), 0.001);
+        assertEquals(medellin, vecinos.get(1).destino());
+        assertEquals(239, vecinos.get(1).distanciaKm(), 3);
+    }
+
+    @Test
+    @DisplayName("Debe reconstruir el índice solo después de una invalidación")
+    void testInvalidar_ReconstruyeEnSiguienteConsulta() {
+        // Arrange
+        when(destinoRepository.findByActivoTrueAndLatitudIsNotNullAndLongitudIsNotNull())
+            .thenReturn(List.of(destino(1L, 4.7110, -74.0721)))
+            .thenReturn(List.of(destino(1L, 4.7110, -74.0721), destino(2L, 6.2442, -75.5812)));
+
+        // Act & Assert
+        assertEquals(1, indiceEspacialDestinos.tamano());
+        assertEquals(1, indiceEspacialDestinos.buscarMasCercanos(6.0, -75.0, 5, null).size());
+
+        indiceEspacialDestinos.alModificarDestino(new DestinoModificadoEvent(2L));
+
+        assertEquals(2, indiceEspacialDestinos.buscarMasCercanos(6.0, -75.0, 5, null).size());
+        verify(destinoRepository, times(2)).findByActivoTrueAndLatitudIsNotNullAndLongitudIsNotNull();
+    }
+
+    private DestinoTuristico destino(Long id, double latitud, double longitud) {
+        DestinoTuristico destino = new DestinoTuristico();
+        destino.setIdDestino(id);
+        destino.setNombre("Destino " + id);
+        destino.setLatitud(BigDecimal.valueOf(latitud));
+        destino.setLongitud(BigDecimal.valueOf(longitud));
+        destino.setActivo(true);
+        return destino;
+    }
+}
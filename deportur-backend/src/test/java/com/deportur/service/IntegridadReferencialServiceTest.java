@@ -0,0 +1,78 @@
+package com.deportur.service;
+
+import com.deportur.repository.ClienteRepository;
+import com.deportur.repository.DestinoTuristicoRepository;
+import com.deportur.repository.EquipoDeportivoRepository;
+import com.deportur.repository.TipoEquipoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IntegridadReferencialService
+ * Verifica la interpretación de los conteos de referencias
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IntegridadReferencialService - Pruebas Unitarias")
+class IntegridadReferencialServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private DestinoTuristicoRepository destinoRepository;
+
+    @Mock
+    private TipoEquipoRepository tipoEquipoRepository;
+
+    @Mock
+    private EquipoDeportivoRepository equipoRepository;
+
+    @InjectMocks
+    private IntegridadReferencialService integridadReferencialService;
+
+    @Test
+    @DisplayName("Debe indicar que un destino sin referencias puede eliminarse")
+    void testVerificarDestino_SinReferencias() {
+        // Arrange
+        DestinoTuristicoRepository.ReferenciasDestino conteos = mock(DestinoTuristicoRepository.ReferenciasDestino.class);
+        when(conteos.getEquipos()).thenReturn(0L);
+        when(conteos.getReservas()).thenReturn(0L);
+        when(conteos.getPoliticasPrecio()).thenReturn(0L);
+        when(destinoRepository.contarReferencias(1L)).thenReturn(conteos);
+
+        // Act
+        IntegridadReferencialService.ReferenciasBloqueantes referencias = integridadReferencialService.verificarDestino(1L);
+
+        // Assert
+        assertFalse(referencias.hayReferencias());
+        assertEquals("", referencias.describir());
+        verify(destinoRepository).contarReferencias(1L);
+        verify(equipoRepository, never()).findByDestino(any());
+    }
+
+    @Test
+    @DisplayName("Debe describir solo las referencias encontradas y marcar los conteos recortados")
+    void testVerificarEquipo_ConReferencias() {
+        // Arrange
+        EquipoDeportivoRepository.ReferenciasEquipo conteos = mock(EquipoDeportivoRepository.ReferenciasEquipo.class);
+        when(conteos.getReservasActivas()).thenReturn(IntegridadReferencialService.LIMITE_CONTEO);
+        when(conteos.getPoliticasPrecio()).thenReturn(0L);
+        when(equipoRepository.contarReferencias(5L)).thenReturn(conteos);
+
+        // Act
+        IntegridadReferencialService.ReferenciasBloqueantes referencias = integridadReferencialService.verificarEquipo(5L);
+
+        // Assert
+        assertTrue(referencias.hayReferencias());
+        assertTrue(referencias.tiene(IntegridadReferencialService.RESERVAS_ACTIVAS));
+        assertFalse(referencias.tiene(IntegridadReferencialService.POLITICAS_PRECIO));
+        assertEquals("1000+ reservas activas", referencias.describir());
+    }
+}
@@ -0,0 +1,117 @@
+package com.deportur.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para LecturasParalelas
+ */
+@DisplayName("LecturasParalelas - Pruebas Unitarias")
+class LecturasParalelasTest {
+
+    @Test
+    @DisplayName("Debe ejecutar las lecturas del grupo al mismo tiempo")
+    void testGrupo_LecturasSimultaneas() throws Exception {
+        LecturasParalelas lecturas = LecturasParalelas.crear(null, 4);
+        CountDownLatch ambas = new CountDownLatch(2);
+
+        try (LecturasParalelas.Grupo grupo = lecturas.grupo()) {
+            // Cada lectura espera a la otra: en secuencia ninguna llegaría a verla
+            LecturasParalelas.Lectura<Boolean> primera = grupo.leer(() -> {
+                ambas.countDown();
+                return ambas.await(5, TimeUnit.SECONDS);
+            });
+            LecturasParalelas.Lectura<Boolean> segunda = grupo.leer(() -> {
+                ambas.countDown();
+                return ambas.await(5, TimeUnit.SECONDS);
+            });
+            grupo.esperar();
+
+            assertTrue(primera.obtener());
+            assertTrue(segunda.obtener());
+        }
+    }
+
+    @Test
+    @DisplayName("Debe propagar la excepción de negocio y cancelar las lecturas pendientes")
+    void testGrupo_ErrorCancelaPendientes() {
+        LecturasParalelas lecturas = LecturasParalelas.crear(null, 4);
+        CountDownLatch interrumpida = new CountDownLatch(1);
+
+        Exception exception = assertThrows(Exception.class, () -> {
+            try (LecturasParalelas.Grupo grupo = lecturas.grupo()) {
+                grupo.leer(() -> {
+                    throw new Exception("El destino turístico no existe");
+                });
+                grupo.leer(() -> {
+                    try {
+                        return new CountDownLatch(1).await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        interrumpida.countDown();
+                        throw e;
+                    }
+                });
+                grupo.esperar();
+            }
+        });
+
+        assertEquals("El destino turístico no existe", exception.getMessage());
+        assertDoesNotThrow(() -> assertTrue(interrumpida.await(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    @DisplayName("Debe leer en el hilo del llamador cuando no hay cupos")
+    void testGrupo_SinCuposEnHiloActual() throws Exception {
+        LecturasParalelas lecturas = LecturasParalelas.crear(null, 0);
+
+        try (LecturasParalelas.Grupo grupo = lecturas.grupo()) {
+            LecturasParalelas.Lectura<Thread> hilo = grupo.leer(Thread::currentThread);
+            grupo.esperar();
+
+            assertSame(Thread.currentThread(), hilo.obtener());
+        }
+    }
+
+    @Test
+    @DisplayName("Debe abrir una transacción de solo lectura por cada lectura en paralelo")
+    void testGrupo_TransaccionDeSoloLectura() throws Exception {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        LecturasParalelas lecturas = LecturasParalelas.crear(transactionManager, 2);
+
+        try (LecturasParalelas.Grupo grupo = lecturas.grupo()) {
+            LecturasParalelas.Lectura<Long> total = grupo.leer(() -> 42L);
+            grupo.esperar();
+            assertEquals(42L, total.obtener());
+        }
+
+        ArgumentCaptor<TransactionDefinition> definicion = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definicion.capture());
+        assertTrue(definicion.getValue().isReadOnly());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción debe leer en el hilo del llamador aunque haya cupo")
+    void testGrupo_DentroDeTransaccionNoReparte() throws Exception {
+        LecturasParalelas lecturas = LecturasParalelas.crear(null, 4);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try (LecturasParalelas.Grupo grupo = lecturas.grupo()) {
+            LecturasParalelas.Lectura<Thread> hilo = grupo.leer(Thread::currentThread);
+            grupo.esperar();
+            assertSame(Thread.currentThread(), hilo.obtener());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.deportur.service;
+
+import com.deportur.model.EventoReserva;
+import com.deportur.model.enums.EstadoReserva;
+import com.deportur.model.enums.TipoEventoReserva;
+import com.deportur.repository.EventoReservaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para RelayEventosReserva
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RelayEventosReserva - Pruebas Unitarias")
+class RelayEventosReservaTest {
+
+    @Mock
+    private EventoReservaRepository eventoReservaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private RelayEventosReserva relay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "tamanoLote", 2);
+        relay.iniciar();
+    }
+
+    @Test
+    @DisplayName("Debe publicar los eventos tras el cursor y avanzarlo")
+    void testDespacharLote_PublicaYAvanzaCursor() {
+        when(eventoReservaRepository.findSiguientes(0L, 2)).thenReturn(List.of(evento(1L), evento(2L)));
+        when(eventoReservaRepository.findSiguientes(2L, 2)).thenReturn(List.of());
+
+        assertEquals(2, relay.despacharLote());
+        assertEquals(0, relay.despacharLote());
+
+        ArgumentCaptor<ReservaModificadaEvent> publicado = ArgumentCaptor.forClass(ReservaModificadaEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(publicado.capture());
+        assertEquals(1L, publicado.getAllValues().get(0).idEvento());
+        assertEquals(TipoEventoReserva.CONFIRMADA, publicado.getAllValues().get(0).tipo());
+        assertEquals(2.0, meterRegistry.counter("deportur.outbox.despachados", "tipo", "CONFIRMADA").count());
+    }
+
+    @Test
+    @DisplayName("Una instancia nueva debe empezar por los eventos de la ventana de huecos")
+    void testDespacharLote_CursorInicial() {
+        when(eventoReservaRepository.findUltimoIdAntesDe(any(LocalDateTime.class))).thenReturn(40L);
+        when(eventoReservaRepository.findSiguientes(40L, 2)).thenReturn(List.of(evento(41L)));
+
+        assertEquals(1, relay.despacharLote());
+
+        verify(eventoReservaRepository).findUltimoIdAntesDe(any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Un oyente que falla debe recibir el evento otra vez sin avanzar el cursor")
+    void testDespacharLote_OyenteFallidoSeReintenta() {
+        when(eventoReservaRepository.findSiguientes(0L, 2)).thenReturn(List.of(evento(1L), evento(2L)));
+        doThrow(new IllegalStateException("oyente caído")).doNothing()
+            .when(eventPublisher).publishEvent(any(ReservaModificadaEvent.class));
+
+        assertEquals(0, relay.despacharLote());
+        assertEquals(2, relay.despacharLote());
+
+        ArgumentCaptor<ReservaModificadaEvent> publicado = ArgumentCaptor.forClass(ReservaModificadaEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(publicado.capture());
+        assertEquals(List.of(1L, 1L, 2L), publicado.getAllValues().stream().map(ReservaModificadaEvent::idEvento).toList());
+    }
+
+    @Test
+    @DisplayName("Debe descartar el evento tras agotar los intentos y seguir con la bandeja")
+    void testDespacharLote_DescartaTrasMaxIntentos() {
+        ReflectionTestUtils.setField(relay, "maxIntentos", 2);
+        when(eventoReservaRepository.findSiguientes(0L, 2)).thenReturn(List.of(evento(1L)));
+        when(eventoReservaRepository.findSiguientes(1L, 2)).thenReturn(List.of());
+        doThrow(new IllegalStateException("oyente caído"))
+            .when(eventPublisher).publishEvent(any(ReservaModificadaEvent.class));
+
+        assertEquals(0, relay.despacharLote());
+        assertEquals(1, relay.despacharLote());
+        assertEquals(0, relay.despacharLote());
+
+        verify(eventPublisher, times(2)).publishEvent(any(ReservaModificadaEvent.class));
+        assertEquals(1.0, meterRegistry.counter("deportur.outbox.descartados", "tipo", "CONFIRMADA").count());
+    }
+
+    @Test
+    @DisplayName("Debe publicar un id saltado cuando su transacción confirma más tarde")
+    void testDespacharLote_HuecoConfirmadoDespues() {
+        when(eventoReservaRepository.findSiguientes(0L, 2)).thenReturn(List.of(evento(1L), evento(3L)));
+        when(eventoReservaRepository.findAllById(List.of(2L))).thenReturn(List.of(evento(2L)));
+        when(eventoReservaRepository.findSiguientes(3L, 2)).thenReturn(List.of());
+
+        assertEquals(2, relay.despacharLote());
+        assertEquals(0, relay.despacharLote());
+        relay.despacharLote();
+
+        ArgumentCaptor<ReservaModificadaEvent> publicado = ArgumentCaptor.forClass(ReservaModificadaEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(publicado.capture());
+        assertEquals(List.of(1L, 3L, 2L), publicado.getAllValues().stream().map(ReservaModificadaEvent::idEvento).toList());
+        verify(eventoReservaRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Debe olvidar los huecos que no aparecen dentro de la espera")
+    void testDespacharLote_HuecoVencido() {
+        ReflectionTestUtils.setField(relay, "esperaHuecosMs", -1L);
+        when(eventoReservaRepository.findSiguientes(0L, 2)).thenReturn(List.of(evento(2L)));
+        when(eventoReservaRepository.findSiguientes(2L, 2)).thenReturn(List.of());
+
+        relay.despacharLote();
+        relay.despacharLote();
+        relay.despacharLote();
+
+        verify(eventoReservaRepository, times(1)).findAllById(any());
+        verify(eventPublisher, times(1)).publishEvent(any(ReservaModificadaEvent.class));
+    }
+
+    @Test
+    @DisplayName("Debe vaciar la bandeja hasta encontrar un lote incompleto")
+    void testDespacharPendientes_VaciaLaBandeja() {
+        when(eventoReservaRepository.findSiguientes(0L, 2)).thenReturn(List.of(evento(1L), evento(2L)));
+        when(eventoReservaRepository.findSiguientes(2L, 2)).thenReturn(List.of(evento(3L)));
+
+        relay.despacharPendientes();
+
+        verify(eventoReservaRepository, times(2)).findSiguientes(anyLong(), anyInt());
+        verify(eventPublisher, times(3)).publishEvent(any(ReservaModificadaEvent.class));
+    }
+
+    @Test
+    @DisplayName("Sin eventos nuevos no debe publicar nada ni bloquear filas")
+    void testDespacharLote_SinPendientes() {
+        when(eventoReservaRepository.findSiguientes(anyLong(), anyInt())).thenReturn(List.of());
+
+        assertEquals(0, relay.despacharLote());
+
+        verifyNoInteractions(eventPublisher, transactionManager);
+    }
+
+    private static EventoReserva evento(Long id) {
+        EventoReserva evento = new EventoReserva();
+        evento.setIdEvento(id);
+        evento.setIdReserva(10L + id);
+        evento.setTipo(TipoEventoReserva.CONFIRMADA);
+        evento.setEstadoAnterior(EstadoReserva.PENDIENTE);
+        evento.setEstadoNuevo(EstadoReserva.CONFIRMADA);
+        evento.setFechaCreacion(LocalDateTime.now().minusSeconds(1));
+        return evento;
+    }
+}
@@ -0,0 +1,262 @@
+package com.deportur.service;
+
+import com.deportur.dto.request.CrearReservaRequest;
+import com.deportur.dto.response.ResultadoLoteReservasResponse;
+import com.deportur.model.Cliente;
+import com.deportur.model.DestinoTuristico;
+import com.deportur.model.EquipoDeportivo;
+import com.deportur.model.Reserva;
+import com.deportur.model.enums.ModoLoteReserva;
+import com.deportur.model.enums.TipoDocumento;
+import com.deportur.repository.BloqueoEquipoRepository;
+import com.deportur.repository.ClienteRepository;
+import com.deportur.repository.DestinoTuristicoRepository;
+import com.deportur.repository.DetalleReservaRepository;
+import com.deportur.repository.EquipoDeportivoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ReservaLoteService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReservaLoteService - Pruebas Unitarias")
+class ReservaLoteServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private DestinoTuristicoRepository destinoRepository;
+
+    @Mock
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Mock
+    private DetalleReservaRepository detalleReservaRepository;
+
+    @Mock
+    private BloqueoEquipoRepository bloqueoEquipoRepository;
+
+    @Mock
+    private BloqueoEquipoService bloqueoEquipoService;
+
+    @Mock
+    private PoliticaPrecioService politicaPrecioService;
+
+    @Mock
+    private ClienteEstadisticaService clienteEstadisticaService;
+
+    @Mock
+    private EscritorHistorialReservas escritorHistorial;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ReservaLoteService reservaLoteService;
+
+    private Cliente cliente;
+    private DestinoTuristico destino;
+    private EquipoDeportivo kayak;
+    private EquipoDeportivo bicicleta;
+    private final PoliticaPrecioService.Tarifario tarifario = new PoliticaPrecioService.Tarifario(List.of());
+
+    @BeforeEach
+    void setUp() {
+        cliente = new Cliente();
+        cliente.setIdCliente(1L);
+        cliente.setNombre("Operador");
+        cliente.setApellido("Turístico");
+        cliente.setDocumento("900123456");
+        cliente.setTipoDocumento(TipoDocumento.CC);
+
+        destino = new DestinoTuristico();
+        destino.setIdDestino(1L);
+        destino.setNombre("Cartagena");
+
+        kayak = equipo(10L, "Kayak", "80000");
+        bicicleta = equipo(20L, "Bicicleta Montaña", "50000");
+
+        lenient().when(clienteRepository.findAllById(any())).thenReturn(List.of(cliente));
+        lenient().when(destinoRepository.findAllById(any())).thenReturn(List.of(destino));
+        lenient().when(equipoRepository.bloquearPorIds(any())).thenReturn(List.of(kayak, bicicleta));
+        lenient().when(politicaPrecioService.tarifario()).thenReturn(tarifario);
+        // Sin políticas: total = subtotal
+        lenient().doAnswer(invocacion -> {
+            Reserva reserva = invocacion.getArgument(0);
+            reserva.actualizarCalculos(reserva.calcularSubtotal(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+            return null;
+        }).when(politicaPrecioService).aplicarPoliticasAReserva(any(Reserva.class), any(PoliticaPrecioService.Tarifario.class));
+    }
+
+    @Test
+    @DisplayName("Debe crear todo el lote con una consulta por tabla y un INSERT de reservas")
+    void testCrearLote_TodasValidas() throws Exception {
+        clavesGeneradas(101L, 102L, 103L);
+        List<CrearReservaRequest> lote = List.of(
+            solicitud(1L, 5, 7, 10L),
+            solicitud(1L, 8, 9, 10L),
+            solicitud(1L, 5, 7, 20L));
+
+        ResultadoLoteReservasResponse resultado = reservaLoteService.crearLote(lote, ModoLoteReserva.TODO_O_NADA);
+
+        assertEquals(3, resultado.getCreadas());
+        assertEquals(0, resultado.getRechazadas());
+        assertEquals(List.of(101L, 102L, 103L),
+            resultado.getResultados().stream().map(ResultadoLoteReservasResponse.Resultado::getIdReserva).toList());
+        assertEquals(0, new BigDecimal("80000").compareTo(resultado.getResultados().get(0).getTotal()));
+
+        verify(clienteRepository, times(1)).findAllById(any());
+        verify(equipoRepository, times(1)).bloquearPorIds(List.of(10L, 20L));
+        verify(detalleReservaRepository, times(1)).findOcupacionesEnRango(any(), any(), any());
+        verify(politicaPrecioService, times(1)).tarifario();
+        verify(politicaPrecioService, times(3)).aplicarPoliticasAReserva(any(Reserva.class), same(tarifario));
+        verify(politicaPrecioService, never()).aplicarPoliticasAReserva(any(Reserva.class));
+        verify(jdbcTemplate, times(1)).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+        verify(escritorHistorial, times(3)).registrar(any());
+        verify(clienteEstadisticaService).registrarAltas(argThat(altas -> altas.size() == 3));
+        assertEquals(2, kayak.getContadorUso());
+    }
+
+    @Test
+    @DisplayName("Debe detectar en memoria el solape entre reservas del mismo lote")
+    void testCrearLote_SolapeDentroDelLote() throws Exception {
+        clavesGeneradas(101L);
+        List<CrearReservaRequest> lote = List.of(
+            solicitud(1L, 5, 7, 10L),
+            solicitud(1L, 6, 8, 10L));
+
+        ResultadoLoteReservasResponse resultado = reservaLoteService.crearLote(lote, ModoLoteReserva.MEJOR_ESFUERZO);
+
+        assertEquals(1, resultado.getCreadas());
+        assertEquals(1, resultado.getRechazadas());
+        assertTrue(resultado.getResultados().get(0).isCreada());
+        ResultadoLoteReservasResponse.Resultado rechazada = resultado.getResultados().get(1);
+        assertFalse(rechazada.isCreada());
+        assertEquals("El equipo Kayak ya está en la reserva 0 del lote para esas fechas", rechazada.getError());
+    }
+
+    @Test
+    @DisplayName("En TODO_O_NADA no debe escribir nada si alguna reserva falla")
+    void testCrearLote_TodoONadaConError() throws Exception {
+        List<CrearReservaRequest> lote = List.of(
+            solicitud(1L, 5, 7, 10L),
+            solicitud(99L, 5, 7, 20L));
+
+        ResultadoLoteReservasResponse resultado = reservaLoteService.crearLote(lote, ModoLoteReserva.TODO_O_NADA);
+
+        assertEquals(0, resultado.getCreadas());
+        assertEquals(2, resultado.getRechazadas());
+        assertEquals(ReservaLoteService.MENSAJE_LOTE_RECHAZADO, resultado.getResultados().get(0).getError());
+        assertEquals("El cliente seleccionado no existe", resultado.getResultados().get(1).getError());
+        verifyNoInteractions(jdbcTemplate, bloqueoEquipoService, escritorHistorial, clienteEstadisticaService);
+        assertEquals(0, kayak.getContadorUso());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar la reserva que choca con una reserva ya guardada")
+    void testCrearLote_EquipoYaReservado() throws Exception {
+        clavesGeneradas(101L);
+        when(detalleReservaRepository.findOcupacionesEnRango(any(), any(), any()))
+            .thenReturn(List.of(ocupacion(20L, LocalDate.now().plusDays(6), LocalDate.now().plusDays(12))));
+        List<CrearReservaRequest> lote = List.of(
+            solicitud(1L, 5, 7, 10L),
+            solicitud(1L, 5, 7, 20L));
+
+        ResultadoLoteReservasResponse resultado = reservaLoteService.crearLote(lote, ModoLoteReserva.MEJOR_ESFUERZO);
+
+        assertEquals(1, resultado.getCreadas());
+        assertEquals("El equipo Bicicleta Montaña ya está reservado en las fechas seleccionadas",
+            resultado.getResultados().get(1).getError());
+        ArgumentCaptor<Object[]> detalles = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(anyString(), detalles.capture());
+        // Un solo detalle: (id_reserva, id_equipo, precio_unitario)
+        assertEquals(3, detalles.getAllValues().get(0).length);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un lote vacío o mayor que el máximo")
+    void testCrearLote_Tamano() {
+        assertThrows(Exception.class, () -> reservaLoteService.crearLote(List.of(), ModoLoteReserva.TODO_O_NADA));
+
+        List<CrearReservaRequest> grande = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            grande.add(solicitud(1L, 5, 6, 10L));
+        }
+        Exception error = assertThrows(Exception.class,
+            () -> reservaLoteService.crearLote(grande, ModoLoteReserva.MEJOR_ESFUERZO));
+        assertEquals("El lote admite como máximo 100 reservas", error.getMessage());
+        verifyNoInteractions(clienteRepository, jdbcTemplate);
+    }
+
+    private void clavesGeneradas(Long... ids) {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocacion -> {
+            GeneratedKeyHolder claves = invocacion.getArgument(1);
+            for (Long id : ids) {
+                claves.getKeyList().add(Map.of("id_reserva", id));
+            }
+            return ids.length;
+        });
+    }
+
+    private static CrearReservaRequest solicitud(Long idCliente, int diasInicio, int diasFin, Long... idsEquipos) {
+        CrearReservaRequest solicitud = new CrearReservaRequest();
+        solicitud.setIdCliente(idCliente);
+        solicitud.setIdDestino(1L);
+        solicitud.setFechaInicio(LocalDate.now().plusDays(diasInicio));
+        solicitud.setFechaFin(LocalDate.now().plusDays(diasFin));
+        solicitud.setIdsEquipos(List.of(idsEquipos));
+        return solicitud;
+    }
+
+    private static EquipoDeportivo equipo(Long id, String nombre, String precio) {
+        EquipoDeportivo equipo = new EquipoDeportivo();
+        equipo.setIdEquipo(id);
+        equipo.setNombre(nombre);
+        equipo.setPrecioAlquiler(new BigDecimal(precio));
+        equipo.setDisponible(true);
+        return equipo;
+    }
+
+    private static DetalleReservaRepository.Ocupacion ocupacion(Long idEquipo, LocalDate inicio, LocalDate fin) {
+        return new DetalleReservaRepository.Ocupacion() {
+            @Override
+            public Long getIdEquipo() {
+                return idEquipo;
+            }
+
+            @Override
+            public LocalDate getFechaInicio() {
+                return inicio;
+            }
+
+            @Override
+            public LocalDate getFechaFin() {
+                return fin;
+            }
+        };
+    }
+}
@@ -3,11 +3,14 @@ package com.deportur.service;
 import com.deportur.model.*;
 import com.deportur.model.enums.EstadoReserva;
 import com.deportur.model.enums.TipoDocumento;
+import com.deportur.model.enums.TipoEventoReserva;
 import com.deportur.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -23,6 +26,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -51,6 +55,24 @@ class ReservaServiceTest {
     @Mock
     private ReservaHistorialRepository reservaHistorialRepository;
 
+    @Mock
+    private EscritorHistorialReservas escritorHistorial;
+
+    @Mock
+    private ArchivoHistorialReservas archivoHistorial;
+
+    @Mock
+    private BloqueoEquipoService bloqueoEquipoService;
+
+    @Mock
+    private EventoReservaRepository eventoReservaRepository;
+
+    @Mock
+    private ClienteEstadisticaService clienteEstadisticaService;
+
+    @Mock
+    private IdempotenciaService idempotenciaService;
+
     private PoliticaPrecioService politicaPrecioService;
 
     @InjectMocks
@@ -116,7 +138,7 @@ class ReservaServiceTest {
         when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteTest));
         when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoTest));
         when(equipoRepository.findById(1L)).thenReturn(Optional.of(equipoTest));
-        when(detalleReservaRepository.existsReservaEnFechas(anyLong(), any(), any())).thenReturn(false);
+        when(detalleReservaRepository.findOcupacionesEnRango(List.of(1L), fechaInicio, fechaFin)).thenReturn(List.of());
         when(reservaRepository.save(any(Reserva.class))).thenAnswer(invocation -> {
             Reserva reserva = invocation.getArgument(0);
             reserva.setIdReserva(1L);
@@ -157,6 +179,76 @@ class ReservaServiceTest {
         verify(reservaRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("Debe rechazar un equipo apartado por el bloqueo temporal de otro cliente")
+    void testCrearReserva_EquipoApartado() {
+        // Arrange
+        LocalDate fechaInicio = LocalDate.now().plusDays(5);
+        LocalDate fechaFin = LocalDate.now().plusDays(10);
+
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteTest));
+        when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoTest));
+        when(equipoRepository.findById(1L)).thenReturn(Optional.of(equipoTest));
+        when(bloqueoEquipoService.equiposBloqueados(List.of(1L), fechaInicio, fechaFin, null)).thenReturn(List.of(1L));
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () -> {
+            reservaService.crearReserva(1L, fechaInicio, fechaFin, 1L, List.of(1L));
+        });
+
+        assertTrue(exception.getMessage().contains("apartado"));
+        verify(equipoRepository).bloquearPorIds(List.of(1L));
+        verify(reservaRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un equipo reservado en las fechas con una sola consulta de solapes")
+    void testCrearReserva_EquipoReservado() {
+        // Arrange
+        LocalDate fechaInicio = LocalDate.now().plusDays(5);
+        LocalDate fechaFin = LocalDate.now().plusDays(10);
+        DetalleReservaRepository.Ocupacion ocupacion = mock(DetalleReservaRepository.Ocupacion.class);
+        when(ocupacion.getIdEquipo()).thenReturn(1L);
+
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteTest));
+        when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoTest));
+        when(equipoRepository.findById(1L)).thenReturn(Optional.of(equipoTest));
+        when(detalleReservaRepository.findOcupacionesEnRango(List.of(1L), fechaInicio, fechaFin))
+            .thenReturn(List.of(ocupacion));
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () -> {
+            reservaService.crearReserva(1L, fechaInicio, fechaFin, 1L, List.of(1L, 1L));
+        });
+
+        assertTrue(exception.getMessage().contains("ya está reservado"));
+        verify(detalleReservaRepository, times(1)).findOcupacionesEnRango(any(), any(), any());
+        verify(detalleReservaRepository, never()).existsReservaEnFechas(anyLong(), any(), any());
+        verify(reservaRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe consumir el bloqueo temporal en la transacción que guarda la reserva")
+    void testCrearReserva_ConvierteBloqueo() throws Exception {
+        // Arrange
+        LocalDate fechaInicio = LocalDate.now().plusDays(5);
+        LocalDate fechaFin = LocalDate.now().plusDays(10);
+
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(clienteTest));
+        when(destinoRepository.findById(1L)).thenReturn(Optional.of(destinoTest));
+        when(equipoRepository.findById(1L)).thenReturn(Optional.of(equipoTest));
+        when(reservaRepository.save(any(Reserva.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        reservaService.crearReserva(1L, fechaInicio, fechaFin, 1L, List.of(1L), "abc");
+
+        // Assert: el propio bloqueo no cuenta como conflicto y se consume justo antes de guardar
+        verify(bloqueoEquipoService).equiposBloqueados(List.of(1L), fechaInicio, fechaFin, "abc");
+        InOrder orden = inOrder(bloqueoEquipoService, reservaRepository);
+        orden.verify(bloqueoEquipoService).convertir(eq("abc"), eq(1L), eq(List.of(1L)), eq(fechaInicio), eq(fechaFin));
+        orden.verify(reservaRepository).save(any(Reserva.class));
+    }
+
     @Test
     @DisplayName("Debe lanzar excepción cuando las fechas son inválidas")
     void testValidarFechas_FechaInicioMayorAFin() {
@@ -211,7 +303,21 @@ class ReservaServiceTest {
         assertNotNull(resultado);
         assertEquals(EstadoReserva.CONFIRMADA, resultado.getEstado());
         verify(reservaRepository).save(reservaTest);
-        verify(reservaHistorialRepository).save(any(ReservaHistorial.class));
+        // El historial se encola para el escritor por lotes; el repositorio ya no inserta
+        ArgumentCaptor<EscritorHistorialReservas.Registro> historial =
+            ArgumentCaptor.forClass(EscritorHistorialReservas.Registro.class);
+        verify(escritorHistorial).registrar(historial.capture());
+        assertEquals(EstadoReserva.PENDIENTE, historial.getValue().estadoAnterior());
+        assertEquals(EstadoReserva.CONFIRMADA, historial.getValue().estadoNuevo());
+        assertEquals("Reserva confirmada", historial.getValue().observaciones());
+        verify(reservaHistorialRepository, never()).save(any(ReservaHistorial.class));
+
+        // El evento va a la bandeja de salida en la misma transacción
+        ArgumentCaptor<EventoReserva> evento = ArgumentCaptor.forClass(EventoReserva.class);
+        verify(eventoReservaRepository).save(evento.capture());
+        assertEquals(TipoEventoReserva.CONFIRMADA, evento.getValue().getTipo());
+        assertEquals(EstadoReserva.PENDIENTE, evento.getValue().getEstadoAnterior());
+        assertEquals(EstadoReserva.CONFIRMADA, evento.getValue().getEstadoNuevo());
     }
 
     @Test
@@ -247,6 +353,27 @@ class ReservaServiceTest {
         verify(reservaRepository).save(reservaTest);
     }
 
+    @Test
+    @DisplayName("Debe registrar un evento por cada transición automática de estado")
+    void testActualizarEstados_RegistraEvento() {
+        // Arrange: reserva confirmada cuyo periodo ya terminó
+        reservaTest.setEstado(EstadoReserva.CONFIRMADA);
+        reservaTest.setFechaInicio(LocalDate.now().minusDays(10));
+        reservaTest.setFechaFin(LocalDate.now().minusDays(1));
+        when(reservaRepository.findAll()).thenReturn(List.of(reservaTest));
+
+        // Act
+        reservaService.actualizarEstadosAutomaticamente();
+
+        // Assert
+        assertEquals(EstadoReserva.FINALIZADA, reservaTest.getEstado());
+        ArgumentCaptor<EventoReserva> evento = ArgumentCaptor.forClass(EventoReserva.class);
+        verify(eventoReservaRepository).save(evento.capture());
+        assertEquals(TipoEventoReserva.ESTADO_AUTOMATICO, evento.getValue().getTipo());
+        assertEquals(EstadoReserva.CONFIRMADA, evento.getValue().getEstadoAnterior());
+        assertEquals(EstadoReserva.FINALIZADA, evento.getValue().getEstadoNuevo());
+    }
+
     @Test
     @DisplayName("Debe lanzar excepción al cancelar reserva ya cancelada")
     void testCancelarReserva_YaCancelada() {
@@ -395,4 +522,30 @@ class ReservaServiceTest {
         assertNotNull(resultado);
         assertEquals(1, resultado.size());
     }
+
+    @Test
+    @DisplayName("Debe unir el historial de la base con el archivado, del más reciente al más antiguo")
+    void testObtenerHistorialReserva_IncluyeArchivado() throws Exception {
+        // Arrange
+        ReservaHistorial reciente = historial(EstadoReserva.CONFIRMADA, LocalDateTime.now().minusDays(1));
+        ReservaHistorial antiguo = historial(EstadoReserva.PENDIENTE, LocalDateTime.now().minusMonths(14));
+        when(reservaRepository.existsById(1L)).thenReturn(true);
+        when(reservaHistorialRepository.findByReserva_IdReservaOrderByFechaCambioDesc(1L)).thenReturn(List.of(reciente));
+        when(archivoHistorial.buscar(1L)).thenReturn(List.of(antiguo));
+
+        // Act
+        List<ReservaHistorial> resultado = reservaService.obtenerHistorialReserva(1L, true);
+        List<ReservaHistorial> soloBase = reservaService.obtenerHistorialReserva(1L);
+
+        // Assert
+        assertEquals(List.of(reciente, antiguo), resultado);
+        assertEquals(List.of(reciente), soloBase);
+        verify(archivoHistorial, times(1)).buscar(1L);
+    }
+
+    private ReservaHistorial historial(EstadoReserva estadoNuevo, LocalDateTime fechaCambio) {
+        ReservaHistorial historial = new ReservaHistorial(reservaTest, null, estadoNuevo, "SYSTEM", null);
+        historial.setFechaCambio(fechaCambio);
+        return historial;
+    }
 }
@@ -0,0 +1,80 @@
+package com.deportur.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para RuedaTemporizadora
+ */
+@DisplayName("RuedaTemporizadora - Pruebas Unitarias")
+class RuedaTemporizadoraTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Debe entregar cada valor en el tick de su vencimiento, nunca antes")
+    void testAvanzar_VenceEnSuTick() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(1000, INICIO);
+        rueda.programar("a", INICIO + 2500);
+
+        assertTrue(rueda.avanzar(INICIO + 2999).isEmpty());
+        assertEquals(List.of("a"), rueda.avanzar(INICIO + 3000));
+        assertTrue(rueda.avanzar(INICIO + 10_000).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debe bajar de nivel los vencimientos lejanos y entregarlos a tiempo")
+    void testAvanzar_VariosNiveles() {
+        RuedaTemporizadora<Long> rueda = new RuedaTemporizadora<>(1, 0);
+        Random aleatorio = new Random(42);
+        List<Long> vencimientos = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // Hasta ~3 niveles: 64, 4096 y 262144 ticks
+            long vence = 1 + aleatorio.nextInt(300_000);
+            vencimientos.add(vence);
+            rueda.programar(vence, vence);
+        }
+
+        int entregados = 0;
+        for (long ahora = 1; ahora <= 300_000; ahora += 1 + aleatorio.nextInt(50)) {
+            for (Long vence : rueda.avanzar(ahora)) {
+                assertTrue(vence <= ahora, "entregado antes de tiempo: " + vence + " en " + ahora);
+                assertTrue(ahora - vence < 51, "entregado tarde: " + vence + " en " + ahora);
+                entregados++;
+            }
+        }
+        entregados += rueda.avanzar(300_100).size();
+        assertEquals(vencimientos.size(), entregados);
+    }
+
+    @Test
+    @DisplayName("Un valor cancelado no debe entregarse")
+    void testCancelar() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(1000, INICIO);
+        RuedaTemporizadora.Entrada<String> cancelada = rueda.programar("a", INICIO + 5000);
+        rueda.programar("b", INICIO + 5000);
+
+        cancelada.cancelar();
+
+        assertEquals(List.of("b"), rueda.avanzar(INICIO + 6000));
+    }
+
+    @Test
+    @DisplayName("Un vencimiento pasado se entrega en el siguiente tick y uno más allá del alcance al llegar")
+    void testProgramar_FueraDeRango() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(1, 0);
+        rueda.programar("pasado", -50);
+        long lejano = (1L << 24) + 100;
+        rueda.programar("lejano", lejano);
+
+        assertEquals(List.of("pasado"), rueda.avanzar(1));
+        assertTrue(rueda.avanzar(lejano - 1).isEmpty());
+        assertEquals(List.of("lejano"), rueda.avanzar(lejano));
+    }
+}
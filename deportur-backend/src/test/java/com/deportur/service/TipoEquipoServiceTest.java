@@ -1,8 +1,6 @@
 package com.deportur.service;
 
-import com.deportur.model.EquipoDeportivo;
 import com.deportur.model.TipoEquipo;
-import com.deportur.repository.EquipoDeportivoRepository;
 import com.deportur.repository.TipoEquipoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +9,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,7 +32,10 @@ class TipoEquipoServiceTest {
     private TipoEquipoRepository tipoEquipoRepository;
 
     @Mock
-    private EquipoDeportivoRepository equipoRepository;
+    private IntegridadReferencialService integridadReferencialService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private TipoEquipoService tipoEquipoService;
@@ -61,6 +64,7 @@ class TipoEquipoServiceTest {
         assertEquals("Bicicletas", resultado.getNombre());
         assertEquals("Bicicletas de montaña y ruta para diferentes niveles", resultado.getDescripcion());
         verify(tipoEquipoRepository).save(tipoEquipoValido);
+        verify(eventPublisher).publishEvent(any(TipoEquipoModificadoEvent.class));
     }
 
     @Test
@@ -168,14 +172,15 @@ class TipoEquipoServiceTest {
     void testEliminarTipoEquipo_Exitoso() throws Exception {
         // Arrange
         when(tipoEquipoRepository.findById(1L)).thenReturn(Optional.of(tipoEquipoValido));
-        when(equipoRepository.findByTipo(tipoEquipoValido)).thenReturn(Arrays.asList());
+        when(integridadReferencialService.verificarTipoEquipo(1L)).thenReturn(
+            new IntegridadReferencialService.ReferenciasBloqueantes(Map.of(IntegridadReferencialService.EQUIPOS, 0L)));
 
         // Act
         tipoEquipoService.eliminarTipoEquipo(1L);
 
         // Assert
         verify(tipoEquipoRepository).findById(1L);
-        verify(equipoRepository).findByTipo(tipoEquipoValido);
+        verify(integridadReferencialService).verificarTipoEquipo(1L);
         verify(tipoEquipoRepository).delete(tipoEquipoValido);
     }
 
@@ -183,13 +188,9 @@ class TipoEquipoServiceTest {
     @DisplayName("Debe lanzar excepción al eliminar tipo de equipo con equipos asociados")
     void testEliminarTipoEquipo_ConEquiposAsociados() {
         // Arrange
-        EquipoDeportivo equipo = new EquipoDeportivo();
-        equipo.setIdEquipo(1L);
-        equipo.setNombre("Bicicleta Trek");
-        equipo.setTipo(tipoEquipoValido);
-
         when(tipoEquipoRepository.findById(1L)).thenReturn(Optional.of(tipoEquipoValido));
-        when(equipoRepository.findByTipo(tipoEquipoValido)).thenReturn(Arrays.asList(equipo));
+        when(integridadReferencialService.verificarTipoEquipo(1L)).thenReturn(
+            new IntegridadReferencialService.ReferenciasBloqueantes(Map.of(IntegridadReferencialService.EQUIPOS, 1L)));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
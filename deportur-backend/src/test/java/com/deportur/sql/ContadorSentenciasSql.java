@@ -0,0 +1,60 @@
+package com.deportur.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registra las sentencias SQL que Hibernate prepara en el hilo actual.
+ * Cada petición HTTP se atiende en un solo hilo (también con MockMvc), así que
+ * basta con reiniciar al entrar y leer al salir para saber qué SQL generó.
+ *
+ * Se activa con spring.jpa.properties.hibernate.session_factory.statement_inspector
+ * en los perfiles "carga" y "sql" de las pruebas.
+ */
+public class ContadorSentenciasSql implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> SENTENCIAS = ThreadLocal.withInitial(ArrayList::new);
+
+    private static final Map<String, LongAdder> POR_OPERACION = new ConcurrentHashMap<>();
+
+    @Override
+    public String inspect(String sql) {
+        SENTENCIAS.get().add(sql);
+        return sql;
+    }
+
+    public static void reiniciar() {
+        SENTENCIAS.get().clear();
+    }
+
+    public static int contar() {
+        return SENTENCIAS.get().size();
+    }
+
+    /**
+     * Copia de las sentencias registradas en el hilo desde el último reinicio
+     */
+    public static List<String> sentencias() {
+        return new ArrayList<>(SENTENCIAS.get());
+    }
+
+    /**
+     * Suma las sentencias del hilo al total de una operación (prueba de carga)
+     */
+    public static void acumular(String operacion) {
+        POR_OPERACION.computeIfAbsent(operacion, clave -> new LongAdder()).add(contar());
+    }
+
+    public static long total(String operacion) {
+        LongAdder contador = POR_OPERACION.get(operacion);
+        return contador != null ? contador.sum() : 0L;
+    }
+
+    public static void limpiar() {
+        POR_OPERACION.clear();
+    }
+}
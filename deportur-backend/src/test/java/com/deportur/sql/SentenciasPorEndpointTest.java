@@ -0,0 +1,465 @@
+package com.deportur.sql;
+
+import com.deportur.Application;
+import com.deportur.model.*;
+import com.deportur.model.enums.*;
+import com.deportur.repository.*;
+import com.deportur.service.DestinoModificadoEvent;
+import com.deportur.service.TipoEquipoModificadoEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Límite de sentencias SQL por endpoint de controller/*, para que un N+1 nuevo rompa el build.
+ *
+ * Cada endpoint se ejecuta dos veces con MockMvc: tras sembrar una ronda de datos y tras
+ * sembrar otra igual. En cada medición debe quedar por debajo de base + porFila × filas,
+ * y entre una y otra no puede crecer más de porFila × filas nuevas (más una holgura).
+ * Con porFila = 0 el endpoint debe costar lo mismo sin importar el volumen de datos.
+ *
+ * Los porFila distintos de cero son N+1 conocidos que se pueden bajar, nunca subir.
+ * Si un endpoint supera su límite el fallo lista el SQL que ejecutó.
+ */
+@SpringBootTest(classes = Application.class)
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles({"test", "sql"})
+@DisplayName("Sentencias SQL por endpoint - protección contra N+1")
+class SentenciasPorEndpointTest {
+
+    /** Equipos, reservas, clientes, destinos y políticas que siembra cada ronda */
+    private static final int FILAS_POR_RONDA = 5;
+
+    /** Filas que además crean en cada ronda las semillas para escrituras y los POST */
+    private static final int FILAS_EXTRA_POR_RONDA = 3;
+
+    private static final int FILAS_NUEVAS = FILAS_POR_RONDA + FILAS_EXTRA_POR_RONDA;
+
+    private static final int HOLGURA = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TipoEquipoRepository tipoEquipoRepository;
+
+    @Autowired
+    private DestinoTuristicoRepository destinoRepository;
+
+    @Autowired
+    private EquipoDeportivoRepository equipoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private PoliticaPrecioRepository politicaPrecioRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    private final LocalDate hoy = LocalDate.now();
+
+    private TipoEquipo tipo;
+    private DestinoTuristico destino;
+    private Cliente cliente;
+
+    /**
+     * Sentencias permitidas: base fija más porFila por cada fila sembrada
+     */
+    private record Limite(int base, int porFila) {
+
+        int maximo(int filas) {
+            return base + porFila * filas;
+        }
+    }
+
+    private record Caso(String nombre, Limite limite, Function<Ronda, MockHttpServletRequestBuilder> peticion) {
+    }
+
+    private record Medicion(int estado, List<String> sentencias) {
+    }
+
+    /**
+     * Ids sembrados en una ronda; las escrituras trabajan sobre los suyos para no depender de los POST
+     */
+    private record Ronda(int numero, Long idEquipo, Long idReserva, Long idPolitica,
+                         Long idClienteEscritura, Long idEquipoEscritura, Long idEquipoLibre, Long idReservaEscritura,
+                         Long idClienteEditable, Long idClienteDesechable, Long idDestinoEditable,
+                         Long idDestinoDesechable, Long idEquipoDesechable, Long idTipoDesechable,
+                         Long idPoliticaEditable, Long idPoliticaDesechable) {
+    }
+
+    @Test
+    @DisplayName("Ningún endpoint debe superar su límite de sentencias ni crecer con el volumen de datos")
+    void sentenciasPorEndpoint() throws Exception {
+        sembrarBase();
+        List<Caso> casos = casos();
+
+        Map<String, Medicion> primera = medir(casos, sembrarRonda(1));
+        Map<String, Medicion> segunda = medir(casos, sembrarRonda(2));
+
+        List<String> fallos = new ArrayList<>();
+        StringBuilder tabla = new StringBuilder(String.format("%n%-50s %6s %8s %8s %8s%n",
+            "endpoint", "estado", "ronda 1", "ronda 2", "límite"));
+        for (Caso caso : casos) {
+            Medicion antes = primera.get(caso.nombre());
+            Medicion despues = segunda.get(caso.nombre());
+            int limite = caso.limite().maximo(2 * FILAS_NUEVAS);
+            tabla.append(String.format("%-50s %6d %8d %8d %8d%n", caso.nombre(), despues.estado(),
+                antes.sentencias().size(), despues.sentencias().size(), limite));
+
+            if (antes.sentencias().size() > caso.limite().maximo(FILAS_NUEVAS)) {
+                fallos.add(describir(caso.nombre() + " (ronda 1)", antes,
+                    "límite " + caso.limite().maximo(FILAS_NUEVAS)));
+            }
+            if (despues.sentencias().size() > limite) {
+                fallos.add(describir(caso.nombre() + " (ronda 2)", despues, "límite " + limite));
+            }
+            int crecimiento = despues.sentencias().size() - antes.sentencias().size();
+            int crecimientoMaximo = caso.limite().porFila() * FILAS_NUEVAS + HOLGURA;
+            if (crecimiento > crecimientoMaximo) {
+                fallos.add(describir(caso.nombre() + " crece " + crecimiento + " sentencias con "
+                    + FILAS_NUEVAS + " filas más por tabla", despues, "máximo " + crecimientoMaximo));
+            }
+        }
+        System.out.println(tabla);
+
+        assertTrue(fallos.isEmpty(), "Endpoints por encima de su límite de sentencias SQL:\n\n"
+            + String.join("\n", fallos));
+    }
+
+    private List<Caso> casos() {
+        List<Caso> casos = new ArrayList<>();
+
+        // Lecturas
+        casos.add(new Caso("GET /api/catalogo", new Limite(6, 0), r -> get("/api/catalogo")));
+        casos.add(new Caso("GET /api/clientes", new Limite(4, 0), r -> get("/api/clientes")));
+        casos.add(new Caso("GET /api/clientes/{id}", new Limite(4, 0),
+            r -> get("/api/clientes/{id}", cliente.getIdCliente())));
+        casos.add(new Caso("GET /api/clientes/documento/{documento}", new Limite(4, 0),
+            r -> get("/api/clientes/documento/{documento}", cliente.getDocumento())));
+        casos.add(new Caso("GET /api/clientes/buscar", new Limite(4, 0),
+            r -> get("/api/clientes/buscar").param("q", "Cliente")));
+        // Las reservas recientes están acotadas a 5, así que no crece con el historial del cliente
+        casos.add(new Caso("GET /api/clientes/{id}/estadisticas", new Limite(30, 0),
+            r -> get("/api/clientes/{id}/estadisticas", cliente.getIdCliente())));
+        // Cuatro count() y tres conteos agregados (GROUP BY)
+        casos.add(new Caso("GET /api/dashboard/metricas", new Limite(10, 0), r -> get("/api/dashboard/metricas")));
+        casos.add(new Caso("GET /api/destinos", new Limite(4, 0), r -> get("/api/destinos")));
+        casos.add(new Caso("GET /api/destinos/{id}", new Limite(3, 0),
+            r -> get("/api/destinos/{id}", destino.getIdDestino())));
+        casos.add(new Caso("GET /api/destinos/buscar", new Limite(3, 0),
+            r -> get("/api/destinos/buscar").param("q", "Destino")));
+        casos.add(new Caso("GET /api/destinos/cercanos", new Limite(8, 0),
+            r -> get("/api/destinos/cercanos").param("lat", "6.25").param("lon", "-75.56")
+                .param("inicio", hoy.plusDays(300).toString()).param("fin", hoy.plusDays(302).toString())));
+        casos.add(new Caso("GET /api/equipos", new Limite(6, 0), r -> get("/api/equipos")));
+        casos.add(new Caso("GET /api/equipos/{id}", new Limite(4, 0), r -> get("/api/equipos/{id}", r.idEquipo())));
+        casos.add(new Caso("GET /api/equipos/tipo/{idTipo}", new Limite(6, 0),
+            r -> get("/api/equipos/tipo/{idTipo}", tipo.getIdTipo())));
+        casos.add(new Caso("GET /api/equipos/destino/{idDestino}", new Limite(6, 0),
+            r -> get("/api/equipos/destino/{idDestino}", destino.getIdDestino())));
+        casos.add(new Caso("GET /api/equipos/disponibles", new Limite(6, 0),
+            r -> get("/api/equipos/disponibles").param("destino", destino.getIdDestino().toString())
+                .param("inicio", hoy.plusDays(300).toString()).param("fin", hoy.plusDays(302).toString())));
+        // N+1 conocido: DisponibilidadService consulta cada equipo del destino por separado
+        casos.add(new Caso("GET /api/equipos/verificar-disponibilidad", new Limite(8, 3),
+            r -> get("/api/equipos/verificar-disponibilidad").param("destino", destino.getIdDestino().toString())
+                .param("inicio", hoy.plusDays(300).toString()).param("fin", hoy.plusDays(302).toString())));
+        casos.add(new Caso("GET /api/politicas-precio", new Limite(4, 0), r -> get("/api/politicas-precio")));
+        casos.add(new Caso("GET /api/politicas-precio/activas", new Limite(4, 0),
+            r -> get("/api/politicas-precio/activas")));
+        casos.add(new Caso("GET /api/politicas-precio/{id}", new Limite(4, 0),
+            r -> get("/api/politicas-precio/{id}", r.idPolitica())));
+        casos.add(new Caso("GET /api/politicas-precio/destino/{id}", new Limite(4, 0),
+            r -> get("/api/politicas-precio/destino/{id}", destino.getIdDestino())));
+        casos.add(new Caso("GET /api/politicas-precio/tipo-equipo/{id}", new Limite(4, 0),
+            r -> get("/api/politicas-precio/tipo-equipo/{id}", tipo.getIdTipo())));
+        casos.add(new Caso("GET /api/politicas-precio/equipo/{id}", new Limite(4, 0),
+            r -> get("/api/politicas-precio/equipo/{id}", r.idEquipo())));
+        casos.add(new Caso("GET /api/politicas-precio/aplicables", new Limite(4, 0),
+            r -> get("/api/politicas-precio/aplicables").param("fecha", hoy.toString())
+                .param("destinoId", destino.getIdDestino().toString())));
+        casos.add(new Caso("GET /api/politicas-precio/rango-fechas", new Limite(4, 0),
+            r -> get("/api/politicas-precio/rango-fechas").param("fechaInicio", hoy.toString())
+                .param("fechaFin", hoy.plusMonths(6).toString())));
+        // N+1 conocido: los detalles de cada reserva (colección EAGER) se cargan con una consulta por reserva
+        casos.add(new Caso("GET /api/reservas", new Limite(8, 3), r -> get("/api/reservas")));
+        casos.add(new Caso("GET /api/reservas/{id}", new Limite(6, 0), r -> get("/api/reservas/{id}", r.idReserva())));
+        casos.add(new Caso("GET /api/reservas/cliente/{id}", new Limite(8, 3),
+            r -> get("/api/reservas/cliente/{id}", cliente.getIdCliente())));
+        casos.add(new Caso("GET /api/reservas/destino/{id}", new Limite(8, 3),
+            r -> get("/api/reservas/destino/{id}", destino.getIdDestino())));
+        casos.add(new Caso("GET /api/reservas/{id}/historial", new Limite(4, 0),
+            r -> get("/api/reservas/{id}/historial", r.idReserva())));
+
+        // Escrituras
+        casos.add(new Caso("POST /api/tipos-equipo", new Limite(4, 0),
+            r -> json(post("/api/tipos-equipo"), Map.of("nombre", "Tipo nuevo " + r.numero(), "descripcion", "Prueba"))));
+        casos.add(new Caso("PUT /api/tipos-equipo/{id}", new Limite(5, 0),
+            r -> json(put("/api/tipos-equipo/{id}", r.idTipoDesechable()),
+                Map.of("nombre", "Tipo editado " + r.numero(), "descripcion", "Prueba"))));
+        casos.add(new Caso("POST /api/destinos", new Limite(4, 0),
+            r -> json(post("/api/destinos"), destinoRequest("Destino nuevo " + r.numero()))));
+        casos.add(new Caso("PUT /api/destinos/{id}", new Limite(5, 0),
+            r -> json(put("/api/destinos/{id}", r.idDestinoEditable()), destinoRequest("Destino editado " + r.numero()))));
+        casos.add(new Caso("POST /api/equipos", new Limite(6, 0),
+            r -> json(post("/api/equipos"), equipoRequest("Equipo nuevo " + r.numero()))));
+        casos.add(new Caso("PUT /api/equipos/{id}", new Limite(8, 0),
+            r -> json(put("/api/equipos/{id}", r.idEquipo()), equipoRequest("Equipo editado " + r.numero()))));
+        casos.add(new Caso("POST /api/clientes", new Limite(5, 0),
+            r -> json(post("/api/clientes"), clienteRequest("Nuevo", "7100000" + r.numero()))));
+        casos.add(new Caso("PUT /api/clientes/{id}", new Limite(6, 0),
+            r -> json(put("/api/clientes/{id}", r.idClienteEditable()), clienteRequest("Editado", documento(r.numero(), 1)))));
+        casos.add(new Caso("POST /api/politicas-precio", new Limite(10, 0),
+            r -> json(post("/api/politicas-precio"), politicaRequest("Política nueva " + r.numero()))));
+        casos.add(new Caso("PUT /api/politicas-precio/{id}", new Limite(12, 0),
+            r -> json(put("/api/politicas-precio/{id}", r.idPoliticaEditable()),
+                politicaRequest("Política editada " + r.numero()))));
+        casos.add(new Caso("PATCH /api/politicas-precio/{id}/estado", new Limite(5, 0),
+            r -> patch("/api/politicas-precio/{id}/estado", r.idPoliticaEditable()).param("activo", "false")));
+        casos.add(new Caso("POST /api/reservas", new Limite(45, 0),
+            r -> json(post("/api/reservas"), reservaRequest(r.idClienteEscritura(), r.idEquipoLibre(),
+                fechaRonda(r, 60)))));
+        // Tres reservas por lote con el mismo presupuesto que una sola
+        casos.add(new Caso("POST /api/reservas/lote", new Limite(45, 0),
+            r -> json(post("/api/reservas/lote"), Map.of("reservas", List.of(
+                reservaRequest(r.idClienteEscritura(), r.idEquipoLibre(), fechaRonda(r, 70)),
+                reservaRequest(r.idClienteEscritura(), r.idEquipoLibre(), fechaRonda(r, 80)),
+                reservaRequest(r.idClienteEscritura(), r.idEquipoLibre(), fechaRonda(r, 90)))))));
+        casos.add(new Caso("PUT /api/reservas/{id}", new Limite(45, 0),
+            r -> json(put("/api/reservas/{id}", r.idReservaEscritura()), reservaRequest(r.idClienteEscritura(),
+                r.idEquipoEscritura(), fechaRonda(r, 55)))));
+        casos.add(new Caso("PATCH /api/reservas/{id}/confirmar", new Limite(25, 0),
+            r -> patch("/api/reservas/{id}/confirmar", r.idReservaEscritura())));
+        casos.add(new Caso("PATCH /api/reservas/{id}/cancelar", new Limite(25, 0),
+            r -> patch("/api/reservas/{id}/cancelar", r.idReservaEscritura())));
+        casos.add(new Caso("DELETE /api/politicas-precio/{id}", new Limite(5, 0),
+            r -> delete("/api/politicas-precio/{id}", r.idPoliticaDesechable())));
+        casos.add(new Caso("DELETE /api/equipos/{id}", new Limite(6, 0),
+            r -> delete("/api/equipos/{id}", r.idEquipoDesechable())));
+        casos.add(new Caso("DELETE /api/clientes/{id}", new Limite(6, 0),
+            r -> delete("/api/clientes/{id}", r.idClienteDesechable())));
+        casos.add(new Caso("DELETE /api/destinos/{id}", new Limite(6, 0),
+            r -> delete("/api/destinos/{id}", r.idDestinoDesechable())));
+        casos.add(new Caso("DELETE /api/tipos-equipo/{id}", new Limite(6, 0),
+            r -> delete("/api/tipos-equipo/{id}", r.idTipoDesechable())));
+
+        return casos;
+    }
+
+    private Map<String, Medicion> medir(List<Caso> casos, Ronda ronda) throws Exception {
+        Map<String, Medicion> mediciones = new LinkedHashMap<>();
+        for (Caso caso : casos) {
+            ContadorSentenciasSql.reiniciar();
+            int estado = mockMvc.perform(caso.peticion().apply(ronda)).andReturn().getResponse().getStatus();
+            mediciones.put(caso.nombre(), new Medicion(estado, ContadorSentenciasSql.sentencias()));
+        }
+        return mediciones;
+    }
+
+    private static String describir(String titulo, Medicion medicion, String limite) {
+        StringBuilder texto = new StringBuilder(String.format("%s: %d sentencias (%s, HTTP %d)%n",
+            titulo, medicion.sentencias().size(), limite, medicion.estado()));
+        for (int i = 0; i < medicion.sentencias().size(); i++) {
+            texto.append(String.format("  %3d. %s%n", i + 1, medicion.sentencias().get(i)));
+        }
+        return texto.toString();
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder peticion, Object cuerpo) {
+        try {
+            return peticion.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(cuerpo));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private LocalDate fechaRonda(Ronda ronda, int dias) {
+        return hoy.plusDays(100L * ronda.numero() + dias);
+    }
+
+    private static String documento(int ronda, int indice) {
+        return String.valueOf(80_000_000L + ronda * 1_000L + indice);
+    }
+
+    private Map<String, Object> destinoRequest(String nombre) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("nombre", nombre);
+        cuerpo.put("departamento", "Antioquia");
+        cuerpo.put("ciudad", "Medellín");
+        cuerpo.put("latitud", new BigDecimal("6.244203"));
+        cuerpo.put("longitud", new BigDecimal("-75.581215"));
+        cuerpo.put("capacidadMaxima", 100);
+        cuerpo.put("tipoDestino", TipoDestino.CIUDAD);
+        cuerpo.put("activo", true);
+        return cuerpo;
+    }
+
+    private Map<String, Object> equipoRequest(String nombre) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("nombre", nombre);
+        cuerpo.put("idTipo", tipo.getIdTipo());
+        cuerpo.put("marca", "Marca");
+        cuerpo.put("estado", EstadoEquipo.BUENO);
+        cuerpo.put("precioAlquiler", new BigDecimal("50000"));
+        cuerpo.put("fechaAdquisicion", hoy.minusYears(1).toString());
+        cuerpo.put("idDestino", destino.getIdDestino());
+        cuerpo.put("disponible", true);
+        return cuerpo;
+    }
+
+    private Map<String, Object> clienteRequest(String nombre, String documento) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("nombre", nombre);
+        cuerpo.put("apellido", "Prueba");
+        cuerpo.put("documento", documento);
+        cuerpo.put("tipoDocumento", TipoDocumento.CC);
+        cuerpo.put("email", "cliente" + documento + "@example.com");
+        return cuerpo;
+    }
+
+    private Map<String, Object> politicaRequest(String nombre) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("nombre", nombre);
+        cuerpo.put("tipoPolitica", TipoPolitica.DESCUENTO_TEMPORADA);
+        cuerpo.put("porcentaje", new BigDecimal("5"));
+        cuerpo.put("fechaInicio", hoy.toString());
+        cuerpo.put("fechaFin", hoy.plusYears(1).toString());
+        cuerpo.put("activo", true);
+        cuerpo.put("destinoId", destino.getIdDestino());
+        return cuerpo;
+    }
+
+    private Map<String, Object> reservaRequest(Long idCliente, Long idEquipo, LocalDate inicio) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("idCliente", idCliente);
+        cuerpo.put("idDestino", destino.getIdDestino());
+        cuerpo.put("fechaInicio", inicio.toString());
+        cuerpo.put("fechaFin", inicio.plusDays(2).toString());
+        cuerpo.put("idsEquipos", List.of(idEquipo));
+        return cuerpo;
+    }
+
+    /**
+     * Tipo, destino y cliente que comparten todas las rondas: las consultas por
+     * tipo, destino o cliente ven crecer sus filas de una ronda a otra
+     */
+    private void sembrarBase() {
+        tipo = tipoEquipoRepository.save(new TipoEquipo(null, "Bicicleta", "Bicicletas de montaña"));
+        destino = destinoRepository.save(nuevoDestino("Destino principal", 6.2442, -75.5812));
+        cliente = clienteRepository.save(new Cliente(null, "Cliente", "Principal", "90000000", TipoDocumento.CC,
+            "3000000000", "principal@example.com", "Calle 1"));
+    }
+
+    private Ronda sembrarRonda(int numero) {
+        List<EquipoDeportivo> equipos = new ArrayList<>();
+        for (int i = 0; i < FILAS_POR_RONDA + FILAS_EXTRA_POR_RONDA; i++) {
+            equipos.add(new EquipoDeportivo(null, "Equipo " + numero + "-" + i, tipo, "Marca", EstadoEquipo.BUENO,
+                new BigDecimal("50000"), hoy.minusYears(1), destino, true));
+        }
+        equipos = equipoRepository.saveAll(equipos);
+        EquipoDeportivo equipoEscritura = equipos.get(FILAS_POR_RONDA);
+        EquipoDeportivo equipoLibre = equipos.get(FILAS_POR_RONDA + 1);
+        EquipoDeportivo equipoDesechable = equipos.get(FILAS_POR_RONDA + 2);
+
+        List<Cliente> clientes = new ArrayList<>();
+        for (int i = 0; i < FILAS_POR_RONDA; i++) {
+            clientes.add(new Cliente(null, "Cliente" + numero, "Apellido" + i, documento(numero, i), TipoDocumento.CC,
+                "300" + documento(numero, i), "cliente" + documento(numero, i) + "@example.com", "Calle " + i));
+        }
+        clientes = clienteRepository.saveAll(clientes);
+        Cliente clienteEscritura = clientes.get(0);
+
+        // Las reservas del cliente principal usan un equipo cada una, sin solapes entre rondas
+        List<Reserva> reservas = new ArrayList<>();
+        for (int i = 0; i < FILAS_POR_RONDA; i++) {
+            reservas.add(nuevaReserva(cliente, equipos.get(i), hoy.plusDays(100L * numero + i), EstadoReserva.CONFIRMADA));
+        }
+        reservas.add(nuevaReserva(clienteEscritura, equipoEscritura, hoy.plusDays(100L * numero + 50),
+            EstadoReserva.PENDIENTE));
+        reservas = reservaRepository.saveAll(reservas);
+
+        List<DestinoTuristico> destinos = new ArrayList<>();
+        for (int i = 0; i < FILAS_POR_RONDA; i++) {
+            destinos.add(nuevoDestino("Destino " + numero + "-" + i, 4.0 + numero + i * 0.5, -74.0 - i * 0.5));
+        }
+        destinos = destinoRepository.saveAll(destinos);
+
+        TipoEquipo tipoDesechable = tipoEquipoRepository.save(new TipoEquipo(null, "Desechable " + numero, "Prueba"));
+
+        List<PoliticaPrecio> politicas = new ArrayList<>();
+        for (int i = 0; i < FILAS_POR_RONDA; i++) {
+            politicas.add(new PoliticaPrecio("Política " + numero + "-" + i, null, TipoPolitica.DESCUENTO_TEMPORADA,
+                BigDecimal.ONE, hoy.minusMonths(1), hoy.plusYears(1), true, null, null, null,
+                destino, tipo, equipos.get(i)));
+        }
+        politicas = politicaPrecioRepository.saveAll(politicas);
+
+        // Las semillas no pasan por los servicios: se invalidan a mano las instantáneas y el índice espacial
+        eventPublisher.publishEvent(new DestinoModificadoEvent(null));
+        eventPublisher.publishEvent(new TipoEquipoModificadoEvent(null));
+
+        return new Ronda(numero, equipos.get(0).getIdEquipo(), reservas.get(0).getIdReserva(),
+            politicas.get(0).getIdPolitica(), clienteEscritura.getIdCliente(), equipoEscritura.getIdEquipo(),
+            equipoLibre.getIdEquipo(), reservas.get(FILAS_POR_RONDA).getIdReserva(), clientes.get(1).getIdCliente(),
+            clientes.get(2).getIdCliente(), destinos.get(0).getIdDestino(), destinos.get(1).getIdDestino(),
+            equipoDesechable.getIdEquipo(), tipoDesechable.getIdTipo(), politicas.get(1).getIdPolitica(),
+            politicas.get(2).getIdPolitica());
+    }
+
+    private DestinoTuristico nuevoDestino(String nombre, double latitud, double longitud) {
+        DestinoTuristico nuevo = new DestinoTuristico();
+        nuevo.setNombre(nombre);
+        nuevo.setDepartamento("Antioquia");
+        nuevo.setCiudad("Ciudad " + nombre);
+        nuevo.setLatitud(BigDecimal.valueOf(latitud));
+        nuevo.setLongitud(BigDecimal.valueOf(longitud));
+        nuevo.setCapacidadMaxima(100);
+        nuevo.setTipoDestino(TipoDestino.AVENTURA);
+        nuevo.setActivo(true);
+        return nuevo;
+    }
+
+    private Reserva nuevaReserva(Cliente titular, EquipoDeportivo equipo, LocalDate inicio, EstadoReserva estado) {
+        Reserva reserva = new Reserva();
+        reserva.setCliente(titular);
+        reserva.setDestino(destino);
+        reserva.setFechaCreacion(LocalDateTime.now());
+        reserva.setFechaInicio(inicio);
+        reserva.setFechaFin(inicio.plusDays(2));
+        reserva.setEstado(estado);
+        reserva.agregarDetalle(new DetalleReserva(null, reserva, equipo, equipo.getPrecioAlquiler()));
+        reserva.actualizarCalculos(reserva.calcularSubtotal(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        return reserva;
+    }
+}
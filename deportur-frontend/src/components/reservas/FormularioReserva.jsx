@@ -1,6 +1,6 @@
-import { useEffect, useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { useAuth } from '../../hooks/useAuth';
-import { crearReserva, verificarDisponibilidadEquipos } from '../../services';
+import { crearReserva, crearBloqueo, liberarBloqueo, verificarDisponibilidadEquipos } from '../../services';
 import { Button, Input, Spinner, Badge } from '../ui';
 import { BuscarCliente } from '../clientes';
 import { SelectorDestino } from '../destinos';
@@ -23,6 +23,12 @@ export const FormularioReserva = ({ onSuccess, onCancel }) => {
   const [fechaFin, setFechaFin] = useState('');
   const [equipos, setEquipos] = useState([]);
 
+  // Bloqueo temporal de los equipos elegidos mientras se confirma (paso 4)
+  const [bloqueo, setBloqueo] = useState(null);
+  const [isBloqueando, setIsBloqueando] = useState(false);
+  // Clave del envío en curso: un reintento con los mismos datos reutiliza la clave y no duplica la reserva
+  const intentoRef = useRef(null);
+
   const [resumenDisponibilidad, setResumenDisponibilidad] = useState(null);
   const [disponibilidadLoading, setDisponibilidadLoading] = useState(false);
   const [disponibilidadError, setDisponibilidadError] = useState(null);
@@ -130,17 +136,50 @@ export const FormularioReserva = ({ onSuccess, onCancel }) => {
     return true;
   };
 
-  const siguientePaso = () => {
-    if (validarPaso()) {
-      setPaso(paso + 1);
+  const siguientePaso = async () => {
+    if (!validarPaso()) return;
+
+    if (paso === 3) {
+      // Aparta los equipos para que nadie más los reserve mientras se revisa el resumen
+      setIsBloqueando(true);
+      try {
+        const nuevoBloqueo = await crearBloqueo({
+          idCliente: cliente.idCliente,
+          fechaInicio,
+          fechaFin,
+          idsEquipos: equipos.map(item => item.equipo.idEquipo)
+        });
+        setBloqueo(nuevoBloqueo);
+      } catch (err) {
+        setError('No se pudieron apartar los equipos: ' + (err.response?.data?.message || err.response?.data || err.message));
+        return;
+      } finally {
+        setIsBloqueando(false);
+      }
+    }
+    setPaso(paso + 1);
+  };
+
+  const soltarBloqueo = () => {
+    if (bloqueo) {
+      liberarBloqueo(bloqueo.token);
+      setBloqueo(null);
     }
   };
 
   const anteriorPaso = () => {
     setError(null);
+    if (paso === 4) {
+      soltarBloqueo();
+    }
     setPaso(paso - 1);
   };
 
+  const cancelar = () => {
+    soltarBloqueo();
+    if (onCancel) onCancel();
+  };
+
   const handleSubmit = async () => {
     if (!validarPaso()) return;
 
@@ -152,11 +191,19 @@ export const FormularioReserva = ({ onSuccess, onCancel }) => {
       fechaInicio,
       fechaFin,
       idDestino: destino.idDestino,
-      idsEquipos: equipos.map(item => item.equipo.idEquipo)
+      idsEquipos: equipos.map(item => item.equipo.idEquipo),
+      tokenBloqueo: bloqueo?.token
     };
 
+    const datos = JSON.stringify(reservaData);
+    if (intentoRef.current?.datos !== datos) {
+      intentoRef.current = { datos, clave: crypto.randomUUID() };
+    }
+
     try {
-      await crearReserva(reservaData);
+      await crearReserva(reservaData, intentoRef.current.clave);
+      intentoRef.current = null;
+      setBloqueo(null);
       if (onSuccess) onSuccess();
     } catch (err) {
       setError('Error al crear reserva: ' + (err.response?.data?.message || err.message));
@@ -294,6 +341,13 @@ export const FormularioReserva = ({ onSuccess, onCancel }) => {
       {paso === 4 && (
         <div className="space-y-4">
           <h3 className="text-lg font-semibold">Resumen de la Reserva</h3>
+          {bloqueo && (
+            <p className="text-sm text-blue-700">
+              Equipos apartados hasta las{' '}
+              {new Date(bloqueo.expiraEn).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' })}.
+              Confirma antes de esa hora para conservarlos.
+            </p>
+          )}
           <div className="bg-gray-50 rounded-lg p-4 space-y-3">
             <div>
               <p className="text-sm text-gray-600">Cliente</p>
@@ -342,12 +396,12 @@ export const FormularioReserva = ({ onSuccess, onCancel }) => {
         </div>
         <div className="flex gap-2">
           {onCancel && (
-            <Button variant="outline" onClick={onCancel} disabled={isSaving}>
+            <Button variant="outline" onClick={cancelar} disabled={isSaving}>
               Cancelar
             </Button>
           )}
           {paso < 4 ? (
-            <Button variant="primary" onClick={siguientePaso}>
+            <Button variant="primary" onClick={siguientePaso} loading={isBloqueando} disabled={isBloqueando}>
               Siguiente
               <ChevronRight className="h-4 w-4 ml-1" />
             </Button>
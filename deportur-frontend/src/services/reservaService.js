@@ -73,11 +73,13 @@ export const obtenerReservasPorDestino = async (destinoId) => {
  * @param {Array} reservaData.equipos - IDs de equipos a reservar
  * @param {number} reservaData.montoTotal - Monto total de la reserva
  * @param {string} reservaData.estado - Estado de la reserva (PENDIENTE, CONFIRMADA, etc)
+ * @param {string} [idempotencyKey] - Clave del intento; al reintentar con la misma no se crea otra reserva
  * @returns {Promise<Object>} Reserva creada
  */
-export const crearReserva = async (reservaData) => {
+export const crearReserva = async (reservaData, idempotencyKey) => {
   try {
-    const response = await api.post('/reservas', reservaData);
+    const config = idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined;
+    const response = await api.post('/reservas', reservaData, config);
     return response.data;
   } catch (error) {
     console.error('Error al crear reserva:', error);
@@ -166,3 +168,31 @@ export const obtenerHistorialReserva = async (id) => {
     throw error;
   }
 };
+
+/**
+ * Aparta equipos mientras se completa la reserva; el bloqueo caduca solo a los pocos minutos
+ * @param {Object} bloqueoData - idCliente, fechaInicio, fechaFin e idsEquipos
+ * @returns {Promise<Object>} Bloqueo con su token y expiraEn
+ */
+export const crearBloqueo = async (bloqueoData) => {
+  try {
+    const response = await api.post('/reservas/bloqueos', bloqueoData);
+    return response.data;
+  } catch (error) {
+    console.error('Error al apartar equipos:', error);
+    throw error;
+  }
+};
+
+/**
+ * Libera un bloqueo antes de que caduque
+ * @param {string} token - Token del bloqueo
+ */
+export const liberarBloqueo = async (token) => {
+  try {
+    await api.delete(`/reservas/bloqueos/${token}`);
+  } catch (error) {
+    // Si ya caducó no hay nada que liberar
+    console.warn(`No se pudo liberar el bloqueo ${token}:`, error);
+  }
+};
@@ -5,6 +5,10 @@ set -a
 source .env
 set +a
 
+# Respaldo del historial de reservas: obligatorio fuera del perfil dev
+export DEPORTUR_HISTORIAL_RESPALDO_DIR="${DEPORTUR_HISTORIAL_RESPALDO_DIR:-$HOME/.deportur/historial}"
+mkdir -p "$DEPORTUR_HISTORIAL_RESPALDO_DIR"
+
 # Navegar al directorio del backend
 cd deportur-backend
 